@@ -3,25 +3,34 @@ package client;
 import command.AbstractCommand;
 import command.CommandExecutor;
 import command.instance.AuthCommand;
+import common.store.ObjectType;
 import common.store.Sds;
 import common.store.StoreObject;
+import event.EventLoop;
 import event.handler.SendApplyToClientHandler;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import protocol.ReplyType;
 import protocol.RequestParser;
 import protocol.RequestType;
+import protocol.SharedReplies;
+import server.Evict;
 import server.PandisDatabase;
 import server.PandisServer;
+import server.Reactor;
 import utils.SafeEncoder;
+import utils.StringUtil;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
-import java.util.Date;
-import java.util.LinkedList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.Queue;
 
 /**
@@ -34,14 +43,45 @@ public class PandisClient {
 
     // 恢复缓冲区大小（16kb）
     public static final int REPLY_CHUNK_BYTES = 16 * 1024;
+    // 回复链表中未发送数据的硬性上限，超过时客户端被尽快关闭，避免一条命令的回复耗尽内存
+    public static final long REPLY_BYTES_HARD_LIMIT = 512L * 1024 * 1024;
+
+    // 每次从套接字读取数据的长度范围，实际长度根据最近的读取情况在这个范围内自适应调整
+    public static final int IOBUF_MIN_LEN = 16 * 1024;
+    public static final int IOBUF_MAX_LEN = 128 * 1024;
+
+    // 客户端状态标志
+    public static final int CLIENT_CLOSE_ASAP = 1 << 0;        // 客户端需要尽快关闭
+    public static final int CLIENT_PENDING_READ = 1 << 1;      // 客户端在等待IO线程读取和解析数据
+    public static final int CLIENT_PENDING_WRITE = 1 << 2;     // 客户端在反应堆的等待写队列中，等待在beforeSleep中写回复
+    public static final int CLIENT_PENDING_COMMAND = 1 << 3;   // IO线程已经解析出一条完整的命令，等待主线程执行
+    public static final int CLIENT_CLOSE_AFTER_REPLY = 1 << 4; // 回复全部发送之后关闭客户端，比如发生了协议错误
+    public static final int CLIENT_PENDING_INPUT = 1 << 5;     // 本轮处理的命令数达到上限，查询缓冲区中剩余的命令等待在beforeSleep中继续处理
+
+    // 一次处理查询缓冲区时最多执行的命令数量，避免一个客户端的大量流水线命令长时间占用事件循环，其他客户端得不到处理
+    public static final int MAX_COMMANDS_PER_EVENT = 1024;
+
+    private static final StoreObject[] EMPTY_ARGV = new StoreObject[0];
+    private static final byte[] STATUS_PREFIX = SafeEncoder.encode(ReplyType.STATUS_PREFIX);
+    private static final byte[] INTEGER_PREFIX = SafeEncoder.encode(ReplyType.INTEGER_PREFIX);
+    private static final byte[] MULTI_BULK_PREFIX = SafeEncoder.encode(ReplyType.MULTI_BULK_PREFIX);
 
     // 套接字描述符
     private SocketChannel socketChannel;
-    // pandis新增，用来从socketChannel中读取数据
-    private ByteBuffer socketBuffer;
+    // 客户端所属的反应堆，客户端的所有事件都由这个反应堆的事件循环处理
+    private Reactor reactor;
+    // 客户端的地址（ip:port），第一次使用时才生成
+    private String address;
+    // 查询缓冲区空余空间的视图，数据直接从套接字读入查询缓冲区，只有查询缓冲区的底层数组变化时才重新创建
+    private ByteBuffer readBuffer;
+    // 下一次读取的长度，一次读取填满了整个长度就加倍，连续读到的数据很少就减半
+    private int readLen;
 
     // 查询缓冲区
     private Sds queryBuffer;
+    // 查询缓冲区中已经解析到的位置，[0, qbPos)是已经解析过的内容
+    // 一次读取的数据中可能有多条流水线命令，全部处理完之后才统一删除已解析的内容，而不是每条命令移动一次数据
+    private int qbPos;
 
     // 当前正在使用的数据库
     private PandisDatabase database;
@@ -54,8 +94,15 @@ public class PandisClient {
     // 参数数量
     private int argc;
 
-    // 参数对象数组
+    // 参数对象数组，多条查询和内联查询的参数首先以切片的形式记录在argvOffset和argvLen中，需要时才创建参数对象
     private StoreObject[] argv;
+    // 每个参数在查询缓冲区中的起始位置，数组大小按照*N中的参数数量预先分配
+    private int[] argvOffset;
+    // 每个参数的长度
+    private int[] argvLen;
+    // 不在查询缓冲区中的参数所在的字节数组，为null表示参数切片指向查询缓冲区
+    // 大参数会直接接管整个查询缓冲区，查询缓冲区被移动之前，已经解析出的参数也会复制到这里
+    private byte[][] argvBuf;
 
 
 
@@ -78,6 +125,12 @@ public class PandisClient {
      * 服务器要发送给客户端的回复信息，都会先保存在对应客户端对象的回复缓冲区或回复列表中
      * 当客户端的套接字可写时，调用写处理器，将换成的回复信息发送给客户端
      * 回复消息优先缓存在缓冲区数组中，当缓冲区数组空间不足时，则存入队列中
+     *
+     * 回复在加入时就已经编码为字节，队列中的每个元素是一个ByteBuffer块：
+     * [position, limit)是还没有发送的内容，发送了一部分时position后移，下次从这里继续发送；
+     * 服务器自己分配的块在limit之后还有空余空间，后续的小回复直接追加到队尾的块中；
+     * 较大的字符串值以只读视图的形式直接引用Sds的底层数组，不复制
+     * 发送时回复缓冲区和队列中的多个块通过一次聚集写（gathering write）写入套接字
      *******************************************************************************/
     // 回复缓冲区
     private byte [] replyBuffer;
@@ -85,38 +138,47 @@ public class PandisClient {
     private int replyBufferPos;
     // 记录已经发送的数据长度
     private int sentBufferPos;
+    // 回复缓冲区的视图，聚集写时使用
+    private ByteBuffer replyBufferView;
     // 回复缓冲队列
-    private Queue<String> replyQueue;
-    // 已发送字节数，处理 short write 用
-    private int sentLen;            /* Amount of bytes already sent in the current buffer or object being sent. */
-    // 回复链表中对象的总大小
+    private Deque<ByteBuffer> replyQueue;
+    // 回复链表中对象的总大小（未发送的部分）
     private long replyBytes; /* Tot bytes of objects in reply list */
+    // 聚集写使用的缓冲区数组，避免每次写都创建数组
+    private ByteBuffer[] writeVector;
+    // 回复缓冲区放不下时，用来编码整数回复的临时数组
+    private byte[] replyScratch;
+    // 客户端累计回复的错误数量，命令执行前后不一致说明命令执行失败
+    private long errorReplies;
 
     // 服务器内存限制
     public static final int MAX_WRITE_PER_EVENT = 1024 * 64;
+    // 一次聚集写最多包含的缓冲区数量
+    public static final int WRITE_VECTOR_MAX_LEN = 16;
+    // 长度不小于该值的字符串值，回复时直接引用Sds的底层数组，不复制
+    public static final int REPLY_BY_REFERENCE_MIN_BYTES = 1024;
 
     public int getReplyBufferPos() {
         return this.replyBufferPos;
     }
 
 
-    public Queue<String> getReplyQueue() {
+    public Queue<ByteBuffer> getReplyQueue() {
         return this.replyQueue;
     }
 
+    // 创建客户端的时间（毫秒）
+    private long createTime;           /* Client creation time */
 
+    // 客户端最后一次和服务器互动的时间（毫秒）
+    private long lastInteraction; /* time of the last interaction, used for timeout */
 
-    public void setSentLen(int _sentLen) {
-        this.sentLen = _sentLen;
+    public void setLastInteraction(long lastInteraction) {
+        this.lastInteraction = lastInteraction;
     }
-    // 创建客户端的时间
-    private Date createTime;           /* Client creation time */
-
-    // 客户端最后一次和服务器互动的时间
-    private Date lastInteraction; /* time of the last interaction, used for timeout */
 
-    public void setLastInteraction(Date date) {
-        this.lastInteraction = date;
+    public long getLastInteraction() {
+        return this.lastInteraction;
     }
     // 客户端的输出缓冲区超过软性限制的时间
     // private Date oBufSoftLimitReachedTime;
@@ -127,12 +189,24 @@ public class PandisClient {
     public int getFlags() {
         return this.flags;
     }
+
+    public void addFlags(int flags) {
+        this.flags |= flags;
+    }
+
+    public void removeFlags(int flags) {
+        this.flags &= ~flags;
+    }
+
+    public boolean hasFlags(int flags) {
+        return (this.flags & flags) != 0;
+    }
     // 当 server.requirepass 不为 NULL 时
     // 代表认证的状态
     private boolean authenticated;
 
-    // 查询缓冲区长度峰值
-    // private int queryBufPeak;   /* Recent (100ms or more) peak of querybuf size */
+    // 查询缓冲区长度峰值，serverCron会根据峰值收缩查询缓冲区
+    private int queryBufPeak;   /* Recent (100ms or more) peak of querybuf size */
 
     // 复制状态
 //    int replstate;          /* replication state if this is a slave */
@@ -186,6 +260,16 @@ public class PandisClient {
     private PandisClient() {}
 
     public static PandisClient createClient(SocketChannel socketChannel) {
+        return createClient(socketChannel, null);
+    }
+
+    /**
+     * 创建客户端
+     * @param socketChannel 客户端连接
+     * @param reactor 客户端所属的反应堆，为null时使用服务器的主事件循环
+     * @return 客户端对象
+     */
+    public static PandisClient createClient(SocketChannel socketChannel, Reactor reactor) {
         PandisClient ps = new PandisClient();
         // 当 fd 为 true 时，创建带网络连接的客户端
         // 如果 fd 为 false 时 ，那么创建无网络连接的伪客户端
@@ -194,29 +278,39 @@ public class PandisClient {
 
         //初始化属性
         ps.socketChannel = socketChannel;
-        ps.socketBuffer = ByteBuffer.allocate(8);
+        ps.reactor = reactor;
         ps.queryBuffer = Sds.newEmptySds();
+        ps.qbPos = 0;
+        ps.readBuffer = null;
+        ps.readLen = IOBUF_MIN_LEN;
         ps.requestType = RequestType.NONE; // 请求类型，默认为0，表示没有类型
 
         ps.replyBufferPos = 0;
         ps.sentBufferPos = 0;
         ps.replyBuffer = new byte[REPLY_CHUNK_BYTES];
-        ps.replyQueue = new LinkedList<>();
+        ps.replyBufferView = ByteBuffer.wrap(ps.replyBuffer);
+        ps.replyQueue = new ArrayDeque<>();
+        ps.writeVector = new ByteBuffer[WRITE_VECTOR_MAX_LEN];
+        ps.replyScratch = new byte[SharedReplies.LONG_REPLY_MAX_LEN];
 
         // 设置默认数据库
-        // ps.selectDatabase(PandisServer.getInstance().getDatabases().get(0), 0);
+        if (PandisServer.getInstance() != null) {
+            ps.selectDatabase(PandisServer.getInstance().getDatabases()[0], 0);
+        }
 
         ps.authenticated = false;
 
         ps.name = null;
-        // ps.queryBufPeak = 0;
+        ps.queryBufPeak = 0;
         ps.argc = 0;
-        ps.argv = new StoreObject[0];
+        ps.argv = null;
+        ps.argvOffset = new int[0];
+        ps.argvLen = new int[0];
+        ps.argvBuf = new byte[0][];
         ps.multiBulkLen = 0;
         ps.bulkLen = -1;
-        ps.sentLen = 0;
         ps.flags = 0;
-        ps.createTime = ps.lastInteraction = new Date();
+        ps.createTime = ps.lastInteraction = System.currentTimeMillis();
         ps.replyBytes = 0;
         // ps.oBufSoftLimitReachedTime = new Date(0);
         // 如果不是伪客户端，那么添加到服务器的客户端链表中
@@ -235,30 +329,42 @@ public class PandisClient {
      * @return 返回一个int值。返回值为-1表示客户端已经关闭连接，返回值为正数表示读取的字节数，0表示异常情况
      */
     public int readSocketData() {
-
-        int bytesCount = 0;
         try {
-            this.socketBuffer.clear();
-            int byteRead = this.socketChannel.read(this.socketBuffer);
-
-            while (byteRead > 0) {
-                bytesCount += byteRead;
-
-                // 将读取的数据写入查询缓冲区
-                this.socketBuffer.flip();
-                while (this.socketBuffer.hasRemaining()) {
-                    byte [] temp = new byte[this.socketBuffer.remaining()];
-                    this.socketBuffer.get(temp);
-                    this.queryBuffer.cat(temp);
-                }
+            int readLen;
+            int bigArgRemaining = bigArgRemaining();
+            if (bigArgRemaining > 0) {
+                // 正在读取一个大参数，最多只读到参数结尾，解析器已经按参数长度预先分配好了空间，这里只是保证空间足够
+                readLen = bigArgRemaining;
+                this.queryBuffer.expandExact(readLen);
+            } else {
+                readLen = this.readLen;
+                this.queryBuffer.expand(readLen);
+            }
 
-                this.socketBuffer.clear();
-                byteRead = this.socketChannel.read(this.socketBuffer);
-            };
+            // 数据直接读入查询缓冲区的空余空间，每次事件只读一次，不需要再多一次返回0的系统调用
+            byte[] buf = this.queryBuffer.getBufNoCopy();
+            if (this.readBuffer == null || this.readBuffer.array() != buf) {
+                this.readBuffer = ByteBuffer.wrap(buf);
+            }
+            this.readBuffer.limit(this.queryBuffer.getLen() + readLen).position(this.queryBuffer.getLen());
+            int byteRead = this.socketChannel.read(this.readBuffer);
 
             // 正常读取了数据，直接返回
-            if (bytesCount > 0) {
-                return bytesCount;
+            if (byteRead > 0) {
+                this.queryBuffer.incrLen(byteRead);
+                if (bigArgRemaining == 0) {
+                    adjustReadLen(byteRead);
+                }
+
+                this.lastInteraction = System.currentTimeMillis();
+                if (this.queryBuffer.getLen() > this.queryBufPeak) {
+                    this.queryBufPeak = this.queryBuffer.getLen();
+                }
+                // 没有服务器实例时（比如单独测试客户端）不统计
+                if (PandisServer.getInstance() != null) {
+                    PandisServer.getInstance().addStatNetInputBytes(byteRead);
+                }
+                return byteRead;
             }
 
             // 客户端关闭连接，返回-1
@@ -274,101 +380,121 @@ public class PandisClient {
         return 0;
     }
 
+    /**
+     * 根据本次读取的数据量调整下一次读取的长度：
+     * 填满了整个读取长度，说明套接字中很可能还有数据（比如大量流水线命令），下次读取加倍，减少系统调用次数；
+     * 读到的数据不足四分之一，说明流量已经变小，下次读取减半，避免空闲的客户端占用过大的查询缓冲区
+     * @param byteRead 本次读取的字节数
+     */
+    private void adjustReadLen(int byteRead) {
+        if (byteRead == this.readLen) {
+            this.readLen = Math.min(this.readLen << 1, IOBUF_MAX_LEN);
+        } else if (byteRead < this.readLen >> 2) {
+            this.readLen = Math.max(this.readLen >> 1, IOBUF_MIN_LEN);
+        }
+    }
+
+    /**
+     * 计算当前正在读取的大参数还有多少字节没有读入查询缓冲区（包括结尾的\r\n）
+     * @return 剩余字节数，当前没有在读取大参数时返回0
+     */
+    private int bigArgRemaining() {
+        if (this.requestType != RequestType.MULTI_BULK || this.multiBulkLen == 0
+                || this.bulkLen < RequestParser.MBULK_BIG_ARG) {
+            return 0;
+        }
+
+        return Math.max(0, this.qbPos + this.bulkLen + 2 - this.queryBuffer.getLen());
+    }
+
     /**
      * 将缓冲区数据写入客户端对应的SocketChannel  buf->channel
+     * 回复缓冲区和回复队列中的多个块通过一次聚集写写入套接字，没有写完的块记录了发送到的位置，下次从这里继续
      * @return 返回一个int值。返回值为-1表示客户端已经关闭连接，返回值为正数表示写入的字节数，0表示异常情况
      */
     public int writeSocketData() {
-        int totalWrittenNum = 0;
+        long totalWrittenNum = 0;
 
         try {
             // 有回复内容待发
             while (this.replyBufferPos > 0 || !this.replyQueue.isEmpty()) {
-                // 如果缓冲区有数据，则优先发送缓冲区内的数据
+                // 收集等待发送的块：回复缓冲区在前，然后是队列中的块
+                // 聚集写之前NIO会把所有堆内的块完整复制到临时的直接缓冲区，所以只交给套接字本次最多能写的字节数，
+                // 超出部分的块先截短limit，写完之后恢复，否则大回复每次部分写都会重新复制剩下的全部内容
+                long budget = MAX_WRITE_PER_EVENT - totalWrittenNum;
+                int count = 0;
+                long expected = 0;
                 if (this.replyBufferPos > 0) {
-                    // 等待发送的数据先放入socketBuffer
-                    // socketBuffer作为辅助buf
-                    this.socketBuffer.clear();
-
-                    int index = this.sentBufferPos;
-                    while (this.socketBuffer.hasRemaining() && index < this.replyBufferPos) {
-                        this.socketBuffer.put(this.replyBuffer[index++]);
+                    int len = (int) Math.min(this.replyBufferPos - this.sentBufferPos, budget);
+                    this.replyBufferView.limit(this.sentBufferPos + len).position(this.sentBufferPos);
+                    this.writeVector[count++] = this.replyBufferView;
+                    expected += len;
+                }
+                ByteBuffer clipped = null;
+                int clippedLimit = 0;
+                for (ByteBuffer chunk : this.replyQueue) {
+                    if (count == this.writeVector.length || expected >= budget) {
+                        break;
                     }
-
-                    // 接下来通过socketBuffer向channel中写数据
-                    this.socketBuffer.flip();
-
-                    int writtenSum = 0;
-                    int writtenNum = 0;
-                    while (this.socketBuffer.hasRemaining()) {
-                        writtenNum = this.socketChannel.write(this.socketBuffer);
-                        if (writtenNum == 0) {
-                            // 发生错误
-                            break;
-                        }
-
-                        writtenSum += writtenNum;
-                        totalWrittenNum += writtenNum;
+                    if (expected + chunk.remaining() > budget) {
+                        clipped = chunk;
+                        clippedLimit = chunk.limit();
+                        chunk.limit(chunk.position() + (int) (budget - expected));
                     }
+                    this.writeVector[count++] = chunk;
+                    expected += chunk.remaining();
+                }
 
-                    this.sentBufferPos += writtenSum;
+                long writtenNum;
+                try {
+                    writtenNum = this.socketChannel.write(this.writeVector, 0, count);
+                } finally {
+                    Arrays.fill(this.writeVector, 0, count, null);
+                    if (clipped != null) {
+                        clipped.limit(clippedLimit);
+                    }
+                }
+                totalWrittenNum += writtenNum;
 
+                int bufferWritten = 0;
+                if (this.replyBufferPos > 0) {
+                    bufferWritten = this.replyBufferView.position() - this.sentBufferPos;
+                    this.sentBufferPos = this.replyBufferView.position();
+                    // 回复缓冲区已经全部发送，从头开始使用
                     if (this.sentBufferPos == this.replyBufferPos) {
                         this.replyBufferPos = 0;
                         this.sentBufferPos = 0;
                     }
-                } else {
-                    // 操作字符串队列
-                    String headMessage = this.replyQueue.peek();
-                    byte [] messageByte = SafeEncoder.encode(headMessage);
-                    int messageLength = messageByte.length;
-
-                    if (messageLength == 0) {
-                        this.replyQueue.poll();
-                        continue;
-                    }
+                }
+                this.replyBytes -= writtenNum - bufferWritten;
 
-                    // 将需要写入的数据先写入辅助buf 通过buf写入到channel
-                    this.socketBuffer.clear();
-
-                    int index = 0;
-                    while (index < messageLength) {
-                        while (this.socketBuffer.hasRemaining() && index < messageLength) {
-                            this.socketBuffer.put(messageByte[index++]);
-                        }
-
-                        this.socketBuffer.flip();
-
-                        int writtenSum = 0;
-                        int writtenNum = 0;
-                        while (this.socketBuffer.hasRemaining()) {
-                            writtenNum = this.socketChannel.write(this.socketBuffer);
-                            if (writtenNum == 0) {
-                                // 发生错误
-                                break;
-                            }
-
-                            writtenSum += writtenNum;
-                            totalWrittenNum += writtenNum;
-                        }
-                    }
+                // 删除已经全部发送的块，没写完的块的position记录了发送到的位置
+                while (!this.replyQueue.isEmpty() && !this.replyQueue.peekFirst().hasRemaining()) {
+                    this.replyQueue.pollFirst();
+                }
 
-                    this.replyQueue.poll();
+                // 没有全部写出，说明套接字发送缓冲区已满
+                if (writtenNum < expected) {
+                    break;
                 }
 
                 /**
                  * 为了避免一个非常大的回复独占服务器，
-                 * 当写入的总数量大于 PANDIS_MAX_WRITE_PER_EVENT
+                 * 当写入的总数量达到 MAX_WRITE_PER_EVENT
                  * 临时中断写入，将处理时间让给其他客户端，
                  * 剩余的内容等下次写入就绪再继续写入
                  */
-                if (totalWrittenNum > MAX_WRITE_PER_EVENT) {
+                if (totalWrittenNum >= MAX_WRITE_PER_EVENT) {
                     break;
                 }
             }
 
             if(totalWrittenNum > 0) {
-                return totalWrittenNum;
+                // 没有服务器实例时（比如单独测试客户端）不统计
+                if (PandisServer.getInstance() != null) {
+                    PandisServer.getInstance().addStatNetOutputBytes(totalWrittenNum);
+                }
+                return (int) totalWrittenNum;
             }
         } catch (IOException e) {
             logger.error("Write to SocketChannel error", e);
@@ -382,16 +508,37 @@ public class PandisClient {
      * 处理查询缓冲区的数据
      */
     public void processInputBuffer() {
-        while (!this.queryBuffer.isEmpty()) {
+        processInputBuffer(false);
+    }
+
+    /**
+     * 处理查询缓冲区的数据，每解析出一条完整的命令就执行它
+     * 在IO线程中调用时，只解析出一条命令，打上CLIENT_PENDING_COMMAND标志后返回，命令留给主线程执行
+     * 一次最多执行MAX_COMMANDS_PER_EVENT条命令，超出时客户端加入反应堆的等待处理队列，参见Reactor.handleClientsWithPendingInput()
+     * @param inIOThread 是否在IO线程中调用
+     */
+    public void processInputBuffer(boolean inIOThread) {
+        int commands = 0;
+        while (this.qbPos < this.queryBuffer.getLen()) {
             // 这里可能需要对客户端的各种状态进行判断
             // todo
 
+            // 上一条命令还没有被主线程执行，不能继续解析
+            if (hasFlags(CLIENT_PENDING_COMMAND)) {
+                break;
+            }
+
+            // 发生了协议错误或者回复超过了上限，客户端即将被关闭，不再处理它发来的数据
+            if (hasFlags(CLIENT_CLOSE_AFTER_REPLY | CLIENT_CLOSE_ASAP)) {
+                break;
+            }
+
             // 判断请求的类型
             // 两种类型的区别可以在 Redis 的通讯协议上查到：
             // 简单来说，多条查询是一般客户端发送来的，
             // 而内联查询则是 TELNET 发送来的
             if (this.requestType == RequestType.NONE) {
-                if (this.queryBuffer.charAt(0) == RequestType.MULTI_BULK_PREFIX) {
+                if (this.queryBuffer.charAt(this.qbPos) == RequestType.MULTI_BULK_PREFIX) {
                     // 多条查询
                     this.requestType = RequestType.MULTI_BULK;
                 } else {
@@ -412,7 +559,85 @@ public class PandisClient {
             } else {
                 logger.error("Unknow request type");
             }
+
+            if (this.argc == 0) {
+                // 空命令，直接重置客户端
+                resetClient();
+            } else if (inIOThread) {
+                // 在IO线程中不能执行命令，交给主线程
+                addFlags(CLIENT_PENDING_COMMAND);
+                break;
+            } else {
+                processCommandAndResetClient();
+
+                // 流水线中的命令很多时，执行一定数量之后让出事件循环，剩下的命令留到beforeSleep中继续执行
+                // 这批命令的回复都已经在回复缓冲区中，进入select之前会一起写出
+                if (++commands >= MAX_COMMANDS_PER_EVENT && this.reactor != null
+                        && this.qbPos < this.queryBuffer.getLen()) {
+                    if (!hasFlags(CLIENT_PENDING_INPUT)) {
+                        addFlags(CLIENT_PENDING_INPUT);
+                        this.reactor.addClientPendingInput(this);
+                    }
+                    break;
+                }
+            }
+        }
+
+        // 已解析的命令都执行完之后，一次性删除查询缓冲区中已解析的内容
+        // 还有命令等待主线程执行时，它的参数切片还指向查询缓冲区，不能移动数据
+        if (this.qbPos > 0 && !hasFlags(CLIENT_PENDING_COMMAND)) {
+            trimQueryBuffer();
+        }
+    }
+
+    /**
+     * 删除查询缓冲区中已经解析过的内容
+     * 如果有一条多条查询只解析了一部分参数，那么保留这些参数的内容，并相应地调整参数切片的位置
+     */
+    private void trimQueryBuffer() {
+        int start = this.qbPos;
+        if (this.argv == null) {
+            for (int i = 0; i < this.argc; i++) {
+                if (this.argvBuf[i] == null && this.argvOffset[i] < start) {
+                    start = this.argvOffset[i];
+                }
+            }
+        }
+
+        if (start == 0) {
+            return;
+        }
+
+        this.queryBuffer.cut(start, this.queryBuffer.getLen());
+        for (int i = 0; i < this.argc; i++) {
+            if (this.argvBuf[i] == null) {
+                this.argvOffset[i] -= start;
+            }
         }
+        this.qbPos -= start;
+    }
+
+    /**
+     * 执行解析出的命令，然后重置客户端的命令状态，准备解析下一条命令
+     */
+    public void processCommandAndResetClient() {
+        processCommand();
+        resetClient();
+    }
+
+    /**
+     * 重置客户端的命令状态，准备解析下一条命令
+     */
+    public void resetClient() {
+        this.requestType = RequestType.NONE;
+        // 释放大参数接管的缓冲区
+        for (int i = 0; i < this.argc && i < this.argvBuf.length; i++) {
+            this.argvBuf[i] = null;
+        }
+        this.argc = 0;
+        this.argv = null;
+        this.multiBulkLen = 0;
+        this.bulkLen = -1;
     }
 
     /**
@@ -435,15 +660,16 @@ public class PandisClient {
         // 如果找不到相应的命令实现，服务器不再执行后续步骤，并向客户端返回一个错误。
         // (2)根据命令名称获得的命令实现，可以获得该命令arity属性，
         // 检查命令请求所给定的参数个数是否正确，当参数个数不正确时，不再执行后续步骤，直接向客户端返回一个错误。
-        String commandName = argv[0].getObj().toString();
-        AbstractCommand command = CommandExecutor.lookupCommand(commandName);
+        // 直接用参数切片的字节查找命令，不需要创建命令名字符串
+        AbstractCommand command = CommandExecutor.lookupCommand(getArgvBuffer(0), this.argvOffset[0], this.argvLen[0]);
         if (command == null) {
             // 没找到命令
-            // 回复错误信息
+            addReplyError("unknown command `" + getArgv()[0].getObj().toString() + "`");
             return;
         } else if ((!command.isGreaterThanArity() && command.getArity() != argc) || argc < command.getArity()) {
             // 参数个数错误
-            // 回复错误信息
+            rejectCommand(command);
+            addReplyError("wrong number of arguments for '" + command.getName() + "' command");
             return;
         }
 
@@ -453,15 +679,39 @@ public class PandisClient {
         if (PandisServer.getInstance().getServerConfig().getRequirePassword() != null
             && !this.authenticated
             && ! (command instanceof AuthCommand)) {
-            // 回复错误信息
+            rejectCommand(command);
+            addReplyError(SharedReplies.NO_AUTH_ERR);
             return;
         }
 
-        // (4) [暂时不实现]
-        // 如果服务器打开了maxmemory功能，
-        // 那么在执行命令之前，先检查服务器的内存占用情况，并在有需要时进行内存回收，从而使得接下来的命令可以顺利执行。
-        // 如果内存回收失败，那么不再执行后续步骤，向客户端返回一个错误。
+        // 以下的检查和命令的执行都需要访问数据库，多反应堆模式下需要串行地执行
+        PandisServer server = PandisServer.getInstance();
+        server.acquireCommandLock();
+        try {
+            // (4)
+            // 如果服务器打开了maxmemory功能，
+            // 那么在执行命令之前，先检查服务器的内存占用情况，并在有需要时进行内存回收，从而使得接下来的命令可以顺利执行。
+            // 如果内存回收失败，并且命令可能会占用更多内存，那么不再执行后续步骤，向客户端返回一个错误。
+            if (server.getServerConfig().getMaxmemory() > 0) {
+                boolean outOfMemory = server.getEvict().performEvictions() == Evict.EVICT_FAIL;
+                if (outOfMemory && command.hasFlag(AbstractCommand.CMD_DENYOOM)) {
+                    command.incrRejectedCalls();
+                    addReplyError(SharedReplies.OOM_ERR);
+                    return;
+                }
+            }
 
+            executeCommand(command);
+        } finally {
+            server.releaseCommandLock();
+        }
+    }
+
+    /**
+     * 完成执行命令之前剩下的检查，然后执行命令，调用时已经持有命令锁
+     * @param command 命令
+     */
+    private void executeCommand(AbstractCommand command) {
         // (5) [暂时不实现]
         // 如果服务器上一次执行BGSAVE命令时出错，
         // 并且服务器打开了stop-writes-on-bgsaveerror功能，
@@ -487,7 +737,22 @@ public class PandisClient {
         // [暂时不实现] 判断是否是事务模式，如果是就将命令加入队列中
         // 否则直接执行
 
-        CommandExecutor.execute(command);
+        CommandExecutor.execute(command, this);
+        PandisServer.getInstance().incrStatNumCommands();
+    }
+
+    /**
+     * 记录一次被拒绝的命令执行，统计数据只在持有命令锁时更新
+     * @param command 被拒绝的命令
+     */
+    private void rejectCommand(AbstractCommand command) {
+        PandisServer server = PandisServer.getInstance();
+        server.acquireCommandLock();
+        try {
+            command.incrRejectedCalls();
+        } finally {
+            server.releaseCommandLock();
+        }
     }
 
     /*******************************************************************************
@@ -526,37 +791,198 @@ public class PandisClient {
             return false;
         }
 
-        // 一般情况，为客户端套接字安装写处理器到事件循环
-        PandisServer
-            .getInstance()
-            .getEventLoop()
-            .registerFileEvent(this.socketChannel,
-                                SelectionKey.OP_WRITE,
-                                SendApplyToClientHandler.getHandler(),
-                                this);
+        // 客户端即将被关闭，不再追加回复
+        if (hasFlags(CLIENT_CLOSE_ASAP)) {
+            return false;
+        }
+
+        // 客户端正在由IO线程读取和解析数据，此时不能在IO线程中访问反应堆，
+        // 主线程在IO线程处理完之后会为有回复的客户端安装写处理器
+        if (hasFlags(CLIENT_PENDING_READ)) {
+            return true;
+        }
+
+        // 已经有待发送的回复，说明客户端已经在等待写的队列中或者已经监听了写事件，不需要重复安装
+        if (isReplyEmpty()) {
+            installWriteHandler();
+        }
         return true;
     }
 
     /**
-     * 判断是否还有没有发送的回复数据
-     * @return
+     * 为客户端安装写处理器
+     * 客户端并不立即监听写事件，而是加入所属反应堆的等待写队列，由反应堆在进入select之前直接写出回复，
+     * 只有回复没能一次写完时才监听写事件，参见Reactor.handleClientsWithPendingWrites()
+     */
+    public void installWriteHandler() {
+        if (hasFlags(CLIENT_PENDING_WRITE)) {
+            return;
+        }
+
+        if (this.reactor == null) {
+            // 不属于任何反应堆的客户端没有等待写队列，直接监听写事件
+            // 没有服务器实例时（比如单独测试客户端）也就没有事件循环，由调用者直接写出回复
+            EventLoop eventLoop = getEventLoop();
+            if (eventLoop != null) {
+                eventLoop.registerFileEvent(this.socketChannel,
+                                    SelectionKey.OP_WRITE,
+                                    SendApplyToClientHandler.getHandler(),
+                                    this);
+            }
+            return;
+        }
+
+        addFlags(CLIENT_PENDING_WRITE);
+        this.reactor.addClientPendingWrite(this);
+    }
+
+    /**
+     * 检查回复链表是否超过了REPLY_BYTES_HARD_LIMIT，超过时标记客户端尽快关闭，之后的回复都会被丢弃
+     * 回复可能很大的命令在生成回复的循环中调用，超过上限之后不再继续生成
+     * @return 超过上限返回true
+     */
+    public boolean checkReplyBytesLimit() {
+        if (hasFlags(CLIENT_CLOSE_ASAP)) {
+            return true;
+        }
+        if (this.replyBytes <= REPLY_BYTES_HARD_LIMIT) {
+            return false;
+        }
+
+        logger.warn("Client scheduled to be closed ASAP for overcoming of output buffer limits, reply bytes " + this.replyBytes);
+        addFlags(CLIENT_CLOSE_ASAP);
+        return true;
+    }
+
+    /**
+     * 判断回复数据是否已经全部发送
+     * @return 没有待发送的回复数据时返回true
      */
     public boolean isReplyEmpty() {
         if (this.replyBufferPos > 0 || !this.replyQueue.isEmpty()) {
-            return true;
+            return false;
         }
 
-        return false;
+        return true;
     }
     /**
-     * [待完善]
      * 向回复缓冲区写入指定类型的消息
+     * 前缀、长度头和结尾的\r\n都使用预先编码好的共享回复，只有消息本身需要编码
      * @param replyType 回复类型
      * @param message 消息
      */
     public void addReply(ReplyType replyType, String message) {
-        String reply = replyType.buildReplyByTemplate(message);
-        addReply(reply);
+        switch (replyType) {
+            case NIL:
+                addReply(SharedReplies.NULL_BULK);
+                return;
+            case ERROR:
+                addReplyError(message);
+                return;
+            case BULK:
+                byte[] bytes = SafeEncoder.encode(message);
+                addReplyBulkLen(bytes.length);
+                addReply(bytes);
+                break;
+            case STATUS:
+                addReply(STATUS_PREFIX);
+                addReply(SafeEncoder.encode(message));
+                break;
+            case INTEGER:
+                addReply(INTEGER_PREFIX);
+                addReply(SafeEncoder.encode(message));
+                break;
+            case MULTI_BULK:
+                addReply(MULTI_BULK_PREFIX);
+                addReply(SafeEncoder.encode(message));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown reply type " + replyType);
+        }
+        addReply(SharedReplies.CRLF);
+    }
+
+    /**
+     * 回复错误信息：-ERR message\r\n
+     * @param message 错误信息
+     */
+    public void addReplyError(String message) {
+        this.errorReplies++;
+        addReply(SharedReplies.ERR_PREFIX);
+        addReply(SafeEncoder.encode(message));
+        addReply(SharedReplies.CRLF);
+    }
+
+    /**
+     * 回复预先编码好的共享错误信息，比如 SharedReplies.WRONG_TYPE_ERR
+     * @param sharedError 完整的错误回复，包括前缀和结尾的\r\n
+     */
+    public void addReplyError(byte[] sharedError) {
+        this.errorReplies++;
+        addReply(sharedError);
+    }
+
+    /**
+     * 获取客户端累计回复的错误数量，用于判断命令执行是否失败
+     * @return 错误回复的数量
+     */
+    public long getErrorReplies() {
+        return this.errorReplies;
+    }
+
+    /**
+     * 回复一个整数：:value\r\n
+     * @param value 整数值
+     */
+    public void addReplyLongLong(long value) {
+        if (value == 0) {
+            addReply(SharedReplies.CZERO);
+        } else if (value == 1) {
+            addReply(SharedReplies.CONE);
+        } else {
+            addReplyLongLongWithPrefix((byte) ':', value);
+        }
+    }
+
+    /**
+     * 回复字符串的长度头：$length\r\n
+     * @param length 字符串长度
+     */
+    public void addReplyBulkLen(long length) {
+        addReplyLongLongWithPrefix((byte) '$', length);
+    }
+
+    /**
+     * 回复多条回复的长度头：*length\r\n
+     * @param length 回复的元素数量
+     */
+    public void addReplyMultiBulkLen(long length) {
+        addReplyLongLongWithPrefix((byte) '*', length);
+    }
+
+    /**
+     * 回复带前缀的long：较小的值使用预先编码好的共享回复，其他值直接编码到回复缓冲区中，不创建任何对象
+     * @param prefix 前缀
+     * @param value 长度或整数值
+     */
+    private void addReplyLongLongWithPrefix(byte prefix, long value) {
+        byte[] shared = SharedReplies.sharedLongReply(prefix, value);
+        if (shared != null) {
+            addReply(shared);
+            return;
+        }
+
+        if (!prepareClientToWrite()) {
+            return;
+        }
+
+        if (this.replyQueue.isEmpty() && this.replyBuffer.length - this.replyBufferPos >= SharedReplies.LONG_REPLY_MAX_LEN) {
+            this.replyBufferPos += SharedReplies.encodeLongReply(prefix, value, this.replyBuffer, this.replyBufferPos);
+        } else {
+            // 回复缓冲区放不下，先编码到客户端自己的临时数组中，再复制到回复队列
+            int length = SharedReplies.encodeLongReply(prefix, value, this.replyScratch, 0);
+            addReplyToQueue(this.replyScratch, 0, length);
+        }
     }
 
     /**
@@ -564,62 +990,130 @@ public class PandisClient {
      * @param message
      */
     public void addReply(String message) {
+        addReply(SafeEncoder.encode(message));
+    }
+
+    /**
+     * 将已经编码好的回复数据写入到客户端的回复缓冲区或者回复队列中，数据会被复制
+     * @param bytes 回复数据
+     */
+    public void addReply(byte[] bytes) {
+        addReply(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 将已经编码好的回复数据写入到客户端的回复缓冲区或者回复队列中，数据会被复制
+     * @param bytes 字节数组
+     * @param offset 回复数据的起始位置
+     * @param length 回复数据的长度
+     */
+    public void addReply(byte[] bytes, int offset, int length) {
         // 为客户端注册写处理器到事件循环中
         if (!prepareClientToWrite()) {
             return;
         }
 
         // 将回复消息写入客户端缓冲区或缓冲队列
-        if (!addReplyToBuffer(message)) {
-            addReplyToQueue(message);
+        if (!addReplyToBuffer(bytes, offset, length)) {
+            addReplyToQueue(bytes, offset, length);
+        }
+    }
+
+    /**
+     * 以字符串回复（$len\r\n...\r\n）的形式回复一个Sds
+     * 较长的值不复制到回复缓冲区，而是在回复队列中直接引用Sds的底层数组，
+     * 因此在回复发送完之前，调用者需要保证这个Sds不会被原地修改
+     * @param value 字符串值
+     */
+    public void addReplyBulk(Sds value) {
+        int length = value.getLen();
+        addReplyBulkLen(length);
+
+        if (length < REPLY_BY_REFERENCE_MIN_BYTES) {
+            if (length > 0) {
+                addReply(value.getBufNoCopy(), 0, length);
+            }
+        } else if (prepareClientToWrite()) {
+            this.replyQueue.addLast(ByteBuffer.wrap(value.getBufNoCopy(), 0, length).asReadOnlyBuffer());
+            this.replyBytes += length;
         }
+
+        addReply(SharedReplies.CRLF);
+    }
+
+    /**
+     * 以字符串回复（$len\r\n...\r\n）的形式回复字节数组中的一段数据，数据会被复制
+     * @param bytes 字节数组
+     * @param offset 数据的起始位置
+     * @param length 数据的长度
+     */
+    public void addReplyBulk(byte[] bytes, int offset, int length) {
+        addReplyBulkLen(length);
+        if (length > 0) {
+            addReply(bytes, offset, length);
+        }
+        addReply(SharedReplies.CRLF);
     }
 
     /**
      * 将回复信息缓存到客户端的回复缓冲区中
-     * @param message 回复信息
      * @return 写入是否成功
      */
-    private boolean addReplyToBuffer(String message) {
+    private boolean addReplyToBuffer(byte[] bytes, int offset, int length) {
         // 计算回复缓冲区空余空间
-        long avalible = this.replyBuffer.length - this.replyBufferPos;
+        int avalible = this.replyBuffer.length - this.replyBufferPos;
 
         // 计算客户端状态
         // 如果正准备关闭客户端，无须再发送内容
         // TODO
 
         // 如果回复链表里已经有内容，再添加内容到回复缓冲区里面就是错误了
-        if (this.replyQueue.size() > 0) {
+        if (!this.replyQueue.isEmpty()) {
             return false;
         }
 
         // 回复缓冲区的空间必须满足
-        if (message.length() > avalible) {
+        if (length > avalible) {
             return false;
         }
 
-        // 复制message到回复缓冲区里面
-        byte [] byteMessage = SafeEncoder.encode(message);
-        System.arraycopy(byteMessage, 0, this.replyBuffer, this.replyBufferPos, byteMessage.length);
-        this.replyBufferPos += byteMessage.length;
+        // 复制回复到回复缓冲区里面
+        System.arraycopy(bytes, offset, this.replyBuffer, this.replyBufferPos, length);
+        this.replyBufferPos += length;
 
         return true;
     }
 
     /**
      * 将回复消息写入回复缓冲队列
-     * @param message
+     * 优先填满队尾块的空余空间，剩下的内容放入新分配的块中，块的大小至少为REPLY_CHUNK_BYTES
      */
-    private void addReplyToQueue(String message) {
+    private void addReplyToQueue(byte[] bytes, int offset, int length) {
         // 计算客户端状态
         // 如果正准备关闭客户端，无须再发送内容
         // TODO
 
-        this.replyQueue.add(message);
+        this.replyBytes += length;
+
+        // 引用Sds的只读块不能追加内容
+        ByteBuffer tail = this.replyQueue.peekLast();
+        if (tail != null && !tail.isReadOnly()) {
+            int copy = Math.min(tail.capacity() - tail.limit(), length);
+            if (copy > 0) {
+                System.arraycopy(bytes, offset, tail.array(), tail.limit(), copy);
+                tail.limit(tail.limit() + copy);
+                offset += copy;
+                length -= copy;
+            }
+        }
+
+        if (length > 0) {
+            ByteBuffer chunk = ByteBuffer.allocate(Math.max(REPLY_CHUNK_BYTES, length));
+            chunk.put(bytes, offset, length);
+            chunk.flip();
+            this.replyQueue.addLast(chunk);
+        }
     }
-//    public boolean addReply(String) {
-//
-//    }
 
     /**
      * 销毁客户端，清理资源
@@ -646,8 +1140,29 @@ public class PandisClient {
         this.databaseId = id;
     }
 
-    public ByteBuffer getSocketBuffer() {
-        return this.socketBuffer;
+    public PandisDatabase getDatabase() {
+        return this.database;
+    }
+
+    public void setAuthenticated(boolean authenticated) {
+        this.authenticated = authenticated;
+    }
+
+    public Reactor getReactor() {
+        return this.reactor;
+    }
+
+    /**
+     * 获取处理该客户端事件的事件循环
+     * @return 所属反应堆的事件循环，不属于任何反应堆时返回服务器的主事件循环，没有服务器实例时返回null
+     */
+    public EventLoop getEventLoop() {
+        if (this.reactor != null) {
+            return this.reactor.getEventLoop();
+        }
+
+        PandisServer server = PandisServer.getInstance();
+        return server == null ? null : server.getEventLoop();
     }
 
     public SocketChannel getSocketChannel() {
@@ -658,16 +1173,98 @@ public class PandisClient {
         return queryBuffer;
     }
 
+    public int getQueryBufPeak() {
+        return this.queryBufPeak;
+    }
+
+    public void setQueryBufPeak(int queryBufPeak) {
+        this.queryBufPeak = queryBufPeak;
+    }
+
     public void setArgc(int argc) {
         this.argc = argc;
     }
 
-    public void setArgv(StoreObject[] argv) {
-        this.argv = argv;
+    public int getArgc() {
+        return this.argc;
+    }
+
+    /**
+     * 为一条新的多条查询准备参数切片数组，只在参数数量超过已有数组大小时才重新分配
+     * @param multiBulkLen *N中的参数数量
+     */
+    public void prepareArgv(int multiBulkLen) {
+        if (this.argvOffset.length < multiBulkLen) {
+            this.argvOffset = new int[multiBulkLen];
+            this.argvLen = new int[multiBulkLen];
+            this.argvBuf = new byte[multiBulkLen][];
+        }
+        this.argc = 0;
+        this.argv = null;
+    }
+
+    /**
+     * 记录一个参数在查询缓冲区中的切片
+     * @param offset 参数在查询缓冲区中的起始位置
+     * @param length 参数长度
+     */
+    public void addArgvSlice(int offset, int length) {
+        // 内联查询事先不知道参数数量，切片数组不够时扩容
+        if (this.argc == this.argvOffset.length) {
+            int size = Math.max(4, this.argc << 1);
+            this.argvOffset = Arrays.copyOf(this.argvOffset, size);
+            this.argvLen = Arrays.copyOf(this.argvLen, size);
+            this.argvBuf = Arrays.copyOf(this.argvBuf, size);
+        }
+        this.argvOffset[this.argc] = offset;
+        this.argvLen[this.argc] = length;
+        this.argc++;
+    }
+
+    /**
+     * 查询缓冲区中正好只有一个完整的大参数（参数内容加\r\n）时，直接把查询缓冲区作为这个参数，不复制数据
+     * 客户端换用一个新的查询缓冲区，大小与这个参数相同：发送过大参数的客户端，接下来很可能还会发送大参数
+     * @param length 参数长度
+     */
+    public void adoptQueryBufferAsArgv(int length) {
+        this.argvBuf[this.argc] = this.queryBuffer.getBufNoCopy();
+        this.argvOffset[this.argc] = 0;
+        this.argvLen[this.argc] = length;
+        this.argc++;
+
+        setQueryBuffer(Sds.createSds(length + 2, null));
+    }
+
+    /**
+     * 将当前命令中还指向查询缓冲区的参数切片复制出来，之后查询缓冲区的内容就可以移动了
+     * 只在读取大参数之前调用，这时已经解析出的参数通常都是命令名、键名这样的小参数
+     */
+    public void detachArgvSlices() {
+        if (this.argv != null) {
+            return;
+        }
+
+        byte[] buf = this.queryBuffer.getBufNoCopy();
+        for (int i = 0; i < this.argc; i++) {
+            if (this.argvBuf[i] == null) {
+                int offset = this.argvOffset[i];
+                this.argvBuf[i] = Arrays.copyOfRange(buf, offset, offset + this.argvLen[i]);
+                this.argvOffset[i] = 0;
+            }
+        }
+    }
+
+    public int getQueryBufferPos() {
+        return this.qbPos;
+    }
+
+    public void setQueryBufferPos(int qbPos) {
+        this.qbPos = qbPos;
     }
 
     public void setQueryBuffer(Sds queryBuffer) {
         this.queryBuffer = queryBuffer;
+        this.qbPos = 0;
     }
 
     public int getMultiBulkLen() {
@@ -686,8 +1283,103 @@ public class PandisClient {
         this.bulkLen = bulkLen;
     }
 
+    /**
+     * 获取参数对象数组
+     * 参数在解析时只记录了切片，第一次获取时才从查询缓冲区复制出参数对象
+     * @return 参数对象数组
+     */
     public StoreObject[] getArgv() {
-        return argv;
+        if (this.argv == null) {
+            if (this.argc == 0) {
+                return EMPTY_ARGV;
+            }
+
+            byte[] buf = this.queryBuffer.getBufNoCopy();
+            StoreObject[] objects = new StoreObject[this.argc];
+            for (int i = 0; i < this.argc; i++) {
+                Sds arg;
+                if (this.argvBuf[i] != null) {
+                    // 参数独占一个字节数组，直接使用，不复制
+                    arg = Sds.wrap(this.argvBuf[i], this.argvLen[i]);
+                } else {
+                    arg = Sds.createSds(buf, this.argvOffset[i], this.argvLen[i]);
+                }
+                objects[i] = new StoreObject(ObjectType.STRING, arg);
+            }
+            this.argv = objects;
+        }
+
+        return this.argv;
+    }
+
+    /**
+     * 获取单个参数的Sds，只复制这一个参数的切片，不会为其余参数创建对象
+     * 参数对象数组已经创建时直接返回其中的Sds
+     * @param index 参数下标
+     * @return 参数的Sds
+     */
+    public Sds getArgvSds(int index) {
+        if (this.argv != null) {
+            return (Sds) this.argv[index].getObj();
+        }
+
+        if (this.argvBuf[index] != null) {
+            return Sds.wrap(this.argvBuf[index], this.argvLen[index]);
+        }
+        return Sds.createSds(this.queryBuffer.getBufNoCopy(), this.argvOffset[index], this.argvLen[index]);
+    }
+
+    /**
+     * 获取参数所在的字节数组，与getArgvOffset()、getArgvLength()一起使用，可以不创建参数对象直接读取参数
+     * @param index 参数下标
+     * @return 参数独占的字节数组，或者查询缓冲区的底层数组
+     */
+    public byte[] getArgvBuffer(int index) {
+        byte[] buf = this.argvBuf[index];
+        return buf != null ? buf : this.queryBuffer.getBufNoCopy();
+    }
+
+    public int getArgvOffset(int index) {
+        return this.argvOffset[index];
+    }
+
+    public int getArgvLength(int index) {
+        return this.argvLen[index];
+    }
+
+    /**
+     * 直接从参数切片中解析整数，不创建参数对象
+     * @param index 参数下标
+     * @return 解析出的整数
+     * @throws NumberFormatException 参数不是一个合法的整数
+     */
+    public long getArgvLong(int index) {
+        int offset = this.argvOffset[index];
+        return StringUtil.parseLong(getArgvBuffer(index), offset, offset + this.argvLen[index]);
+    }
+
+    /**
+     * 获取客户端的地址
+     * @return ip:port，伪客户端或者获取失败时返回空字符串
+     */
+    public String getAddress() {
+        if (this.address == null) {
+            String address = "";
+            if (this.socketChannel != null) {
+                try {
+                    SocketAddress remote = this.socketChannel.getRemoteAddress();
+                    if (remote instanceof InetSocketAddress) {
+                        InetSocketAddress inet = (InetSocketAddress) remote;
+                        address = inet.getAddress().getHostAddress() + ":" + inet.getPort();
+                    }
+                } catch (IOException e) {
+                    // 连接已经关闭，地址留空
+                }
+            }
+            this.address = address;
+        }
+
+        return this.address;
     }
 
 }
@@ -1,5 +1,7 @@
 package command;
 
+import utils.SafeEncoder;
+
 /**
  * @Description Command接口的骨架实现，具体Command实现都应该继承该骨架实现
  * @Author huzihan
@@ -7,8 +9,25 @@ package command;
  */
 public abstract class AbstractCommand implements Command{
 
+    // 命令的属性，由stringFlags中的字符解析得到，与Redis的命令标志对应
+    public static final int CMD_WRITE = 1 << 0;          // "w" 写入命令，可能会修改数据库
+    public static final int CMD_READONLY = 1 << 1;       // "r" 只读命令，不会修改数据库
+    public static final int CMD_DENYOOM = 1 << 2;        // "m" 可能会占用大量内存，内存不足时拒绝执行
+    public static final int CMD_ADMIN = 1 << 3;          // "a" 管理命令，比如 SAVE、SHUTDOWN
+    public static final int CMD_PUBSUB = 1 << 4;         // "p" 发布与订阅相关的命令
+    public static final int CMD_NOSCRIPT = 1 << 5;       // "s" 不允许在脚本中使用
+    public static final int CMD_RANDOM = 1 << 6;         // "R" 随机命令，相同的参数和数据可能得到不同的结果
+    public static final int CMD_SORT_FOR_SCRIPT = 1 << 7; // "S" 在脚本中使用时，需要对输出结果排序
+    public static final int CMD_LOADING = 1 << 8;        // "l" 可以在服务器载入数据时使用
+    public static final int CMD_STALE = 1 << 9;          // "t" 从服务器带有过期数据时仍然可以执行
+    public static final int CMD_SKIP_MONITOR = 1 << 10;  // "M" 不会被自动传播给监视器
+    public static final int CMD_ASKING = 1 << 11;        // "k" 集群模式下，为这个命令执行一次隐式的ASKING
+    public static final int CMD_FAST = 1 << 12;          // "F" 快速命令，时间复杂度为O(1)或O(log(N))
+
     // 命令名字
     private String name;
+    // 小写的命令名字，查找命令时直接与参数的字节比较
+    private final byte[] nameBytes;
     // 参数个数
     private int arity;
     // 表示参数数量是否 >= arity的值
@@ -18,12 +37,50 @@ public abstract class AbstractCommand implements Command{
     // 实际的 FLAG，对stringFlags进行分析得到
     private int flags;
 
+    // 命令的执行统计，只在持有命令锁时更新和读取，不需要额外的同步
+    // 执行耗时以纳秒累计，O(1)命令单次耗时往往不到1微秒，逐次换算成微秒会丢失精度
+    private long calls;             // 执行次数
+    private long nanoseconds;       // 执行总耗时（纳秒）
+    private long rejectedCalls;     // 执行前被拒绝的次数，比如参数个数错误、未通过身份验证
+    private long failedCalls;       // 执行时回复了错误的次数
+
     public AbstractCommand(String name, int arity,boolean isGreaterThanArity,  String stringFlags) {
         this.name = name;
         this.arity = arity;
         this.isGreaterThanArity = isGreaterThanArity;
         this.stringFlags = stringFlags;
-        this.flags = 0;
+        this.flags = parseFlags(stringFlags);
+        this.nameBytes = SafeEncoder.encode(name.toLowerCase());
+    }
+
+    /**
+     * 将字符串表示的命令属性解析为位掩码，只在创建命令时执行一次
+     * @param stringFlags 字符串表示的命令属性，比如 "wm"
+     * @return 命令属性的位掩码
+     */
+    public static int parseFlags(String stringFlags) {
+        int flags = 0;
+        for (int i = 0; i < stringFlags.length(); i++) {
+            switch (stringFlags.charAt(i)) {
+                case 'w': flags |= CMD_WRITE; break;
+                case 'r': flags |= CMD_READONLY; break;
+                case 'm': flags |= CMD_DENYOOM; break;
+                case 'a': flags |= CMD_ADMIN; break;
+                case 'p': flags |= CMD_PUBSUB; break;
+                case 's': flags |= CMD_NOSCRIPT; break;
+                case 'R': flags |= CMD_RANDOM; break;
+                case 'S': flags |= CMD_SORT_FOR_SCRIPT; break;
+                case 'l': flags |= CMD_LOADING; break;
+                case 't': flags |= CMD_STALE; break;
+                case 'M': flags |= CMD_SKIP_MONITOR; break;
+                case 'k': flags |= CMD_ASKING; break;
+                case 'F': flags |= CMD_FAST; break;
+                default:
+                    throw new IllegalArgumentException("Unsupported command flag '" + stringFlags.charAt(i) + "'");
+            }
+        }
+
+        return flags;
     }
 
     /**
@@ -42,6 +99,89 @@ public abstract class AbstractCommand implements Command{
         return this.arity;
     }
 
+    /**
+     * 获取小写的命令名字
+     * @return 命令名字的字节数组，不能修改
+     */
+    public byte[] getNameBytes() {
+        return this.nameBytes;
+    }
+
+    /**
+     * 获取命令属性的位掩码
+     * @return
+     */
+    public int getFlags() {
+        return this.flags;
+    }
+
+    /**
+     * 判断命令是否具有给定的属性
+     * @param flag 命令属性，比如 CMD_WRITE
+     * @return
+     */
+    public boolean hasFlag(int flag) {
+        return (this.flags & flag) != 0;
+    }
+
+    /**
+     * 记录一次命令执行
+     * @param duration 执行耗时（纳秒）
+     * @param failed 执行时是否回复了错误
+     */
+    public void recordCall(long duration, boolean failed) {
+        this.calls++;
+        this.nanoseconds += duration;
+        if (failed) {
+            this.failedCalls++;
+        }
+    }
+
+    /**
+     * 记录一次被拒绝的执行
+     */
+    public void incrRejectedCalls() {
+        this.rejectedCalls++;
+    }
+
+    /**
+     * 清空命令的执行统计，CONFIG RESETSTAT时调用
+     */
+    public void resetStats() {
+        this.calls = 0;
+        this.nanoseconds = 0;
+        this.rejectedCalls = 0;
+        this.failedCalls = 0;
+    }
+
+    public long getCalls() {
+        return this.calls;
+    }
+
+    /**
+     * 获取命令执行的总耗时
+     * @return 总耗时（微秒）
+     */
+    public long getMicroseconds() {
+        return this.nanoseconds / 1000;
+    }
+
+    /**
+     * 获取命令每次执行的平均耗时
+     * @return 平均耗时（微秒），没有执行过时返回0
+     */
+    public double getMicrosecondsPerCall() {
+        return this.calls == 0 ? 0 : (double) this.nanoseconds / 1000 / this.calls;
+    }
+
+    public long getRejectedCalls() {
+        return this.rejectedCalls;
+    }
+
+    public long getFailedCalls() {
+        return this.failedCalls;
+    }
+
     /**
      * 命令参数是否可能大于等于设置的数值
      * @return
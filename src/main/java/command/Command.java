@@ -1,5 +1,7 @@
 package command;
 
+import client.PandisClient;
+
 /**
  * @Description Pandis命令抽象接口
  * @Author huzihan
@@ -7,5 +9,9 @@ package command;
  */
 @FunctionalInterface
 public interface Command {
-    void execute();
+    /**
+     * 执行命令，命令的参数从客户端中获取，回复也写入客户端的回复缓冲区
+     * @param client 发送命令的客户端
+     */
+    void execute(PandisClient client);
 }
@@ -1,10 +1,43 @@
 package command;
 
+import client.PandisClient;
+import command.instance.AuthCommand;
+import command.instance.ConfigCommand;
+import command.instance.ExpireCommand;
 import command.instance.GetCommand;
-import server.PandisServer;
+import command.instance.HdelCommand;
+import command.instance.HgetCommand;
+import command.instance.HgetallCommand;
+import command.instance.HincrbyCommand;
+import command.instance.HlenCommand;
+import command.instance.HsetCommand;
+import command.instance.InfoCommand;
+import command.instance.LindexCommand;
+import command.instance.LlenCommand;
+import command.instance.LpopCommand;
+import command.instance.LpushCommand;
+import command.instance.LrangeCommand;
+import command.instance.PersistCommand;
+import command.instance.PexpireCommand;
+import command.instance.PingCommand;
+import command.instance.PttlCommand;
+import command.instance.RpopCommand;
+import command.instance.RpushCommand;
+import command.instance.SaddCommand;
+import command.instance.ScardCommand;
+import command.instance.SetCommand;
+import command.instance.SismemberCommand;
+import command.instance.SlowlogCommand;
+import command.instance.SmembersCommand;
+import command.instance.SpopCommand;
+import command.instance.SrandmemberCommand;
+import command.instance.SremCommand;
+import command.instance.TtlCommand;
+import utils.SafeEncoder;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * @Description 命令执行器
@@ -13,31 +46,168 @@ import java.util.Map;
  **/
 public class CommandExecutor {
 
-    // Pandis的所有命令映射表
-    private static Map<String, AbstractCommand> commandTable = new HashMap<>();
+    // Pandis的所有命令，在类加载时创建，命令实现都是无状态的，执行时需要的服务器、数据库等信息都从客户端中获取
+    private static final List<AbstractCommand> commands = Collections.unmodifiableList(Arrays.asList(
+            new PingCommand(),
+            new AuthCommand(),
+            new GetCommand(),
+            new SetCommand(),
+            new ExpireCommand(),
+            new PexpireCommand(),
+            new TtlCommand(),
+            new PttlCommand(),
+            new PersistCommand(),
+            new LpushCommand(),
+            new RpushCommand(),
+            new LpopCommand(),
+            new RpopCommand(),
+            new LlenCommand(),
+            new LindexCommand(),
+            new LrangeCommand(),
+            new HsetCommand(),
+            new HgetCommand(),
+            new HgetallCommand(),
+            new HincrbyCommand(),
+            new HdelCommand(),
+            new HlenCommand(),
+            new SaddCommand(),
+            new SremCommand(),
+            new SismemberCommand(),
+            new SmembersCommand(),
+            new ScardCommand(),
+            new SrandmemberCommand(),
+            new SpopCommand(),
+            new InfoCommand(),
+            new ConfigCommand(),
+            new SlowlogCommand()
+    ));
 
-    {
-        // WANRING: 这里的实现有点问题，由于command内需要维持一个server的实例，这里获得的实例有可能是null
-        commandTable.put("get", new GetCommand(PandisServer.getInstance()));
+    // Pandis的所有命令映射表：以小写命令名的哈希值为下标的开放寻址表，表的大小至少是命令数量的两倍
+    // 查找时直接用参数的字节计算不区分大小写的哈希值，不需要先创建字符串
+    private static final AbstractCommand[] commandTable;
+    private static final int commandTableMask;
+
+    static {
+        int size = Integer.highestOneBit(Math.max(commands.size(), 1) * 2) << 1;
+        commandTable = new AbstractCommand[size];
+        commandTableMask = size - 1;
+
+        for (AbstractCommand command : commands) {
+            byte[] name = command.getNameBytes();
+            if (lookupCommand(name, 0, name.length) != null) {
+                throw new IllegalStateException("Duplicate command " + command.getName());
+            }
+
+            int index = hash(name, 0, name.length) & commandTableMask;
+            while (commandTable[index] != null) {
+                index = (index + 1) & commandTableMask;
+            }
+            commandTable[index] = command;
+        }
     }
 
     public CommandExecutor() {
     }
 
+    /**
+     * 获取所有命令
+     * @return 只读的命令列表
+     */
+    public static List<AbstractCommand> getCommands() {
+        return commands;
+    }
+
     /**
      * 从命令表中根据名字查找命令实现
-     * @param commandName 命令名称
+     * @param commandName 命令名称，不区分大小写
      * @return 命令实现
      */
     public static AbstractCommand lookupCommand(String commandName) {
-        return commandTable.get(commandName);
+        byte[] name = SafeEncoder.encode(commandName);
+        return lookupCommand(name, 0, name.length);
     }
 
     /**
-     * 核心方法执行命令
+     * 从命令表中根据名字查找命令实现，不区分大小写，查找过程不创建任何对象
+     * @param buf 命令名所在的字节数组
+     * @param offset 命令名的起始位置
+     * @param length 命令名的长度
+     * @return 命令实现，找不到时返回null
+     */
+    public static AbstractCommand lookupCommand(byte[] buf, int offset, int length) {
+        int index = hash(buf, offset, length) & commandTableMask;
+        AbstractCommand command;
+        while ((command = commandTable[index]) != null) {
+            if (equalsIgnoreCase(command.getNameBytes(), buf, offset, length)) {
+                return command;
+            }
+            index = (index + 1) & commandTableMask;
+        }
+
+        return null;
+    }
+
+    /**
+     * 核心方法执行命令，同时记录命令的执行次数和耗时，执行时间超过阈值的命令记录到慢查询日志
+     * 只在持有命令锁时调用，统计数据直接更新到命令实现的字段中；
+     * 执行期间客户端的错误回复数量发生变化，说明命令执行失败
      * @param command 命令实现
+     * @param client 发送命令的客户端
      */
-    public static void execute(Command command) {
-        command.execute();
+    public static void execute(AbstractCommand command, PandisClient client) {
+        long errorReplies = client.getErrorReplies();
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            command.execute(client);
+            failed = client.getErrorReplies() != errorReplies;
+        } finally {
+            long duration = System.nanoTime() - start;
+            command.recordCall(duration, failed);
+            SlowLog.getSlowLog().pushEntryIfNeeded(client, duration);
+        }
+    }
+
+    /**
+     * 清空所有命令的执行统计
+     */
+    public static void resetCommandStats() {
+        for (AbstractCommand command : commands) {
+            command.resetStats();
+        }
+    }
+
+    /**
+     * 不区分大小写的FNV-1a哈希，字母统一按小写计算
+     */
+    private static int hash(byte[] buf, int offset, int length) {
+        int h = 0x811c9dc5;
+        for (int i = offset; i < offset + length; i++) {
+            h ^= toLower(buf[i]);
+            h *= 0x01000193;
+        }
+
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 比较小写的命令名与参数的字节是否相同，参数中的大写字母按小写比较
+     */
+    private static boolean equalsIgnoreCase(byte[] lowerName, byte[] buf, int offset, int length) {
+        if (lowerName.length != length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (lowerName[i] != toLower(buf[offset + i])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static byte toLower(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
     }
 }
@@ -0,0 +1,211 @@
+package command;
+
+import client.PandisClient;
+import server.config.ServerConfig;
+
+/**
+ * 慢查询日志，参考Redis的slowlog.c
+ *
+ * 执行时间超过slowlog-log-slower-than（微秒）的命令会被记录下来，包括命令参数、执行时间、客户端地址和记录时间，
+ * 通过SLOWLOG GET/LEN/RESET命令查看和清空
+ *
+ * 日志保存在一个固定大小（slowlog-max-len）的环形数组中，新日志覆盖最旧的日志。
+ * 日志条目在初始化时就创建好，保存参数的字节数组在第一次使用时分配，之后一直复用，
+ * 参数过多、过长时会被截断，因此记录慢查询不会无限制地占用内存，稳定运行时也不会分配新的对象
+ *
+ * 只在持有命令锁时访问，不需要额外的同步
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public final class SlowLog {
+    // 每条日志最多保存的参数数量，超过时最后一个位置用来记录省略的参数数量
+    public static final int SLOWLOG_ENTRY_MAX_ARGC = 32;
+    // 每个参数最多保存的字节数
+    public static final int SLOWLOG_ENTRY_MAX_STRING = 128;
+
+    private static final SlowLog slowLog = new SlowLog();
+
+    // 执行时间超过该值（微秒）的命令才会被记录，负数表示不记录
+    private long logSlowerThan;
+    // 环形数组，长度就是slowlog-max-len
+    private Entry[] entries;
+    // 下一条日志写入的位置
+    private int head;
+    // 当前保存的日志数量
+    private int len;
+    // 下一条日志的id
+    private long nextId;
+
+    private SlowLog() {
+        init(ServerConfig.DEFAULT_SLOWLOG_LOG_SLOWER_THAN, ServerConfig.DEFAULT_SLOWLOG_MAX_LEN);
+    }
+
+    public static SlowLog getSlowLog() {
+        return slowLog;
+    }
+
+    /**
+     * 根据配置初始化慢查询日志，已有的日志会被清空
+     * @param logSlowerThan 记录阈值（微秒）
+     * @param maxLen 最多保存的日志数量
+     */
+    public void init(long logSlowerThan, int maxLen) {
+        this.logSlowerThan = logSlowerThan;
+        this.entries = new Entry[maxLen];
+        for (int i = 0; i < maxLen; i++) {
+            this.entries[i] = new Entry();
+        }
+        this.head = 0;
+        this.len = 0;
+        this.nextId = 0;
+    }
+
+    /**
+     * 如果命令的执行时间超过了阈值，就把客户端当前的命令记录到慢查询日志中
+     * @param client 执行命令的客户端，命令参数从客户端的参数切片中读取
+     * @param duration 执行时间（纳秒）
+     */
+    public void pushEntryIfNeeded(PandisClient client, long duration) {
+        if (this.logSlowerThan < 0 || this.entries.length == 0) {
+            return;
+        }
+
+        long microseconds = duration / 1000;
+        if (microseconds < this.logSlowerThan) {
+            return;
+        }
+
+        Entry entry = this.entries[this.head];
+        entry.fill(client, this.nextId++, System.currentTimeMillis() / 1000, microseconds);
+        this.head = (this.head + 1) % this.entries.length;
+        if (this.len < this.entries.length) {
+            this.len++;
+        }
+    }
+
+    /**
+     * 获取一条日志
+     * @param index 0是最新的日志，len() - 1是最旧的日志
+     * @return 日志条目，只在下一条慢查询被记录之前有效
+     */
+    public Entry getEntry(int index) {
+        if (index < 0 || index >= this.len) {
+            throw new IndexOutOfBoundsException("Slowlog index " + index + " out of range, len " + this.len);
+        }
+
+        int pos = this.head - 1 - index;
+        if (pos < 0) {
+            pos += this.entries.length;
+        }
+        return this.entries[pos];
+    }
+
+    /**
+     * 获取当前保存的日志数量
+     */
+    public int len() {
+        return this.len;
+    }
+
+    /**
+     * 清空所有日志，日志条目和参数数组保留下来继续使用
+     */
+    public void reset() {
+        this.head = 0;
+        this.len = 0;
+    }
+
+    public long getLogSlowerThan() {
+        return this.logSlowerThan;
+    }
+
+    public int getMaxLen() {
+        return this.entries.length;
+    }
+
+    /**
+     * 一条慢查询日志
+     */
+    public static final class Entry {
+        private long id;                // 日志id，每条日志递增
+        private long time;              // 记录日志的时间（秒）
+        private long duration;          // 命令的执行时间（微秒）
+        private int argc;               // 命令原本的参数数量
+        private int storedArgc;         // 实际保存的参数数量
+        private final byte[][] argv;    // 保存的参数，每个参数最多SLOWLOG_ENTRY_MAX_STRING字节
+        private final int[] argvLen;    // 每个参数原本的长度
+        private String clientAddress;   // 客户端地址
+
+        private Entry() {
+            this.argv = new byte[SLOWLOG_ENTRY_MAX_ARGC][];
+            this.argvLen = new int[SLOWLOG_ENTRY_MAX_ARGC];
+        }
+
+        private void fill(PandisClient client, long id, long time, long duration) {
+            this.id = id;
+            this.time = time;
+            this.duration = duration;
+            this.argc = client.getArgc();
+            // 参数过多时，保留前面的参数，最后一个位置留给"... (N more arguments)"
+            this.storedArgc = this.argc > SLOWLOG_ENTRY_MAX_ARGC ? SLOWLOG_ENTRY_MAX_ARGC - 1 : this.argc;
+
+            for (int i = 0; i < this.storedArgc; i++) {
+                int length = client.getArgvLength(i);
+                if (this.argv[i] == null) {
+                    this.argv[i] = new byte[SLOWLOG_ENTRY_MAX_STRING];
+                }
+                System.arraycopy(client.getArgvBuffer(i), client.getArgvOffset(i), this.argv[i], 0,
+                        Math.min(length, SLOWLOG_ENTRY_MAX_STRING));
+                this.argvLen[i] = length;
+            }
+
+            this.clientAddress = client.getAddress();
+        }
+
+        public long getId() {
+            return this.id;
+        }
+
+        public long getTime() {
+            return this.time;
+        }
+
+        public long getDuration() {
+            return this.duration;
+        }
+
+        public int getArgc() {
+            return this.argc;
+        }
+
+        public int getStoredArgc() {
+            return this.storedArgc;
+        }
+
+        /**
+         * 获取保存的参数，有效长度为getStoredLength(index)
+         */
+        public byte[] getArgv(int index) {
+            return this.argv[index];
+        }
+
+        /**
+         * 获取参数保存下来的长度
+         */
+        public int getStoredLength(int index) {
+            return Math.min(this.argvLen[index], SLOWLOG_ENTRY_MAX_STRING);
+        }
+
+        /**
+         * 获取参数原本的长度
+         */
+        public int getLength(int index) {
+            return this.argvLen[index];
+        }
+
+        public String getClientAddress() {
+            return this.clientAddress;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package command.instance;
 
+import client.PandisClient;
 import command.AbstractCommand;
+import protocol.SharedReplies;
+import server.PandisServer;
 
 /**
  * @Description auth命令实现
@@ -12,7 +15,16 @@ public class AuthCommand extends AbstractCommand {
         super("auth", 2, false, "rslt");
     }
     @Override
-    public void execute() {
-        System.out.println("auth 测试");
+    public void execute(PandisClient client) {
+        String requirePassword = PandisServer.getInstance().getServerConfig().getRequirePassword();
+        if (requirePassword == null) {
+            client.addReplyError("Client sent AUTH, but no password is set");
+        } else if (requirePassword.equals(client.getArgv()[1].toString())) {
+            client.setAuthenticated(true);
+            client.addReply(SharedReplies.OK);
+        } else {
+            client.setAuthenticated(false);
+            client.addReplyError("invalid password");
+        }
     }
 }
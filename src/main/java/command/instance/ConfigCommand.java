@@ -0,0 +1,32 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import command.CommandExecutor;
+import protocol.SharedReplies;
+import server.PandisServer;
+
+/**
+ * CONFIG命令实现，目前只支持CONFIG RESETSTAT：清空服务器和每个命令的统计信息
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class ConfigCommand extends AbstractCommand {
+
+    public ConfigCommand() {
+        super("config", 2, true, "aslt");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        String subcommand = client.getArgv()[1].getObj().toString();
+        if (client.getArgc() == 2 && subcommand.equalsIgnoreCase("resetstat")) {
+            PandisServer.getInstance().resetServerStats();
+            CommandExecutor.resetCommandStats();
+            client.addReply(SharedReplies.OK);
+        } else {
+            client.addReplyError("Unknown subcommand or wrong number of arguments for '" + subcommand + "'. Try CONFIG RESETSTAT.");
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import common.store.Sds;
+import protocol.SharedReplies;
+import server.PandisDatabase;
+
+/**
+ * EXPIRE key seconds命令实现，为键设置以秒为单位的过期时间
+ *
+ * 键存在时回复1，不存在时回复0；过期时间不是正数时直接删除键
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class ExpireCommand extends AbstractCommand {
+    public static final int UNIT_SECONDS = 0;
+    public static final int UNIT_MILLISECONDS = 1;
+
+    public ExpireCommand() {
+        super("expire", 3, false, "wF");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        expireGenericCommand(client, System.currentTimeMillis(), UNIT_SECONDS);
+    }
+
+    /**
+     * EXPIRE、PEXPIRE的通用实现，参考Redis的expireGenericCommand
+     * @param client 客户端，argv[2]是过期时间
+     * @param basetime 过期时间的基准（毫秒时间戳）
+     * @param unit 过期时间的单位，UNIT_SECONDS或者UNIT_MILLISECONDS
+     */
+    public static void expireGenericCommand(PandisClient client, long basetime, int unit) {
+        long when;
+        try {
+            when = client.getArgvLong(2);
+        } catch (NumberFormatException e) {
+            client.addReplyError(SharedReplies.NOT_INTEGER_ERR);
+            return;
+        }
+
+        try {
+            if (unit == UNIT_SECONDS) {
+                when = Math.multiplyExact(when, 1000L);
+            }
+            when = Math.addExact(when, basetime);
+        } catch (ArithmeticException e) {
+            client.addReplyError("invalid expire time in '" + client.getArgv()[0].getObj().toString().toLowerCase() + "' command");
+            return;
+        }
+
+        PandisDatabase db = client.getDatabase();
+        Sds key = (Sds) client.getArgv()[1].getObj();
+        if (db.lookupKey(key) == null) {
+            client.addReply(SharedReplies.CZERO);
+            return;
+        }
+
+        if (when <= System.currentTimeMillis()) {
+            // 过期时间已经过去，直接删除键
+            db.delete(key);
+        } else {
+            db.setExpire(key, when);
+        }
+        client.addReply(SharedReplies.CONE);
+    }
+}
@@ -1,7 +1,11 @@
 package command.instance;
 
+import client.PandisClient;
 import command.AbstractCommand;
-import server.PandisServer;
+import common.store.ObjectType;
+import common.store.Sds;
+import common.store.StoreObject;
+import protocol.SharedReplies;
 
 /**
  * @Description GET命令实现
@@ -9,16 +13,20 @@ import server.PandisServer;
  * @Date 2021-07-21
  */
 public class GetCommand extends AbstractCommand {
-    // 实际命令接受者
-    private PandisServer server;
 
-    public GetCommand(PandisServer server) {
-        super("get", 2, false, "r");
-        this.server = server;
+    public GetCommand() {
+        super("get", 2, false, "rF");
     }
 
     @Override
-    public void execute() {
-        System.out.println("get 命令模拟");
+    public void execute(PandisClient client) {
+        StoreObject value = client.getDatabase().lookupKey((Sds) client.getArgv()[1].getObj());
+        if (value == null) {
+            client.addReply(SharedReplies.NULL_BULK);
+        } else if (value.getType() != ObjectType.STRING) {
+            client.addReplyError(SharedReplies.WRONG_TYPE_ERR);
+        } else {
+            client.addReplyBulk((Sds) value.getObj());
+        }
     }
 }
@@ -0,0 +1,58 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import common.store.ObjectType;
+import common.store.PHash;
+import common.store.Sds;
+import common.store.StoreObject;
+import protocol.SharedReplies;
+import server.PandisDatabase;
+
+/**
+ * HDEL key field [field ...]命令实现，删除哈希对象中的字段，所有字段都被删除之后删除键
+ *
+ * 回复被删除的字段数量
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class HdelCommand extends AbstractCommand {
+
+    public HdelCommand() {
+        super("hdel", 3, true, "wF");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        PandisDatabase db = client.getDatabase();
+        StoreObject[] argv = client.getArgv();
+        Sds key = (Sds) argv[1].getObj();
+        StoreObject value = db.lookupKey(key);
+        if (value == null) {
+            client.addReply(SharedReplies.CZERO);
+            return;
+        } else if (value.getType() != ObjectType.HASH) {
+            client.addReplyError(SharedReplies.WRONG_TYPE_ERR);
+            return;
+        }
+
+        PHash hash = (PHash) value.getObj();
+        long before = hash.memoryUsage();
+        int deleted = 0;
+        for (int j = 2; j < client.getArgc(); j++) {
+            if (hash.delete((Sds) argv[j].getObj())) {
+                deleted++;
+                if (hash.size() == 0) {
+                    break;
+                }
+            }
+        }
+        db.updateUsedMemory(hash.memoryUsage() - before);
+        if (hash.size() == 0) {
+            db.delete(key);
+        }
+
+        client.addReplyLongLong(deleted);
+    }
+}
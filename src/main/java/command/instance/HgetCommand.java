@@ -0,0 +1,42 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import common.store.ObjectType;
+import common.store.PHash;
+import common.store.Sds;
+import common.store.StoreObject;
+import protocol.SharedReplies;
+
+/**
+ * HGET key field命令实现，回复哈希对象中字段的值，键或者字段不存在时回复nil
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class HgetCommand extends AbstractCommand {
+
+    public HgetCommand() {
+        super("hget", 3, false, "rF");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        StoreObject[] argv = client.getArgv();
+        StoreObject hash = client.getDatabase().lookupKey((Sds) argv[1].getObj());
+        if (hash == null) {
+            client.addReply(SharedReplies.NULL_BULK);
+            return;
+        } else if (hash.getType() != ObjectType.HASH) {
+            client.addReplyError(SharedReplies.WRONG_TYPE_ERR);
+            return;
+        }
+
+        Sds value = ((PHash) hash.getObj()).get((Sds) argv[2].getObj());
+        if (value == null) {
+            client.addReply(SharedReplies.NULL_BULK);
+        } else {
+            client.addReplyBulk(value);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import common.store.ObjectType;
+import common.store.PHash;
+import common.store.Sds;
+import common.store.StoreObject;
+import protocol.SharedReplies;
+
+/**
+ * HGETALL key命令实现，依次回复哈希对象中所有的字段和值
+ *
+ * 直接从紧凑列表的字节数组或者字典中的Sds回复，不复制字段和值
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class HgetallCommand extends AbstractCommand {
+
+    public HgetallCommand() {
+        super("hgetall", 2, false, "r");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        StoreObject value = client.getDatabase().lookupKey((Sds) client.getArgv()[1].getObj());
+        if (value == null) {
+            client.addReply(SharedReplies.EMPTY_MULTI_BULK);
+            return;
+        } else if (value.getType() != ObjectType.HASH) {
+            client.addReplyError(SharedReplies.WRONG_TYPE_ERR);
+            return;
+        }
+
+        PHash hash = (PHash) value.getObj();
+        client.addReplyMultiBulkLen(hash.size() * 2);
+        PHash.HashIterator iter = hash.iterator();
+        while (iter.next()) {
+            client.addReplyBulk(iter.getFieldBuf(), iter.getFieldOffset(), iter.getFieldLength());
+            client.addReplyBulk(iter.getValueBuf(), iter.getValueOffset(), iter.getValueLength());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import common.store.PHash;
+import common.store.Sds;
+import common.store.StoreObject;
+import protocol.SharedReplies;
+import utils.StringUtil;
+
+/**
+ * HINCRBY key field increment命令实现，把哈希对象中字段的整数值加上increment，字段不存在时从0开始
+ *
+ * 回复相加之后的值
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class HincrbyCommand extends AbstractCommand {
+    private static final String HASH_NOT_INTEGER_ERR = "hash value is not an integer";
+    private static final String OVERFLOW_ERR = "increment or decrement would overflow";
+
+    public HincrbyCommand() {
+        super("hincrby", 4, false, "wmF");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        long increment;
+        try {
+            increment = client.getArgvLong(3);
+        } catch (NumberFormatException e) {
+            client.addReplyError(SharedReplies.NOT_INTEGER_ERR);
+            return;
+        }
+
+        StoreObject[] argv = client.getArgv();
+        StoreObject value = HsetCommand.hashLookupWriteOrCreate(client, (Sds) argv[1].getObj());
+        if (value == null) {
+            return;
+        }
+
+        PHash hash = (PHash) value.getObj();
+        Sds field = (Sds) argv[2].getObj();
+        Sds current = hash.get(field);
+        long oldValue = 0;
+        if (current != null) {
+            try {
+                oldValue = StringUtil.parseLong(current.getBufNoCopy(), 0, current.getLen());
+            } catch (NumberFormatException e) {
+                client.addReplyError(HASH_NOT_INTEGER_ERR);
+                return;
+            }
+        }
+
+        long newValue;
+        try {
+            newValue = Math.addExact(oldValue, increment);
+        } catch (ArithmeticException e) {
+            client.addReplyError(OVERFLOW_ERR);
+            return;
+        }
+
+        byte[] buf = new byte[20];
+        int len = StringUtil.ll2string(newValue, buf, 0);
+        long before = hash.memoryUsage();
+        hash.set(field, Sds.createSds(buf, 0, len));
+        value.setEncoding(hash.getEncoding());
+        client.getDatabase().updateUsedMemory(hash.memoryUsage() - before);
+
+        client.addReplyLongLong(newValue);
+    }
+}
@@ -0,0 +1,34 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import common.store.ObjectType;
+import common.store.PHash;
+import common.store.Sds;
+import common.store.StoreObject;
+import protocol.SharedReplies;
+
+/**
+ * HLEN key命令实现，回复哈希对象的字段数量，键不存在时回复0
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class HlenCommand extends AbstractCommand {
+
+    public HlenCommand() {
+        super("hlen", 2, false, "rF");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        StoreObject value = client.getDatabase().lookupKey((Sds) client.getArgv()[1].getObj());
+        if (value == null) {
+            client.addReply(SharedReplies.CZERO);
+        } else if (value.getType() != ObjectType.HASH) {
+            client.addReplyError(SharedReplies.WRONG_TYPE_ERR);
+        } else {
+            client.addReplyLongLong(((PHash) value.getObj()).size());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import common.store.ObjectType;
+import common.store.PHash;
+import common.store.Sds;
+import common.store.StoreObject;
+import protocol.SharedReplies;
+import server.PandisDatabase;
+import server.PandisServer;
+import server.config.ServerConfig;
+
+/**
+ * HSET key field value [field value ...]命令实现，设置哈希对象中字段的值，键不存在时创建
+ *
+ * 回复新加入的字段数量
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class HsetCommand extends AbstractCommand {
+
+    public HsetCommand() {
+        super("hset", 4, true, "wmF");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        if (client.getArgc() % 2 != 0) {
+            client.addReplyError("wrong number of arguments for 'hset' command");
+            return;
+        }
+
+        PandisDatabase db = client.getDatabase();
+        StoreObject[] argv = client.getArgv();
+        Sds key = (Sds) argv[1].getObj();
+        StoreObject value = hashLookupWriteOrCreate(client, key);
+        if (value == null) {
+            return;
+        }
+
+        PHash hash = (PHash) value.getObj();
+        long before = hash.memoryUsage();
+        int created = 0;
+        for (int j = 2; j < client.getArgc(); j += 2) {
+            if (hash.set((Sds) argv[j].getObj(), (Sds) argv[j + 1].getObj())) {
+                created++;
+            }
+        }
+        value.setEncoding(hash.getEncoding());
+        db.updateUsedMemory(hash.memoryUsage() - before);
+
+        client.addReplyLongLong(created);
+    }
+
+    /**
+     * 查找用于写入的哈希对象，键不存在时创建一个空的哈希对象
+     * @param client 客户端
+     * @param key 键
+     * @return 哈希对象，键的类型不是哈希时回复错误并返回null
+     */
+    public static StoreObject hashLookupWriteOrCreate(PandisClient client, Sds key) {
+        PandisDatabase db = client.getDatabase();
+        StoreObject value = db.lookupKey(key);
+
+        if (value == null) {
+            ServerConfig config = PandisServer.getInstance().getServerConfig();
+            PHash hash = new PHash(config.getHashMaxListpackEntries(), config.getHashMaxListpackValue());
+            value = new StoreObject(ObjectType.HASH, hash.getEncoding(), hash);
+            db.add(key, value);
+        } else if (value.getType() != ObjectType.HASH) {
+            client.addReplyError(SharedReplies.WRONG_TYPE_ERR);
+            return null;
+        }
+        return value;
+    }
+}
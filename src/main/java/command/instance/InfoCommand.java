@@ -0,0 +1,134 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import command.CommandExecutor;
+import protocol.ReplyType;
+import server.PandisDatabase;
+import server.PandisServer;
+import server.config.ServerConfig;
+
+import java.util.Locale;
+
+/**
+ * INFO [section]命令实现，以文本形式回复服务器的统计信息
+ *
+ * 目前支持的部分：
+ * memory：估算的数据集内存占用和maxmemory配置
+ * stats：服务器执行的命令数量、网络流量等统计信息
+ * 不指定section时回复memory、stats和keyspace
+ * commandstats：每个命令的执行次数、耗时、被拒绝和执行失败的次数
+ * keyspace：每个数据库中键的数量、带过期时间的键的数量和平均剩余时间
+ * all/everything：以上所有部分
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class InfoCommand extends AbstractCommand {
+
+    public InfoCommand() {
+        super("info", 1, true, "Rlt");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        if (client.getArgc() > 2) {
+            client.addReplyError("wrong number of arguments for 'info' command");
+            return;
+        }
+
+        String section = client.getArgc() == 2 ? client.getArgv()[1].getObj().toString().toLowerCase() : "default";
+        boolean all = section.equals("all") || section.equals("everything");
+
+        StringBuilder info = new StringBuilder();
+        if (all || section.equals("default") || section.equals("memory")) {
+            genMemoryInfo(info);
+        }
+        if (all || section.equals("default") || section.equals("stats")) {
+            if (info.length() > 0) {
+                info.append("\r\n");
+            }
+            genStatsInfo(info);
+        }
+        if (all || section.equals("commandstats")) {
+            if (info.length() > 0) {
+                info.append("\r\n");
+            }
+            genCommandStatsInfo(info);
+        }
+
+        if (all || section.equals("default") || section.equals("keyspace")) {
+            if (info.length() > 0) {
+                info.append("\r\n");
+            }
+            genKeyspaceInfo(info);
+        }
+
+        client.addReply(ReplyType.BULK, info.toString());
+    }
+
+    private static void genMemoryInfo(StringBuilder info) {
+        PandisServer server = PandisServer.getInstance();
+        ServerConfig config = server.getServerConfig();
+        info.append("# Memory\r\n")
+            .append("used_memory:").append(server.getEvict().getUsedMemory()).append("\r\n")
+            .append("maxmemory:").append(config.getMaxmemory()).append("\r\n")
+            .append("maxmemory_policy:").append(ServerConfig.maxmemoryPolicyName(config.getMaxmemoryPolicy())).append("\r\n");
+    }
+
+    private static void genStatsInfo(StringBuilder info) {
+        PandisServer server = PandisServer.getInstance();
+        info.append("# Stats\r\n")
+            .append("total_commands_processed:").append(server.getStatNumCommands()).append("\r\n")
+            .append("instantaneous_ops_per_sec:").append(server.getInstantaneousMetric(PandisServer.STATS_METRIC_COMMAND)).append("\r\n")
+            .append("total_net_input_bytes:").append(server.getStatNetInputBytes()).append("\r\n")
+            .append("total_net_output_bytes:").append(server.getStatNetOutputBytes()).append("\r\n")
+            .append("instantaneous_input_kbps:").append(formatDouble(server.getInstantaneousMetric(PandisServer.STATS_METRIC_NET_INPUT) / 1024.0)).append("\r\n")
+            .append("instantaneous_output_kbps:").append(formatDouble(server.getInstantaneousMetric(PandisServer.STATS_METRIC_NET_OUTPUT) / 1024.0)).append("\r\n")
+            .append("expired_keys:").append(server.getStatExpiredKeys()).append("\r\n")
+            .append("evicted_keys:").append(server.getEvict().getEvictedKeys()).append("\r\n");
+    }
+
+    /**
+     * 每个执行过（包括被拒绝）的命令一行：
+     * cmdstat_get:calls=2,usec=15,usec_per_call=7.50,rejected_calls=0,failed_calls=0
+     */
+    private static void genCommandStatsInfo(StringBuilder info) {
+        info.append("# Commandstats\r\n");
+        for (AbstractCommand command : CommandExecutor.getCommands()) {
+            if (command.getCalls() == 0 && command.getRejectedCalls() == 0 && command.getFailedCalls() == 0) {
+                continue;
+            }
+
+            info.append("cmdstat_").append(command.getName())
+                .append(":calls=").append(command.getCalls())
+                .append(",usec=").append(command.getMicroseconds())
+                .append(",usec_per_call=").append(formatDouble(command.getMicrosecondsPerCall()))
+                .append(",rejected_calls=").append(command.getRejectedCalls())
+                .append(",failed_calls=").append(command.getFailedCalls())
+                .append("\r\n");
+        }
+    }
+
+    /**
+     * 每个非空的数据库一行：db0:keys=10,expires=2,avg_ttl=3000
+     */
+    private static void genKeyspaceInfo(StringBuilder info) {
+        info.append("# Keyspace\r\n");
+        for (PandisDatabase db : PandisServer.getInstance().getDatabases()) {
+            if (db.size() == 0) {
+                continue;
+            }
+
+            info.append("db").append(db.getId())
+                .append(":keys=").append(db.size())
+                .append(",expires=").append(db.getExpires().size())
+                .append(",avg_ttl=").append(db.getAvgTtl())
+                .append("\r\n");
+        }
+    }
+
+    private static String formatDouble(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+}
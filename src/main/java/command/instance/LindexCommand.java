@@ -0,0 +1,49 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import common.store.ObjectType;
+import common.store.PList;
+import common.store.Sds;
+import common.store.StoreObject;
+import protocol.SharedReplies;
+
+/**
+ * LINDEX key index命令实现，回复列表中指定下标的元素，负数下标表示从尾部开始
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class LindexCommand extends AbstractCommand {
+
+    public LindexCommand() {
+        super("lindex", 3, false, "r");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        long index;
+        try {
+            index = client.getArgvLong(2);
+        } catch (NumberFormatException e) {
+            client.addReplyError(SharedReplies.NOT_INTEGER_ERR);
+            return;
+        }
+
+        StoreObject value = client.getDatabase().lookupKey((Sds) client.getArgv()[1].getObj());
+        if (value == null) {
+            client.addReply(SharedReplies.NULL_BULK);
+            return;
+        } else if (value.getType() != ObjectType.LIST) {
+            client.addReplyError(SharedReplies.WRONG_TYPE_ERR);
+            return;
+        }
+
+        byte[] element = ((PList) value.getObj()).index(index);
+        if (element == null) {
+            client.addReply(SharedReplies.NULL_BULK);
+        } else {
+            client.addReplyBulk(element, 0, element.length);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import common.store.ObjectType;
+import common.store.PList;
+import common.store.Sds;
+import common.store.StoreObject;
+import protocol.SharedReplies;
+
+/**
+ * LLEN key命令实现，回复列表的长度，键不存在时回复0
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class LlenCommand extends AbstractCommand {
+
+    public LlenCommand() {
+        super("llen", 2, false, "rF");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        StoreObject value = client.getDatabase().lookupKey((Sds) client.getArgv()[1].getObj());
+        if (value == null) {
+            client.addReply(SharedReplies.CZERO);
+        } else if (value.getType() != ObjectType.LIST) {
+            client.addReplyError(SharedReplies.WRONG_TYPE_ERR);
+        } else {
+            client.addReplyLongLong(((PList) value.getObj()).size());
+        }
+    }
+}
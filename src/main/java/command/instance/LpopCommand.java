@@ -0,0 +1,57 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import common.store.ObjectType;
+import common.store.PList;
+import common.store.Sds;
+import common.store.StoreObject;
+import protocol.SharedReplies;
+import server.PandisDatabase;
+
+/**
+ * LPOP key命令实现，弹出并回复列表头部的元素，列表为空之后删除键
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class LpopCommand extends AbstractCommand {
+
+    public LpopCommand() {
+        super("lpop", 2, false, "wF");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        popGenericCommand(client, PList.LIST_HEAD);
+    }
+
+    /**
+     * LPOP、RPOP的通用实现
+     * @param client 客户端
+     * @param where PList.LIST_HEAD或者PList.LIST_TAIL
+     */
+    public static void popGenericCommand(PandisClient client, int where) {
+        PandisDatabase db = client.getDatabase();
+        Sds key = client.getArgvSds(1);
+        StoreObject value = db.lookupKey(key);
+
+        if (value == null) {
+            client.addReply(SharedReplies.NULL_BULK);
+            return;
+        } else if (value.getType() != ObjectType.LIST) {
+            client.addReplyError(SharedReplies.WRONG_TYPE_ERR);
+            return;
+        }
+
+        PList list = (PList) value.getObj();
+        long before = list.memoryUsage();
+        byte[] element = list.pop(where);
+        db.updateUsedMemory(list.memoryUsage() - before);
+        if (list.size() == 0) {
+            db.delete(key);
+        }
+
+        client.addReplyBulk(element, 0, element.length);
+    }
+}
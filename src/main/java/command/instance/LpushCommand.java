@@ -0,0 +1,63 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import common.store.ObjectEncoding;
+import common.store.ObjectType;
+import common.store.PList;
+import common.store.Sds;
+import common.store.StoreObject;
+import protocol.SharedReplies;
+import server.PandisDatabase;
+import server.PandisServer;
+import server.config.ServerConfig;
+
+/**
+ * LPUSH key element [element ...]命令实现，依次将元素加入列表的头部，列表不存在时创建
+ *
+ * 回复加入之后列表的长度
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class LpushCommand extends AbstractCommand {
+
+    public LpushCommand() {
+        super("lpush", 3, true, "wmF");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        pushGenericCommand(client, PList.LIST_HEAD);
+    }
+
+    /**
+     * LPUSH、RPUSH的通用实现，元素直接从参数切片复制到快速列表的节点中
+     * @param client 客户端
+     * @param where PList.LIST_HEAD或者PList.LIST_TAIL
+     */
+    public static void pushGenericCommand(PandisClient client, int where) {
+        PandisDatabase db = client.getDatabase();
+        Sds key = client.getArgvSds(1);
+        StoreObject value = db.lookupKey(key);
+
+        if (value == null) {
+            ServerConfig config = PandisServer.getInstance().getServerConfig();
+            PList list = new PList(config.getListMaxListpackSize(), config.getListCompressDepth());
+            value = new StoreObject(ObjectType.LIST, ObjectEncoding.QUICKLIST, list);
+            db.add(key, value);
+        } else if (value.getType() != ObjectType.LIST) {
+            client.addReplyError(SharedReplies.WRONG_TYPE_ERR);
+            return;
+        }
+
+        PList list = (PList) value.getObj();
+        long before = list.memoryUsage();
+        for (int j = 2; j < client.getArgc(); j++) {
+            list.push(client.getArgvBuffer(j), client.getArgvOffset(j), client.getArgvLength(j), where);
+        }
+        db.updateUsedMemory(list.memoryUsage() - before);
+
+        client.addReplyLongLong(list.size());
+    }
+}
@@ -0,0 +1,74 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import common.store.ObjectType;
+import common.store.PList;
+import common.store.Quicklist;
+import common.store.Sds;
+import common.store.StoreObject;
+import protocol.SharedReplies;
+
+/**
+ * LRANGE key start stop命令实现，回复列表中[start, stop]范围内的元素，负数下标表示从尾部开始
+ *
+ * 先按节点的元素数量跳到start所在的节点，然后直接从节点的字节数组回复元素，不复制元素
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class LrangeCommand extends AbstractCommand {
+
+    public LrangeCommand() {
+        super("lrange", 4, false, "r");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        long start;
+        long end;
+        try {
+            start = client.getArgvLong(2);
+            end = client.getArgvLong(3);
+        } catch (NumberFormatException e) {
+            client.addReplyError(SharedReplies.NOT_INTEGER_ERR);
+            return;
+        }
+
+        StoreObject value = client.getDatabase().lookupKey((Sds) client.getArgv()[1].getObj());
+        if (value == null) {
+            client.addReply(SharedReplies.EMPTY_MULTI_BULK);
+            return;
+        } else if (value.getType() != ObjectType.LIST) {
+            client.addReplyError(SharedReplies.WRONG_TYPE_ERR);
+            return;
+        }
+
+        // 把负数下标转换为正数，并限制在列表的范围内
+        PList list = (PList) value.getObj();
+        long llen = list.size();
+        if (start < 0) {
+            start = llen + start;
+        }
+        if (end < 0) {
+            end = llen + end;
+        }
+        if (start < 0) {
+            start = 0;
+        }
+        if (start > end || start >= llen) {
+            client.addReply(SharedReplies.EMPTY_MULTI_BULK);
+            return;
+        }
+        if (end >= llen) {
+            end = llen - 1;
+        }
+
+        long rangelen = end - start + 1;
+        client.addReplyMultiBulkLen(rangelen);
+        Quicklist.QuicklistIterator iter = list.iterator(start);
+        while (rangelen-- > 0 && iter.next()) {
+            client.addReplyBulk(iter.getBuf(), iter.getOffset(), iter.getLength());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import common.store.Sds;
+import protocol.SharedReplies;
+import server.PandisDatabase;
+
+/**
+ * PERSIST key命令实现，移除键的过期时间
+ *
+ * 移除成功时回复1，键不存在或者没有设置过期时间时回复0
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class PersistCommand extends AbstractCommand {
+
+    public PersistCommand() {
+        super("persist", 2, false, "wF");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        PandisDatabase db = client.getDatabase();
+        Sds key = (Sds) client.getArgv()[1].getObj();
+        if (db.lookupKey(key, PandisDatabase.LOOKUP_NOTOUCH) != null && db.removeExpire(key)) {
+            client.addReply(SharedReplies.CONE);
+        } else {
+            client.addReply(SharedReplies.CZERO);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+
+/**
+ * PEXPIRE key milliseconds命令实现，为键设置以毫秒为单位的过期时间
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class PexpireCommand extends AbstractCommand {
+
+    public PexpireCommand() {
+        super("pexpire", 3, false, "wF");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        ExpireCommand.expireGenericCommand(client, System.currentTimeMillis(), ExpireCommand.UNIT_MILLISECONDS);
+    }
+}
@@ -0,0 +1,30 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import common.store.Sds;
+import protocol.SharedReplies;
+
+/**
+ * PING命令实现：不带参数时回复PONG，带一个参数时原样回复这个参数
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class PingCommand extends AbstractCommand {
+
+    public PingCommand() {
+        super("ping", 1, true, "stF");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        if (client.getArgc() > 2) {
+            client.addReplyError("wrong number of arguments for 'ping' command");
+        } else if (client.getArgc() == 2) {
+            client.addReplyBulk((Sds) client.getArgv()[1].getObj());
+        } else {
+            client.addReply(SharedReplies.PONG);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+
+/**
+ * PTTL key命令实现，回复键的剩余生存时间（毫秒）
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class PttlCommand extends AbstractCommand {
+
+    public PttlCommand() {
+        super("pttl", 2, false, "rF");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        TtlCommand.ttlGenericCommand(client, true);
+    }
+}
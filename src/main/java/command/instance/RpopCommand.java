@@ -0,0 +1,23 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import common.store.PList;
+
+/**
+ * RPOP key命令实现，弹出并回复列表尾部的元素，列表为空之后删除键
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class RpopCommand extends AbstractCommand {
+
+    public RpopCommand() {
+        super("rpop", 2, false, "wF");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        LpopCommand.popGenericCommand(client, PList.LIST_TAIL);
+    }
+}
@@ -0,0 +1,23 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import common.store.PList;
+
+/**
+ * RPUSH key element [element ...]命令实现，依次将元素加入列表的尾部，列表不存在时创建
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class RpushCommand extends AbstractCommand {
+
+    public RpushCommand() {
+        super("rpush", 3, true, "wmF");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        LpushCommand.pushGenericCommand(client, PList.LIST_TAIL);
+    }
+}
@@ -0,0 +1,56 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import common.store.ObjectType;
+import common.store.PSet;
+import common.store.Sds;
+import common.store.StoreObject;
+import protocol.SharedReplies;
+import server.PandisDatabase;
+import server.PandisServer;
+
+/**
+ * SADD key member [member ...]命令实现，把成员加入集合，键不存在时创建
+ *
+ * 回复新加入的成员数量
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class SaddCommand extends AbstractCommand {
+
+    public SaddCommand() {
+        super("sadd", 3, true, "wmF");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        PandisDatabase db = client.getDatabase();
+        StoreObject[] argv = client.getArgv();
+        Sds key = (Sds) argv[1].getObj();
+        StoreObject value = db.lookupKey(key);
+
+        if (value == null) {
+            PSet set = new PSet(PandisServer.getInstance().getServerConfig().getSetMaxIntsetEntries());
+            value = new StoreObject(ObjectType.SET, set.getEncoding(), set);
+            db.add(key, value);
+        } else if (value.getType() != ObjectType.SET) {
+            client.addReplyError(SharedReplies.WRONG_TYPE_ERR);
+            return;
+        }
+
+        PSet set = (PSet) value.getObj();
+        long before = set.memoryUsage();
+        int added = 0;
+        for (int j = 2; j < client.getArgc(); j++) {
+            if (set.add((Sds) argv[j].getObj())) {
+                added++;
+            }
+        }
+        value.setEncoding(set.getEncoding());
+        db.updateUsedMemory(set.memoryUsage() - before);
+
+        client.addReplyLongLong(added);
+    }
+}
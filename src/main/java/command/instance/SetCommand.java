@@ -0,0 +1,77 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import common.store.Sds;
+import common.store.StoreObject;
+import protocol.SharedReplies;
+import server.PandisDatabase;
+
+/**
+ * SET key value [EX seconds|PX milliseconds]命令实现，暂时不支持NX、XX等选项
+ *
+ * 设置值之后键原来的过期时间会被移除，指定了EX或者PX时设置新的过期时间
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class SetCommand extends AbstractCommand {
+    private static final String INVALID_EXPIRE_ERR = "invalid expire time in 'set' command";
+
+    public SetCommand() {
+        super("set", 3, true, "wm");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        int unit = ExpireCommand.UNIT_SECONDS;
+        int expireIndex = -1;
+
+        // 解析选项
+        for (int j = 3; j < client.getArgc(); j++) {
+            String option = client.getArgv()[j].getObj().toString();
+            if ((option.equalsIgnoreCase("ex") || option.equalsIgnoreCase("px"))
+                    && expireIndex == -1 && j + 1 < client.getArgc()) {
+                unit = option.equalsIgnoreCase("ex") ? ExpireCommand.UNIT_SECONDS : ExpireCommand.UNIT_MILLISECONDS;
+                expireIndex = ++j;
+            } else {
+                client.addReplyError(SharedReplies.SYNTAX_ERR);
+                return;
+            }
+        }
+
+        long when = -1;
+        if (expireIndex != -1) {
+            long expire;
+            try {
+                expire = client.getArgvLong(expireIndex);
+            } catch (NumberFormatException e) {
+                client.addReplyError(SharedReplies.NOT_INTEGER_ERR);
+                return;
+            }
+
+            if (expire <= 0) {
+                client.addReplyError(INVALID_EXPIRE_ERR);
+                return;
+            }
+            try {
+                if (unit == ExpireCommand.UNIT_SECONDS) {
+                    expire = Math.multiplyExact(expire, 1000L);
+                }
+                when = Math.addExact(expire, System.currentTimeMillis());
+            } catch (ArithmeticException e) {
+                client.addReplyError(INVALID_EXPIRE_ERR);
+                return;
+            }
+        }
+
+        PandisDatabase db = client.getDatabase();
+        StoreObject[] argv = client.getArgv();
+        Sds key = (Sds) argv[1].getObj();
+        db.setKey(key, argv[2]);
+        if (when != -1) {
+            db.setExpire(key, when);
+        }
+        client.addReply(SharedReplies.OK);
+    }
+}
@@ -0,0 +1,35 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import common.store.ObjectType;
+import common.store.PSet;
+import common.store.Sds;
+import common.store.StoreObject;
+import protocol.SharedReplies;
+
+/**
+ * SISMEMBER key member命令实现，成员在集合中时回复1，否则回复0
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class SismemberCommand extends AbstractCommand {
+
+    public SismemberCommand() {
+        super("sismember", 3, false, "rF");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        StoreObject[] argv = client.getArgv();
+        StoreObject value = client.getDatabase().lookupKey((Sds) argv[1].getObj());
+        if (value == null) {
+            client.addReply(SharedReplies.CZERO);
+        } else if (value.getType() != ObjectType.SET) {
+            client.addReplyError(SharedReplies.WRONG_TYPE_ERR);
+        } else {
+            client.addReply(((PSet) value.getObj()).contains((Sds) argv[2].getObj()) ? SharedReplies.CONE : SharedReplies.CZERO);
+        }
+    }
+}
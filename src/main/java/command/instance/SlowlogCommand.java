@@ -0,0 +1,96 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import command.SlowLog;
+import protocol.SharedReplies;
+import utils.SafeEncoder;
+
+/**
+ * SLOWLOG命令实现
+ *
+ * SLOWLOG GET [count]：从新到旧回复最多count条（默认10条，-1表示全部）慢查询日志，每条日志的格式为
+ *     id、记录时间（秒）、执行时间（微秒）、命令参数、客户端地址、客户端名字（目前总是为空）
+ * SLOWLOG LEN：回复慢查询日志的数量
+ * SLOWLOG RESET：清空慢查询日志
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class SlowlogCommand extends AbstractCommand {
+    // SLOWLOG GET默认回复的日志数量
+    private static final int DEFAULT_GET_COUNT = 10;
+
+    public SlowlogCommand() {
+        super("slowlog", 2, true, "aRlt");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        String subcommand = client.getArgv()[1].getObj().toString();
+        SlowLog slowLog = SlowLog.getSlowLog();
+
+        if (client.getArgc() == 2 && subcommand.equalsIgnoreCase("reset")) {
+            slowLog.reset();
+            client.addReply(SharedReplies.OK);
+        } else if (client.getArgc() == 2 && subcommand.equalsIgnoreCase("len")) {
+            client.addReplyLongLong(slowLog.len());
+        } else if ((client.getArgc() == 2 || client.getArgc() == 3) && subcommand.equalsIgnoreCase("get")) {
+            long count = DEFAULT_GET_COUNT;
+            if (client.getArgc() == 3) {
+                try {
+                    count = Long.parseLong(client.getArgv()[2].getObj().toString());
+                } catch (NumberFormatException e) {
+                    client.addReplyError(SharedReplies.NOT_INTEGER_ERR);
+                    return;
+                }
+                if (count < -1) {
+                    client.addReplyError("count should be greater than or equal to -1");
+                    return;
+                }
+            }
+            if (count == -1 || count > slowLog.len()) {
+                count = slowLog.len();
+            }
+
+            client.addReplyMultiBulkLen(count);
+            for (int i = 0; i < count; i++) {
+                addReplySlowLogEntry(client, slowLog.getEntry(i));
+            }
+        } else {
+            client.addReplyError("Unknown subcommand or wrong number of arguments for '" + subcommand + "'. Try SLOWLOG GET, LEN or RESET.");
+        }
+    }
+
+    private static void addReplySlowLogEntry(PandisClient client, SlowLog.Entry entry) {
+        boolean argvTruncated = entry.getStoredArgc() < entry.getArgc();
+
+        client.addReplyMultiBulkLen(6);
+        client.addReplyLongLong(entry.getId());
+        client.addReplyLongLong(entry.getTime());
+        client.addReplyLongLong(entry.getDuration());
+
+        client.addReplyMultiBulkLen(entry.getStoredArgc() + (argvTruncated ? 1 : 0));
+        for (int i = 0; i < entry.getStoredArgc(); i++) {
+            int stored = entry.getStoredLength(i);
+            if (stored == entry.getLength(i)) {
+                client.addReplyBulk(entry.getArgv(i), 0, stored);
+            } else {
+                // 过长的参数只保留了前面的部分，在后面注明省略的字节数
+                byte[] suffix = SafeEncoder.encode("... (" + (entry.getLength(i) - stored) + " more bytes)");
+                client.addReplyBulkLen(stored + suffix.length);
+                client.addReply(entry.getArgv(i), 0, stored);
+                client.addReply(suffix);
+                client.addReply(SharedReplies.CRLF);
+            }
+        }
+        if (argvTruncated) {
+            byte[] more = SafeEncoder.encode("... (" + (entry.getArgc() - entry.getStoredArgc()) + " more arguments)");
+            client.addReplyBulk(more, 0, more.length);
+        }
+
+        byte[] address = SafeEncoder.encode(entry.getClientAddress());
+        client.addReplyBulk(address, 0, address.length);
+        client.addReply(SharedReplies.EMPTY_BULK);
+    }
+}
@@ -0,0 +1,47 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import common.store.ObjectType;
+import common.store.PSet;
+import common.store.Sds;
+import common.store.StoreObject;
+import protocol.SharedReplies;
+
+/**
+ * SMEMBERS key命令实现，回复集合中的所有成员，INTSET编码时成员按从小到大的顺序回复
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class SmembersCommand extends AbstractCommand {
+
+    public SmembersCommand() {
+        super("smembers", 2, false, "rS");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        StoreObject value = client.getDatabase().lookupKey((Sds) client.getArgv()[1].getObj());
+        if (value == null) {
+            client.addReply(SharedReplies.EMPTY_MULTI_BULK);
+            return;
+        } else if (value.getType() != ObjectType.SET) {
+            client.addReplyError(SharedReplies.WRONG_TYPE_ERR);
+            return;
+        }
+
+        addReplySetMembers(client, (PSet) value.getObj());
+    }
+
+    /**
+     * 以多条字符串回复的形式回复集合中的所有成员
+     */
+    public static void addReplySetMembers(PandisClient client, PSet set) {
+        client.addReplyMultiBulkLen(set.size());
+        PSet.SetIterator iter = set.iterator();
+        while (iter.next()) {
+            client.addReplyBulk(iter.getBuf(), iter.getOffset(), iter.getLength());
+        }
+    }
+}
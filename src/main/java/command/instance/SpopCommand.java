@@ -0,0 +1,82 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import common.store.ObjectType;
+import common.store.PSet;
+import common.store.Sds;
+import common.store.StoreObject;
+import protocol.SharedReplies;
+import server.PandisDatabase;
+
+/**
+ * SPOP key [count]命令实现，随机删除并回复集合中的成员，集合为空之后删除键
+ *
+ * 没有count时回复一个成员，有count时回复最多count个成员
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class SpopCommand extends AbstractCommand {
+    private static final String NOT_POSITIVE_ERR = "value is out of range, must be positive";
+
+    public SpopCommand() {
+        super("spop", 2, true, "wRF");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        if (client.getArgc() > 3) {
+            client.addReplyError(SharedReplies.SYNTAX_ERR);
+            return;
+        }
+
+        long count = 1;
+        if (client.getArgc() == 3) {
+            try {
+                count = client.getArgvLong(2);
+            } catch (NumberFormatException e) {
+                client.addReplyError(NOT_POSITIVE_ERR);
+                return;
+            }
+            if (count < 0) {
+                client.addReplyError(NOT_POSITIVE_ERR);
+                return;
+            }
+        }
+
+        PandisDatabase db = client.getDatabase();
+        Sds key = (Sds) client.getArgv()[1].getObj();
+        StoreObject value = db.lookupKey(key);
+        if (value == null) {
+            client.addReply(client.getArgc() == 3 ? SharedReplies.EMPTY_MULTI_BULK : SharedReplies.NULL_BULK);
+            return;
+        } else if (value.getType() != ObjectType.SET) {
+            client.addReplyError(SharedReplies.WRONG_TYPE_ERR);
+            return;
+        }
+
+        PSet set = (PSet) value.getObj();
+        if (client.getArgc() == 2) {
+            long before = set.memoryUsage();
+            client.addReplyBulk(set.pop());
+            db.updateUsedMemory(set.memoryUsage() - before);
+        } else if (count >= set.size()) {
+            // 弹出整个集合，直接回复所有成员之后删除键
+            SmembersCommand.addReplySetMembers(client, set);
+            db.delete(key);
+            return;
+        } else {
+            long before = set.memoryUsage();
+            client.addReplyMultiBulkLen(count);
+            while (count-- > 0) {
+                client.addReplyBulk(set.pop());
+            }
+            db.updateUsedMemory(set.memoryUsage() - before);
+        }
+
+        if (set.size() == 0) {
+            db.delete(key);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import common.store.Dict;
+import common.store.ObjectType;
+import common.store.PSet;
+import common.store.Sds;
+import common.store.StoreObject;
+import protocol.SharedReplies;
+
+/**
+ * SRANDMEMBER key [count]命令实现，随机回复集合中的成员，不删除成员
+ *
+ * 没有count时回复一个成员；count为正数时回复最多count个不重复的成员；
+ * count为负数时回复-count个成员，同一个成员可能出现多次
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class SrandmemberCommand extends AbstractCommand {
+    // count与集合大小的比值超过这个倍数的倒数时，先复制整个集合再随机删除，而不是随机挑选
+    private static final int SRANDMEMBER_SUB_STRATEGY_MUL = 3;
+    private static final String OUT_OF_RANGE_ERR = "value is out of range";
+
+    public SrandmemberCommand() {
+        super("srandmember", 2, true, "rR");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        if (client.getArgc() > 3) {
+            client.addReplyError(SharedReplies.SYNTAX_ERR);
+            return;
+        }
+
+        long count = 0;
+        if (client.getArgc() == 3) {
+            try {
+                count = client.getArgvLong(2);
+            } catch (NumberFormatException e) {
+                client.addReplyError(SharedReplies.NOT_INTEGER_ERR);
+                return;
+            }
+            // 负数count的绝对值过大时，回复的成员数量没有意义，并且-count可能溢出
+            if (count < -Long.MAX_VALUE / 2) {
+                client.addReplyError(OUT_OF_RANGE_ERR);
+                return;
+            }
+        }
+
+        StoreObject value = client.getDatabase().lookupKey((Sds) client.getArgv()[1].getObj());
+        if (value == null) {
+            client.addReply(client.getArgc() == 3 ? SharedReplies.EMPTY_MULTI_BULK : SharedReplies.NULL_BULK);
+            return;
+        } else if (value.getType() != ObjectType.SET) {
+            client.addReplyError(SharedReplies.WRONG_TYPE_ERR);
+            return;
+        }
+
+        PSet set = (PSet) value.getObj();
+        if (client.getArgc() == 2) {
+            client.addReplyBulk(set.randomMember());
+            return;
+        }
+
+        if (count == 0) {
+            client.addReply(SharedReplies.EMPTY_MULTI_BULK);
+            return;
+        }
+
+        // 允许重复，每次独立地随机选择
+        if (count < 0) {
+            client.addReplyMultiBulkLen(-count);
+            for (long i = count; i < 0; i++) {
+                // 回复超过上限时客户端会被关闭，不需要再生成剩下的成员
+                if (client.checkReplyBytesLimit()) {
+                    break;
+                }
+                client.addReplyBulk(set.randomMember());
+            }
+            return;
+        }
+
+        // count不小于集合大小，回复整个集合
+        long size = set.size();
+        if (count >= size) {
+            SmembersCommand.addReplySetMembers(client, set);
+            return;
+        }
+
+        Dict<Sds, Object> picked = Dict.createDict();
+        if (count * SRANDMEMBER_SUB_STRATEGY_MUL > size) {
+            // count接近集合大小，随机挑选会有很多重复，复制整个集合之后随机删除多余的成员
+            PSet.SetIterator iter = set.iterator();
+            while (iter.next()) {
+                picked.add(Sds.createSds(iter.getBuf(), iter.getOffset(), iter.getLength()), null);
+            }
+            while (picked.size() > count) {
+                picked.remove(picked.randomEntry().getKey());
+            }
+        } else {
+            // count远小于集合大小，随机挑选直到有count个不重复的成员
+            while (picked.size() < count) {
+                picked.add(set.randomMember(), null);
+            }
+        }
+
+        client.addReplyMultiBulkLen(count);
+        Dict<Sds, Object>.DictIterator iter = picked.iterator(false);
+        while (iter.hasNext()) {
+            client.addReplyBulk(iter.next().getKey());
+        }
+    }
+}
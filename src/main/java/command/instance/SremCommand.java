@@ -0,0 +1,58 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import common.store.ObjectType;
+import common.store.PSet;
+import common.store.Sds;
+import common.store.StoreObject;
+import protocol.SharedReplies;
+import server.PandisDatabase;
+
+/**
+ * SREM key member [member ...]命令实现，从集合中删除成员，所有成员都被删除之后删除键
+ *
+ * 回复被删除的成员数量
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class SremCommand extends AbstractCommand {
+
+    public SremCommand() {
+        super("srem", 3, true, "wF");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        PandisDatabase db = client.getDatabase();
+        StoreObject[] argv = client.getArgv();
+        Sds key = (Sds) argv[1].getObj();
+        StoreObject value = db.lookupKey(key);
+        if (value == null) {
+            client.addReply(SharedReplies.CZERO);
+            return;
+        } else if (value.getType() != ObjectType.SET) {
+            client.addReplyError(SharedReplies.WRONG_TYPE_ERR);
+            return;
+        }
+
+        PSet set = (PSet) value.getObj();
+        long before = set.memoryUsage();
+        int deleted = 0;
+        for (int j = 2; j < client.getArgc(); j++) {
+            if (set.remove((Sds) argv[j].getObj())) {
+                deleted++;
+                if (set.size() == 0) {
+                    break;
+                }
+            }
+        }
+        db.updateUsedMemory(set.memoryUsage() - before);
+        if (set.size() == 0) {
+            db.delete(key);
+        }
+
+        client.addReplyLongLong(deleted);
+    }
+}
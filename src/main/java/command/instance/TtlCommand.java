@@ -0,0 +1,49 @@
+package command.instance;
+
+import client.PandisClient;
+import command.AbstractCommand;
+import common.store.Sds;
+import server.PandisDatabase;
+
+/**
+ * TTL key命令实现，回复键的剩余生存时间（秒）
+ *
+ * 键不存在时回复-2，键没有设置过期时间时回复-1
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class TtlCommand extends AbstractCommand {
+
+    public TtlCommand() {
+        super("ttl", 2, false, "rF");
+    }
+
+    @Override
+    public void execute(PandisClient client) {
+        ttlGenericCommand(client, false);
+    }
+
+    /**
+     * TTL、PTTL的通用实现
+     * @param client 客户端
+     * @param outputMs 是否以毫秒为单位回复
+     */
+    public static void ttlGenericCommand(PandisClient client, boolean outputMs) {
+        PandisDatabase db = client.getDatabase();
+        Sds key = (Sds) client.getArgv()[1].getObj();
+        if (db.lookupKey(key, PandisDatabase.LOOKUP_NOTOUCH) == null) {
+            client.addReplyLongLong(-2);
+            return;
+        }
+
+        long expire = db.getExpire(key);
+        if (expire == -1) {
+            client.addReplyLongLong(-1);
+            return;
+        }
+
+        long ttl = Math.max(expire - System.currentTimeMillis(), 0);
+        client.addReplyLongLong(outputMs ? ttl : (ttl + 500) / 1000);
+    }
+}
@@ -0,0 +1,790 @@
+package common.store;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 字典数据结构，参考Redis的dict.c
+ *
+ * 字典使用两个哈希表，平时只使用table[0]，table[1]只在rehash时使用。
+ * 扩容或缩容时并不一次性地把所有节点迁移到新表，而是把迁移工作分摊到之后对字典的每次查找、添加和删除操作中，
+ * 每次操作只迁移一个桶，serverCron也会在一定的时间上限内对字典进行rehash，
+ * 这样即使字典中有上千万个键，扩容也不会造成长时间的停顿
+ *
+ * rehash期间，查找和删除需要检查两个表，新添加的节点只会放到table[1]中
+ *
+ * 字典不是线程安全的，数据库中的字典只在持有命令锁时访问
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class Dict<K, V> {
+    // 哈希表的初始大小
+    public static final int DICT_HT_INITIAL_SIZE = 4;
+    // 哈希表的最大大小
+    private static final int DICT_HT_MAX_SIZE = 1 << 30;
+    // 每次rehash最多访问的空桶数量是迁移桶数的多少倍，避免遇到大片空桶时长时间阻塞
+    private static final int DICT_REHASH_EMPTY_VISITS = 10;
+    // 按时间上限rehash时，每检查一次时间之前迁移的桶数
+    private static final int DICT_REHASH_BATCH = 100;
+    // 使用率低于该百分比时，字典需要缩容
+    public static final int HASHTABLE_MIN_FILL = 10;
+
+    private final HashTable<K, V> [] table;
+    // rehash进行到的桶的位置，-1表示没有在进行rehash
+    private int rehashIndex;
+    // 正在使用的安全迭代器数量，有安全迭代器时不进行rehash
+    private int safeIterators;
+
+    /**
+     * 私有化构造函数，所有创建Dict都通过工厂方法来进行
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Dict() {
+        this.table = new HashTable[] { new HashTable<K, V>(), new HashTable<K, V>() };
+        this.rehashIndex = -1;
+        this.safeIterators = 0;
+    }
+
+    /**
+     * 用于创建Dict的工厂方法
+     *
+     * @return 一个新的空字典
+     */
+    public static <K, V> Dict<K, V> createDict() {
+        return new Dict<>();
+    }
+
+    /**
+     * 获取字典中的节点数量
+     */
+    public long size() {
+        return this.table[0].used + this.table[1].used;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * 获取字典的桶数量，rehash期间包括两个表的桶
+     */
+    public long slots() {
+        return (long) this.table[0].size + this.table[1].size;
+    }
+
+    public boolean isRehashing() {
+        return this.rehashIndex != -1;
+    }
+
+    /**
+     * 查找给定键所在的节点
+     * @param key 键
+     * @return 节点，找不到时返回null
+     */
+    public Entry<K, V> find(K key) {
+        return find(key, hash(key));
+    }
+
+    /**
+     * 用已经计算好的哈希值查找节点，同一个键需要在多个字典中查找时只计算一次哈希
+     * @param key 键
+     * @param hash hash(key)的结果
+     * @return 节点，找不到时返回null
+     */
+    public Entry<K, V> find(K key, int hash) {
+        if (isEmpty()) {
+            return null;
+        }
+
+        rehashStep();
+        return findInTables(key, hash);
+    }
+
+    /**
+     * 获取给定键的值
+     * @param key 键
+     * @return 值，键不存在时返回null
+     */
+    public V get(K key) {
+        Entry<K, V> entry = find(key);
+        return entry == null ? null : entry.value;
+    }
+
+    public boolean containsKey(K key) {
+        return find(key) != null;
+    }
+
+    /**
+     * 将键值对添加到字典中，只在键不存在时才添加
+     * @param key 键，不能为null
+     * @param value 值
+     * @return 添加成功返回true，键已经存在时返回false
+     */
+    public boolean add(K key, V value) {
+        int hash = hash(key);
+        prepareAdd(key);
+        if (findInTables(key, hash) != null) {
+            return false;
+        }
+
+        insert(key, hash).value = value;
+        return true;
+    }
+
+    /**
+     * 将键值对添加到字典中，如果键已经存在，那么用新值替换旧值
+     * @param key 键，不能为null
+     * @param value 值
+     * @return 旧值，键原本不存在时返回null
+     */
+    public V put(K key, V value) {
+        return put(key, value, hash(key));
+    }
+
+    /**
+     * 用已经计算好的哈希值添加或者替换键值对
+     * @param hash hash(key)的结果
+     * @return 旧值，键原本不存在时返回null
+     */
+    public V put(K key, V value, int hash) {
+        prepareAdd(key);
+        Entry<K, V> entry = findInTables(key, hash);
+        if (entry != null) {
+            V oldValue = entry.value;
+            entry.value = value;
+            return oldValue;
+        }
+
+        insert(key, hash).value = value;
+        return null;
+    }
+
+    /**
+     * 添加节点之前的准备工作：检查键，执行一步rehash
+     */
+    private void prepareAdd(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("key in Dict can't be null.");
+        }
+
+        rehashStep();
+    }
+
+    /**
+     * 创建键对应的节点并添加到字典中，调用者需要保证键不存在
+     * rehash期间新节点只添加到table[1]，新节点放在链表头部，最近添加的节点更可能被访问
+     * @return 新节点，值由调用者设置
+     */
+    private Entry<K, V> insert(K key, int hash) {
+        expandIfNeeded();
+
+        HashTable<K, V> ht = isRehashing() ? this.table[1] : this.table[0];
+        int index = hash & ht.sizemask;
+        Entry<K, V> entry = new Entry<>(key, hash, ht.buckets[index]);
+        ht.buckets[index] = entry;
+        ht.used++;
+
+        return entry;
+    }
+
+    /**
+     * 从字典中删除给定的键
+     * @param key 键
+     * @return 被删除的键的值，键不存在时返回null
+     */
+    public V remove(K key) {
+        return remove(key, hash(key));
+    }
+
+    /**
+     * 用已经计算好的哈希值删除键，已经找到节点时可以传入节点的键和getHash()，不需要重新计算哈希
+     * @param hash hash(key)的结果
+     * @return 被删除的键的值，键不存在时返回null
+     */
+    public V remove(K key, int hash) {
+        if (isEmpty()) {
+            return null;
+        }
+
+        rehashStep();
+
+        for (int t = 0; t <= 1; t++) {
+            HashTable<K, V> ht = this.table[t];
+            if (ht.size > 0) {
+                int index = hash & ht.sizemask;
+                Entry<K, V> prev = null;
+                Entry<K, V> entry = ht.buckets[index];
+                while (entry != null) {
+                    if (entry.hash == hash && (entry.key == key || entry.key.equals(key))) {
+                        if (prev == null) {
+                            ht.buckets[index] = entry.next;
+                        } else {
+                            prev.next = entry.next;
+                        }
+                        ht.used--;
+                        return entry.value;
+                    }
+                    prev = entry;
+                    entry = entry.next;
+                }
+            }
+
+            if (!isRehashing()) {
+                break;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * 清空字典，两个表都恢复为空表
+     */
+    public void clear() {
+        this.table[0].reset();
+        this.table[1].reset();
+        this.rehashIndex = -1;
+    }
+
+    /**
+     * 把字典的桶数量缩小到能容纳所有节点的最小值（但不小于DICT_HT_INITIAL_SIZE）
+     * @return 是否开始了缩容，rehash期间不能缩容
+     */
+    public boolean resize() {
+        if (isRehashing()) {
+            return false;
+        }
+
+        return expand(Math.max(this.table[0].used, DICT_HT_INITIAL_SIZE));
+    }
+
+    /**
+     * 判断字典的使用率是否过低，需要缩容
+     */
+    public boolean needsResize() {
+        long size = slots();
+        return size > DICT_HT_INITIAL_SIZE && size() * 100 / size < HASHTABLE_MIN_FILL;
+    }
+
+    /**
+     * 创建一个新的哈希表，大小为不小于size的2的幂
+     * 字典为空时直接作为table[0]使用，否则作为table[1]并开始渐进式rehash
+     * @param size 期望的大小
+     * @return 是否创建了新表
+     */
+    public boolean expand(long size) {
+        if (isRehashing() || this.table[0].used > size) {
+            return false;
+        }
+
+        int realSize = nextPower(size);
+        if (realSize == this.table[0].size) {
+            return false;
+        }
+
+        if (this.table[0].size == 0) {
+            this.table[0].init(realSize);
+            return true;
+        }
+
+        this.table[1].init(realSize);
+        this.rehashIndex = 0;
+        return true;
+    }
+
+    /**
+     * 执行n步渐进式rehash，每一步把table[0]中一个桶的所有节点迁移到table[1]
+     * 为了避免遇到大片空桶时阻塞太久，最多访问n * DICT_REHASH_EMPTY_VISITS个空桶
+     * @param n 迁移的桶数量
+     * @return 还有节点需要迁移时返回true，rehash已经完成时返回false
+     */
+    public boolean rehash(int n) {
+        if (!isRehashing()) {
+            return false;
+        }
+
+        HashTable<K, V> from = this.table[0];
+        HashTable<K, V> to = this.table[1];
+        int emptyVisits = n * DICT_REHASH_EMPTY_VISITS;
+
+        while (n-- > 0 && from.used != 0) {
+            while (from.buckets[this.rehashIndex] == null) {
+                this.rehashIndex++;
+                if (--emptyVisits == 0) {
+                    return true;
+                }
+            }
+
+            // 把这个桶中的所有节点迁移到新表
+            Entry<K, V> entry = from.buckets[this.rehashIndex];
+            while (entry != null) {
+                Entry<K, V> next = entry.next;
+                int index = entry.hash & to.sizemask;
+                entry.next = to.buckets[index];
+                to.buckets[index] = entry;
+                from.used--;
+                to.used++;
+                entry = next;
+            }
+            from.buckets[this.rehashIndex] = null;
+            this.rehashIndex++;
+        }
+
+        // 所有节点都已经迁移，新表成为table[0]
+        if (from.used == 0) {
+            this.table[0] = to;
+            this.table[1] = from;
+            from.reset();
+            this.rehashIndex = -1;
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * 在给定的时间上限内进行rehash，每迁移DICT_REHASH_BATCH个桶检查一次时间
+     * 有安全迭代器时不进行rehash
+     * @param timeLimit 时间上限（纳秒）
+     * @return 迁移的桶数量
+     */
+    public int rehashNanoseconds(long timeLimit) {
+        if (this.safeIterators > 0) {
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        int rehashes = 0;
+        while (rehash(DICT_REHASH_BATCH)) {
+            rehashes += DICT_REHASH_BATCH;
+            if (System.nanoTime() - start > timeLimit) {
+                break;
+            }
+        }
+
+        return rehashes;
+    }
+
+    /**
+     * 随机返回字典中的一个节点，用于随机取键、淘汰等
+     * 先随机选一个非空的桶，再从桶的链表中随机选一个节点
+     * @return 随机节点，字典为空时返回null
+     */
+    public Entry<K, V> randomEntry() {
+        if (isEmpty()) {
+            return null;
+        }
+
+        rehashStep();
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Entry<K, V> head;
+        if (isRehashing()) {
+            // table[0]中rehashIndex之前的桶已经是空的，不需要选择
+            HashTable<K, V> from = this.table[0];
+            HashTable<K, V> to = this.table[1];
+            do {
+                int index = this.rehashIndex + random.nextInt(from.size + to.size - this.rehashIndex);
+                head = index >= from.size ? to.buckets[index - from.size] : from.buckets[index];
+            } while (head == null);
+        } else {
+            HashTable<K, V> ht = this.table[0];
+            do {
+                head = ht.buckets[random.nextInt(ht.size)];
+            } while (head == null);
+        }
+
+        int length = 0;
+        for (Entry<K, V> entry = head; entry != null; entry = entry.next) {
+            length++;
+        }
+
+        Entry<K, V> entry = head;
+        for (int i = random.nextInt(length); i > 0; i--) {
+            entry = entry.next;
+        }
+
+        return entry;
+    }
+
+    /**
+     * 从字典中随机取样一些节点，放到des数组中，参考Redis的dictGetSomeKeys
+     * 从一个随机的位置开始，依次取出连续的桶中的节点，比多次调用randomEntry快得多，
+     * 但是不保证取出的节点是均匀分布的，也不保证取到count个节点，适合过期和淘汰时的抽样
+     * @param des 保存取样结果的数组
+     * @param count 期望的取样数量，不超过des的长度
+     * @return 实际取到的节点数量
+     */
+    public int sampleEntries(Entry<K, V>[] des, int count) {
+        if (size() < count) {
+            count = (int) size();
+        }
+        count = Math.min(count, des.length);
+        if (count == 0) {
+            return 0;
+        }
+
+        // 最多访问count * 10个桶
+        int maxSteps = count * 10;
+
+        // rehash的步数和取样的数量成正比
+        for (int j = 0; j < count; j++) {
+            if (isRehashing() && this.safeIterators == 0) {
+                rehash(1);
+            } else {
+                break;
+            }
+        }
+
+        int tables = isRehashing() ? 2 : 1;
+        int maxSizeMask = this.table[0].sizemask;
+        if (tables > 1 && this.table[1].sizemask > maxSizeMask) {
+            maxSizeMask = this.table[1].sizemask;
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int index = random.nextInt() & maxSizeMask;
+        int emptyLength = 0;
+        int stored = 0;
+        while (stored < count && maxSteps-- > 0) {
+            for (int t = 0; t < tables; t++) {
+                HashTable<K, V> ht = this.table[t];
+                // table[0]中rehashIndex之前的桶都是空的，跳过
+                if (tables == 2 && t == 0 && index < this.rehashIndex) {
+                    // 如果table[1]也放不下这个位置，那么两个表中都没有节点，直接跳到rehashIndex
+                    if (index >= this.table[1].size) {
+                        index = this.rehashIndex;
+                    } else {
+                        continue;
+                    }
+                }
+                // 这个位置超出了当前表的大小
+                if (index >= ht.size) {
+                    continue;
+                }
+
+                Entry<K, V> entry = ht.buckets[index];
+                if (entry == null) {
+                    // 连续遇到很多空桶时，换一个随机位置
+                    emptyLength++;
+                    if (emptyLength >= 5 && emptyLength > count) {
+                        index = random.nextInt() & maxSizeMask;
+                        emptyLength = 0;
+                    }
+                } else {
+                    emptyLength = 0;
+                    while (entry != null) {
+                        des[stored++] = entry;
+                        entry = entry.next;
+                        if (stored == count) {
+                            return stored;
+                        }
+                    }
+                }
+            }
+            index = (index + 1) & maxSizeMask;
+        }
+
+        return stored;
+    }
+
+    /**
+     * 创建字典迭代器
+     *
+     * 安全迭代器（safe）在迭代期间暂停渐进式rehash，迭代时可以对字典进行查找、添加和删除，
+     * 删除当前节点是安全的，但添加的节点不保证会被迭代到；
+     * 非安全迭代器（unsafe）迭代期间只能调用next，不能对字典做任何操作（查找也会触发rehash），
+     * 释放时会检查字典的指纹，如果字典被修改过，抛出ConcurrentModificationException
+     *
+     * 迭代结束时迭代器会自动释放，提前结束迭代时必须调用release()
+     * @param safe 是否为安全迭代器
+     * @return 迭代器
+     */
+    public DictIterator iterator(boolean safe) {
+        return new DictIterator(safe);
+    }
+
+    /**
+     * 需要时扩容：字典中的节点数达到桶的数量时，扩容到能容纳节点数的2的幂，即大约翻倍
+     */
+    private void expandIfNeeded() {
+        if (isRehashing()) {
+            return;
+        }
+
+        HashTable<K, V> ht = this.table[0];
+        if (ht.size == 0) {
+            expand(DICT_HT_INITIAL_SIZE);
+        } else if (ht.used >= ht.size) {
+            expand(ht.used + 1);
+        }
+    }
+
+    /**
+     * 执行一步渐进式rehash，查找、添加、删除等操作都会调用
+     * 有安全迭代器时不进行rehash，否则迭代器可能会遗漏或者重复迭代节点
+     */
+    private void rehashStep() {
+        if (this.rehashIndex != -1 && this.safeIterators == 0) {
+            rehash(1);
+        }
+    }
+
+    /**
+     * 在两个表中查找节点，不进行rehash
+     */
+    private Entry<K, V> findInTables(K key, int hash) {
+        for (int t = 0; t <= 1; t++) {
+            HashTable<K, V> ht = this.table[t];
+            if (ht.size > 0) {
+                Entry<K, V> entry = ht.buckets[hash & ht.sizemask];
+                while (entry != null) {
+                    if (entry.hash == hash && (entry.key == key || entry.key.equals(key))) {
+                        return entry;
+                    }
+                    entry = entry.next;
+                }
+            }
+
+            if (!isRehashing()) {
+                break;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * 字典的指纹，由两个表的状态计算得到，字典被修改或者rehash之后指纹会改变
+     * 非安全迭代器用它来检查迭代期间字典是否被修改
+     */
+    private long fingerprint() {
+        long[] integers = {
+            System.identityHashCode(this.table[0].buckets), this.table[0].size, this.table[0].used,
+            System.identityHashCode(this.table[1].buckets), this.table[1].size, this.table[1].used
+        };
+
+        // 与Redis相同，用Tomas Wang的64位整数哈希把各个值混合起来
+        long hash = 0;
+        for (long integer : integers) {
+            hash += integer;
+            hash = (~hash) + (hash << 21);
+            hash = hash ^ (hash >>> 24);
+            hash = (hash + (hash << 3)) + (hash << 8);
+            hash = hash ^ (hash >>> 14);
+            hash = (hash + (hash << 2)) + (hash << 4);
+            hash = hash ^ (hash >>> 28);
+            hash = hash + (hash << 31);
+        }
+
+        return hash;
+    }
+
+    /**
+     * 计算键的哈希值，与HashMap一样把高位混合到低位中，因为桶的下标只使用低位
+     * 结果可以传给find(key, hash)等方法，避免对同一个键重复计算哈希
+     */
+    public static int hash(Object key) {
+        if (key == null) {
+            throw new IllegalArgumentException("key in Dict can't be null.");
+        }
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 计算不小于size的最小的2的幂
+     */
+    private static int nextPower(long size) {
+        if (size >= DICT_HT_MAX_SIZE) {
+            return DICT_HT_MAX_SIZE;
+        }
+
+        int power = DICT_HT_INITIAL_SIZE;
+        while (power < size) {
+            power <<= 1;
+        }
+        return power;
+    }
+
+    /**
+     * 哈希表，字典中的每个节点都属于其中一个桶的链表
+     */
+    private static final class HashTable<K, V> {
+        private Entry<K, V> [] buckets;
+        private int size;       // 桶的数量，总是2的幂
+        private int sizemask;   // 计算桶下标的掩码，等于size - 1
+        private long used;      // 节点数量
+
+        HashTable() {
+            reset();
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        void init(int size) {
+            this.buckets = new Entry[size];
+            this.size = size;
+            this.sizemask = size - 1;
+            this.used = 0;
+        }
+
+        void reset() {
+            this.buckets = null;
+            this.size = 0;
+            this.sizemask = 0;
+            this.used = 0;
+        }
+    }
+
+    /**
+     * 字典的节点，保存键值对以及键的哈希值，rehash时不需要重新计算哈希
+     */
+    public static final class Entry<K, V> {
+        private final K key;
+        private final int hash;
+        private V value;
+        private Entry<K, V> next;
+
+        Entry(K key, int hash, Entry<K, V> next) {
+            this.key = key;
+            this.hash = hash;
+            this.next = next;
+        }
+
+        public K getKey() {
+            return this.key;
+        }
+
+        public V getValue() {
+            return this.value;
+        }
+
+        /**
+         * 节点缓存的键的哈希值，即hash(key)的结果
+         */
+        public int getHash() {
+            return this.hash;
+        }
+
+        public void setValue(V value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * 字典迭代器，依次迭代table[0]和table[1]中的所有节点
+     */
+    public final class DictIterator implements Iterator<Entry<K, V>> {
+        private final boolean safe;
+        private int tableIndex;
+        private int index;
+        private Entry<K, V> entry;
+        // 提前保存下一个节点，这样删除当前节点之后迭代仍然可以继续
+        private Entry<K, V> nextEntry;
+        // 下一次next()返回的节点
+        private Entry<K, V> pending;
+        private boolean started;
+        private boolean released;
+        private long fingerprint;
+
+        private DictIterator(boolean safe) {
+            this.safe = safe;
+            this.tableIndex = 0;
+            this.index = -1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.pending == null && !this.released) {
+                this.pending = advance();
+                if (this.pending == null) {
+                    release();
+                }
+            }
+            return this.pending != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            Entry<K, V> result = this.pending;
+            this.pending = null;
+            return result;
+        }
+
+        /**
+         * 删除最近一次next()返回的节点，只有安全迭代器可以删除
+         */
+        @Override
+        public void remove() {
+            if (!this.safe) {
+                throw new UnsupportedOperationException("Only safe dict iterators can remove entries.");
+            }
+            if (this.entry == null || this.pending != null) {
+                throw new IllegalStateException();
+            }
+            Dict.this.remove(this.entry.key);
+        }
+
+        /**
+         * 释放迭代器：安全迭代器恢复字典的渐进式rehash，非安全迭代器检查迭代期间字典是否被修改
+         * 可以重复调用
+         */
+        public void release() {
+            if (this.released) {
+                return;
+            }
+            this.released = true;
+
+            if (this.started) {
+                if (this.safe) {
+                    Dict.this.safeIterators--;
+                } else if (this.fingerprint != fingerprint()) {
+                    throw new ConcurrentModificationException("Dict was modified during unsafe iteration.");
+                }
+            }
+        }
+
+        private Entry<K, V> advance() {
+            while (true) {
+                if (this.entry == null || this.nextEntry == null) {
+                    HashTable<K, V> ht = Dict.this.table[this.tableIndex];
+                    if (!this.started) {
+                        this.started = true;
+                        if (this.safe) {
+                            Dict.this.safeIterators++;
+                        } else {
+                            this.fingerprint = fingerprint();
+                        }
+                    }
+
+                    this.index++;
+                    if (this.index >= ht.size) {
+                        if (isRehashing() && this.tableIndex == 0) {
+                            this.tableIndex++;
+                            this.index = 0;
+                            ht = Dict.this.table[1];
+                        } else {
+                            this.entry = null;
+                            return null;
+                        }
+                    }
+                    this.entry = ht.buckets[this.index];
+                } else {
+                    this.entry = this.nextEntry;
+                }
+
+                if (this.entry != null) {
+                    this.nextEntry = this.entry.next;
+                    return this.entry;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package common.store;
+
+import java.util.Arrays;
+
+/**
+ * 整数集合，参考Redis的intset：所有元素有序地保存在一个字节数组中，没有任何额外的对象
+ *
+ * 元素的宽度（encoding）由集合中绝对值最大的元素决定，可以是2、4、8字节，以小端序保存。
+ * 加入一个当前宽度放不下的元素时，整个集合升级到更宽的编码，之后不会降级
+ *
+ * 查找使用二分查找，插入和删除会移动后面的所有元素，并且字节数组总是保持刚好的大小，
+ * 所以只适合保存数量不多的元素
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class Intset {
+    public static final int INTSET_ENC_INT16 = 2;
+    public static final int INTSET_ENC_INT32 = 4;
+    public static final int INTSET_ENC_INT64 = 8;
+
+    // Intset对象（对象头、contents引用、encoding、length）和字节数组对象头的估算大小
+    public static final int INTSET_OVERHEAD = 24 + 16;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private byte[] contents;    // 保存元素的字节数组，长度为length * encoding
+    private int encoding;       // 每个元素的字节数
+    private int length;         // 元素数量
+
+    private Intset() {
+        this.contents = EMPTY;
+        this.encoding = INTSET_ENC_INT16;
+        this.length = 0;
+    }
+
+    public static Intset createIntset() {
+        return new Intset();
+    }
+
+    /**
+     * 保存value需要的编码
+     */
+    static int valueEncoding(long value) {
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            return INTSET_ENC_INT64;
+        } else if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+            return INTSET_ENC_INT32;
+        }
+        return INTSET_ENC_INT16;
+    }
+
+    public int size() {
+        return this.length;
+    }
+
+    public int getEncoding() {
+        return this.encoding;
+    }
+
+    /**
+     * 字节数组的长度
+     */
+    public int blobLen() {
+        return this.contents.length;
+    }
+
+    /**
+     * 估算整数集合占用的内存字节数
+     */
+    public long memoryUsage() {
+        return INTSET_OVERHEAD + this.contents.length;
+    }
+
+    /**
+     * 获取指定位置的元素
+     * @param pos 位置，0 ~ size() - 1
+     */
+    public long get(int pos) {
+        return decode(this.contents, pos, this.encoding);
+    }
+
+    /**
+     * 按编码enc读取buf中第pos个元素
+     */
+    private static long decode(byte[] buf, int pos, int enc) {
+        int offset = pos * enc;
+        long value = 0;
+        for (int i = enc - 1; i >= 0; i--) {
+            value = (value << 8) | (buf[offset + i] & 0xff);
+        }
+        // 符号扩展
+        int shift = 64 - enc * 8;
+        return (value << shift) >> shift;
+    }
+
+    private void set(int pos, long value) {
+        int offset = pos * this.encoding;
+        for (int i = 0; i < this.encoding; i++) {
+            this.contents[offset + i] = (byte) value;
+            value >>= 8;
+        }
+    }
+
+    /**
+     * 判断元素是否在集合中
+     */
+    public boolean find(long value) {
+        return valueEncoding(value) <= this.encoding && search(value) >= 0;
+    }
+
+    /**
+     * 二分查找元素
+     * @return 元素的位置，元素不存在时返回-(插入位置) - 1
+     */
+    private int search(long value) {
+        if (this.length == 0) {
+            return -1;
+        }
+
+        // 大于最大值或者小于最小值时，直接插入到两端
+        if (value > get(this.length - 1)) {
+            return -this.length - 1;
+        } else if (value < get(0)) {
+            return -1;
+        }
+
+        int min = 0;
+        int max = this.length - 1;
+        while (min <= max) {
+            int mid = (min + max) >>> 1;
+            long cur = get(mid);
+            if (value > cur) {
+                min = mid + 1;
+            } else if (value < cur) {
+                max = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -min - 1;
+    }
+
+    /**
+     * 加入一个元素
+     * @return 元素原本不存在并被加入时返回true
+     */
+    public boolean add(long value) {
+        int valenc = valueEncoding(value);
+        if (valenc > this.encoding) {
+            // 需要升级的元素一定比所有元素都大或者都小，不可能已经存在
+            upgradeAndAdd(value, valenc);
+            return true;
+        }
+
+        int pos = search(value);
+        if (pos >= 0) {
+            return false;
+        }
+        pos = -pos - 1;
+
+        byte[] contents = new byte[(this.length + 1) * this.encoding];
+        System.arraycopy(this.contents, 0, contents, 0, pos * this.encoding);
+        System.arraycopy(this.contents, pos * this.encoding, contents, (pos + 1) * this.encoding,
+                (this.length - pos) * this.encoding);
+        this.contents = contents;
+        set(pos, value);
+        this.length++;
+        return true;
+    }
+
+    /**
+     * 升级到更宽的编码，然后把value加到头部（负数）或者尾部（正数）
+     */
+    private void upgradeAndAdd(long value, int newEncoding) {
+        byte[] old = this.contents;
+        int oldEncoding = this.encoding;
+        int prepend = value < 0 ? 1 : 0;
+
+        this.contents = new byte[(this.length + 1) * newEncoding];
+        this.encoding = newEncoding;
+
+        // 按新的宽度重新写入每个元素，头部留出一个位置给负数
+        for (int i = this.length - 1; i >= 0; i--) {
+            set(i + prepend, decode(old, i, oldEncoding));
+        }
+
+        set(prepend == 1 ? 0 : this.length, value);
+        this.length++;
+    }
+
+    /**
+     * 删除一个元素
+     * @return 元素存在并被删除时返回true
+     */
+    public boolean remove(long value) {
+        if (valueEncoding(value) > this.encoding) {
+            return false;
+        }
+
+        int pos = search(value);
+        if (pos < 0) {
+            return false;
+        }
+
+        byte[] contents = this.length == 1 ? EMPTY : new byte[(this.length - 1) * this.encoding];
+        System.arraycopy(this.contents, 0, contents, 0, pos * this.encoding);
+        System.arraycopy(this.contents, (pos + 1) * this.encoding, contents, pos * this.encoding,
+                (this.length - pos - 1) * this.encoding);
+        this.contents = contents;
+        this.length--;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        long[] values = new long[this.length];
+        for (int i = 0; i < this.length; i++) {
+            values[i] = get(i);
+        }
+        return Arrays.toString(values);
+    }
+}
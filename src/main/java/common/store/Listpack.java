@@ -0,0 +1,362 @@
+package common.store;
+
+import java.util.Arrays;
+
+/**
+ * 紧凑列表，参考Redis的listpack：所有元素依次保存在一个字节数组中，没有任何额外的对象
+ *
+ * 每个元素的格式为：
+ *   [len][content][backlen]
+ *   len：content的长度，以varint（每字节7位，低位在前，最高位表示后面还有字节）编码
+ *   content：元素的字节内容
+ *   backlen：len和content的总长度，以反向的varint编码，最右边的字节保存最低的7位，这样可以从右向左解码，用于反向遍历
+ *
+ * 长度小于128的元素只有2字节的额外开销。元素的位置用它在字节数组中的偏移量表示，
+ * 插入和删除会移动后面的所有元素，所以只适合保存少量的元素
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class Listpack {
+    // 默认的初始容量
+    public static final int LISTPACK_INIT_SIZE = 64;
+    // Listpack对象（对象头、buf引用、used、count）和字节数组对象头的估算大小
+    public static final int LISTPACK_OVERHEAD = 24 + 16;
+
+    private byte[] buf;     // 保存元素的字节数组
+    private int used;       // 已经使用的字节数
+    private int count;      // 元素数量
+
+    private Listpack(int capacity) {
+        this.buf = new byte[capacity];
+        this.used = 0;
+        this.count = 0;
+    }
+
+    private Listpack(byte[] buf, int used, int count) {
+        this.buf = buf;
+        this.used = used;
+        this.count = count;
+    }
+
+    public static Listpack createListpack() {
+        return new Listpack(LISTPACK_INIT_SIZE);
+    }
+
+    public static Listpack createListpack(int capacity) {
+        return new Listpack(Math.max(capacity, 1));
+    }
+
+    /**
+     * 用已经编码好的字节数组创建紧凑列表，比如快速列表解压节点时
+     * @param buf 字节数组，直接使用不复制
+     * @param used 已经使用的字节数
+     * @param count 元素数量
+     */
+    static Listpack createListpack(byte[] buf, int used, int count) {
+        return new Listpack(buf, used, count);
+    }
+
+    /**
+     * 计算一个长度为len的元素在紧凑列表中占用的字节数
+     * @param len 元素内容的长度
+     * @return 元素占用的字节数
+     */
+    public static int entrySize(int len) {
+        int headerAndContent = varintSize(len) + len;
+        return headerAndContent + varintSize(headerAndContent);
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * 已经使用的字节数
+     */
+    public int bytes() {
+        return this.used;
+    }
+
+    /**
+     * 字节数组的容量
+     */
+    public int capacity() {
+        return this.buf.length;
+    }
+
+    public byte[] getBuf() {
+        return this.buf;
+    }
+
+    /**
+     * 估算紧凑列表占用的内存字节数
+     */
+    public long memoryUsage() {
+        return LISTPACK_OVERHEAD + this.buf.length;
+    }
+
+    /**
+     * 第一个元素的位置
+     * @return 紧凑列表为空时返回-1
+     */
+    public int first() {
+        return this.used == 0 ? -1 : 0;
+    }
+
+    /**
+     * 最后一个元素的位置
+     * @return 紧凑列表为空时返回-1
+     */
+    public int last() {
+        return this.used == 0 ? -1 : prevOf(this.used);
+    }
+
+    /**
+     * 下一个元素的位置
+     * @param p 当前元素的位置
+     * @return p是最后一个元素时返回-1
+     */
+    public int next(int p) {
+        int n = entryOffset(p) + entryLength(p);
+        n += varintSize(n - p);
+        return n >= this.used ? -1 : n;
+    }
+
+    /**
+     * 上一个元素的位置
+     * @param p 当前元素的位置
+     * @return p是第一个元素时返回-1
+     */
+    public int prev(int p) {
+        return p == 0 ? -1 : prevOf(p);
+    }
+
+    /**
+     * 解码结束位置之前的backlen，得到上一个元素的起始位置
+     */
+    private int prevOf(int end) {
+        int p = end - 1;
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            value |= (this.buf[p] & 0x7f) << shift;
+            if ((this.buf[p] & 0x80) == 0) {
+                break;
+            }
+            shift += 7;
+            p--;
+        }
+        return p - value;
+    }
+
+    /**
+     * 查找指定下标的元素，负数下标表示从尾部开始，-1是最后一个元素
+     * 从离下标较近的一端开始遍历
+     * @param index 下标
+     * @return 元素的位置，下标超出范围时返回-1
+     */
+    public int seek(long index) {
+        if (index < 0) {
+            index += this.count;
+        }
+        if (index < 0 || index >= this.count) {
+            return -1;
+        }
+
+        int p;
+        if (index < this.count / 2) {
+            p = 0;
+            while (index-- > 0) {
+                p = next(p);
+            }
+        } else {
+            p = last();
+            for (long i = this.count - 1; i > index; i--) {
+                p = prevOf(p);
+            }
+        }
+        return p;
+    }
+
+    /**
+     * 元素内容的长度
+     * @param p 元素的位置
+     */
+    public int entryLength(int p) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = this.buf[p++];
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * 元素内容在字节数组中的起始位置
+     * @param p 元素的位置
+     */
+    public int entryOffset(int p) {
+        while ((this.buf[p] & 0x80) != 0) {
+            p++;
+        }
+        return p + 1;
+    }
+
+    /**
+     * 复制元素的内容
+     * @param p 元素的位置
+     * @return 元素内容的副本
+     */
+    public byte[] get(int p) {
+        int offset = entryOffset(p);
+        return Arrays.copyOfRange(this.buf, offset, offset + entryLength(p));
+    }
+
+    /**
+     * 比较元素的内容与给定的字节是否相同
+     * @param p 元素的位置
+     */
+    public boolean entryEquals(int p, byte[] s, int off, int len) {
+        if (entryLength(p) != len) {
+            return false;
+        }
+
+        int offset = entryOffset(p);
+        for (int i = 0; i < len; i++) {
+            if (this.buf[offset + i] != s[off + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 从位置p开始查找内容相同的元素，每比较一个元素之后跳过skip个元素
+     * 比如保存键值对交替排列的哈希表时，skip为1，只和键比较
+     * @param p 开始查找的位置
+     * @param skip 每次跳过的元素数量
+     * @return 找到的元素的位置，没有找到时返回-1
+     */
+    public int find(int p, byte[] s, int off, int len, int skip) {
+        while (p != -1) {
+            if (entryEquals(p, s, off, len)) {
+                return p;
+            }
+            for (int i = 0; i <= skip && p != -1; i++) {
+                p = next(p);
+            }
+        }
+        return -1;
+    }
+
+    public void append(byte[] s, int off, int len) {
+        insert(this.used, s, off, len);
+    }
+
+    public void prepend(byte[] s, int off, int len) {
+        insert(0, s, off, len);
+    }
+
+    /**
+     * 在位置p之前插入元素，p等于bytes()时追加到末尾
+     * @param p 插入的位置
+     * @return 新元素的位置，也就是p
+     */
+    public int insert(int p, byte[] s, int off, int len) {
+        int size = entrySize(len);
+        ensureCapacity(this.used + size);
+        System.arraycopy(this.buf, p, this.buf, p + size, this.used - p);
+        writeEntry(p, s, off, len);
+        this.used += size;
+        this.count++;
+        return p;
+    }
+
+    /**
+     * 删除位置p的元素
+     * @param p 元素的位置
+     * @return 删除之后下一个元素的位置（也就是p），被删除的是最后一个元素时返回-1
+     */
+    public int delete(int p) {
+        int size = entrySize(entryLength(p));
+        System.arraycopy(this.buf, p + size, this.buf, p, this.used - p - size);
+        this.used -= size;
+        this.count--;
+        return p >= this.used ? -1 : p;
+    }
+
+    /**
+     * 把位置p的元素替换为新的内容
+     * @param p 元素的位置
+     * @return 新元素的位置，也就是p
+     */
+    public int replace(int p, byte[] s, int off, int len) {
+        int oldSize = entrySize(entryLength(p));
+        int newSize = entrySize(len);
+        if (newSize != oldSize) {
+            ensureCapacity(this.used - oldSize + newSize);
+            System.arraycopy(this.buf, p + oldSize, this.buf, p + newSize, this.used - p - oldSize);
+            this.used += newSize - oldSize;
+        }
+        writeEntry(p, s, off, len);
+        return p;
+    }
+
+    /**
+     * 删除所有元素，保留字节数组
+     */
+    public void clear() {
+        this.used = 0;
+        this.count = 0;
+    }
+
+    /**
+     * 释放字节数组中多余的容量
+     */
+    public void shrinkToFit() {
+        if (this.used < this.buf.length) {
+            this.buf = Arrays.copyOf(this.buf, Math.max(this.used, 1));
+        }
+    }
+
+    private void writeEntry(int p, byte[] s, int off, int len) {
+        int start = p;
+
+        // len，低位在前
+        int value = len;
+        while ((value & ~0x7f) != 0) {
+            this.buf[p++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        this.buf[p++] = (byte) value;
+
+        System.arraycopy(s, off, this.buf, p, len);
+        p += len;
+
+        // backlen，最右边的字节保存最低的7位
+        int backlen = p - start;
+        int backlenSize = varintSize(backlen);
+        for (int i = backlenSize - 1; i >= 0; i--) {
+            this.buf[p + i] = (byte) ((backlen & 0x7f) | (i == 0 ? 0 : 0x80));
+            backlen >>>= 7;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > this.buf.length) {
+            this.buf = Arrays.copyOf(this.buf, Math.max(capacity, this.buf.length * 2));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package common.store;
+
+/**
+ * 表示StoreObject的实际对象使用的编码（底层数据结构），同一种类型可以有多种编码
+ *
+ * 编码的序号保存在StoreObject头部的4位中，最多只能有16种编码
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public enum ObjectEncoding {
+    RAW,            // 字符串，Sds
+    INT,            // 可以表示为long的字符串
+    HT,             // 字典
+    LINKEDLIST,     // 双端链表
+    INTSET,         // 整数集合
+    SKIPLIST,       // 跳跃表
+    QUICKLIST,      // 快速列表
+    LISTPACK        // 紧凑列表
+}
@@ -1,16 +1,262 @@
 package common.store;
 
-import java.util.HashMap;
-
 /**
- * @description:
+ * @description: 哈希对象，参考Redis的哈希类型有两种编码：
+ *   LISTPACK：field和value交替保存在一个紧凑列表中，查找时顺序比较field，适合字段少、值小的哈希
+ *   HT：字典，field和value都是Sds
+ *
+ * 新的哈希对象使用LISTPACK编码，字段数量超过maxListpackEntries（hash-max-listpack-entries）、
+ * 或者field、value的长度超过maxListpackValue（hash-max-listpack-value）时转换为HT编码，之后不再转换回来
+ *
+ * 编码转换之后，持有哈希对象的StoreObject需要用getEncoding()同步编码
+ *
  * @author: huzihan
  * @create: 2021-06-27
  */
 public class PHash {
-    private HashMap<PString, PString> map;
+    public static final int DEFAULT_MAX_LISTPACK_ENTRIES = 512;
+    public static final int DEFAULT_MAX_LISTPACK_VALUE = 64;
+
+    // PHash对象本身的估算大小
+    public static final int PHASH_OVERHEAD = 40;
+    // 字典对象（两个哈希表）的估算大小
+    private static final int DICT_OVERHEAD = 96;
+    // 字典节点的估算大小
+    private static final int DICT_ENTRY_SIZE = 40;
+    // 字典每个桶的引用大小
+    private static final int DICT_SLOT_SIZE = 8;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private ObjectEncoding encoding;
+    private Listpack lp;            // LISTPACK编码，field和value交替保存
+    private Dict<Sds, Sds> dict;    // HT编码
+    private long dictBytes;         // HT编码时所有field和value的估算内存之和
+    private int maxListpackEntries;
+    private int maxListpackValue;
 
     public PHash() {
-        this.map = new HashMap<>();
+        this(DEFAULT_MAX_LISTPACK_ENTRIES, DEFAULT_MAX_LISTPACK_VALUE);
+    }
+
+    /**
+     * @param maxListpackEntries LISTPACK编码最多保存的字段数量，即hash-max-listpack-entries
+     * @param maxListpackValue LISTPACK编码中field和value的最大长度，即hash-max-listpack-value
+     */
+    public PHash(int maxListpackEntries, int maxListpackValue) {
+        this.encoding = ObjectEncoding.LISTPACK;
+        this.lp = Listpack.createListpack();
+        this.maxListpackEntries = maxListpackEntries;
+        this.maxListpackValue = maxListpackValue;
+    }
+
+    public ObjectEncoding getEncoding() {
+        return this.encoding;
+    }
+
+    /**
+     * 字段数量
+     */
+    public long size() {
+        return this.encoding == ObjectEncoding.LISTPACK ? this.lp.size() / 2 : this.dict.size();
+    }
+
+    /**
+     * 获取字段的值
+     * @param field 字段
+     * @return 字段的值，LISTPACK编码时返回值的副本，字段不存在时返回null
+     */
+    public Sds get(Sds field) {
+        if (this.encoding == ObjectEncoding.LISTPACK) {
+            int p = this.lp.find(this.lp.first(), bufOf(field), 0, field.getLen(), 1);
+            if (p == -1) {
+                return null;
+            }
+            p = this.lp.next(p);
+            return Sds.createSds(this.lp.getBuf(), this.lp.entryOffset(p), this.lp.entryLength(p));
+        }
+        return this.dict.get(field);
+    }
+
+    /**
+     * 设置字段的值，字段已经存在时替换原来的值
+     * LISTPACK编码放不下时先转换为HT编码。HT编码直接保存field和value对象，之后调用者不能再修改它们
+     * @param field 字段
+     * @param value 值
+     * @return 字段是新加入的返回true，替换了原来的值返回false
+     */
+    public boolean set(Sds field, Sds value) {
+        if (this.encoding == ObjectEncoding.LISTPACK
+                && (field.getLen() > this.maxListpackValue || value.getLen() > this.maxListpackValue)) {
+            convertToDict();
+        }
+
+        if (this.encoding == ObjectEncoding.LISTPACK) {
+            int p = this.lp.find(this.lp.first(), bufOf(field), 0, field.getLen(), 1);
+            if (p != -1) {
+                this.lp.replace(this.lp.next(p), bufOf(value), 0, value.getLen());
+                return false;
+            }
+
+            this.lp.append(bufOf(field), 0, field.getLen());
+            this.lp.append(bufOf(value), 0, value.getLen());
+            if (this.lp.size() / 2 > this.maxListpackEntries) {
+                convertToDict();
+            }
+            return true;
+        }
+
+        Dict.Entry<Sds, Sds> entry = this.dict.find(field);
+        if (entry != null) {
+            this.dictBytes += value.memoryUsage() - entry.getValue().memoryUsage();
+            entry.setValue(value);
+            return false;
+        }
+
+        this.dict.add(field, value);
+        this.dictBytes += field.memoryUsage() + value.memoryUsage();
+        return true;
+    }
+
+    /**
+     * 删除字段
+     * @param field 字段
+     * @return 字段存在并被删除时返回true
+     */
+    public boolean delete(Sds field) {
+        if (this.encoding == ObjectEncoding.LISTPACK) {
+            int p = this.lp.find(this.lp.first(), bufOf(field), 0, field.getLen(), 1);
+            if (p == -1) {
+                return false;
+            }
+            // 删除field之后，value移动到了p的位置
+            this.lp.delete(p);
+            this.lp.delete(p);
+            return true;
+        }
+
+        Dict.Entry<Sds, Sds> entry = this.dict.find(field);
+        if (entry == null) {
+            return false;
+        }
+        this.dictBytes -= entry.getKey().memoryUsage() + entry.getValue().memoryUsage();
+        this.dict.remove(field);
+        return true;
+    }
+
+    /**
+     * 遍历所有字段，迭代期间不能修改哈希对象
+     */
+    public HashIterator iterator() {
+        return new HashIterator();
+    }
+
+    /**
+     * 估算哈希对象占用的内存字节数
+     */
+    public long memoryUsage() {
+        if (this.encoding == ObjectEncoding.LISTPACK) {
+            return PHASH_OVERHEAD + this.lp.memoryUsage();
+        }
+        return PHASH_OVERHEAD + DICT_OVERHEAD + this.dict.slots() * DICT_SLOT_SIZE
+                + this.dict.size() * DICT_ENTRY_SIZE + this.dictBytes;
+    }
+
+    /**
+     * 把LISTPACK编码转换为HT编码
+     */
+    private void convertToDict() {
+        Dict<Sds, Sds> dict = Dict.createDict();
+        dict.expand(this.lp.size() / 2);
+
+        long bytes = 0;
+        for (int p = this.lp.first(); p != -1; p = this.lp.next(p)) {
+            Sds field = Sds.createSds(this.lp.getBuf(), this.lp.entryOffset(p), this.lp.entryLength(p));
+            p = this.lp.next(p);
+            Sds value = Sds.createSds(this.lp.getBuf(), this.lp.entryOffset(p), this.lp.entryLength(p));
+            dict.add(field, value);
+            bytes += field.memoryUsage() + value.memoryUsage();
+        }
+
+        this.encoding = ObjectEncoding.HT;
+        this.dict = dict;
+        this.dictBytes = bytes;
+        this.lp = null;
+    }
+
+    /**
+     * 空字符串的Sds没有底层数组
+     */
+    private static byte[] bufOf(Sds s) {
+        return s.getLen() == 0 ? EMPTY : s.getBufNoCopy();
+    }
+
+    /**
+     * 哈希对象迭代器，直接读取field和value的字节，不复制内容
+     *
+     * 用法：
+     *     while (iter.next()) {
+     *         client.addReplyBulk(iter.getFieldBuf(), iter.getFieldOffset(), iter.getFieldLength());
+     *         client.addReplyBulk(iter.getValueBuf(), iter.getValueOffset(), iter.getValueLength());
+     *     }
+     */
+    public final class HashIterator {
+        private int p = -1;                             // LISTPACK编码时当前field的位置
+        private Dict<Sds, Sds>.DictIterator dictIter;   // HT编码时的字典迭代器
+        private Dict.Entry<Sds, Sds> entry;             // HT编码时的当前节点
+        private boolean started;
+
+        private HashIterator() {
+            if (encoding == ObjectEncoding.HT) {
+                this.dictIter = dict.iterator(false);
+            }
+        }
+
+        /**
+         * 移动到下一个字段
+         * @return 没有更多字段时返回false
+         */
+        public boolean next() {
+            if (encoding == ObjectEncoding.LISTPACK) {
+                if (!this.started) {
+                    this.started = true;
+                    this.p = lp.first();
+                } else if (this.p != -1) {
+                    this.p = lp.next(lp.next(this.p));
+                }
+                return this.p != -1;
+            }
+
+            if (this.dictIter.hasNext()) {
+                this.entry = this.dictIter.next();
+                return true;
+            }
+            this.entry = null;
+            return false;
+        }
+
+        public byte[] getFieldBuf() {
+            return encoding == ObjectEncoding.LISTPACK ? lp.getBuf() : bufOf(this.entry.getKey());
+        }
+
+        public int getFieldOffset() {
+            return encoding == ObjectEncoding.LISTPACK ? lp.entryOffset(this.p) : 0;
+        }
+
+        public int getFieldLength() {
+            return encoding == ObjectEncoding.LISTPACK ? lp.entryLength(this.p) : this.entry.getKey().getLen();
+        }
+
+        public byte[] getValueBuf() {
+            return encoding == ObjectEncoding.LISTPACK ? lp.getBuf() : bufOf(this.entry.getValue());
+        }
+
+        public int getValueOffset() {
+            return encoding == ObjectEncoding.LISTPACK ? lp.entryOffset(lp.next(this.p)) : 0;
+        }
+
+        public int getValueLength() {
+            return encoding == ObjectEncoding.LISTPACK ? lp.entryLength(lp.next(this.p)) : this.entry.getValue().getLen();
+        }
     }
 }
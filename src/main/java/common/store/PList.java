@@ -1,16 +1,76 @@
 package common.store;
 
-import java.util.LinkedList;
-
 /**
- * @description:
+ * @description: 列表对象，使用快速列表编码，元素以字节形式紧凑地保存在快速列表的节点中
  * @author: huzihan
  * @create: 2021-06-27
  */
 public class PList {
-    private LinkedList<PString> list;
+    public static final int LIST_HEAD = Quicklist.QUICKLIST_HEAD;
+    public static final int LIST_TAIL = Quicklist.QUICKLIST_TAIL;
+
+    private Quicklist quicklist;
 
     public PList() {
-        this.list = new LinkedList<>();
+        this(Quicklist.DEFAULT_FILL);
+    }
+
+    /**
+     * @param fill 快速列表节点的大小限制，即list-max-listpack-size
+     */
+    public PList(int fill) {
+        this(fill, 0);
+    }
+
+    /**
+     * @param fill 快速列表节点的大小限制，即list-max-listpack-size
+     * @param compressDepth 两端不压缩的节点数量，即list-compress-depth
+     */
+    public PList(int fill, int compressDepth) {
+        this.quicklist = Quicklist.createQuicklist(fill, compressDepth);
+    }
+
+    /**
+     * 在头部或者尾部加入一个元素
+     * @param where LIST_HEAD或者LIST_TAIL
+     */
+    public void push(byte[] s, int off, int len, int where) {
+        this.quicklist.push(s, off, len, where);
+    }
+
+    /**
+     * 从头部或者尾部弹出一个元素
+     * @param where LIST_HEAD或者LIST_TAIL
+     * @return 元素的内容，列表为空时返回null
+     */
+    public byte[] pop(int where) {
+        return this.quicklist.pop(where);
+    }
+
+    /**
+     * 获取指定下标的元素，负数下标表示从尾部开始
+     * @return 元素的内容，下标超出范围时返回null
+     */
+    public byte[] index(long index) {
+        return this.quicklist.index(index);
+    }
+
+    /**
+     * 从指定下标开始向尾部遍历
+     */
+    public Quicklist.QuicklistIterator iterator(long start) {
+        return this.quicklist.iterator(start);
+    }
+
+    public long size() {
+        return this.quicklist.size();
+    }
+
+    public long memoryUsage() {
+        return this.quicklist.memoryUsage();
+    }
+
+    public Quicklist getQuicklist() {
+        return this.quicklist;
     }
 }
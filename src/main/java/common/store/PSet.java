@@ -0,0 +1,267 @@
+package common.store;
+
+import utils.StringUtil;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 集合对象，参考Redis的集合类型有两种编码：
+ *   INTSET：所有成员都是可以表示为long的十进制字符串时，保存在整数集合中，每个成员只占2、4或者8字节
+ *   HT：字典，成员是字典的键，值总是null
+ *
+ * 新的集合对象使用INTSET编码，加入不是整数的成员、或者成员数量超过maxIntsetEntries（set-max-intset-entries）时
+ * 转换为HT编码，之后不再转换回来
+ *
+ * 编码转换之后，持有集合对象的StoreObject需要用getEncoding()同步编码
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class PSet {
+    public static final int DEFAULT_MAX_INTSET_ENTRIES = 512;
+
+    // PSet对象本身的估算大小
+    public static final int PSET_OVERHEAD = 32;
+    // 字典对象（两个哈希表）的估算大小
+    private static final int DICT_OVERHEAD = 96;
+    // 字典节点的估算大小
+    private static final int DICT_ENTRY_SIZE = 40;
+    // 字典每个桶的引用大小
+    private static final int DICT_SLOT_SIZE = 8;
+
+    private ObjectEncoding encoding;
+    private Intset intset;              // INTSET编码
+    private Dict<Sds, Object> dict;     // HT编码
+    private long dictBytes;             // HT编码时所有成员的估算内存之和
+    private int maxIntsetEntries;
+
+    public PSet() {
+        this(DEFAULT_MAX_INTSET_ENTRIES);
+    }
+
+    /**
+     * @param maxIntsetEntries INTSET编码最多保存的成员数量，即set-max-intset-entries
+     */
+    public PSet(int maxIntsetEntries) {
+        this.encoding = ObjectEncoding.INTSET;
+        this.intset = Intset.createIntset();
+        this.maxIntsetEntries = maxIntsetEntries;
+    }
+
+    public ObjectEncoding getEncoding() {
+        return this.encoding;
+    }
+
+    /**
+     * 成员数量
+     */
+    public long size() {
+        return this.encoding == ObjectEncoding.INTSET ? this.intset.size() : this.dict.size();
+    }
+
+    /**
+     * 判断成员是否在集合中
+     */
+    public boolean contains(Sds member) {
+        if (this.encoding == ObjectEncoding.INTSET) {
+            long value;
+            try {
+                value = toLong(member);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            return this.intset.find(value);
+        }
+        return this.dict.containsKey(member);
+    }
+
+    /**
+     * 加入成员。HT编码直接保存member对象，之后调用者不能再修改它
+     * @return 成员原本不存在并被加入时返回true
+     */
+    public boolean add(Sds member) {
+        if (this.encoding == ObjectEncoding.INTSET) {
+            try {
+                if (!this.intset.add(toLong(member))) {
+                    return false;
+                }
+                if (this.intset.size() > this.maxIntsetEntries) {
+                    convertToDict();
+                }
+                return true;
+            } catch (NumberFormatException e) {
+                // 不是整数的成员，转换为HT编码之后再加入
+                convertToDict();
+            }
+        }
+
+        if (!this.dict.add(member, null)) {
+            return false;
+        }
+        this.dictBytes += member.memoryUsage();
+        return true;
+    }
+
+    /**
+     * 删除成员
+     * @return 成员存在并被删除时返回true
+     */
+    public boolean remove(Sds member) {
+        if (this.encoding == ObjectEncoding.INTSET) {
+            long value;
+            try {
+                value = toLong(member);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            return this.intset.remove(value);
+        }
+
+        Dict.Entry<Sds, Object> entry = this.dict.find(member);
+        if (entry == null) {
+            return false;
+        }
+        this.dictBytes -= entry.getKey().memoryUsage();
+        this.dict.remove(member);
+        return true;
+    }
+
+    /**
+     * 随机返回一个成员，不删除
+     * @return 随机成员，集合为空时返回null
+     */
+    public Sds randomMember() {
+        if (size() == 0) {
+            return null;
+        }
+
+        if (this.encoding == ObjectEncoding.INTSET) {
+            return fromLong(this.intset.get(ThreadLocalRandom.current().nextInt(this.intset.size())));
+        }
+        return this.dict.randomEntry().getKey();
+    }
+
+    /**
+     * 随机删除并返回一个成员
+     * @return 被删除的成员，集合为空时返回null
+     */
+    public Sds pop() {
+        Sds member = randomMember();
+        if (member != null) {
+            remove(member);
+        }
+        return member;
+    }
+
+    /**
+     * 遍历所有成员，迭代期间不能修改集合对象
+     */
+    public SetIterator iterator() {
+        return new SetIterator();
+    }
+
+    /**
+     * 估算集合对象占用的内存字节数
+     */
+    public long memoryUsage() {
+        if (this.encoding == ObjectEncoding.INTSET) {
+            return PSET_OVERHEAD + this.intset.memoryUsage();
+        }
+        return PSET_OVERHEAD + DICT_OVERHEAD + this.dict.slots() * DICT_SLOT_SIZE
+                + this.dict.size() * DICT_ENTRY_SIZE + this.dictBytes;
+    }
+
+    /**
+     * 把INTSET编码转换为HT编码
+     */
+    private void convertToDict() {
+        Dict<Sds, Object> dict = Dict.createDict();
+        dict.expand(this.intset.size());
+
+        long bytes = 0;
+        for (int i = 0; i < this.intset.size(); i++) {
+            Sds member = fromLong(this.intset.get(i));
+            dict.add(member, null);
+            bytes += member.memoryUsage();
+        }
+
+        this.encoding = ObjectEncoding.HT;
+        this.dict = dict;
+        this.dictBytes = bytes;
+        this.intset = null;
+    }
+
+    /**
+     * 按Redis的string2ll规则把成员解析为整数
+     * @throws NumberFormatException 成员不能表示为long
+     */
+    private static long toLong(Sds member) {
+        if (member.getLen() == 0) {
+            throw new NumberFormatException("Empty member");
+        }
+        return StringUtil.parseLong(member.getBufNoCopy(), 0, member.getLen());
+    }
+
+    private static Sds fromLong(long value) {
+        byte[] buf = new byte[20];
+        return Sds.createSds(buf, 0, StringUtil.ll2string(value, buf, 0));
+    }
+
+    /**
+     * 集合对象迭代器，INTSET编码时把整数写入一个复用的缓冲区，HT编码时直接读取成员的字节
+     *
+     * 用法：
+     *     while (iter.next()) {
+     *         client.addReplyBulk(iter.getBuf(), iter.getOffset(), iter.getLength());
+     *     }
+     */
+    public final class SetIterator {
+        private int pos = -1;                               // INTSET编码时当前成员的位置
+        private final byte[] buf;                           // INTSET编码时当前成员的十进制字符
+        private int len;
+        private Dict<Sds, Object>.DictIterator dictIter;    // HT编码时的字典迭代器
+        private Sds member;                                 // HT编码时的当前成员
+
+        private SetIterator() {
+            if (encoding == ObjectEncoding.INTSET) {
+                this.buf = new byte[20];
+            } else {
+                this.buf = null;
+                this.dictIter = dict.iterator(false);
+            }
+        }
+
+        /**
+         * 移动到下一个成员
+         * @return 没有更多成员时返回false
+         */
+        public boolean next() {
+            if (encoding == ObjectEncoding.INTSET) {
+                if (++this.pos >= intset.size()) {
+                    return false;
+                }
+                this.len = StringUtil.ll2string(intset.get(this.pos), this.buf, 0);
+                return true;
+            }
+
+            if (this.dictIter.hasNext()) {
+                this.member = this.dictIter.next().getKey();
+                return true;
+            }
+            this.member = null;
+            return false;
+        }
+
+        public byte[] getBuf() {
+            return encoding == ObjectEncoding.INTSET ? this.buf : this.member.getBufNoCopy();
+        }
+
+        public int getOffset() {
+            return 0;
+        }
+
+        public int getLength() {
+            return encoding == ObjectEncoding.INTSET ? this.len : this.member.getLen();
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package common.store;
+
+import utils.Lzf;
+
+import java.util.Arrays;
+
+/**
+ * 快速列表，参考Redis的quicklist：由紧凑列表节点组成的双向链表
+ *
+ * 每个节点用一个Listpack保存多个元素，节点的大小由fill（list-max-listpack-size）决定：
+ *   fill为正数时，每个节点最多保存fill个元素，并且节点不超过SIZE_SAFETY_LIMIT字节
+ *   fill为-1 ~ -5时，每个节点最多4KB、8KB、16KB、32KB、64KB
+ * 超过节点大小限制的元素单独放在一个节点中
+ *
+ * 与每个元素一个链表节点和一个字符串对象相比，小元素的额外开销只有几个字节；
+ * 两端的push/pop只访问头尾节点，按下标查找时可以按节点的元素数量整个跳过节点
+ *
+ * 列表通常只在两端访问，compressDepth（list-compress-depth）大于0时，两端各compressDepth个节点之外的
+ * 中间节点用LZF压缩保存，节点加入或者移除之后重新调整压缩的边界。读取压缩节点时解压出一个临时的副本，
+ * 压缩节点本身保持不变
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class Quicklist {
+    public static final int QUICKLIST_HEAD = 0;
+    public static final int QUICKLIST_TAIL = -1;
+
+    // 默认每个节点最多8KB
+    public static final int DEFAULT_FILL = -2;
+    // fill为-1 ~ -5时对应的节点大小上限
+    private static final int[] OPTIMIZATION_LEVEL = {4096, 8192, 16384, 32768, 65536};
+    // fill为正数时，节点大小的上限
+    public static final int SIZE_SAFETY_LIMIT = 8192;
+
+    // Quicklist对象的估算大小
+    public static final int QUICKLIST_OVERHEAD = 48;
+    // 节点对象（对象头、prev、next、listpack引用、压缩数据引用、sz、count）的估算大小
+    public static final int QUICKLIST_NODE_OVERHEAD = 40;
+    // 小于这个字节数的节点不压缩
+    private static final int MIN_COMPRESS_BYTES = 48;
+    // 压缩至少要节省这么多字节，否则保持不压缩
+    private static final int MIN_COMPRESS_IMPROVE = 8;
+
+    private QuicklistNode head;
+    private QuicklistNode tail;
+    private long count;     // 所有节点中元素的总数
+    private int len;        // 节点数量
+    private int fill;       // 节点大小限制
+    private int compressDepth;  // 两端不压缩的节点数量，0表示不压缩
+    private long bytes;     // 所有节点的字节数组容量之和（压缩节点为压缩数据的长度），用于估算内存
+
+    private Quicklist(int fill, int compressDepth) {
+        this.head = null;
+        this.tail = null;
+        this.count = 0;
+        this.len = 0;
+        this.fill = fill;
+        this.compressDepth = compressDepth;
+        this.bytes = 0;
+    }
+
+    /**
+     * 创建不压缩节点的快速列表
+     * @param fill 节点大小限制，正数表示元素数量，-1 ~ -5表示4KB ~ 64KB
+     * @return 新的快速列表
+     */
+    public static Quicklist createQuicklist(int fill) {
+        return createQuicklist(fill, 0);
+    }
+
+    /**
+     * 创建快速列表
+     * @param fill 节点大小限制，正数表示元素数量，-1 ~ -5表示4KB ~ 64KB
+     * @param compressDepth 两端不压缩的节点数量，0表示不压缩
+     * @return 新的快速列表
+     */
+    public static Quicklist createQuicklist(int fill, int compressDepth) {
+        if (fill < -OPTIMIZATION_LEVEL.length) {
+            fill = -OPTIMIZATION_LEVEL.length;
+        } else if (fill == 0) {
+            fill = 1;
+        }
+        return new Quicklist(fill, Math.max(compressDepth, 0));
+    }
+
+    /**
+     * 元素数量
+     */
+    public long size() {
+        return this.count;
+    }
+
+    /**
+     * 节点数量
+     */
+    public int nodeCount() {
+        return this.len;
+    }
+
+    public int getFill() {
+        return this.fill;
+    }
+
+    public int getCompressDepth() {
+        return this.compressDepth;
+    }
+
+    /**
+     * 压缩的节点数量
+     */
+    public int compressedNodeCount() {
+        int compressed = 0;
+        for (QuicklistNode node = this.head; node != null; node = node.next) {
+            if (node.lp == null) {
+                compressed++;
+            }
+        }
+        return compressed;
+    }
+
+    /**
+     * 估算快速列表占用的内存字节数
+     */
+    public long memoryUsage() {
+        return QUICKLIST_OVERHEAD + (long) this.len * (QUICKLIST_NODE_OVERHEAD + Listpack.LISTPACK_OVERHEAD) + this.bytes;
+    }
+
+    /**
+     * 判断节点能否再放入一个长度为len的元素
+     */
+    private boolean allowInsert(QuicklistNode node, int len) {
+        if (node == null) {
+            return false;
+        }
+
+        int newSize = node.sz + Listpack.entrySize(len);
+        if (this.fill >= 0) {
+            return newSize <= SIZE_SAFETY_LIMIT && node.count < this.fill;
+        }
+        return newSize <= OPTIMIZATION_LEVEL[-this.fill - 1];
+    }
+
+    public void pushHead(byte[] s, int off, int len) {
+        push(s, off, len, QUICKLIST_HEAD);
+    }
+
+    public void pushTail(byte[] s, int off, int len) {
+        push(s, off, len, QUICKLIST_TAIL);
+    }
+
+    /**
+     * 在头部或者尾部加入一个元素，端点节点放不下时创建一个新节点
+     * @param where QUICKLIST_HEAD或者QUICKLIST_TAIL
+     */
+    public void push(byte[] s, int off, int len, int where) {
+        QuicklistNode node = where == QUICKLIST_HEAD ? this.head : this.tail;
+        boolean created = false;
+        if (!allowInsert(node, len)) {
+            // 原来的端点节点已经满了，以后只会从中删除元素，释放它多余的容量
+            if (node != null && node.lp != null) {
+                this.bytes -= node.lp.capacity();
+                node.lp.shrinkToFit();
+                this.bytes += node.lp.capacity();
+            }
+
+            node = new QuicklistNode(Listpack.createListpack(Listpack.entrySize(len)));
+            this.bytes += node.lp.capacity();
+            linkNode(node, where);
+            created = true;
+        }
+
+        decompressNode(node);
+        int capacity = node.lp.capacity();
+        if (where == QUICKLIST_HEAD) {
+            node.lp.prepend(s, off, len);
+        } else {
+            node.lp.append(s, off, len);
+        }
+        this.bytes += node.lp.capacity() - capacity;
+        node.update();
+        this.count++;
+
+        // 加入新节点之后，原来的端点节点可能移出了不压缩的范围
+        if (created) {
+            compress(node);
+        }
+    }
+
+    /**
+     * 从头部或者尾部弹出一个元素
+     * @param where QUICKLIST_HEAD或者QUICKLIST_TAIL
+     * @return 元素的内容，列表为空时返回null
+     */
+    public byte[] pop(int where) {
+        QuicklistNode node = where == QUICKLIST_HEAD ? this.head : this.tail;
+        if (node == null) {
+            return null;
+        }
+
+        decompressNode(node);
+        int p = where == QUICKLIST_HEAD ? node.lp.first() : node.lp.last();
+        byte[] value = node.lp.get(p);
+        node.lp.delete(p);
+        node.update();
+        this.count--;
+        if (node.count == 0) {
+            unlinkNode(node);
+            // 移除节点之后，原来的中间节点可能进入了不压缩的范围
+            compress(null);
+        }
+        return value;
+    }
+
+    /**
+     * 获取指定下标的元素，负数下标表示从尾部开始
+     * 先按节点的元素数量跳过整个节点，再在节点中查找
+     * @param index 下标
+     * @return 元素的内容，下标超出范围时返回null
+     */
+    public byte[] index(long index) {
+        QuicklistIterator iter = iterator(index);
+        return iter.next() ? iter.lp.get(iter.p) : null;
+    }
+
+    /**
+     * 创建从指定下标开始，向尾部遍历的迭代器
+     * @param start 开始的下标，负数表示从尾部开始，超出范围时迭代器为空
+     * @return 迭代器
+     */
+    public QuicklistIterator iterator(long start) {
+        if (start < 0) {
+            start += this.count;
+        }
+
+        QuicklistIterator iter = new QuicklistIterator();
+        if (start < 0 || start >= this.count) {
+            return iter;
+        }
+
+        // 从离下标较近的一端开始跳过节点
+        QuicklistNode node;
+        long offset;
+        if (start < this.count / 2) {
+            node = this.head;
+            offset = start;
+            while (offset >= node.count) {
+                offset -= node.count;
+                node = node.next;
+            }
+        } else {
+            node = this.tail;
+            offset = start - (this.count - node.count);
+            while (offset < 0) {
+                node = node.prev;
+                offset += node.count;
+            }
+        }
+
+        iter.node = node;
+        iter.lp = node.listpackForRead();
+        iter.p = iter.lp.seek(offset);
+        iter.started = false;
+        return iter;
+    }
+
+    private void linkNode(QuicklistNode node, int where) {
+        if (this.head == null) {
+            this.head = node;
+            this.tail = node;
+        } else if (where == QUICKLIST_HEAD) {
+            node.next = this.head;
+            this.head.prev = node;
+            this.head = node;
+        } else {
+            node.prev = this.tail;
+            this.tail.next = node;
+            this.tail = node;
+        }
+        this.len++;
+    }
+
+    private void unlinkNode(QuicklistNode node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            this.head = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        } else {
+            this.tail = node.prev;
+        }
+        this.bytes -= node.dataSize();
+        this.len--;
+    }
+
+    /**
+     * 调整压缩的边界，参考Redis的__quicklistCompress：
+     * 两端各compressDepth个节点保持不压缩，刚好在范围之外的两个节点压缩，
+     * 更里面的节点在之前移出范围时已经压缩过了
+     * @param node 新加入的节点，不在两端的范围内时也压缩，可以为null
+     */
+    private void compress(QuicklistNode node) {
+        if (this.compressDepth <= 0 || this.len == 0) {
+            return;
+        }
+
+        // 节点数量不超过2 * compressDepth时，两边的遍历会相遇，所有节点都保持不压缩
+        QuicklistNode forward = this.head;
+        QuicklistNode reverse = this.tail;
+        boolean inDepth = false;
+        for (int depth = 0; depth < this.compressDepth; depth++) {
+            decompressNode(forward);
+            decompressNode(reverse);
+            if (forward == node || reverse == node) {
+                inDepth = true;
+            }
+            if (forward == reverse || forward.next == reverse) {
+                return;
+            }
+            forward = forward.next;
+            reverse = reverse.prev;
+        }
+
+        if (!inDepth && node != null) {
+            compressNode(node);
+        }
+        compressNode(forward);
+        compressNode(reverse);
+    }
+
+    /**
+     * 用LZF压缩节点，节点太小或者压缩效果不好时保持不压缩
+     */
+    private void compressNode(QuicklistNode node) {
+        if (node.lp == null || node.attemptedCompress || node.sz < MIN_COMPRESS_BYTES) {
+            return;
+        }
+
+        byte[] out = new byte[node.sz];
+        int compressedLen = Lzf.compress(node.lp.getBuf(), node.sz, out, out.length);
+        if (compressedLen == 0 || compressedLen + MIN_COMPRESS_IMPROVE >= node.sz) {
+            // 节点的内容修改之前不再尝试压缩
+            node.attemptedCompress = true;
+            return;
+        }
+
+        this.bytes -= node.dataSize();
+        node.compressed = compressedLen == out.length ? out : Arrays.copyOf(out, compressedLen);
+        node.lp = null;
+        this.bytes += node.dataSize();
+    }
+
+    /**
+     * 解压节点，之后节点保持不压缩，直到再次调用compressNode
+     */
+    private void decompressNode(QuicklistNode node) {
+        if (node.lp != null) {
+            return;
+        }
+
+        this.bytes -= node.dataSize();
+        node.lp = node.decompress();
+        node.compressed = null;
+        this.bytes += node.dataSize();
+    }
+
+    /**
+     * 快速列表节点，lp和compressed有且只有一个不为null
+     */
+    private static final class QuicklistNode {
+        private QuicklistNode prev;
+        private QuicklistNode next;
+        private Listpack lp;                // 不压缩时的紧凑列表
+        private byte[] compressed;          // 压缩之后的紧凑列表字节
+        private int sz;                     // 紧凑列表使用的字节数
+        private int count;                  // 元素数量
+        private boolean attemptedCompress;  // 已经尝试过压缩但是效果不好
+
+        private QuicklistNode(Listpack lp) {
+            this.lp = lp;
+            update();
+        }
+
+        /**
+         * 紧凑列表修改之后更新sz和count
+         */
+        private void update() {
+            this.sz = this.lp.bytes();
+            this.count = this.lp.size();
+            this.attemptedCompress = false;
+        }
+
+        /**
+         * 节点字节数组的大小，用于估算内存
+         */
+        private int dataSize() {
+            return this.lp != null ? this.lp.capacity() : this.compressed.length;
+        }
+
+        private Listpack decompress() {
+            byte[] buf = new byte[this.sz];
+            if (Lzf.decompress(this.compressed, this.compressed.length, buf, buf.length) != this.sz) {
+                throw new IllegalStateException("Invalid compressed quicklist node");
+            }
+            return Listpack.createListpack(buf, this.sz, this.count);
+        }
+
+        /**
+         * 读取节点的紧凑列表，压缩节点返回解压出的临时副本
+         */
+        private Listpack listpackForRead() {
+            return this.lp != null ? this.lp : decompress();
+        }
+    }
+
+    /**
+     * 快速列表迭代器，直接读取节点字节数组中的元素，不复制元素的内容
+     * 迭代期间不能修改快速列表
+     *
+     * 用法：
+     *     while (iter.next()) {
+     *         client.addReplyBulk(iter.getBuf(), iter.getOffset(), iter.getLength());
+     *     }
+     */
+    public static final class QuicklistIterator {
+        private QuicklistNode node;
+        private Listpack lp;        // 当前节点的紧凑列表，压缩节点为解压出的副本
+        private int p = -1;
+        private boolean started = true;
+
+        /**
+         * 移动到下一个元素
+         * @return 没有更多元素时返回false
+         */
+        public boolean next() {
+            if (this.node == null) {
+                return false;
+            }
+
+            if (!this.started) {
+                this.started = true;
+                return true;
+            }
+
+            this.p = this.lp.next(this.p);
+            while (this.p == -1) {
+                this.node = this.node.next;
+                if (this.node == null) {
+                    this.lp = null;
+                    return false;
+                }
+                this.lp = this.node.listpackForRead();
+                this.p = this.lp.first();
+            }
+            return true;
+        }
+
+        public byte[] getBuf() {
+            return this.lp.getBuf();
+        }
+
+        public int getOffset() {
+            return this.lp.entryOffset(this.p);
+        }
+
+        public int getLength() {
+            return this.lp.entryLength(this.p);
+        }
+    }
+}
@@ -4,6 +4,8 @@ import java.nio.charset.StandardCharsets;
 
 import java.util.Arrays;
 
+import utils.SipHash;
+
 /**
  * 动态字符串
  * 线程不安全
@@ -21,6 +23,8 @@ public class Sds implements Comparable<Sds> {
 
     public static final int SDS_MAX_PREALLOC = 1024 * 1024; // 1MB
     public static final int SDS_DEFAULT_LENGTH = 1024; // 1KB
+    // Sds对象（对象头、len、free、buf引用）和字节数组对象头的估算大小
+    public static final int SDS_OBJECT_OVERHEAD = 24 + 16;
 
     private Sds() {
         this.len = 0;
@@ -100,6 +104,42 @@ public class Sds implements Comparable<Sds> {
         }
     }
 
+    /**
+     * 根据字节数组中的一段内容创建Sds，只复制一次，不经过String转码
+     * @param init 字节数组
+     * @param offset 内容起始位置
+     * @param length 内容长度
+     * @return 包含这段内容的Sds
+     */
+    public static Sds createSds(byte[] init, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > init.length) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+
+        if (length == 0) {
+            return new Sds(0, 0, null);
+        }
+
+        byte [] buf = new byte[length];
+        System.arraycopy(init, offset, buf, 0, length);
+        return new Sds(length, 0, buf);
+    }
+
+    /**
+     * 直接使用给定的字节数组作为Sds的底层数组，不复制数据，调用者之后不能再修改这个数组
+     * 用于把读满了一个大参数的查询缓冲区直接变成参数对象
+     * @param buf 字节数组，[0, len)是字符串内容，之后的空间作为空余空间
+     * @param len 字符串内容长度
+     * @return 使用buf作为底层数组的Sds
+     */
+    public static Sds wrap(byte[] buf, int len) {
+        if (len < 0 || len > buf.length) {
+            throw new IllegalArgumentException("Sds len is " + len + ", should be between 0 and " + buf.length);
+        }
+
+        return new Sds(len, buf.length - len, buf);
+    }
+
     /**
      * 根据给定字符串 init ，创建一个包含同样字符串的 sds
      * @param init 给定字符串 init
@@ -155,7 +195,7 @@ public class Sds implements Comparable<Sds> {
      *  重置 SDS 所保存的字符串为空字符串。
      */
     public void clear() {
-        this.free = this.buf.length;
+        this.free = this.buf == null ? 0 : this.buf.length;
         // 用len来代表当前指向了哪里
         this.len = 0;
     }
@@ -195,6 +235,42 @@ public class Sds implements Comparable<Sds> {
         return this;
     }
 
+    /**
+     * 与expand()相同，但是只分配刚好所需的空间，不做预分配
+     * 用于提前知道最终长度的场景，比如读取一个已知长度的大参数
+     *
+     * @param addlen 扩展后保证至少有addlen的空余空间
+     * @return 扩展成功返回扩展后的 sds
+     */
+    public Sds expandExact(int addlen) {
+        if(this.free >= addlen) {
+            return this;
+        }
+
+        byte [] newbuf = new byte[this.len + addlen];
+        if (this.buf != null) {
+            System.arraycopy(this.buf, 0, newbuf, 0, this.len);
+        }
+
+        this.setBuf(newbuf);
+        this.setFree(addlen);
+
+        return this;
+    }
+
+    /**
+     * 直接向底层数组的空余空间写入数据之后，调用该方法更新长度
+     * @param incr 写入的字节数
+     */
+    public void incrLen(int incr) {
+        if (incr < 0 || incr > this.free) {
+            throw new IllegalArgumentException("Sds incr is " + incr + ", free space is " + this.free);
+        }
+
+        this.len += incr;
+        this.free -= incr;
+    }
+
     /**
      * 移除空闲空间
      * @return 缩容成功返回缩容后的 sds
@@ -241,10 +317,7 @@ public class Sds implements Comparable<Sds> {
             end = this.len;
         }
 
-        int index = 0;
-        for (int i = start; i < end; i++) {
-            this.buf[index++] = this.buf[i];
-        }
+        System.arraycopy(this.buf, start, this.buf, 0, end - start);
 
         this.setLen(end - start);
         this.setFree(this.buf.length - this.len);
@@ -255,7 +328,15 @@ public class Sds implements Comparable<Sds> {
      * @return Sds底层分配的字节数组长度
      */
     public int size() {
-        return this.buf.length;
+        return this.buf == null ? 0 : this.buf.length;
+    }
+
+    /**
+     * 估算 sds 占用的内存字节数：对象本身、字节数组的对象头和字节数组的长度
+     * @return 估算的字节数
+     */
+    public long memoryUsage() {
+        return SDS_OBJECT_OVERHEAD + size();
     }
 
     public boolean isEmpty() {
@@ -440,25 +521,25 @@ public class Sds implements Comparable<Sds> {
 
 
     /**
-     * 实现Comparable接口，比较两个Sds
+     * 实现Comparable接口，比较两个Sds，与Redis的sdscmp一样按无符号字节比较
      * @param other 另一个Sds对象
      * @return 相等返回 0 ，当前对象较大返回正数， other较大返回负数
      */
     @Override
     public int compareTo(Sds other) {
-        int len1 = this.getLen();
-        int len2 = other.getLen();
-        byte[] buf1 = this.getBuf();
-        byte[] buf2 = other.getBuf();
+        int len1 = this.len;
+        int len2 = other.len;
+        byte[] buf1 = this.buf;
+        byte[] buf2 = other.buf;
 
         int minlen = Math.min(len1, len2);
         for(int i = 0; i < minlen; i++) {
             if (buf1[i] != buf2[i]) {
-                return buf1[i] - buf2[i] > 0 ? 1 : -1;
+                return (buf1[i] & 0xff) - (buf2[i] & 0xff) > 0 ? 1 : -1;
             }
         }
 
-        return len1 - len2 > 0 ? 1 : -1;
+        return Integer.compare(len1, len2);
     }
 
     public int getLen() {
@@ -493,13 +574,14 @@ public class Sds implements Comparable<Sds> {
         this.buf = buf;
     }
 
+    /**
+     * 只根据字符串的内容[0, len)计算哈希值，与空闲空间无关
+     * 作为字典的键时，字典节点会缓存哈希值，键在字典中不能被修改
+     */
     @Override
     public int hashCode() {
-        int h = 0;
-        for (byte v : buf) {
-            h = 31 * h + v;
-        }
-        return h;
+        long h = SipHash.hash(this.buf, 0, this.len);
+        return (int) (h ^ (h >>> 32));
     }
 
     @Override
@@ -512,14 +594,18 @@ public class Sds implements Comparable<Sds> {
             return false;
         }
 
+        // 只比较字符串的内容，空闲空间和底层数组的大小不影响相等性
         if (other instanceof Sds) {
             Sds o = (Sds)other;
-            if (o.len == this.len
-                && this.free == o.free
-                && this.buf.length == o.buf.length
-                && this.compareTo(o) == 0) {
-                return true;
+            if (o.len != this.len) {
+                return false;
+            }
+            for (int i = 0; i < this.len; i++) {
+                if (this.buf[i] != o.buf[i]) {
+                    return false;
+                }
             }
+            return true;
         }
 
         return false;
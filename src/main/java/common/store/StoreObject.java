@@ -3,38 +3,208 @@ package common.store;
 /**
  * @description: 缓存系统中所有对象都用StoreObject表示，不管是key还是value
  *
+ * 对象的类型、编码和访问信息压缩保存在一个int类型的头部中，和Redis的robj一样：
+ *   [0, 24)  访问信息，含义取决于淘汰策略：
+ *            LRU模式：最近一次访问时的服务器LRU时钟，精度为LRU_CLOCK_RESOLUTION毫秒
+ *            LFU模式：高16位是最近一次访问时的分钟时间，低8位是对数增长的LFU计数器
+ *   [24, 28) 类型：ObjectType的序号
+ *   [28, 32) 编码：ObjectEncoding的序号
+ *
+ * 两种模式共用同一个字段，由setLfuEnabled按maxmemory-policy选择，对象创建时按当前模式初始化
+ * 创建对象和访问对象时只读取服务器缓存的时钟（由serverCron按hz更新），不会调用System.currentTimeMillis()
+ *
  * @author: huzihan
  * @create: 2021-06-27
  */
 public class StoreObject {
-    private ObjectType type; // 对象类型，5种类型之一
+    // LRU时钟的最大值，时钟只有24位，超过之后从0开始
+    public static final int LRU_CLOCK_MAX = (1 << 24) - 1;
+    // LRU时钟的精度（毫秒）
+    public static final int LRU_CLOCK_RESOLUTION = 1000;
+    // 新对象的LFU计数器初始值，避免新对象刚创建就被淘汰
+    public static final int LFU_INIT_VAL = 5;
+
+    // StoreObject对象本身（对象头、header、obj引用）的估算大小
+    public static final int OBJECT_OVERHEAD = 24;
+    // 还没有内存估算方法的实际对象，按固定大小计算
+    public static final int UNKNOWN_OBJECT_SIZE = 64;
+
+    // LFU模式下分钟时间的最大值，只有16位，超过之后从0开始
+    private static final int LFU_TIME_MAX = (1 << 16) - 1;
+    private static final int LFU_COUNTER_MASK = 0xff;
+    private static final int LFU_TIME_SHIFT = 8;
+    private static final int TYPE_SHIFT = 24;
+    private static final int ENCODING_SHIFT = 28;
+
+    // values()每次都会复制数组，所以缓存起来
+    private static final ObjectType[] TYPES = ObjectType.values();
+    private static final ObjectEncoding[] ENCODINGS = ObjectEncoding.values();
+
+    // 服务器缓存的LRU时钟，由serverCron更新，所有线程共享
+    private static volatile int lruClock = computeLruClock(System.currentTimeMillis());
+    // 服务器缓存的分钟时间，LFU模式下使用，和LRU时钟一起更新
+    private static volatile int lfuClock = computeLfuClock(System.currentTimeMillis());
+    // 访问信息字段是否按LFU模式使用，服务器根据maxmemory-policy设置
+    private static volatile boolean lfuEnabled = false;
+
+    private int header;     // 类型、编码和访问信息
     private Object obj;     // 实际对象
-    private long lastVisitTime; // 最近一次访问时间
 
     public StoreObject(ObjectType type, Object obj) {
-        this.type = type;
+        this(type, defaultEncoding(type), obj);
+    }
+
+    public StoreObject(ObjectType type, ObjectEncoding encoding, Object obj) {
+        int lru = lfuEnabled ? (lfuClock << LFU_TIME_SHIFT | LFU_INIT_VAL) : lruClock;
+        this.header = encoding.ordinal() << ENCODING_SHIFT
+                    | type.ordinal() << TYPE_SHIFT
+                    | lru;
         this.obj = obj;
-        this.lastVisitTime = System.currentTimeMillis();
     }
 
+    /**
+     * 根据当前时间更新服务器缓存的LRU时钟和分钟时间，serverCron每次执行时调用
+     * @param now 当前时间（毫秒）
+     */
+    public static void updateLruClock(long now) {
+        lruClock = computeLruClock(now);
+        lfuClock = computeLfuClock(now);
+    }
+
+    /**
+     * 获取服务器缓存的LRU时钟
+     */
+    public static int getLruClock() {
+        return lruClock;
+    }
+
+    /**
+     * 设置访问信息字段的模式，只影响之后创建的对象，已有对象的字段不会被转换
+     * @param enabled true表示LFU模式，false表示LRU模式
+     */
+    public static void setLfuEnabled(boolean enabled) {
+        lfuEnabled = enabled;
+    }
+
+    public static boolean isLfuEnabled() {
+        return lfuEnabled;
+    }
+
+    private static int computeLruClock(long now) {
+        return (int) ((now / LRU_CLOCK_RESOLUTION) & LRU_CLOCK_MAX);
+    }
+
+    private static int computeLfuClock(long now) {
+        return (int) ((now / 60000) & LFU_TIME_MAX);
+    }
+
+    private static ObjectEncoding defaultEncoding(ObjectType type) {
+        switch (type) {
+            case STRING: return ObjectEncoding.RAW;
+            case LIST: return ObjectEncoding.QUICKLIST;
+            case ORDER_SET: return ObjectEncoding.SKIPLIST;
+            default: return ObjectEncoding.HT;
+        }
+    }
 
     /**
-     * 更新对象的最近一次被访问时间
+     * LRU模式下更新对象的最近一次被访问时间为服务器缓存的LRU时钟
      */
     public void updateLastVisitTime() {
-        this.lastVisitTime = System.currentTimeMillis();
+        this.header = (this.header & ~LRU_CLOCK_MAX) | lruClock;
+    }
+
+    /**
+     * 获取头部中24位的访问信息，LRU模式下就是最近一次访问时的LRU时钟
+     */
+    public int getLru() {
+        return this.header & LRU_CLOCK_MAX;
+    }
+
+    /**
+     * LRU模式下估算对象的空闲时间，LRU时钟回绕的情况也考虑在内
+     * @return 空闲时间（毫秒），精度为LRU_CLOCK_RESOLUTION
+     */
+    public long estimateIdleTime() {
+        int clock = lruClock;
+        int lru = getLru();
+        if (clock >= lru) {
+            return (long) (clock - lru) * LRU_CLOCK_RESOLUTION;
+        } else {
+            return (long) (clock + (LRU_CLOCK_MAX - lru)) * LRU_CLOCK_RESOLUTION;
+        }
+    }
+
+    public int getLfuCounter() {
+        return this.header & LFU_COUNTER_MASK;
+    }
+
+    /**
+     * LFU模式下更新对象的计数器，同时记录当前的分钟时间作为最近一次访问（衰减）的时间
+     */
+    public void updateLfu(int counter) {
+        int lru = lfuClock << LFU_TIME_SHIFT | (counter & LFU_COUNTER_MASK);
+        this.header = (this.header & ~LRU_CLOCK_MAX) | lru;
+    }
+
+    /**
+     * LFU模式下计算对象距离最近一次访问经过的分钟数，分钟时间回绕的情况也考虑在内
+     */
+    public int getLfuElapsedMinutes() {
+        int now = lfuClock;
+        int ldt = getLru() >>> LFU_TIME_SHIFT;
+        if (now >= ldt) {
+            return now - ldt;
+        } else {
+            return LFU_TIME_MAX - ldt + now;
+        }
+    }
+
+    /**
+     * 估算对象占用的内存字节数，用于maxmemory的内存统计
+     * 这里只是对数据集大小的估算，并不是对象在JVM堆中的精确大小
+     * @return 估算的字节数
+     */
+    public long memoryUsage() {
+        if (this.obj instanceof Sds) {
+            return OBJECT_OVERHEAD + ((Sds) this.obj).memoryUsage();
+        } else if (this.obj instanceof PList) {
+            return OBJECT_OVERHEAD + ((PList) this.obj).memoryUsage();
+        } else if (this.obj instanceof PHash) {
+            return OBJECT_OVERHEAD + ((PHash) this.obj).memoryUsage();
+        } else if (this.obj instanceof PSet) {
+            return OBJECT_OVERHEAD + ((PSet) this.obj).memoryUsage();
+        }
+        return OBJECT_OVERHEAD + UNKNOWN_OBJECT_SIZE;
     }
 
     public Object getObj() {
         return this.obj;
     }
 
+    public ObjectType getType() {
+        return TYPES[(this.header >>> TYPE_SHIFT) & 0xf];
+    }
+
+    public ObjectEncoding getEncoding() {
+        return ENCODINGS[(this.header >>> ENCODING_SHIFT) & 0xf];
+    }
+
+    /**
+     * 实际对象转换编码之后更新头部中的编码
+     */
+    public void setEncoding(ObjectEncoding encoding) {
+        this.header = (this.header & ~(0xf << ENCODING_SHIFT)) | encoding.ordinal() << ENCODING_SHIFT;
+    }
+
+    /**
+     * 对象的哈希值和相等性只取决于类型和实际对象，最近访问时间和LFU计数器会不断变化，不能参与计算
+     */
     @Override
     public int hashCode() {
         int code = 0;
-        code = code * 31 + type.hashCode();
+        code = code * 31 + getType().hashCode();
         code = code * 31 + obj.hashCode();
-        code = code * 31 + (int)lastVisitTime;
 
         return code;
     }
@@ -51,7 +221,7 @@ public class StoreObject {
 
         if (other instanceof StoreObject) {
             StoreObject o = (StoreObject) other;
-            return o.type == this.type && this.obj.equals(o.obj) && this.lastVisitTime == o.lastVisitTime;
+            return o.getType() == this.getType() && this.obj.equals(o.obj);
         }
 
         return false;
@@ -0,0 +1,11 @@
+package event;
+
+/**
+ * @description: 事件循环每次进入select等待之前调用的处理函数
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+@FunctionalInterface
+public interface BeforeSleepProcedure {
+    void process(EventLoop eventLoop);
+}
@@ -9,35 +9,45 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.Selector;
 import java.nio.channels.SelectionKey;
-import java.util.Map;
-import java.util.LinkedList;
-import java.util.HashMap;
 import java.util.Set;
 import java.util.Iterator;
-import java.util.Collections;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * @description: 事件循环（线程不安全）
+ * 事件循环中的数据结构只能由运行该循环的线程访问，其他线程需要通过submit()提交任务，由事件循环线程执行
  * @author: huzihan
  * @create: 2021-06-27
  */
 public class EventLoop {
     private static final Log logger = LogFactory.getLog(EventLoop.class);
 
+    // 时间事件处理器返回该值表示事件不再触发，事件会被删除
+    public static final int NO_MORE = -1;
+
     // 表示事件循环是否进行的标识
     private volatile boolean stop;
     // nio核心组件，用于监听多个channel上发生的事件
     private Selector selector;
-    // io事件表，表的key是每一个channel注册到该selector生成的SelectionKey
-    // 表的value是个FileEvent结构，该结构中也是一个map，保持了该channel上4中类型发生时的处理器
-    private Map<SelectionKey, FileEvent> fileEvents;
-    // 时间事件列表，每次事件循环都会重中取出最近的时间事件进行处理
-    private LinkedList<TimeEvent> timeEvents;
+    // io事件不再单独用表保存：每个channel注册到该selector生成的SelectionKey都以FileEvent结构作为附件，
+    // FileEvent中保存了该channel上4种类型事件发生时的处理器，分发事件时直接通过key.attachment()取得
+    // 时间事件堆，堆顶是最近要触发的时间事件，每次事件循环都会从中取出到期的时间事件进行处理
+    private TimeEventQueue timeEvents;
+    // 下一个时间事件的id
+    private long timeEventNextId;
+    // 每次进入select等待之前调用的处理函数
+    private BeforeSleepProcedure beforeSleepProc;
+    // 其他线程提交给该事件循环执行的任务
+    private Queue<Runnable> pendingTasks;
+    // 为true时select不阻塞，用于还有已经读入但没有处理完的数据的情况，与Redis的AE_DONT_WAIT对应
+    private boolean dontWait;
 
     private EventLoop() {
         this.stop = false;
-        this.timeEvents = new LinkedList<>();
-        this.fileEvents = new HashMap<>();
+        this.timeEvents = new TimeEventQueue();
+        this.timeEventNextId = 0;
+        this.pendingTasks = new ConcurrentLinkedQueue<>();
 
         try {
             this.selector = Selector.open();
@@ -61,10 +71,71 @@ public class EventLoop {
         this.stop = false;
 
         while (!stop) {
+            runPendingTasks();
+            if (this.beforeSleepProc != null) {
+                this.beforeSleepProc.process(this);
+            }
             processEvents();
         }
     }
 
+    /**
+     * 设置每次进入select等待之前调用的处理函数
+     * @param beforeSleepProc 处理函数
+     */
+    public void setBeforeSleepProc(BeforeSleepProcedure beforeSleepProc) {
+        this.beforeSleepProc = beforeSleepProc;
+    }
+
+    /**
+     * 设置下一次select是否不阻塞，只能在事件循环线程中调用，通常在beforeSleep中设置
+     * @param dontWait 为true时select立即返回
+     */
+    public void setDontWait(boolean dontWait) {
+        this.dontWait = dontWait;
+    }
+
+    /**
+     * 向事件循环提交一个任务，任务会在事件循环线程中执行，可以在任意线程中调用
+     * 如果事件循环正阻塞在select上，会被立即唤醒
+     * @param task 任务
+     */
+    public void submit(Runnable task) {
+        if (task == null) {
+            throw new IllegalArgumentException("Illegal argument 'task', 'task' can not be null");
+        }
+
+        this.pendingTasks.offer(task);
+        this.selector.wakeup();
+    }
+
+    /**
+     * 执行其他线程提交的任务
+     * @return 执行的任务数量
+     */
+    private int runPendingTasks() {
+        int processed = 0;
+        Runnable task;
+        while ((task = this.pendingTasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("Error occurred when running submitted task", e);
+            }
+            processed++;
+        }
+
+        return processed;
+    }
+
+    /**
+     * 停止事件循环，如果事件循环正阻塞在select上，会被立即唤醒
+     */
+    public void stop() {
+        this.stop = true;
+        this.selector.wakeup();
+    }
+
     /**
      * 处理事件
      * 事件有两类：时间事件和文件事件
@@ -72,14 +143,24 @@ public class EventLoop {
      */
     private int processEvents() {
         TimeEvent nearestTimeEvent = this.getNearestTimer();
-        long blockTime = 0;
+        long blockTime;
 
         // 获取最近的时间事件，根据时间事件计算需要阻塞的时长
-        if (nearestTimeEvent != null) {
-            // nearestTimeEvent.getWhenMs();
-            // nearestTimeEvent.getWhenSec();
+        if (this.dontWait) {
+            // 还有没处理完的数据，不阻塞
+            blockTime = 0;
+        } else if (nearestTimeEvent != null) {
+            long remaining = nearestTimeEvent.getWhen() - System.nanoTime();
+            if (remaining <= 0) {
+                // 时间事件已经到达，不阻塞
+                blockTime = 0;
+            } else {
+                // 向上取整到毫秒，避免提前醒来之后空转
+                blockTime = (remaining + 999_999) / 1_000_000;
+            }
         } else {
-
+            // 没有时间事件，一直阻塞直到有文件事件发生
+            blockTime = -1;
         }
 
         // 处理文件事件
@@ -94,45 +175,43 @@ public class EventLoop {
 
     /**
      * 处理文件事件
-     * @param timeout Selector的超时时间
+     * @param timeout Selector的超时时间（毫秒），0表示不阻塞，负数表示一直阻塞
      * @return 处理的事件个数
      */
     private int processFileEvents(long timeout) {
         int processed = 0;
         try {
-            int readyNums = this.selector.select(timeout);
+            int readyNums;
+            if (timeout == 0) {
+                readyNums = this.selector.selectNow();
+            } else if (timeout < 0) {
+                readyNums = this.selector.select();
+            } else {
+                readyNums = this.selector.select(timeout);
+            }
             if (readyNums > 0) {
                 Set<SelectionKey> selectionKeySet = this.selector.selectedKeys();
                 Iterator<SelectionKey> keyIterator = selectionKeySet.iterator();
 
                 while (keyIterator.hasNext()) {
                     SelectionKey key = keyIterator.next();
-                    FileEvent firedFileEvent = this.fileEvents.get(key);
-
-                    int interestOp = 0;
-                    if (key.isAcceptable()) {
-                        interestOp = SelectionKey.OP_ACCEPT;
-                    } else if (key.isConnectable()) {
-                        interestOp = SelectionKey.OP_CONNECT;
-                    } else if (key.isReadable()) {
-                        interestOp = SelectionKey.OP_READ;
-                    } else if (key.isWritable()) {
-                        interestOp = SelectionKey.OP_WRITE;
-                    } else {
-                        // 异常情况
-                        logger.error("异常情况，监听到未知类型的事件");
-                    }
+                    keyIterator.remove();
 
-                    FileEventHandler handler = firedFileEvent.getEventHandler(interestOp);
-                    if (handler != null) {
-                        handler.handle(PandisServer.getInstance(), key, firedFileEvent.getClientData());
-                    } else {
-                        // 异常情况，没有相应的处理器
-                        logger.error("异常情况，没有相应的处理器处理事件");
+                    FileEvent firedFileEvent = (FileEvent) key.attachment();
+                    if (firedFileEvent == null || !key.isValid()) {
+                        // 事件在本轮select之后已经被删除
+                        continue;
                     }
 
+                    // 一个key上可能同时有多种事件就绪（比如既可读又可写），在一次分发中全部处理，
+                    // 先处理可读事件再处理可写事件，这样读到的命令产生的回复可以在同一轮中写出
+                    int readyOps = key.readyOps();
+                    fireFileEvent(key, firedFileEvent, readyOps, SelectionKey.OP_ACCEPT);
+                    fireFileEvent(key, firedFileEvent, readyOps, SelectionKey.OP_CONNECT);
+                    fireFileEvent(key, firedFileEvent, readyOps, SelectionKey.OP_READ);
+                    fireFileEvent(key, firedFileEvent, readyOps, SelectionKey.OP_WRITE);
+
                     processed++;
-                    keyIterator.remove();
                 }
             }
         } catch (IOException e) {
@@ -143,6 +222,28 @@ public class EventLoop {
     }
 
 
+    /**
+     * 调用某个就绪事件的处理器
+     * 前面的处理器可能已经关闭了连接或者删除了这个事件，因此调用前需要再次检查key和FileEvent的状态
+     * @param key 就绪的key
+     * @param fileEvent key对应的FileEvent
+     * @param readyOps 本轮select中key上就绪的事件集合
+     * @param op 要处理的事件类型
+     */
+    private void fireFileEvent(SelectionKey key, FileEvent fileEvent, int readyOps, int op) {
+        if ((readyOps & op) == 0 || !key.isValid() || (fileEvent.getInterestSet() & op) == 0) {
+            return;
+        }
+
+        FileEventHandler handler = fileEvent.getEventHandler(op);
+        if (handler != null) {
+            handler.handle(PandisServer.getInstance(), key, fileEvent.getClientData());
+        } else {
+            // 异常情况，没有相应的处理器
+            logger.error("异常情况，没有相应的处理器处理事件");
+        }
+    }
+
     /**
      * 注册新的监听事件
      * @param channel 要注册监听事件的channel
@@ -173,35 +274,29 @@ public class EventLoop {
         SelectionKey registedKey = channel.keyFor(selector);
 
         if (registedKey == null) {
-            // 该channel没有在该selector上注册过，现在是第一次注册
+            // 该channel没有在该selector上注册过，现在是第一次注册，FileEvent结构作为key的附件一起注册
             try {
-                registedKey = channel.register(this.selector, interestOp);
+                channel.register(this.selector, interestOp, new FileEvent(interestOp, handler, clientData));
             } catch (ClosedChannelException e) {
                 logger.error("register file event error, the channel has closed", e);
             }
-        } else {
-            // 该channel已经在该selector上注册过，要注册新事件，需要更新对应key的事件集合
-
-            // 更新channel在该selector上监听的事件集合
-            int newInterestOps = registedKey.interestOps() | interestOp;
-            registedKey.interestOps(newInterestOps);
+            return;
         }
 
-        // 更新完底层selector注册的事件类型，还要更新FileEvent中注册的事件类型，使FileEvent和SelectionKey中的事件类型保持一致
+        // 该channel已经在该selector上注册过，要注册新事件，需要更新对应key的事件集合
+        int newInterestOps = registedKey.interestOps() | interestOp;
+        registedKey.interestOps(newInterestOps);
 
-        // 先判断该channel是否注册过，是否有相应的fileEvent结构
-        FileEvent fileEvent = this.fileEvents.get(registedKey);
+        // 更新完底层selector注册的事件类型，还要更新FileEvent中注册的事件类型，使FileEvent和SelectionKey中的事件类型保持一致
+        FileEvent fileEvent = (FileEvent) registedKey.attachment();
 
         if (fileEvent == null) {
-            // 该channel是第一次注册
-            fileEvent = new FileEvent(interestOp, handler, clientData);
+            // 该channel之前的事件都已经被删除
+            registedKey.attach(new FileEvent(interestOp, handler, clientData));
         } else {
             // 该channel已经注册过，则要更新其中的事件类型和相应的处理器
             fileEvent.addFileEventHandler(interestOp, handler, clientData);
         }
-
-        // 更新注册的channel和其事件及处理器
-        this.fileEvents.put(registedKey, fileEvent);
     }
 
     /**
@@ -226,7 +321,7 @@ public class EventLoop {
         // 再将channel对应的FileEvent结构中的事件类型及处理器清除
 
         // 获取该key表示的channel对应的FileEvent结构
-        FileEvent fileEvent = this.fileEvents.get(key);
+        FileEvent fileEvent = (FileEvent) key.attachment();
 
         // 若没有fileEvent结构，就不用删除，直接返回
         if (fileEvent == null) {
@@ -241,53 +336,107 @@ public class EventLoop {
         // 从FileEvent结构中移除该类型的事件及其处理器
         fileEvent.removeFileEventHandler(uninterestOp);
 
-        // 判断是否在该channel上未监听任何事件，若没有监听任何事件，则将相应的key和FileEvent结构删除
+        // 判断是否在该channel上未监听任何事件，若没有监听任何事件，则将FileEvent结构从key上移除
         if (key.interestOps() == 0) {
-            this.fileEvents.remove(key);
-            key.channel();
+            key.attach(null);
         }
     }
 
     /**
-     * 处理时间事件（暂未实现）
-     * @return
+     * 处理所有已到达的时间事件
+     * 处理器返回NO_MORE的事件会被删除，否则按返回的毫秒数重新计算触发时间，放回时间事件堆
+     * @return 处理的时间事件个数
      */
     private int processTimeEvents() {
         int processed = 0;
+        long now = System.nanoTime();
+
+        TimeEvent te;
+        while ((te = this.timeEvents.peek()) != null && te.getWhen() - now <= 0) {
+            // 先从堆中取出，处理器内部删除自身或创建新事件都不会影响堆的结构
+            this.timeEvents.poll();
+
+            int retval = te.getTimeProc().process(te.getClientData());
+            processed++;
+
+            if (retval != NO_MORE && !te.isDeleted()) {
+                // 周期性事件，更新触发时间后重新放回堆中
+                // 新的触发时间至少比本轮的now大，保证同一事件在本轮中不会被重复处理
+                long when = System.nanoTime() + retval * 1_000_000L;
+                te.setWhen(when - now > 0 ? when : now + 1);
+                this.timeEvents.offer(te);
+            } else {
+                finalizeTimeEvent(te);
+            }
+        }
 
         return processed;
     }
 
+    /**
+     * 创建时间事件
+     * @param milliseconds 事件在多少毫秒之后触发
+     * @param proc 事件处理器
+     * @param clientData 传给处理器的私有数据
+     * @param finalizerProc 事件删除时调用的清理函数，可以为null
+     * @return 创建的时间事件，可以用于删除事件
+     */
+    public TimeEvent createTimeEvent(long milliseconds, TimeProcedure proc, Object clientData, TimeFInalizerProcedure finalizerProc) {
+        if (proc == null) {
+            throw new IllegalArgumentException("Illegal argument 'proc', 'proc' can not be null");
+        }
+
+        long when = System.nanoTime() + milliseconds * 1_000_000L;
+        TimeEvent te = new TimeEvent(this.timeEventNextId++, when, proc, clientData, finalizerProc);
+        this.timeEvents.offer(te);
+
+        return te;
+    }
+
     public void registerTimeEvent(TimeEvent event) {
-        timeEvents.add(event);
+        if (event.getId() >= this.timeEventNextId) {
+            this.timeEventNextId = event.getId() + 1;
+        }
+        this.timeEvents.offer(event);
     }
 
-    private TimeEvent getNearestTimer() {
-        TimeEvent nearestTimer = null;
-
-        if (!timeEvents.isEmpty()) {
-            for (TimeEvent e : timeEvents) {
-                if (nearestTimer == null) {
-                    nearestTimer = e;
-                } else {
-                    if (e.getWhenSec() < nearestTimer.getWhenSec()
-                            || (e.getWhenSec() == nearestTimer.getWhenSec()
-                            && e.getWhenMs() < nearestTimer.getWhenMs())) {
-                        nearestTimer = e;
-                    }
-                }
-            }
+    /**
+     * 删除时间事件，若事件正在被处理（处理器中删除自身），则在处理结束后不再放回堆中
+     * @param event 要删除的时间事件
+     * @return 删除是否成功
+     */
+    public boolean deleteTimeEvent(TimeEvent event) {
+        if (event == null || event.isDeleted()) {
+            return false;
+        }
+
+        event.markDeleted();
+        if (this.timeEvents.remove(event)) {
+            finalizeTimeEvent(event);
         }
 
-        return nearestTimer;
+        return true;
+    }
+
+    private void finalizeTimeEvent(TimeEvent te) {
+        te.markDeleted();
+        if (te.getFinalizerProc() != null) {
+            te.getFinalizerProc().process(te.getClientData());
+        }
+    }
+
+    private TimeEvent getNearestTimer() {
+        return this.timeEvents.peek();
     }
 
     /**
-     * 用于测试： 获取注册的文件事件map
-     * @return
+     * 用于测试：获取channel在该事件循环上注册的文件事件
+     * @param channel 注册过事件的channel
+     * @return channel对应的FileEvent结构，没有注册过事件时返回null
      */
-    public Map<SelectionKey, FileEvent> getFileEvents() {
-        return Collections.unmodifiableMap(this.fileEvents);
+    public FileEvent getFileEvent(SelectableChannel channel) {
+        SelectionKey key = channel.keyFor(this.selector);
+        return key == null ? null : (FileEvent) key.attachment();
     }
 
     public Selector getSelector() {
@@ -1,8 +1,8 @@
 package event;
 
 import java.nio.channels.SelectionKey;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.Objects;
 
 /**
  * FileEvent用于表示对IO事件的抽象
@@ -17,14 +17,15 @@ import java.util.Map;
  *     SelectionKey.OP_CONNECT
  * 这四类事件用SelectionKey中对应的int值表示
  *
- * 对应每种事件发生时的处理函数则记录在以这些事件int值为key的map中
+ * 对应每种事件发生时的处理函数则记录在一个长度为4的数组中，每种事件占一个槽位，参见slotOf()
+ * FileEvent作为channel在selector上注册生成的SelectionKey的附件（attachment），事件循环分发事件时直接从key中取出，不需要查表
  *
  * @author: huzihan
  * @create: 2021-06-27
  */
 public class FileEvent {
     private int ops;    // 该FileEvent对应的channel监听的事件类型集合（不同事件int值的或操作结果）
-    private Map<Integer, FileEventHandler> eventHandlerMap;    // 记录了对应事件类型的处理函数，key为事件类型，value为处理函数
+    private final FileEventHandler [] eventHandlers;    // 记录了对应事件类型的处理函数，下标为事件类型对应的槽位
     private Object clientData;     // 客户端传来的数据
 
     /**
@@ -35,12 +36,33 @@ public class FileEvent {
      * @param clientData 客户端数据
      */
     public FileEvent(int interestOp, FileEventHandler handler, Object clientData) {
-        this.eventHandlerMap = new HashMap<>(4);
-        eventHandlerMap.put(interestOp, handler);
+        this.eventHandlers = new FileEventHandler[4];
+        this.eventHandlers[slotOf(interestOp)] = handler;
         this.ops = interestOp;
         this.clientData = clientData;
     }
 
+    /**
+     * 获取事件类型在处理函数数组中的槽位
+     *
+     * @param eventType 事件类型，即SelectionKey的（OP_ACCEPT/OP_CONNECT/OP_READ/OP_WRITE）值之一
+     * @return 槽位下标
+     */
+    private static int slotOf(int eventType) {
+        switch (eventType) {
+            case SelectionKey.OP_READ:
+                return 0;
+            case SelectionKey.OP_WRITE:
+                return 1;
+            case SelectionKey.OP_CONNECT:
+                return 2;
+            case SelectionKey.OP_ACCEPT:
+                return 3;
+            default:
+                throw new IllegalArgumentException("Illegal event type " + eventType + ", only a single SelectionKey operation is allowed");
+        }
+    }
+
     /**
      * 获取当前channel关注的事件类型
      *
@@ -66,7 +88,7 @@ public class FileEvent {
      * @return 处理对象
      */
     public FileEventHandler getEventHandler(int eventType) {
-        return eventHandlerMap.get(eventType);
+        return this.eventHandlers[slotOf(eventType)];
     }
 
     /**
@@ -81,13 +103,13 @@ public class FileEvent {
      */
     public void addFileEventHandler(int interestOp, FileEventHandler handler, Object clientData) {
         this.ops |= interestOp;
-        this.eventHandlerMap.put(interestOp, handler);
+        this.eventHandlers[slotOf(interestOp)] = handler;
         this.clientData = clientData;
     }
 
     public void removeFileEventHandler(int uninterestOp) {
         this.ops = this.ops & ~uninterestOp;
-        this.eventHandlerMap.remove(uninterestOp);
+        this.eventHandlers[slotOf(uninterestOp)] = null;
     }
 
     public boolean isEmptyFileEvent() {
@@ -99,16 +121,15 @@ public class FileEvent {
         return ans;
     }
 
-    // 由于FileEvent对象会放入到Map之类的容器中，
-    // 为了防止出现异常，需要重写FileEvent类的hashCode方法和equals方法
+    // 监听端口的FileEvent没有客户端数据，clientData可能为null
 
     @Override
     public int hashCode(){
         int hashcode = 0;
 
         hashcode = hashcode * 31 + this.ops;
-        hashcode = hashcode * 31 + this.clientData.hashCode();
-        hashcode = hashcode * 31 + this.eventHandlerMap.hashCode();
+        hashcode = hashcode * 31 + Objects.hashCode(this.clientData);
+        hashcode = hashcode * 31 + Arrays.hashCode(this.eventHandlers);
 
         return hashcode;
     }
@@ -126,8 +147,8 @@ public class FileEvent {
         if (other instanceof FileEvent) {
             FileEvent fo = (FileEvent) other;
             return (fo.ops == this.ops
-                    && fo.clientData.equals(this.clientData)
-                    && fo.eventHandlerMap.equals(this.eventHandlerMap) )
+                    && Objects.equals(fo.clientData, this.clientData)
+                    && Arrays.equals(fo.eventHandlers, this.eventHandlers) )
                     ? true : false;
         } else {
             return false;
@@ -1,32 +1,81 @@
 package event;
 
-import java.util.function.Function;
-
 /**
- * @description:
+ * @description: 时间事件
+ * 时间事件的触发时间使用System.nanoTime()表示的单调时钟截止时间，不受系统时间调整的影响
+ * 时间事件保存在EventLoop的最小堆中，heapIndex记录了事件在堆中的位置，用于O(log n)的删除
  * @author: huzihan
  * @create: 2021-06-27
  */
 public class TimeEvent {
+    // 时间事件的唯一标识
     private long id;
-    private long when_sec;
-    private long when_ms;
+    // 事件的触发时间（System.nanoTime()时钟下的截止时间，单位纳秒）
+    private long when;
 
+    // 事件处理器，返回值表示下次触发距今的毫秒数，返回EventLoop.NO_MORE表示不再触发
     private TimeProcedure timeProc;
-    private Function<Object, Object> finalizerProc;
+    // 事件被删除时调用的清理函数，可以为null
+    private TimeFInalizerProcedure finalizerProc;
+    // 传给处理函数的私有数据
+    private Object clientData;
+
+    // 事件在时间事件堆中的下标，-1表示不在堆中
+    private int heapIndex;
+    // 事件是否已经被删除
+    private boolean deleted;
 
-    public TimeEvent(int id, long when_sec, long when_ms, TimeProcedure timeProc) {
+    public TimeEvent(long id, long when, TimeProcedure timeProc) {
+        this(id, when, timeProc, null, null);
+    }
+
+    public TimeEvent(long id, long when, TimeProcedure timeProc, Object clientData, TimeFInalizerProcedure finalizerProc) {
         this.id = id;
-        this.when_sec = when_sec;
-        this.when_ms = when_ms;
+        this.when = when;
         this.timeProc = timeProc;
+        this.clientData = clientData;
+        this.finalizerProc = finalizerProc;
+        this.heapIndex = -1;
+        this.deleted = false;
+    }
+
+    public long getId() {
+        return this.id;
+    }
+
+    public long getWhen() {
+        return this.when;
+    }
+
+    void setWhen(long when) {
+        this.when = when;
+    }
+
+    public TimeProcedure getTimeProc() {
+        return this.timeProc;
+    }
+
+    public TimeFInalizerProcedure getFinalizerProc() {
+        return this.finalizerProc;
+    }
+
+    public Object getClientData() {
+        return this.clientData;
+    }
+
+    int getHeapIndex() {
+        return this.heapIndex;
+    }
+
+    void setHeapIndex(int heapIndex) {
+        this.heapIndex = heapIndex;
     }
 
-    public long getWhenSec() {
-        return this.when_sec;
+    public boolean isDeleted() {
+        return this.deleted;
     }
 
-    public long getWhenMs() {
-        return this.when_ms;
+    void markDeleted() {
+        this.deleted = true;
     }
 }
@@ -0,0 +1,141 @@
+package event;
+
+import java.util.Arrays;
+
+/**
+ * 时间事件队列，基于数组实现的二叉最小堆，堆顶是最近要触发的时间事件
+ *
+ * 插入、删除任意事件的时间复杂度为O(log n)，获取最近的事件为O(1)
+ * 每个TimeEvent中记录了自己在堆数组中的下标，因此删除时不需要遍历查找
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class TimeEventQueue {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private TimeEvent[] heap;
+    private int size;
+
+    public TimeEventQueue() {
+        this.heap = new TimeEvent[DEFAULT_CAPACITY];
+        this.size = 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * 获取最近要触发的时间事件
+     * @return 堆顶的时间事件，队列为空时返回null
+     */
+    public TimeEvent peek() {
+        return this.size == 0 ? null : this.heap[0];
+    }
+
+    /**
+     * 向堆中插入一个时间事件
+     * @param event 时间事件
+     */
+    public void offer(TimeEvent event) {
+        if (event.getHeapIndex() != -1) {
+            throw new IllegalStateException("TimeEvent " + event.getId() + " is already in the queue");
+        }
+
+        if (this.size == this.heap.length) {
+            this.heap = Arrays.copyOf(this.heap, this.heap.length << 1);
+        }
+
+        siftUp(this.size++, event);
+    }
+
+    /**
+     * 移除并返回堆顶的时间事件
+     * @return 堆顶的时间事件，队列为空时返回null
+     */
+    public TimeEvent poll() {
+        if (this.size == 0) {
+            return null;
+        }
+
+        TimeEvent top = this.heap[0];
+        removeAt(0);
+        return top;
+    }
+
+    /**
+     * 从堆中删除指定的时间事件
+     * @param event 时间事件
+     * @return 事件在堆中并被删除返回true，否则返回false
+     */
+    public boolean remove(TimeEvent event) {
+        int index = event.getHeapIndex();
+        if (index < 0 || index >= this.size || this.heap[index] != event) {
+            return false;
+        }
+
+        removeAt(index);
+        return true;
+    }
+
+    private void removeAt(int index) {
+        TimeEvent removed = this.heap[index];
+        int last = --this.size;
+        TimeEvent moved = this.heap[last];
+        this.heap[last] = null;
+        removed.setHeapIndex(-1);
+
+        if (index == last) {
+            return;
+        }
+
+        // 用堆尾元素填补空位，再根据大小向下或向上调整
+        siftDown(index, moved);
+        if (this.heap[index] == moved) {
+            siftUp(index, moved);
+        }
+    }
+
+    private void siftUp(int index, TimeEvent event) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            TimeEvent p = this.heap[parent];
+            if (p.getWhen() <= event.getWhen()) {
+                break;
+            }
+            this.heap[index] = p;
+            p.setHeapIndex(index);
+            index = parent;
+        }
+
+        this.heap[index] = event;
+        event.setHeapIndex(index);
+    }
+
+    private void siftDown(int index, TimeEvent event) {
+        int half = this.size >>> 1;
+        while (index < half) {
+            int child = (index << 1) + 1;
+            TimeEvent c = this.heap[child];
+            int right = child + 1;
+            if (right < this.size && this.heap[right].getWhen() < c.getWhen()) {
+                child = right;
+                c = this.heap[child];
+            }
+            if (event.getWhen() <= c.getWhen()) {
+                break;
+            }
+            this.heap[index] = c;
+            c.setHeapIndex(index);
+            index = child;
+        }
+
+        this.heap[index] = event;
+        event.setHeapIndex(index);
+    }
+}
@@ -1,7 +1,7 @@
 package event;
 
 /**
- * @description:
+ * @description: 时间事件被删除时调用的清理函数
  * @author: huzihan
  * @create: 2021-06-27
  */
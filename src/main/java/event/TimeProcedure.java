@@ -3,7 +3,7 @@ package event;
 //import jdk.nashorn.internal.objects.annotations.Function;
 
 /**
- * @description:
+ * @description: 时间事件处理器，返回值为下次触发距今的毫秒数，返回EventLoop.NO_MORE表示事件不再触发
  * @author: huzihan
  * @create: 2021-06-27
  */
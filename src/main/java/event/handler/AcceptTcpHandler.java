@@ -5,9 +5,9 @@ import event.FileEventHandler;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import server.PandisServer;
+import server.Reactor;
 
 import java.io.IOException;
-import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
@@ -61,22 +61,42 @@ public class AcceptTcpHandler implements FileEventHandler {
         SocketChannel socketChannel = null;
         try {
             socketChannel = ssc.accept();
+            if (socketChannel == null) {
+                // 连接已经被取消，没有可接受的连接
+                return false;
+            }
             socketChannel.configureBlocking(false);
-
         } catch (IOException e) {
-            e.printStackTrace();
+            logger.error("Accepting client connection error", e);
+            return false;
         }
 
-        // 待实现
-        // 创建client
-        PandisClient newClient = PandisClient.createClient(socketChannel);
-        server.addClient(newClient);
-
         logger.info("Accepted client connection from " + socketChannel.socket().getRemoteSocketAddress());
 
-        // 将这个与客户端关连的socketChannel也注册到EventLoop, 其中，客户端对象client以事件的clientData传入，这里暂时以null代替
-        server.getEventLoop().registerFileEvent(socketChannel, SelectionKey.OP_READ, ReadQueryFromClientHandler.getHandler(), newClient);
+        // 为连接选择一个反应堆，之后这个连接上的所有事件都由该反应堆处理
+        Reactor reactor = server.chooseReactor();
+        if (reactor.getEventLoop() == server.getEventLoop()) {
+            registerClient(reactor, socketChannel);
+        } else {
+            // 事件循环是线程不安全的，客户端的创建和注册必须在反应堆自己的线程中完成
+            final SocketChannel channel = socketChannel;
+            reactor.getEventLoop().submit(() -> registerClient(reactor, channel));
+        }
 
         return true;
     }
+
+    /**
+     * 为连接创建客户端，并将连接注册到反应堆的事件循环，必须在反应堆线程中调用
+     * @param reactor 连接分配给的反应堆
+     * @param socketChannel 连接
+     */
+    private static void registerClient(Reactor reactor, SocketChannel socketChannel) {
+        // 创建client
+        PandisClient newClient = PandisClient.createClient(socketChannel, reactor);
+        reactor.addClient(newClient);
+
+        // 将这个与客户端关连的socketChannel也注册到反应堆的EventLoop, 其中，客户端对象client以事件的clientData传入
+        reactor.getEventLoop().registerFileEvent(socketChannel, SelectionKey.OP_READ, ReadQueryFromClientHandler.getHandler(), newClient);
+    }
 }
@@ -45,6 +45,11 @@ public class ReadQueryFromClientHandler implements FileEventHandler {
     public boolean handle(PandisServer server, SelectionKey key, Object privateData) {
         PandisClient client = (PandisClient) privateData;
 
+        // 开启了多线程读时，读取和解析推迟到beforeSleep中由IO线程并行完成
+        if (server.postponeClientRead(client)) {
+            return true;
+        }
+
         // 设置服务器的当前客户端
         server.setCurrentClient(client);
 
@@ -53,18 +58,16 @@ public class ReadQueryFromClientHandler implements FileEventHandler {
 
         // 根据读取情况处理
         if (readNum > 0) {
-            // 正常读取了数据，开始处理数据
+            // 正常读取了数据，执行其中所有完整的命令，回复在进入select之前一起写出
             client.processInputBuffer();
         } else if (readNum == -1) {
-            // 客户端断开连接，需要关闭SocketChannel
+            // 客户端断开连接，需要关闭SocketChannel，客户端已经销毁，不能再向它添加回复
             server.distroyClient(key, client);
+            return true;
         } else if (readNum == 0) {
             logger.error("客户端数据读取异常");
         }
 
-        // test
-        client.addReply(":2\r\n");
-
         server.clearCurrentClient();
         return true;
     }
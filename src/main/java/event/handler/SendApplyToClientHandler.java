@@ -7,7 +7,6 @@ import org.apache.commons.logging.LogFactory;
 import server.PandisServer;
 
 import java.nio.channels.SelectionKey;
-import java.util.Date;
 
 /**
  * @description: 将客户端回复缓冲区内的内容发送给客户端
@@ -47,6 +46,12 @@ public class SendApplyToClientHandler implements FileEventHandler {
     public boolean handle(PandisServer server, SelectionKey key, Object privateData) {
         PandisClient client = (PandisClient) privateData;
 
+        // 回复超过了上限的客户端不再发送残缺的回复，直接关闭
+        if (client.hasFlags(PandisClient.CLIENT_CLOSE_ASAP)) {
+            server.distroyClient(key, client);
+            return true;
+        }
+
         // 设置服务器的当前客户端
         server.setCurrentClient(client);
 
@@ -55,12 +60,17 @@ public class SendApplyToClientHandler implements FileEventHandler {
 
         if(writeNum > 0) {
             // 正确写入类数据
-            client.setLastInteraction(new Date());
+            client.setLastInteraction(System.currentTimeMillis());
         }
 
         // 如果回复缓冲区空了，则不需要在监听write事件
         if (client.isReplyEmpty()) {
-            server.getEventLoop().unregisterFileEvent(key, SelectionKey.OP_WRITE);
+            if (client.hasFlags(PandisClient.CLIENT_CLOSE_AFTER_REPLY)) {
+                // 回复已经发送完毕，关闭客户端
+                server.distroyClient(key, client);
+                return true;
+            }
+            client.getEventLoop().unregisterFileEvent(key, SelectionKey.OP_WRITE);
         }
 
         server.clearCurrentClient();
@@ -1,15 +1,8 @@
 package protocol;
 
 import client.PandisClient;
-import common.store.ObjectType;
 import common.store.Sds;
-import common.store.StoreObject;
-import utils.SdsUtil;
-
-import javax.xml.bind.SchemaOutputResolver;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.Arrays;
+import utils.StringUtil;
 
 
 /**
@@ -22,39 +15,43 @@ public class RequestParser {
     public static final int  INLINE_MAX_SIZE  = 1024 * 64;  /* Max size of inline reads */
     public static final int  MBULK_BIG_ARG = 1024 * 32;
 
+    // parseLength解析失败时的返回值
+    private static final long INVALID_LENGTH = Long.MIN_VALUE;
+
     /**
      * 处理内联查询格式
      * 内联命令的各个参数以空格分开，并以 \r\n 结尾
+     *
+     * 与多条查询一样，参数只以切片的形式记录在客户端中，不创建任何对象，
+     * 引号中的转义字符原地解码：解码后的内容不会比原来长，所以直接写回查询缓冲区中参数开始的位置
      * @param client 缓存请求数据的客户端
      * @return 解析是否成功
      */
     public static boolean processInlineRequest(PandisClient client) {
         // Search for end of line
         Sds queryBuffer = client.getQueryBuffer();
-        int indexLast = queryBuffer.indexOf('\n');
+        byte[] buf = queryBuffer.getBufNoCopy();
+        int pos = client.getQueryBufferPos();
+        int newline = queryBuffer.indexOf(pos, '\n');
 
         // 收到的查询内容不符合协议内容，出错
-        if(indexLast == -1) {
-            if(queryBuffer.getLen() > INLINE_MAX_SIZE) {
-                // todo 错误处理 ，
-                client.addReply(ReplyType.ERROR, "Protocol error: too big inline request");
+        if(newline == -1) {
+            if(queryBuffer.getLen() - pos > INLINE_MAX_SIZE) {
+                setProtocolError(client, "Protocol error: too big inline request");
             }
             return false;
         }
 
         // handle the \r\n case
-        if (indexLast != 0 || queryBuffer.charAt(indexLast - 1) == '\r'){
-            indexLast--;
+        int lineEnd = newline;
+        if (lineEnd != pos && buf[lineEnd - 1] == '\r'){
+            lineEnd--;
         }
 
-        // 根据空格，分割命令的参数
-        int queryLen = indexLast;
-        Sds request = Sds.createSds(queryLen, queryBuffer.getBufNoCopy());
-        Sds[] argv = SdsUtil.splitArgs(request);
-
-        if(argv == null){
-            //todo 错误处理， Protocol error: unbalanced quotes in request
-            client.addReply(ReplyType.ERROR, "Protocol error: unbalanced quotes in request");
+        // 根据空格，分割命令的参数，空行没有参数
+        client.prepareArgv(0);
+        if (!splitInlineArgs(client, buf, pos, lineEnd)) {
+            setProtocolError(client, "Protocol error: unbalanced quotes in request");
             return false;
         }
 
@@ -63,23 +60,129 @@ public class RequestParser {
         * This is useful for a slave to ping back while loading a big
         * RDB file. */
 
-        // 从缓冲区中删除已从 argv 已读取的内容，剩余内容时未读取的
-        client.getQueryBuffer().cut(queryLen + 2, queryBuffer.getLen());
+        // 跳过已读取的这一行，已解析的内容由客户端统一删除
+        client.setQueryBufferPos(newline + 1);
 
-        StoreObject[] so = new StoreObject[argv.length];
-        // 为每个参数创建一个字符串对象
-        for(int i = 0; i < argv.length; i++){
-            if(argv[i].getLen() > 0){
-                so[i] = new StoreObject(ObjectType.STRING, argv[i]);
+        return true;
+    }
+
+    /**
+     * 将一行内联命令分割为参数切片，格式与SdsUtil.splitArgs()相同：
+     * 参数以空白分隔，双引号中支持 \xHH 十六进制转义以及 \n、\r、\t、\b、\a 等转义字符，单引号中支持 \'，
+     * 右引号之后必须是空白或者行尾
+     * @param client 客户端，参数切片记录在客户端中
+     * @param buf 查询缓冲区的底层数组，转义字符会被原地解码
+     * @param start 行的起始位置
+     * @param end 行的结束位置（不包括行尾的\r\n）
+     * @return 引号不匹配时返回false
+     */
+    static boolean splitInlineArgs(PandisClient client, byte[] buf, int start, int end) {
+        int p = start;
+        while (true) {
+            // 跳过空白
+            while (p < end && isSpace(buf[p])) {
+                p++;
+            }
+            if (p >= end) {
+                return true;
             }
-        }
 
-        client.setArgv(so);
+            boolean inQuotes = false;
+            boolean inSingleQuotes = false;
+            boolean done = false;
+            // 参数的内容从参数开头开始原地写回，w是写入的位置，总是不超过读取的位置p
+            int argStart = p;
+            int w = p;
 
-        System.out.println("测试：");
-        System.out.println(Arrays.toString(argv));
+            while (!done) {
+                if (inQuotes) {
+                    // 没有解析到右侧的引号就到行尾了，格式错误
+                    if (p >= end) {
+                        return false;
+                    }
 
-        return true;
+                    byte c = buf[p];
+                    if (c == '\\' && p + 3 < end && buf[p + 1] == 'x'
+                            && StringUtil.isHexDigit((char) buf[p + 2]) && StringUtil.isHexDigit((char) buf[p + 3])) {
+                        buf[w++] = (byte) (StringUtil.hexDigitToInt((char) buf[p + 2]) * 16
+                                + StringUtil.hexDigitToInt((char) buf[p + 3]));
+                        p += 4;
+                    } else if (c == '\\' && p + 1 < end) {
+                        p++;
+                        switch (buf[p]) {
+                            case 'n': buf[w++] = '\n'; break;
+                            case 'r': buf[w++] = '\r'; break;
+                            case 't': buf[w++] = '\t'; break;
+                            case 'b': buf[w++] = '\b'; break;
+                            case 'a': buf[w++] = 7; break;
+                            default: buf[w++] = buf[p]; break;
+                        }
+                        p++;
+                    } else if (c == '"') {
+                        // 右引号之后必须是空白或者行尾
+                        if (p + 1 < end && !isSpace(buf[p + 1])) {
+                            return false;
+                        }
+                        done = true;
+                        p++;
+                    } else {
+                        buf[w++] = c;
+                        p++;
+                    }
+                } else if (inSingleQuotes) {
+                    if (p >= end) {
+                        return false;
+                    }
+
+                    byte c = buf[p];
+                    if (c == '\\' && p + 1 < end && buf[p + 1] == '\'') {
+                        buf[w++] = '\'';
+                        p += 2;
+                    } else if (c == '\'') {
+                        if (p + 1 < end && !isSpace(buf[p + 1])) {
+                            return false;
+                        }
+                        done = true;
+                        p++;
+                    } else {
+                        buf[w++] = c;
+                        p++;
+                    }
+                } else {
+                    if (p >= end) {
+                        done = true;
+                        continue;
+                    }
+
+                    byte c = buf[p];
+                    switch (c) {
+                        case ' ':
+                        case '\n':
+                        case '\r':
+                        case '\t':
+                        case '\0':
+                            done = true;
+                            break;
+                        case '"':
+                            inQuotes = true;
+                            break;
+                        case '\'':
+                            inSingleQuotes = true;
+                            break;
+                        default:
+                            buf[w++] = c;
+                            break;
+                    }
+                    p++;
+                }
+            }
+
+            client.addArgvSlice(argStart, w - argStart);
+        }
+    }
+
+    private static boolean isSpace(byte c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == 0x0b || c == '\f';
     }
 
     /**
@@ -89,42 +192,42 @@ public class RequestParser {
      * argv[0] = SET
      * argv[1] = MSG
      * argv[2] = HELLO
+     *
+     * 解析过程不创建任何对象：参数数量和参数长度直接从字节解析，参数只以切片（在查询缓冲区中的位置和长度）的形式记录在客户端中，
+     * 切片数组按照*N预先分配，参数对象在命令需要时才创建，参见PandisClient.getArgv()
+     * 解析从客户端的qbPos开始，解析完之后qbPos指向下一条命令的开头，已解析的内容由客户端在所有命令处理完之后统一删除
      * @param client 缓存请求数据的客户端
-     * @return 解析是否成功
+     * @return 一条命令的所有参数都已经读取完返回true，数据不完整或者出错返回false
      */
     public static boolean processMultiBulkRequest(PandisClient client) {
-        int index;
-        int pos = 0, ok;
-        int requestItemNum = 0;
+        Sds queryBuffer = client.getQueryBuffer();
+        byte[] buf = queryBuffer.getBufNoCopy();
+        int len = queryBuffer.getLen();
+        int pos = client.getQueryBufferPos();
+        int newline;
+        long ll;
+
         // 解析读入命令的参数个数
         // 比如 *3\r\n$3\r\nSET\r\n... 将令 c->multibulklen = 3
         if (client.getMultiBulkLen() == 0) {
-
-            // todo The client should have been reset
-
             // 检查缓冲区的内容第一个 \r\n eg:*3\r\n
-            Sds queryBuffer = client.getQueryBuffer();
-            index = queryBuffer.indexOf('\r');
-            if (index == -1) {
-                if (queryBuffer.getLen() > INLINE_MAX_SIZE) {
-                    client.addReply(ReplyType.ERROR, "Protocol error: too big mbulk count string");
-                    return false;
+            newline = indexOfCR(buf, pos, len);
+            if (newline == -1) {
+                if (len - pos > INLINE_MAX_SIZE) {
+                    setProtocolError(client, "Protocol error: too big mbulk count string");
                 }
-            }
-
-            // Buffer should also contain \n
-            if (index > queryBuffer.getLen() - 2) {
                 return false;
             }
 
-            // todo 协议的第一个字符必须是 '*'
-            if (queryBuffer.charAt(0) != '*') {
+            // Buffer should also contain \n
+            if (newline > len - 2) {
                 return false;
             }
 
-            requestItemNum = Integer.parseInt(new String(queryBuffer.getBufNoCopy(), 1, index - 1));
-            if(requestItemNum > 1024 * 1024){
-                client.addReply(ReplyType.ERROR, "Protocol error: invalid multibulk length");
+            // 协议的第一个字符一定是 '*'，由调用者保证
+            ll = parseLength(buf, pos + 1, newline);
+            if (ll == INVALID_LENGTH || ll > 1024 * 1024) {
+                setProtocolError(client, "Protocol error: invalid multibulk length");
                 return false;
             }
 
@@ -134,92 +237,131 @@ public class RequestParser {
             //               ^
             //               |
             //              pos
-            // 参数数量之后的位置
-            pos = index + 2;
-
-            client.setMultiBulkLen(requestItemNum);
-        }
+            pos = newline + 2;
 
-        // 从 c->querybuf 中读入参数，并创建各个参数对象到 c->argv
-        while (client.getMultiBulkLen() > 0){
+            if (ll <= 0) {
+                // 空命令
+                client.setQueryBufferPos(pos);
+                return true;
+            }
 
-            Sds queryBuffer = client.getQueryBuffer();
+            client.setMultiBulkLen((int) ll);
+            // 按照参数数量一次性准备好参数切片数组
+            client.prepareArgv((int) ll);
+        }
 
+        // 从 querybuf 中读入参数，记录各个参数的切片
+        while (client.getMultiBulkLen() > 0) {
             // 读入参数长度
-            if(client.getBulkLen() == -1) {
+            if (client.getBulkLen() == -1) {
                 // 确保 "\r\n" 存在
-                index = queryBuffer.indexOf(pos, '\r');
-                if (index == -1) {
-                    if (queryBuffer.getLen() > INLINE_MAX_SIZE) {
-                        // todo Protocol error: too big bulk count string
-                        client.addReply(ReplyType.ERROR, "Protocol error: too big bulk count string");
+                newline = indexOfCR(buf, pos, len);
+                if (newline == -1) {
+                    if (len - pos > INLINE_MAX_SIZE) {
+                        setProtocolError(client, "Protocol error: too big bulk count string");
                         return false;
                     }
                     break;
                 }
                 // Buffer should also contain \n
-                if (index > queryBuffer.getLen() - 2) {
+                if (newline > len - 2) {
                     break;
                 }
                 // 确保协议符合参数格式，检查其中的 $...
                 // 比如 $3\r\nSET\r\n
-                if ((char) queryBuffer.charAt(pos) != '$') {
-                    // todo "Protocol error: expected '$', got '%c'"
-                    client.addReply(ReplyType.ERROR, "Protocol error: expected '$'");
+                if (buf[pos] != '$') {
+                    setProtocolError(client, "Protocol error: expected '$', got '" + (char) buf[pos] + "'");
                     return false;
                 }
                 // 读取长度
-                requestItemNum = Integer.parseInt(new String(queryBuffer.getBufNoCopy(), pos + 1, index - pos - 1));
-                if (requestItemNum < 0 || requestItemNum > 512 * 1024 * 1024) {
-                    // todo Protocol error: invalid bulk length
-                    client.addReply(ReplyType.ERROR, "Protocol error: invalid bulk length");
+                ll = parseLength(buf, pos + 1, newline);
+                if (ll == INVALID_LENGTH || ll < 0 || ll > 512 * 1024 * 1024) {
+                    setProtocolError(client, "Protocol error: invalid bulk length");
                     return false;
                 }
                 // 定位到参数的开头
-                pos = index + 2;
+                pos = newline + 2;
 
-                // 如果参数非常长，那么做一些预备措施来优化接下来的参数复制操作
-                if (requestItemNum >= MBULK_BIG_ARG) {
-                    // todo
+                // 如果参数非常长，那么做一些预备措施来优化接下来的参数复制操作：
+                // 让参数从查询缓冲区的开头开始，并且按参数长度分配好空间，
+                // 这样参数读完之后查询缓冲区中正好只有这个参数，可以直接作为参数对象，省去一次大的复制
+                // 只有未解析的数据不超过 ll + 2 时才这样做，否则缓冲区中除了这个参数还有别的内容，移动数据也是白费
+                if (ll >= MBULK_BIG_ARG && len - pos <= ll + 2) {
+                    // 已经解析出的参数切片还指向查询缓冲区，先复制出来再移动数据
+                    client.detachArgvSlices();
+                    queryBuffer.cut(pos, len);
+                    queryBuffer.expandExact((int) ll + 2 - queryBuffer.getLen());
+                    buf = queryBuffer.getBufNoCopy();
+                    len = queryBuffer.getLen();
+                    pos = 0;
                 }
                 // 参数的长度
-                client.setBulkLen(requestItemNum);
+                client.setBulkLen((int) ll);
             }
+
             // 读入参数
-            if (queryBuffer.getLen() - pos < client.getBulkLen() + 2) {
-                // 确保内容符合协议格式
-                // 比如 $3\r\nSET\r\n 就检查 SET 之后的 \r\n
+            // 确保内容符合协议格式，比如 $3\r\nSET\r\n 就检查 SET 之后的 \r\n
+            if (len - pos < client.getBulkLen() + 2) {
                 break;
+            }
+
+            if (pos == 0 && client.getBulkLen() >= MBULK_BIG_ARG && len == client.getBulkLen() + 2) {
+                // 查询缓冲区中正好只有这个大参数，直接把查询缓冲区作为参数，客户端换用新的查询缓冲区
+                client.adoptQueryBufferAsArgv(client.getBulkLen());
+                queryBuffer = client.getQueryBuffer();
+                buf = queryBuffer.getBufNoCopy();
+                len = queryBuffer.getLen();
             } else {
-                // 为参数创建字符串对象
-                if (pos == 0 && client.getBulkLen() >= MBULK_BIG_ARG && queryBuffer.getLen() == client.getBulkLen() + 2){
-                    // todo
-                } else {
-                    StoreObject[] storeObject = new StoreObject[client.getArgv().length+1];
-                    System.arraycopy(client.getArgv(), 0, storeObject, 0, client.getArgv().length);
-                    storeObject[storeObject.length-1] = new StoreObject(ObjectType.STRING, Sds.createSds(new String(queryBuffer.getBuf(), pos, client.getBulkLen()).getBytes(StandardCharsets.UTF_8)));
-                    client.setArgv(storeObject);
-                    pos += client.getBulkLen() + 2;
-                }
-                client.setBulkLen(-1);
-                client.setMultiBulkLen(client.getMultiBulkLen()-1);
+                // 只记录参数在查询缓冲区中的位置，不复制数据
+                client.addArgvSlice(pos, client.getBulkLen());
+                pos += client.getBulkLen() + 2;
             }
-        }
-        // 从 querybuf 中删除已被读取的内容
-        if (pos > 0) {
-            Sds queryBuffer = client.getQueryBuffer();
-            queryBuffer.cut(pos, queryBuffer.getLen());
+            client.setBulkLen(-1);
+            client.setMultiBulkLen(client.getMultiBulkLen() - 1);
         }
 
+        // 记录解析到的位置，已解析的内容由客户端统一删除
+        client.setQueryBufferPos(pos);
+
         // 如果本条命令的所有参数都已读取完，那么返回
-        if (client.getMultiBulkLen() == 0) {
-            System.out.println("测试");
-            System.out.println(Arrays.toString(client.getArgv()));
-            return true;
+        return client.getMultiBulkLen() == 0;
+    }
+
+    /**
+     * 解析协议中的长度字段
+     * @return 解析出的长度，格式错误时返回INVALID_LENGTH
+     */
+    private static long parseLength(byte[] buf, int start, int end) {
+        try {
+            return StringUtil.parseLong(buf, start, end);
+        } catch (NumberFormatException e) {
+            return INVALID_LENGTH;
+        }
+    }
+
+    /**
+     * 在buf的[from, to)范围内查找'\r'
+     * @return '\r'的位置，找不到时返回-1
+     */
+    private static int indexOfCR(byte[] buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf[i] == '\r') {
+                return i;
+            }
         }
 
-        // 如果还有参数未读取完，那么就协议内容有错
-        return false;
+        return -1;
+    }
+
+    /**
+     * 发生协议错误：向客户端回复错误信息，丢弃查询缓冲区中的剩余内容，回复发送之后关闭客户端
+     * @param client 客户端
+     * @param message 错误信息
+     */
+    private static void setProtocolError(PandisClient client, String message) {
+        client.addReply(ReplyType.ERROR, message);
+        client.addFlags(PandisClient.CLIENT_CLOSE_AFTER_REPLY);
+        client.setQueryBufferPos(client.getQueryBuffer().getLen());
     }
 
 }
@@ -0,0 +1,106 @@
+package protocol;
+
+import utils.SafeEncoder;
+import utils.StringUtil;
+
+/**
+ * 预先编码好的共享回复，参考Redis的shared对象
+ *
+ * 常用的固定回复（+OK、:0、:1、$-1以及常见的错误信息）在类加载时编码为字节数组，回复时直接复制到客户端的回复缓冲区，
+ * 较小的整数回复、字符串长度头（$<n>\r\n）和多条回复长度头（*<n>\r\n）也预先编码好，
+ * 这样大部分回复都不需要再创建String和字节数组
+ *
+ * 这些数组在所有客户端之间共享，不能修改
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public final class SharedReplies {
+    // 预先编码的长度头数量：$0\r\n ~ $31\r\n，*0\r\n ~ *31\r\n
+    public static final int SHARED_HEADERS_LEN = 32;
+    // 预先编码的整数回复数量：:0\r\n ~ :255\r\n
+    public static final int SHARED_INTEGERS_LEN = 256;
+    // 带前缀的long回复的最大长度：前缀1字节 + 最多20个字符（包括负号） + \r\n
+    public static final int LONG_REPLY_MAX_LEN = 1 + 20 + 2;
+
+    public static final byte[] CRLF = encode("\r\n");
+    public static final byte[] OK = encode("+OK\r\n");
+    public static final byte[] PONG = encode("+PONG\r\n");
+    public static final byte[] QUEUED = encode("+QUEUED\r\n");
+    public static final byte[] CZERO = encode(":0\r\n");
+    public static final byte[] CONE = encode(":1\r\n");
+    public static final byte[] CNEGONE = encode(":-1\r\n");
+    public static final byte[] NULL_BULK = encode("$-1\r\n");
+    public static final byte[] NULL_MULTI_BULK = encode("*-1\r\n");
+    public static final byte[] EMPTY_BULK = encode("$0\r\n\r\n");
+    public static final byte[] EMPTY_MULTI_BULK = encode("*0\r\n");
+
+    // 错误回复的前缀
+    public static final byte[] ERR_PREFIX = encode(ReplyType.ERROR_PREFIX);
+    public static final byte[] ERR = encode("-ERR\r\n");
+    public static final byte[] SYNTAX_ERR = encode("-ERR syntax error\r\n");
+    public static final byte[] NO_KEY_ERR = encode("-ERR no such key\r\n");
+    public static final byte[] OUT_OF_RANGE_ERR = encode("-ERR index out of range\r\n");
+    public static final byte[] NOT_INTEGER_ERR = encode("-ERR value is not an integer or out of range\r\n");
+    public static final byte[] WRONG_TYPE_ERR = encode("-WRONGTYPE Operation against a key holding the wrong kind of value\r\n");
+    public static final byte[] NO_AUTH_ERR = encode("-NOAUTH Authentication required.\r\n");
+    public static final byte[] OOM_ERR = encode("-OOM command not allowed when used memory > 'maxmemory'.\r\n");
+
+    // 预先编码的长度头和整数回复，下标就是长度或整数值
+    public static final byte[][] BULK_HEADERS = new byte[SHARED_HEADERS_LEN][];
+    public static final byte[][] MULTI_BULK_HEADERS = new byte[SHARED_HEADERS_LEN][];
+    public static final byte[][] INTEGERS = new byte[SHARED_INTEGERS_LEN][];
+
+    static {
+        for (int i = 0; i < SHARED_HEADERS_LEN; i++) {
+            BULK_HEADERS[i] = encode(ReplyType.BULK_PREFIX + i + ReplyType.TERMINATOR);
+            MULTI_BULK_HEADERS[i] = encode(ReplyType.MULTI_BULK_PREFIX + i + ReplyType.TERMINATOR);
+        }
+        for (int i = 0; i < SHARED_INTEGERS_LEN; i++) {
+            INTEGERS[i] = encode(ReplyType.INTEGER_PREFIX + i + ReplyType.TERMINATOR);
+        }
+    }
+
+    private SharedReplies() {
+        throw new InstantiationError("Must not instantiate this class");
+    }
+
+    /**
+     * 获取预先编码好的带前缀的long回复
+     * @param prefix 前缀：'$'、'*' 或 ':'
+     * @param value 长度或整数值
+     * @return 共享的回复，没有预先编码时返回null
+     */
+    public static byte[] sharedLongReply(byte prefix, long value) {
+        byte[][] table;
+        switch (prefix) {
+            case '$': table = BULK_HEADERS; break;
+            case '*': table = MULTI_BULK_HEADERS; break;
+            case ':': table = INTEGERS; break;
+            default: return null;
+        }
+
+        return value >= 0 && value < table.length ? table[(int) value] : null;
+    }
+
+    /**
+     * 将带前缀的long回复（比如 :123\r\n、$5\r\n）直接编码到字节数组中，不创建任何对象
+     * @param prefix 前缀
+     * @param value 长度或整数值
+     * @param buf 目标数组，从offset开始至少要有LONG_REPLY_MAX_LEN字节的空间
+     * @param offset 写入的起始位置
+     * @return 写入的字节数
+     */
+    public static int encodeLongReply(byte prefix, long value, byte[] buf, int offset) {
+        buf[offset] = prefix;
+        int len = 1 + StringUtil.ll2string(value, buf, offset + 1);
+        buf[offset + len] = '\r';
+        buf[offset + len + 1] = '\n';
+
+        return len + 2;
+    }
+
+    private static byte[] encode(String reply) {
+        return SafeEncoder.encode(reply);
+    }
+}
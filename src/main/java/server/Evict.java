@@ -0,0 +1,284 @@
+package server;
+
+import common.store.Dict;
+import common.store.Sds;
+import common.store.StoreObject;
+import server.config.ServerConfig;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 内存淘汰，参考Redis的evict.c
+ *
+ * 使用的内存超过maxmemory时，按照淘汰策略删除键，直到内存降到maxmemory以下：
+ *   LRU/LFU/TTL策略不会遍历所有键，而是每次从每个数据库中随机取样maxmemory-samples个键，
+ *   按空闲程度放入一个大小为EVPOOL_SIZE的淘汰池，池中的键按空闲程度从小到大排列，每次淘汰池中最空闲的键，
+ *   淘汰池在多次淘汰之间保留，所以取样的结果会逐渐逼近真正的LRU/LFU，而每次淘汰的开销和数据集大小无关
+ *   RANDOM策略直接从字典中随机取出一个键淘汰
+ *
+ * 淘汰只在持有命令锁时执行
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class Evict {
+    // 淘汰池的大小
+    public static final int EVPOOL_SIZE = 16;
+    // 每次取样的最大数量
+    public static final int MAXMEMORY_SAMPLES_MAX = 64;
+
+    // 内存已经降到maxmemory以下，或者淘汰成功
+    public static final int EVICT_OK = 0;
+    // 没有可以淘汰的键，内存仍然超过maxmemory
+    public static final int EVICT_FAIL = 1;
+
+    private final ServerConfig config;
+    private final PandisDatabase[] databases;
+
+    // 淘汰池，按空闲程度从小到大排列，空位的key为null
+    private final Sds[] poolKeys;
+    private final long[] poolIdle;
+    private final int[] poolDbId;
+
+    // 预先分配的取样数组，每次取样时重复使用
+    @SuppressWarnings("rawtypes")
+    private final Dict.Entry[] samples = new Dict.Entry[MAXMEMORY_SAMPLES_MAX];
+
+    // RANDOM策略下一次开始淘汰的数据库
+    private int nextDb;
+    // 被淘汰的键的数量
+    private long evictedKeys;
+
+    public Evict(ServerConfig config, PandisDatabase[] databases) {
+        this.config = config;
+        this.databases = databases;
+        this.poolKeys = new Sds[EVPOOL_SIZE];
+        this.poolIdle = new long[EVPOOL_SIZE];
+        this.poolDbId = new int[EVPOOL_SIZE];
+        this.nextDb = 0;
+        this.evictedKeys = 0;
+    }
+
+    /**
+     * 对数增长LFU计数器：计数器越大，增长的概率越小
+     * @param counter 计数器
+     * @param lfuLogFactor 对数增长因子
+     * @return 新的计数器
+     */
+    public static int lfuLogIncr(int counter, int lfuLogFactor) {
+        if (counter == 255) {
+            return 255;
+        }
+
+        double r = ThreadLocalRandom.current().nextDouble();
+        double baseval = counter - StoreObject.LFU_INIT_VAL;
+        if (baseval < 0) {
+            baseval = 0;
+        }
+        double p = 1.0 / (baseval * lfuLogFactor + 1);
+        if (r < p) {
+            counter++;
+        }
+        return counter;
+    }
+
+    /**
+     * 按照对象空闲的时间衰减LFU计数器，每过lfuDecayTime分钟减1
+     * 对象被访问时会更新头部中的分钟时间，所以空闲时间就是距离上一次衰减的时间
+     * @param o 对象
+     * @param lfuDecayTime 衰减周期（分钟），0表示不衰减
+     * @return 衰减之后的计数器，对象本身不会被修改
+     */
+    public static int lfuDecrAndReturn(StoreObject o, int lfuDecayTime) {
+        int counter = o.getLfuCounter();
+        if (lfuDecayTime == 0) {
+            return counter;
+        }
+
+        int periods = o.getLfuElapsedMinutes() / lfuDecayTime;
+        return periods > counter ? 0 : counter - periods;
+    }
+
+    /**
+     * 获取所有数据库估算的内存占用之和
+     * @return 字节数
+     */
+    public long getUsedMemory() {
+        long used = 0;
+        for (PandisDatabase db : this.databases) {
+            used += db.getUsedMemory();
+        }
+        return used;
+    }
+
+    /**
+     * 如果使用的内存超过maxmemory，那么按照淘汰策略删除键，直到内存降到maxmemory以下
+     * @return EVICT_OK表示内存已经在maxmemory以下，EVICT_FAIL表示没有可以淘汰的键
+     */
+    public int performEvictions() {
+        ServerConfig config = this.config;
+        long maxmemory = config.getMaxmemory();
+        if (maxmemory <= 0 || getUsedMemory() <= maxmemory) {
+            return EVICT_OK;
+        }
+
+        int policy = config.getMaxmemoryPolicy();
+        if (policy == ServerConfig.MAXMEMORY_NO_EVICTION) {
+            return EVICT_FAIL;
+        }
+
+        PandisDatabase[] databases = this.databases;
+        while (getUsedMemory() > maxmemory) {
+            PandisDatabase bestDb = null;
+            Sds bestKey = null;
+
+            if ((policy & (ServerConfig.MAXMEMORY_FLAG_LRU | ServerConfig.MAXMEMORY_FLAG_LFU)) != 0
+                    || policy == ServerConfig.MAXMEMORY_VOLATILE_TTL) {
+                while (bestKey == null) {
+                    long totalKeys = 0;
+
+                    // 从每个数据库中取样，填充淘汰池
+                    for (PandisDatabase db : databases) {
+                        Dict<Sds, ?> dict = (policy & ServerConfig.MAXMEMORY_FLAG_ALLKEYS) != 0 ? db.getDict() : db.getExpires();
+                        long keys = dict.size();
+                        if (keys != 0) {
+                            populatePool(db, dict, policy, config.getMaxmemorySamples(), config.getLfuDecayTime());
+                            totalKeys += keys;
+                        }
+                    }
+                    if (totalKeys == 0) {
+                        break;
+                    }
+
+                    // 从最空闲的一端开始，找到一个仍然存在的键
+                    for (int k = EVPOOL_SIZE - 1; k >= 0; k--) {
+                        if (this.poolKeys[k] == null) {
+                            continue;
+                        }
+
+                        PandisDatabase db = databases[this.poolDbId[k]];
+                        Sds key = this.poolKeys[k];
+                        this.poolKeys[k] = null;
+
+                        boolean exists = (policy & ServerConfig.MAXMEMORY_FLAG_ALLKEYS) != 0
+                                ? db.getDict().containsKey(key) : db.getExpires().containsKey(key);
+                        if (exists) {
+                            bestDb = db;
+                            bestKey = key;
+                            break;
+                        }
+                    }
+                }
+            } else {
+                // RANDOM策略：依次从各个数据库中随机取出一个键
+                for (int i = 0; i < databases.length; i++) {
+                    PandisDatabase db = databases[this.nextDb];
+                    this.nextDb = (this.nextDb + 1) % databases.length;
+
+                    Dict.Entry<Sds, ?> entry = policy == ServerConfig.MAXMEMORY_ALLKEYS_RANDOM
+                            ? db.getDict().randomEntry() : db.getExpires().randomEntry();
+                    if (entry != null) {
+                        bestDb = db;
+                        bestKey = entry.getKey();
+                        break;
+                    }
+                }
+            }
+
+            if (bestKey == null) {
+                // 没有可以淘汰的键
+                return EVICT_FAIL;
+            }
+
+            bestDb.delete(bestKey);
+            this.evictedKeys++;
+        }
+
+        return EVICT_OK;
+    }
+
+    /**
+     * 从字典中取样，把比淘汰池中的键更空闲的键放入淘汰池
+     * @param db 数据库
+     * @param sampleDict 取样的字典，键空间或者过期字典
+     * @param policy 淘汰策略
+     * @param count 取样数量
+     * @param lfuDecayTime LFU计数器的衰减周期
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void populatePool(PandisDatabase db, Dict sampleDict, int policy, int count, int lfuDecayTime) {
+        Dict.Entry[] des = this.samples;
+        int sampled = sampleDict.sampleEntries(des, Math.min(count, MAXMEMORY_SAMPLES_MAX));
+
+        for (int j = 0; j < sampled; j++) {
+            Sds key = (Sds) des[j].getKey();
+            Object value = des[j].getValue();
+            des[j] = null;
+
+            // 从过期字典中取样时，要到键空间中取出值对象
+            StoreObject o = null;
+            if (policy != ServerConfig.MAXMEMORY_VOLATILE_TTL) {
+                o = sampleDict == db.getExpires() ? db.getDict().get(key) : (StoreObject) value;
+                if (o == null) {
+                    continue;
+                }
+            }
+
+            // 计算空闲程度，值越大越应该被淘汰
+            long idle;
+            if ((policy & ServerConfig.MAXMEMORY_FLAG_LRU) != 0) {
+                idle = o.estimateIdleTime();
+            } else if ((policy & ServerConfig.MAXMEMORY_FLAG_LFU) != 0) {
+                idle = 255 - lfuDecrAndReturn(o, lfuDecayTime);
+            } else {
+                // 过期时间越早越先淘汰
+                idle = Long.MAX_VALUE - (Long) value;
+            }
+
+            insertPool(key, idle, db.getId());
+        }
+    }
+
+    /**
+     * 把键按空闲程度插入淘汰池
+     */
+    private void insertPool(Sds key, long idle, int dbid) {
+        // 找到第一个空位，或者第一个比这个键更空闲的位置
+        int k = 0;
+        while (k < EVPOOL_SIZE && this.poolKeys[k] != null && this.poolIdle[k] < idle) {
+            k++;
+        }
+
+        if (k == 0 && this.poolKeys[EVPOOL_SIZE - 1] != null) {
+            // 淘汰池已满，并且这个键比池中所有的键都活跃，不放入
+            return;
+        } else if (k < EVPOOL_SIZE && this.poolKeys[k] == null) {
+            // 插入到空位中
+        } else {
+            if (this.poolKeys[EVPOOL_SIZE - 1] == null) {
+                // 右边有空位，把k之后的元素右移
+                System.arraycopy(this.poolKeys, k, this.poolKeys, k + 1, EVPOOL_SIZE - k - 1);
+                System.arraycopy(this.poolIdle, k, this.poolIdle, k + 1, EVPOOL_SIZE - k - 1);
+                System.arraycopy(this.poolDbId, k, this.poolDbId, k + 1, EVPOOL_SIZE - k - 1);
+            } else {
+                // 右边没有空位，丢弃最活跃的元素，把k之前的元素左移
+                k--;
+                System.arraycopy(this.poolKeys, 1, this.poolKeys, 0, k);
+                System.arraycopy(this.poolIdle, 1, this.poolIdle, 0, k);
+                System.arraycopy(this.poolDbId, 1, this.poolDbId, 0, k);
+            }
+        }
+
+        this.poolKeys[k] = key;
+        this.poolIdle[k] = idle;
+        this.poolDbId[k] = dbid;
+    }
+
+    public long getEvictedKeys() {
+        return this.evictedKeys;
+    }
+
+    public void resetStats() {
+        this.evictedKeys = 0;
+    }
+}
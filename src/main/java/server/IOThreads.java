@@ -0,0 +1,203 @@
+package server;
+
+import client.PandisClient;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import server.config.ServerConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 多线程IO
+ *
+ * 参考Redis 6的实现：命令的执行始终在主线程中串行进行，IO线程只负责读取套接字、解析请求以及写回复
+ * 主线程在beforeSleep中将等待读/写的客户端平均分配给各个IO线程（主线程自己作为0号线程也处理一份），
+ * 然后等待所有IO线程处理完毕，在此期间主线程不会访问这些客户端，数据结构也就不需要加锁
+ *
+ * 主线程与IO线程之间通过每个线程的pending计数器同步：
+ * 主线程先填好线程的客户端列表，再设置计数器；IO线程处理完列表后把计数器清零
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class IOThreads {
+    private static final Log logger = LogFactory.getLog(IOThreads.class);
+
+    public static final int IO_THREADS_OP_READ = 0;
+    public static final int IO_THREADS_OP_WRITE = 1;
+
+    // IO线程在没有任务时自旋等待的次数，超过之后挂起，等待主线程唤醒
+    private static final int IO_THREADS_SPIN_ITERATIONS = 1 << 16;
+
+    // IO线程数量，包括主线程
+    private final int threadsNum;
+    // 每个线程要处理的客户端列表
+    private final List<List<PandisClient>> threadsList;
+    // 每个线程待处理的客户端数量
+    private final AtomicInteger [] threadsPending;
+    private final Thread [] threads;
+
+    // 本次IO线程要执行的操作：读还是写
+    private volatile int threadsOp;
+    private volatile boolean stop;
+
+    /**
+     * 创建并启动IO线程
+     * @param threadsNum IO线程数量，包括主线程，因此会额外启动threadsNum - 1个线程
+     */
+    public IOThreads(int threadsNum) {
+        if (threadsNum < 1 || threadsNum > ServerConfig.IO_THREADS_MAX_NUM) {
+            throw new IllegalArgumentException("io threads number should be between 1 and " + ServerConfig.IO_THREADS_MAX_NUM);
+        }
+
+        this.threadsNum = threadsNum;
+        this.threadsList = new ArrayList<>(threadsNum);
+        this.threadsPending = new AtomicInteger[threadsNum];
+        this.threads = new Thread[threadsNum];
+        this.stop = false;
+
+        for (int i = 0; i < threadsNum; i++) {
+            this.threadsList.add(new ArrayList<>());
+            this.threadsPending[i] = new AtomicInteger(0);
+        }
+
+        // 0号线程就是主线程，不需要创建
+        for (int i = 1; i < threadsNum; i++) {
+            final int id = i;
+            Thread thread = new Thread(() -> ioThreadMain(id), "pandis-io-" + id);
+            thread.setDaemon(true);
+            this.threads[i] = thread;
+            thread.start();
+        }
+
+        logger.info("Started " + (threadsNum - 1) + " io threads");
+    }
+
+    public int getThreadsNum() {
+        return this.threadsNum;
+    }
+
+    /**
+     * 由主线程调用：将客户端分配给各个IO线程执行指定的操作，并等待所有线程执行完毕
+     * @param clients 等待处理的客户端
+     * @param op IO_THREADS_OP_READ 或 IO_THREADS_OP_WRITE
+     */
+    public void process(List<PandisClient> clients, int op) {
+        // 待处理的客户端很少时，直接在主线程中处理，省去唤醒和等待IO线程的开销
+        if (clients.size() < this.threadsNum * 2) {
+            for (PandisClient client : clients) {
+                handleClient(client, op);
+            }
+            return;
+        }
+
+        // 按轮询的方式将客户端分配给各个线程
+        int index = 0;
+        for (PandisClient client : clients) {
+            this.threadsList.get(index % this.threadsNum).add(client);
+            index++;
+        }
+
+        // 先设置操作类型，再设置计数器，IO线程看到计数器不为0时，客户端列表和操作类型一定都已经可见
+        this.threadsOp = op;
+        for (int i = 1; i < this.threadsNum; i++) {
+            int count = this.threadsList.get(i).size();
+            if (count > 0) {
+                this.threadsPending[i].set(count);
+                LockSupport.unpark(this.threads[i]);
+            }
+        }
+
+        // 主线程处理分配给自己的那部分客户端，无论如何都要等待IO线程处理完毕，之后才能访问它们的客户端
+        List<PandisClient> mainList = this.threadsList.get(0);
+        try {
+            for (PandisClient client : mainList) {
+                handleClient(client, op);
+            }
+        } finally {
+            mainList.clear();
+
+            // 等待所有IO线程处理完毕
+            while (true) {
+                int pending = 0;
+                for (int i = 1; i < this.threadsNum; i++) {
+                    pending += this.threadsPending[i].get();
+                }
+                if (pending == 0) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 停止所有IO线程
+     */
+    public void shutdown() {
+        this.stop = true;
+        for (int i = 1; i < this.threadsNum; i++) {
+            LockSupport.unpark(this.threads[i]);
+        }
+    }
+
+    private void ioThreadMain(int id) {
+        AtomicInteger pending = this.threadsPending[id];
+        List<PandisClient> list = this.threadsList.get(id);
+
+        while (!this.stop) {
+            // 等待主线程分配任务：先自旋一段时间，仍然没有任务就挂起
+            int spins = 0;
+            while (pending.get() == 0) {
+                if (this.stop) {
+                    return;
+                }
+                if (++spins >= IO_THREADS_SPIN_ITERATIONS) {
+                    LockSupport.park(this);
+                    spins = 0;
+                }
+            }
+
+            // 计数器必须清零，否则主线程会一直等待这个线程
+            int op = this.threadsOp;
+            try {
+                for (PandisClient client : list) {
+                    handleClient(client, op);
+                }
+            } finally {
+                list.clear();
+                pending.set(0);
+            }
+        }
+    }
+
+    /**
+     * IO线程中对单个客户端执行的操作
+     * 读操作：读取套接字数据并解析出一条命令，命令留给主线程执行
+     * 写操作：将回复缓冲区的数据写入套接字
+     * 处理一个客户端时发生的异常不会影响其他客户端，出错的客户端标记为尽快关闭，由主线程关闭
+     */
+    private static void handleClient(PandisClient client, int op) {
+        try {
+            if (op == IO_THREADS_OP_WRITE) {
+                // 需要尽快关闭的客户端由主线程关闭，不再发送回复
+                if (!client.hasFlags(PandisClient.CLIENT_CLOSE_ASAP)) {
+                    client.writeSocketData();
+                }
+            } else {
+                int readNum = client.readSocketData();
+                if (readNum == -1) {
+                    // 客户端断开连接，由主线程负责关闭
+                    client.addFlags(PandisClient.CLIENT_CLOSE_ASAP);
+                } else if (readNum > 0) {
+                    client.processInputBuffer(true);
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Handle client in io thread error, the client will be closed", e);
+            client.addFlags(PandisClient.CLIENT_CLOSE_ASAP);
+        }
+    }
+}
@@ -1,9 +1,9 @@
 package server;
 
+import common.store.Dict;
+import common.store.Sds;
 import common.store.StoreObject;
-
-import java.util.HashMap;
-import java.util.Map;
+import server.config.ServerConfig;
 
 /**
  * 数据库结构
@@ -11,36 +11,91 @@ import java.util.Map;
  * @create: 2021-07-20
  */
 public class PandisDatabase {
-    private Map<StoreObject, StoreObject> database;
-    private Map<StoreObject, StoreObject> expires;
-    private Map<StoreObject, StoreObject> blockingKeys;
-    private Map<StoreObject, StoreObject> readyKeys;
-    private Map<StoreObject, StoreObject> watchedKeys;
+    // 字典节点（对象头、key、value、next引用和缓存的哈希值）加上哈希表中一个桶的估算大小
+    public static final int DICT_ENTRY_SIZE = 40;
+    // 过期时间Long对象的估算大小
+    public static final int EXPIRE_VALUE_SIZE = 16;
+    // 主动过期每一轮从过期字典中随机检查的键数量
+    public static final int ACTIVE_EXPIRE_CYCLE_LOOKUPS_PER_LOOP = 20;
+
+    // lookupKey的选项
+    public static final int LOOKUP_NONE = 0;
+    // 不更新键的访问时间和LFU计数器，用于TTL等只读取键元数据的命令，避免影响淘汰
+    public static final int LOOKUP_NOTOUCH = 1 << 0;
+
+    // 键空间，保存数据库中所有的键值对
+    // 键是Sds，只按内容比较，哈希值在字典节点中缓存；值是StoreObject
+    private Dict<Sds, StoreObject> database;
+    // 过期字典，保存键的过期时间（毫秒时间戳），键与键空间中的键是同一个对象
+    private Dict<Sds, Long> expires;
+    private Dict<Sds, StoreObject> blockingKeys;
+    private Dict<Sds, StoreObject> readyKeys;
+    private Dict<Sds, StoreObject> watchedKeys;
 
     private int id;
     private long avgTtl;
+    // 估算的数据集内存占用（字节），键值对增删时更新，用于maxmemory判断
+    private long usedMemory;
+    // 过期被删除的键的数量
+    private long expiredKeys;
+    private ServerConfig config;
 
     public PandisDatabase(int id) {
-        this.database = new HashMap<>();
-        this.expires = new HashMap<>();
-        this.blockingKeys = new HashMap<>();
-        this.readyKeys = new HashMap<>();
-        this.watchedKeys = new HashMap<>();
+        this(id, ServerConfig.build());
+    }
+
+    public PandisDatabase(int id, ServerConfig config) {
+        this.database = Dict.createDict();
+        this.expires = Dict.createDict();
+        this.blockingKeys = Dict.createDict();
+        this.readyKeys = Dict.createDict();
+        this.watchedKeys = Dict.createDict();
         this.id = id;
         this.avgTtl = 0;
+        this.usedMemory = 0;
+        this.expiredKeys = 0;
+        this.config = config;
     }
 
     /**
      * 从数据库 db 中取出键 key 的值
      * 如果 key 的值存在，那么返回该值；否则，返回 NULL 。
+     * 已经过期的键会在这里被删除（惰性删除），当作不存在处理
+     * 键的哈希值只计算一次，过期字典和键空间的查找共用
      * @param key
      * @return
      */
-    public StoreObject lookupKey(StoreObject key) {
-        StoreObject res = this.database.get(key);
+    public StoreObject lookupKey(Sds key) {
+        return lookupKey(key, LOOKUP_NONE);
+    }
+
+    /**
+     * 带选项地取出键的值，过期的键总是会被惰性删除
+     * @param key 键
+     * @param flags LOOKUP_NONE或者LOOKUP_NOTOUCH
+     * @return 键的值，键不存在或者已经过期时返回null
+     */
+    public StoreObject lookupKey(Sds key, int flags) {
+        int hash = Dict.hash(key);
+        if (expireIfNeeded(key, hash)) {
+            return null;
+        }
+
+        Dict.Entry<Sds, StoreObject> entry = this.database.find(key, hash);
+        StoreObject res = entry == null ? null : entry.getValue();
 
         if (res != null) {
-            // 更新对象的访问lru时间等
+            if ((flags & LOOKUP_NOTOUCH) != 0) {
+                return res;
+            }
+
+            // LFU策略下更新访问频率和时间，否则更新LRU时钟
+            if ((this.config.getMaxmemoryPolicy() & ServerConfig.MAXMEMORY_FLAG_LFU) != 0) {
+                int counter = Evict.lfuDecrAndReturn(res, this.config.getLfuDecayTime());
+                res.updateLfu(Evict.lfuLogIncr(counter, this.config.getLfuLogFactor()));
+            } else {
+                res.updateLastVisitTime();
+            }
             return res;
         } else {
             return null;
@@ -49,11 +104,21 @@ public class PandisDatabase {
 
     /**
      * 尝试将键值对 key 和 val 添加到数据库中。
+     * 字典节点缓存了键的哈希值，键加入数据库之后不能再被修改
      * @param key
      * @param value
      */
-    public void add(StoreObject key, StoreObject value) {
-        StoreObject oldValue = this.database.put(key, value);
+    public void add(Sds key, StoreObject value) {
+        add(key, value, Dict.hash(key));
+    }
+
+    private void add(Sds key, StoreObject value, int hash) {
+        StoreObject oldValue = this.database.put(key, value, hash);
+        if (oldValue == null) {
+            this.usedMemory += DICT_ENTRY_SIZE + key.memoryUsage() + value.memoryUsage();
+        } else {
+            this.usedMemory += value.memoryUsage() - oldValue.memoryUsage();
+        }
     }
 
     /**
@@ -64,10 +129,12 @@ public class PandisDatabase {
      * @param key
      * @param value
      */
-    public void setKey(StoreObject key, StoreObject value) {
-        add(key, value);
+    public void setKey(Sds key, StoreObject value) {
+        int hash = Dict.hash(key);
+        add(key, value, hash);
 
         // 移除键的过期时间
+        removeExpire(key, hash);
 
         // 发送键修改通知
     }
@@ -77,7 +144,7 @@ public class PandisDatabase {
      * @param key
      * @return
      */
-    public boolean exists(StoreObject key) {
+    public boolean exists(Sds key) {
         return this.database.containsKey(key);
     }
 
@@ -87,14 +154,98 @@ public class PandisDatabase {
      * @param key
      * @return
      */
-    public int delete(StoreObject key) {
-        StoreObject oldVal = this.database.remove(key);
+    public int delete(Sds key) {
+        return delete(key, Dict.hash(key));
+    }
 
-        if (oldVal == null) {
+    private int delete(Sds key, int hash) {
+        Dict.Entry<Sds, StoreObject> entry = this.database.find(key, hash);
+        if (entry == null) {
             return 0;
-        } else {
-            return 1;
         }
+
+        // 先删除过期时间，字典节点中的键在删除之后还要用来计算内存
+        removeExpire(key, hash);
+        this.usedMemory -= DICT_ENTRY_SIZE + entry.getKey().memoryUsage() + entry.getValue().memoryUsage();
+        // 直接用找到的节点中的键删除，比较时引用相等，不需要再比较内容
+        this.database.remove(entry.getKey(), hash);
+        return 1;
+    }
+
+    /**
+     * 检查键是否已经过期，如果过期，那么将它从数据库中删除
+     * @param key 键
+     * @return 键已经过期并被删除时返回true
+     */
+    public boolean expireIfNeeded(Sds key) {
+        return expireIfNeeded(key, Dict.hash(key));
+    }
+
+    private boolean expireIfNeeded(Sds key, int hash) {
+        // 大部分数据库没有设置过期时间的键，不需要查找
+        if (this.expires.size() == 0) {
+            return false;
+        }
+
+        Dict.Entry<Sds, Long> entry = this.expires.find(key, hash);
+        if (entry == null || System.currentTimeMillis() <= entry.getValue()) {
+            return false;
+        }
+
+        deleteExpiredKey(key, hash);
+        return true;
+    }
+
+    private void deleteExpiredKey(Sds key, int hash) {
+        delete(key, hash);
+        this.expiredKeys++;
+    }
+
+    /**
+     * 为已经存在的键设置过期时间，过期字典直接使用键空间中的键对象
+     * @param key 键
+     * @param when 过期时间（毫秒时间戳）
+     * @return 键不存在时返回false
+     */
+    public boolean setExpire(Sds key, long when) {
+        Dict.Entry<Sds, StoreObject> entry = this.database.find(key);
+        if (entry == null) {
+            return false;
+        }
+
+        if (this.expires.put(entry.getKey(), when, entry.getHash()) == null) {
+            this.usedMemory += DICT_ENTRY_SIZE + EXPIRE_VALUE_SIZE;
+        }
+        return true;
+    }
+
+    /**
+     * 获取键的过期时间
+     * @param key 键
+     * @return 过期时间（毫秒时间戳），键没有设置过期时间时返回-1
+     */
+    public long getExpire(Sds key) {
+        Long when = this.expires.get(key);
+        return when == null ? -1 : when;
+    }
+
+    /**
+     * 移除键的过期时间
+     * @param key 键
+     * @return 键原来有过期时间时返回true
+     */
+    public boolean removeExpire(Sds key) {
+        return removeExpire(key, Dict.hash(key));
+    }
+
+    private boolean removeExpire(Sds key, int hash) {
+        // 没有设置过期时间的键时不需要查找
+        if (this.expires.size() == 0 || this.expires.remove(key, hash) == null) {
+            return false;
+        }
+
+        this.usedMemory -= DICT_ENTRY_SIZE + EXPIRE_VALUE_SIZE;
+        return true;
     }
 
     /**
@@ -103,5 +254,165 @@ public class PandisDatabase {
      */
     public void clear() {
         this.database.clear();
+        this.expires.clear();
+        this.usedMemory = 0;
+        this.avgTtl = 0;
+    }
+
+    /**
+     * 获取数据库中键的数量
+     * @return
+     */
+    public long size() {
+        return this.database.size();
+    }
+
+    /**
+     * 值对象被原地修改之后（比如向列表中加入元素），调整估算的内存占用
+     * @param delta 值对象内存占用的变化量
+     */
+    public void updateUsedMemory(long delta) {
+        this.usedMemory += delta;
+    }
+
+    /**
+     * 获取估算的数据集内存占用
+     * @return 字节数
+     */
+    public long getUsedMemory() {
+        return this.usedMemory;
+    }
+
+    public int getId() {
+        return this.id;
+    }
+
+    /**
+     * 获取键空间字典，用于迭代和随机取样
+     * @return
+     */
+    public Dict<Sds, StoreObject> getDict() {
+        return this.database;
+    }
+
+    /**
+     * 获取过期字典
+     * @return
+     */
+    public Dict<Sds, Long> getExpires() {
+        return this.expires;
+    }
+
+    /**
+     * 主动过期：随机检查带有过期时间的键，删除其中已经过期的键，参考Redis的activeExpireCycle
+     *
+     * 惰性删除只能删除被访问到的键，大量不再被访问的过期键要靠这里删除。
+     * 每一轮从过期字典中随机取出ACTIVE_EXPIRE_CYCLE_LOOKUPS_PER_LOOP个键，
+     * 如果其中超过25%已经过期，说明过期键还很多，继续下一轮，否则结束。
+     * 每16轮检查一次执行时间，超过时间上限时结束，避免一次删除太多键导致命令延迟
+     *
+     * @param timeLimit 本次执行的时间上限（纳秒）
+     * @return 删除的过期键数量
+     */
+    public int activeExpireCycle(long timeLimit) {
+        long start = System.nanoTime();
+        int totalExpired = 0;
+        int iteration = 0;
+        int expired;
+
+        do {
+            long num = this.expires.size();
+            if (num == 0) {
+                this.avgTtl = 0;
+                break;
+            }
+
+            // 字典的使用率低于1%时随机取样很慢，等待tryResizeHashTables缩小字典之后再检查
+            long slots = this.expires.slots();
+            if (slots > Dict.DICT_HT_INITIAL_SIZE && num * 100 / slots < 1) {
+                break;
+            }
+
+            if (num > ACTIVE_EXPIRE_CYCLE_LOOKUPS_PER_LOOP) {
+                num = ACTIVE_EXPIRE_CYCLE_LOOKUPS_PER_LOOP;
+            }
+
+            long now = System.currentTimeMillis();
+            long ttlSum = 0;
+            int ttlSamples = 0;
+            expired = 0;
+            while (num-- > 0) {
+                Dict.Entry<Sds, Long> entry = this.expires.randomEntry();
+                long ttl = entry.getValue() - now;
+                if (ttl < 0) {
+                    deleteExpiredKey(entry.getKey(), entry.getHash());
+                    expired++;
+                } else {
+                    ttlSum += ttl;
+                    ttlSamples++;
+                }
+            }
+            totalExpired += expired;
+
+            // 更新平均TTL，每一轮的取样结果占2%的权重
+            if (ttlSamples > 0) {
+                long avgTtl = ttlSum / ttlSamples;
+                this.avgTtl = this.avgTtl == 0 ? avgTtl : (this.avgTtl / 50) * 49 + avgTtl / 50;
+            }
+
+            if ((++iteration & 0xf) == 0 && System.nanoTime() - start > timeLimit) {
+                break;
+            }
+        } while (expired > ACTIVE_EXPIRE_CYCLE_LOOKUPS_PER_LOOP / 4);
+
+        return totalExpired;
+    }
+
+    /**
+     * 获取估算的带过期时间的键的平均剩余时间
+     * @return 毫秒
+     */
+    public long getAvgTtl() {
+        return this.avgTtl;
+    }
+
+    public long getExpiredKeys() {
+        return this.expiredKeys;
+    }
+
+    public void resetStats() {
+        this.expiredKeys = 0;
+    }
+
+    /**
+     * 键删除之后字典的使用率过低时，缩小字典以节约内存
+     * 缩容同样以渐进式rehash的方式完成
+     */
+    public void tryResizeHashTables() {
+        if (this.database.needsResize()) {
+            this.database.resize();
+        }
+        if (this.expires.needsResize()) {
+            this.expires.resize();
+        }
+    }
+
+    /**
+     * 渐进式rehash：在时间上限内对数据库的字典进行rehash
+     * 键空间和过期字典都在rehash时，这次只处理键空间
+     * @param timeLimit 本次执行的时间上限（纳秒）
+     * @return 是否执行了rehash
+     */
+    public boolean incrementallyRehash(long timeLimit) {
+        if (this.database.isRehashing()) {
+            this.database.rehashNanoseconds(timeLimit);
+            return true;
+        }
+        if (this.expires.isRehashing()) {
+            this.expires.rehashNanoseconds(timeLimit);
+            return true;
+        }
+
+        return false;
     }
 }
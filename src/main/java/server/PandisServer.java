@@ -1,6 +1,8 @@
 package server;
 
 import client.PandisClient;
+import command.SlowLog;
+import common.store.StoreObject;
 import event.handler.AcceptTcpHandler;
 import event.EventLoop;
 import org.apache.commons.logging.LogFactory;
@@ -10,8 +12,10 @@ import org.apache.commons.logging.Log;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.channels.*;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * @description:
@@ -19,10 +23,25 @@ import java.util.List;
  * @create: 2021-07-04
  */
 public class PandisServer {
+    // databasesCron每次最多处理的数据库数量
+    private static final int CRON_DBS_PER_CALL = 16;
+    // 主动过期占用serverCron周期的CPU时间百分比
+    private static final int ACTIVE_EXPIRE_CYCLE_CPU_PERCENT = 25;
+    // 渐进式rehash单次执行的时间上限（纳秒）
+    private static final long INCREMENTALLY_REHASH_TIME_LIMIT = 1_000_000L;
+
+    // 统计指标的采样数量，瞬时指标取这些采样的平均值
+    public static final int STATS_METRIC_SAMPLES = 16;
+    public static final int STATS_METRIC_COMMAND = 0;       // 每秒执行的命令数
+    public static final int STATS_METRIC_NET_INPUT = 1;     // 每秒读入的字节数
+    public static final int STATS_METRIC_NET_OUTPUT = 2;    // 每秒写出的字节数
+    public static final int STATS_METRIC_COUNT = 3;
 
     private ServerConfig serverConfig;  // 服务端配置
-    private EventLoop eventLoop;        // 事件循环
-    private List<PandisClient> clients; // 保存了所有连接到服务器的客户端结构
+    private EventLoop eventLoop;        // 主事件循环
+    private Reactor [] reactors;        // 处理客户端连接的反应堆，单反应堆模式下只有一个使用主事件循环的反应堆
+    private int nextReactor;            // 轮询策略下，下一个新连接分配给的反应堆
+    private ReentrantLock commandLock;  // 多反应堆模式下，保证命令在数据库上串行执行，单反应堆模式下为null
     private static volatile PandisServer serverInstance; // 服务器实例
 
     private volatile PandisClient currentClient;    // 当前客户端，仅用于奔溃报告
@@ -30,6 +49,18 @@ public class PandisServer {
     private Log logger = LogFactory.getLog(PandisServer.class);
 
     private PandisDatabase [] databases;
+    private Evict evict;                // 内存淘汰
+
+    private long cronLoops;             // serverCron的执行次数
+    private int cronDbIndex;            // databasesCron下一次开始处理的数据库
+
+    private long statNumCommands;       // 已执行的命令数量
+    private AtomicLong statNetInputBytes;     // 从网络读入的字节总数，IO线程也会更新
+    private AtomicLong statNetOutputBytes;    // 向网络写出的字节总数，IO线程也会更新
+    private InstantaneousMetric [] instMetrics; // 瞬时统计指标
+
+    private IOThreads ioThreads;                        // IO线程，未开启多线程IO时为null
+    private List<PandisClient> clientsPendingRead;      // 等待IO线程读取和解析的客户端
 
     public PandisServer() {
         super();
@@ -56,8 +87,9 @@ public class PandisServer {
             server.loadServerConfigFromString(options);
         }
 
-        // 初始化服务器
+        // 初始化服务器，然后开始监听端口
         server.initServer();
+        server.listenToPort();
 
         // 运行事件循环，不断处理事件，直到服务器关闭为止
         server.eventLoop.eventLoopMain();
@@ -71,16 +103,50 @@ public class PandisServer {
         // 创建事件循环对象
         this.eventLoop = EventLoop.createEventLoop();
 
-        // 创建保存客户端结构的链表
-        this.clients = new LinkedList<>();
+        // 对象头部的访问信息按淘汰策略选择LRU或者LFU模式，必须在创建任何对象之前设置
+        StoreObject.setLfuEnabled((this.serverConfig.getMaxmemoryPolicy() & ServerConfig.MAXMEMORY_FLAG_LFU) != 0);
 
         // 创建数据库
         this.databases = new PandisDatabase[this.serverConfig.getDbNumber()];
         for (int i = 0; i < this.serverConfig.getDbNumber(); i++) {
-            this.databases[i] = new PandisDatabase(i);
+            this.databases[i] = new PandisDatabase(i, this.serverConfig);
+        }
+        this.evict = new Evict(this.serverConfig, this.databases);
+
+        // 初始化统计信息
+        this.cronLoops = 0;
+        this.cronDbIndex = 0;
+        this.statNetInputBytes = new AtomicLong(0);
+        this.statNetOutputBytes = new AtomicLong(0);
+        this.instMetrics = new InstantaneousMetric[STATS_METRIC_COUNT];
+        resetServerStats();
+
+        // 根据配置初始化慢查询日志
+        SlowLog.getSlowLog().init(this.serverConfig.getSlowlogLogSlowerThan(), this.serverConfig.getSlowlogMaxLen());
+
+        // 注册serverCron时间事件，按配置的hz周期执行后台任务
+        this.eventLoop.createTimeEvent(1, this::serverCron, null, null);
+
+        // 创建反应堆
+        initReactors();
+
+        // 初始化多线程IO，多反应堆模式下每个反应堆已经有自己的线程，不再使用IO线程
+        this.clientsPendingRead = new ArrayList<>();
+        if (this.serverConfig.getIoThreadsNum() > 1) {
+            if (isMultiReactor()) {
+                logger.warn("io-threads is ignored when reactor-threads is enabled");
+            } else {
+                this.ioThreads = new IOThreads(this.serverConfig.getIoThreadsNum());
+            }
         }
 
-        // 打开TCP监听端口
+        this.eventLoop.setBeforeSleepProc(this::beforeSleep);
+    }
+
+    /**
+     * 打开TCP监听端口，并在主事件循环中注册连接应答处理器
+     */
+    private void listenToPort() {
         ServerSocketChannel serverSocketChannel = null;
         try {
             serverSocketChannel = ServerSocketChannel.open();
@@ -90,14 +156,266 @@ public class PandisServer {
             e.printStackTrace();
         }
 
-        // 创建并初始化数据库;
-
         // 向事件循环中的监听模块注册事件
         // 为 TCP 连接关联连接应答（accept）处理器
         // 用于接受并应答客户端的 connect() 调用（accept）处理器
         this.eventLoop.registerFileEvent(serverSocketChannel, SelectionKey.OP_ACCEPT, AcceptTcpHandler.getHandler(), null);
     }
 
+    /**
+     * 按给定的配置创建服务器实例并初始化，但是不监听端口，也不运行事件循环
+     * 用于在测试中直接驱动反应堆和IO线程，用完之后需要调用shutdown()
+     * @param config 服务器配置
+     * @return 服务器实例
+     */
+    static PandisServer createServer(ServerConfig config) {
+        PandisServer server = new PandisServer();
+        server.serverConfig = config;
+        PandisServer.serverInstance = server;
+        server.initServer();
+        return server;
+    }
+
+    /**
+     * 停止IO线程和工作反应堆，并清除服务器实例，与createServer()配合使用
+     */
+    void shutdown() {
+        if (this.ioThreads != null) {
+            this.ioThreads.shutdown();
+        }
+        if (isMultiReactor()) {
+            for (Reactor reactor : this.reactors) {
+                reactor.stop();
+            }
+        }
+        if (PandisServer.serverInstance == this) {
+            PandisServer.serverInstance = null;
+        }
+    }
+
+    /**
+     * 创建反应堆
+     * 未开启多反应堆时，唯一的反应堆直接使用主事件循环；
+     * 开启之后，每个工作反应堆都有自己的事件循环和线程，主事件循环只负责接受连接和serverCron
+     */
+    private void initReactors() {
+        int reactorThreadsNum = this.serverConfig.getReactorThreadsNum();
+        this.nextReactor = 0;
+
+        if (reactorThreadsNum == 0) {
+            this.reactors = new Reactor[] { new Reactor(0, this, this.eventLoop) };
+            return;
+        }
+
+        this.commandLock = new ReentrantLock();
+        this.reactors = new Reactor[reactorThreadsNum];
+        for (int i = 0; i < reactorThreadsNum; i++) {
+            this.reactors[i] = new Reactor(i, this, EventLoop.createEventLoop());
+        }
+        for (Reactor reactor : this.reactors) {
+            reactor.start();
+        }
+    }
+
+    /**
+     * 是否开启了多反应堆模式
+     */
+    public boolean isMultiReactor() {
+        return this.commandLock != null;
+    }
+
+    /**
+     * 为新连接选择一个反应堆，只在主事件循环中调用
+     * 选中的反应堆的连接数会立即加一，这样连续到达的连接在注册完成之前也能被均衡地分配
+     * @return 选中的反应堆
+     */
+    public Reactor chooseReactor() {
+        Reactor chosen;
+        if (this.reactors.length == 1) {
+            chosen = this.reactors[0];
+        } else if (this.serverConfig.getReactorBalance() == ServerConfig.REACTOR_BALANCE_LEAST_CONNECTIONS) {
+            chosen = this.reactors[0];
+            for (int i = 1; i < this.reactors.length; i++) {
+                if (this.reactors[i].getConnections() < chosen.getConnections()) {
+                    chosen = this.reactors[i];
+                }
+            }
+        } else {
+            chosen = this.reactors[this.nextReactor];
+            this.nextReactor = (this.nextReactor + 1) % this.reactors.length;
+        }
+
+        chosen.incrConnections();
+        return chosen;
+    }
+
+    public Reactor[] getReactors() {
+        return this.reactors;
+    }
+
+    /**
+     * 执行命令之前获取命令锁，多反应堆模式下多个反应堆线程会并发地执行命令，需要串行访问数据库
+     * 单反应堆模式下什么也不做
+     */
+    public void acquireCommandLock() {
+        if (this.commandLock != null) {
+            this.commandLock.lock();
+        }
+    }
+
+    /**
+     * 命令执行完毕之后释放命令锁
+     */
+    public void releaseCommandLock() {
+        if (this.commandLock != null) {
+            this.commandLock.unlock();
+        }
+    }
+
+    /**
+     * 事件循环每次进入select等待之前调用
+     * @param eventLoop 事件循环
+     */
+    void beforeSleep(EventLoop eventLoop) {
+        // 由IO线程并行读取和解析请求，然后在主线程中串行执行命令
+        handleClientsWithPendingReadsUsingThreads();
+
+        // 单反应堆模式下，主事件循环同时也是唯一的反应堆，在进入select之前继续执行上一轮没有执行完的流水线命令，
+        // 然后直接写出本轮产生的回复
+        // 多反应堆模式下，每个工作反应堆在自己的beforeSleep中处理
+        if (!isMultiReactor()) {
+            this.reactors[0].handleClientsWithPendingInput();
+            this.reactors[0].handleClientsWithPendingWrites(this.ioThreads);
+        }
+    }
+
+    /**
+     * 开启了多线程读时，推迟客户端的读取操作，等到beforeSleep中由IO线程统一处理
+     * @param client 客户端
+     * @return 读操作被推迟返回true，否则返回false，此时由调用者直接读取
+     */
+    public boolean postponeClientRead(PandisClient client) {
+        if (this.ioThreads != null
+                && this.serverConfig.getIoThreadsDoReads()
+                && !client.hasFlags(PandisClient.CLIENT_PENDING_READ)) {
+            client.addFlags(PandisClient.CLIENT_PENDING_READ);
+            this.clientsPendingRead.add(client);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * 由IO线程并行读取并解析等待读取的客户端，IO线程处理完之后，主线程依次执行解析出的命令
+     * @return 处理的客户端数量
+     */
+    int handleClientsWithPendingReadsUsingThreads() {
+        int processed = this.clientsPendingRead.size();
+        if (processed == 0) {
+            return 0;
+        }
+
+        this.ioThreads.process(this.clientsPendingRead, IOThreads.IO_THREADS_OP_READ);
+
+        // IO线程都已经处理完毕，在主线程中执行命令
+        for (PandisClient client : this.clientsPendingRead) {
+            client.removeFlags(PandisClient.CLIENT_PENDING_READ);
+
+            if (client.hasFlags(PandisClient.CLIENT_CLOSE_ASAP)) {
+                freeClient(client);
+                continue;
+            }
+
+            setCurrentClient(client);
+            if (client.hasFlags(PandisClient.CLIENT_PENDING_COMMAND)) {
+                client.removeFlags(PandisClient.CLIENT_PENDING_COMMAND);
+                client.processCommandAndResetClient();
+            }
+
+            // 查询缓冲区中可能还有流水线发送的命令，在主线程中继续处理
+            client.processInputBuffer();
+
+            // IO线程中产生的回复没有加入等待写的队列，在这里补上
+            if (!client.isReplyEmpty()) {
+                client.installWriteHandler();
+            }
+            clearCurrentClient();
+        }
+        this.clientsPendingRead.clear();
+
+        return processed;
+    }
+
+    /**
+     * 服务器的周期性任务，每秒执行hz次
+     * 每项任务都只处理一小部分数据，并且有执行时间上限，数据集再大也不会长时间阻塞事件循环
+     * @param clientData 未使用
+     * @return 下次执行距今的毫秒数
+     */
+    private int serverCron(Object clientData) {
+        long now = System.currentTimeMillis();
+
+        // 更新服务器缓存的LRU时钟，创建和访问对象时直接使用，不需要每次都获取系统时间
+        StoreObject.updateLruClock(now);
+
+        // 客户端相关的周期任务由各个反应堆在自己的事件循环中执行，参见Reactor
+
+        acquireCommandLock();
+        try {
+            // 每100ms对统计指标进行一次采样
+            if (runWithPeriod(100)) {
+                this.instMetrics[STATS_METRIC_COMMAND].track(this.statNumCommands, now);
+                this.instMetrics[STATS_METRIC_NET_INPUT].track(this.statNetInputBytes.get(), now);
+                this.instMetrics[STATS_METRIC_NET_OUTPUT].track(this.statNetOutputBytes.get(), now);
+            }
+
+            // 对数据库执行主动过期和渐进式rehash
+            databasesCron();
+        } finally {
+            releaseCommandLock();
+        }
+
+        this.cronLoops++;
+
+        return 1000 / this.serverConfig.getHz();
+    }
+
+    /**
+     * 判断本次serverCron是否需要执行周期为milliseconds的任务
+     * @param milliseconds 任务的执行周期（毫秒）
+     * @return 是否需要执行
+     */
+    private boolean runWithPeriod(int milliseconds) {
+        int period = 1000 / this.serverConfig.getHz();
+        return milliseconds <= period || this.cronLoops % (milliseconds / period) == 0;
+    }
+
+    /**
+     * 数据库相关的周期任务：主动过期和渐进式rehash
+     * 每次最多处理CRON_DBS_PER_CALL个数据库，并且每项任务都有时间上限
+     */
+    private void databasesCron() {
+        int dbsPerCall = Math.min(CRON_DBS_PER_CALL, this.databases.length);
+
+        // 主动过期最多占用serverCron周期ACTIVE_EXPIRE_CYCLE_CPU_PERCENT%的时间，平均分给本次处理的数据库
+        long expireTimeLimit = 1_000_000_000L * ACTIVE_EXPIRE_CYCLE_CPU_PERCENT / this.serverConfig.getHz() / 100 / dbsPerCall;
+        boolean rehashed = false;
+
+        for (int j = 0; j < dbsPerCall; j++) {
+            PandisDatabase db = this.databases[this.cronDbIndex];
+            this.cronDbIndex = (this.cronDbIndex + 1) % this.databases.length;
+
+            db.activeExpireCycle(expireTimeLimit);
+            db.tryResizeHashTables();
+
+            // 每次serverCron只对一个数据库进行rehash
+            if (!rehashed) {
+                rehashed = db.incrementallyRehash(INCREMENTALLY_REHASH_TIME_LIMIT);
+            }
+        }
+    }
+
     private void initServerConfig() {
         this.serverConfig = ServerConfig.build();
     }
@@ -168,10 +486,6 @@ public class PandisServer {
         return this.eventLoop;
     }
 
-    public void addClient(PandisClient client) {
-        this.clients.add(client);
-    }
-
     public static PandisServer getInstance() {
         return serverInstance;
     }
@@ -184,20 +498,43 @@ public class PandisServer {
         this.currentClient = null;
     }
 
+    /**
+     * 关闭客户端，用于在事件处理器之外（比如serverCron中）关闭客户端
+     * @param client
+     */
+    public void freeClient(PandisClient client) {
+        SelectionKey key = null;
+        if (client.getSocketChannel() != null) {
+            key = client.getSocketChannel().keyFor(client.getEventLoop().getSelector());
+        }
+
+        if (key != null) {
+            distroyClient(key, client);
+        } else {
+            if (client.getReactor() != null) {
+                client.getReactor().removeClient(client);
+            }
+            client.distroy();
+        }
+    }
+
     /**
      * 销毁连接的客户端
      * @param client
      */
     public void distroyClient(SelectionKey key, PandisClient client) {
-        if (this.currentClient.equals(client)) {
+        if (client.equals(this.currentClient)) {
             this.clearCurrentClient();
         }
 
-        this.clients.remove(client);
+        if (client.getReactor() != null) {
+            client.getReactor().removeClient(client);
+        }
 
         if (client.getSocketChannel() != null) {
-            this.eventLoop.unregisterFileEvent(key, SelectionKey.OP_READ);
-            this.eventLoop.unregisterFileEvent(key, SelectionKey.OP_WRITE);
+            EventLoop clientEventLoop = client.getEventLoop();
+            clientEventLoop.unregisterFileEvent(key, SelectionKey.OP_READ);
+            clientEventLoop.unregisterFileEvent(key, SelectionKey.OP_WRITE);
             client.distroy();
         }
 
@@ -212,6 +549,70 @@ public class PandisServer {
         return this.databases;
     }
 
+    public Evict getEvict() {
+        return this.evict;
+    }
+
+    public void incrStatNumCommands() {
+        this.statNumCommands++;
+    }
+
+    public void addStatNetInputBytes(long bytes) {
+        this.statNetInputBytes.addAndGet(bytes);
+    }
+
+    public void addStatNetOutputBytes(long bytes) {
+        this.statNetOutputBytes.addAndGet(bytes);
+    }
+
+    public long getStatNumCommands() {
+        return this.statNumCommands;
+    }
+
+    /**
+     * 获取所有数据库中过期被删除的键的数量
+     */
+    public long getStatExpiredKeys() {
+        long expired = 0;
+        for (PandisDatabase db : this.databases) {
+            expired += db.getExpiredKeys();
+        }
+        return expired;
+    }
+
+    public long getStatNetInputBytes() {
+        return this.statNetInputBytes.get();
+    }
+
+    public long getStatNetOutputBytes() {
+        return this.statNetOutputBytes.get();
+    }
+
+    /**
+     * 清空服务器的统计信息，CONFIG RESETSTAT时调用
+     */
+    public void resetServerStats() {
+        this.statNumCommands = 0;
+        this.evict.resetStats();
+        for (PandisDatabase db : this.databases) {
+            db.resetStats();
+        }
+        this.statNetInputBytes.set(0);
+        this.statNetOutputBytes.set(0);
+        for (int i = 0; i < STATS_METRIC_COUNT; i++) {
+            this.instMetrics[i] = new InstantaneousMetric();
+        }
+    }
+
+    /**
+     * 获取瞬时统计指标（每秒的平均值）
+     * @param metric 指标类型，STATS_METRIC_COMMAND等
+     * @return 指标值
+     */
+    public long getInstantaneousMetric(int metric) {
+        return this.instMetrics[metric].getPerSecond();
+    }
+
     private void version() {
 
     }
@@ -219,5 +620,41 @@ public class PandisServer {
     private void usage() {
 
     }
+
+    /**
+     * 瞬时统计指标：定期对一个累计值采样，用最近STATS_METRIC_SAMPLES次采样的平均增长速度估算每秒的值
+     */
+    private static class InstantaneousMetric {
+        private long lastSampleTime;    // 上次采样的时间（毫秒）
+        private long lastSampleCount;   // 上次采样时的累计值
+        private long [] samples;        // 每次采样得到的每秒增长值
+        private int index;              // 下一个采样的位置
+
+        InstantaneousMetric() {
+            this.lastSampleTime = 0;
+            this.lastSampleCount = 0;
+            this.samples = new long[STATS_METRIC_SAMPLES];
+            this.index = 0;
+        }
+
+        void track(long currentCount, long now) {
+            long elapsed = now - this.lastSampleTime;
+            long delta = currentCount - this.lastSampleCount;
+            long perSecond = elapsed > 0 ? delta * 1000 / elapsed : 0;
+
+            this.samples[this.index] = perSecond;
+            this.index = (this.index + 1) % STATS_METRIC_SAMPLES;
+            this.lastSampleTime = now;
+            this.lastSampleCount = currentCount;
+        }
+
+        long getPerSecond() {
+            long sum = 0;
+            for (long sample : this.samples) {
+                sum += sample;
+            }
+            return sum / STATS_METRIC_SAMPLES;
+        }
+    }
 }
 
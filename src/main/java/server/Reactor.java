@@ -0,0 +1,344 @@
+package server;
+
+import client.PandisClient;
+import common.store.Sds;
+import event.EventLoop;
+import event.handler.SendApplyToClientHandler;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import protocol.RequestParser;
+
+import java.nio.channels.SelectionKey;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 反应堆：一个事件循环以及分配给它的客户端
+ *
+ * 单反应堆模式下，服务器只有一个反应堆，它直接使用主事件循环，监听、读写都在主线程中完成
+ * 多反应堆模式下，主事件循环只负责接受连接和serverCron，新连接按负载均衡策略分配给某个工作反应堆，
+ * 之后这个连接上的读写事件、定时任务都由该反应堆的线程处理，客户端不会在反应堆之间迁移
+ *
+ * 反应堆中的客户端链表只能由反应堆自己的线程访问，connections计数器用于其他线程读取连接数
+ *
+ * 写回复时，客户端不会立即监听写事件，而是先加入反应堆的等待写队列，
+ * 事件循环在进入select之前直接将回复写入套接字，只有套接字发送缓冲区满了、回复没有写完时才监听写事件，
+ * 这样大部分请求/响应都省去了一次修改监听事件和一轮额外的select
+ *
+ * 一个客户端一次读取中的流水线命令都在同一轮事件中执行，回复累积在回复缓冲区中，进入select之前一次写出；
+ * 单个客户端一轮最多执行PandisClient.MAX_COMMANDS_PER_EVENT条命令，剩下的命令加入等待处理队列，
+ * 在beforeSleep中继续执行，此时事件循环不会阻塞在select上
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class Reactor {
+    private static final Log logger = LogFactory.getLog(Reactor.class);
+
+    // clientsCron每次最少处理的客户端数量
+    private static final int CLIENTS_CRON_MIN_ITERATIONS = 5;
+    // clientsCron单次执行的时间上限（纳秒），客户端很多时分多次处理，避免阻塞事件循环
+    private static final long CLIENTS_CRON_TIME_LIMIT = 1_000_000L;
+    // 客户端空闲超过该时间（毫秒），就收缩它的查询缓冲区
+    private static final long CLIENTS_CRON_QUERYBUF_IDLE_TIME = 2000;
+
+    private final int id;
+    private final PandisServer server;
+    private final EventLoop eventLoop;
+    // 分配给该反应堆的所有客户端
+    private final LinkedList<PandisClient> clients;
+    // 客户端数量，供接受连接的线程做负载均衡
+    private final AtomicInteger connections;
+    // 有回复等待写出的客户端，在beforeSleep中处理
+    private final List<PandisClient> clientsPendingWrite;
+    // 查询缓冲区中还有命令没有执行的客户端，在beforeSleep中继续处理
+    private List<PandisClient> clientsPendingInput;
+    // 与clientsPendingInput交替使用，处理过程中新加入的客户端放到另一个列表中，留到下一轮处理
+    private List<PandisClient> clientsPendingInputSwap;
+    // 运行事件循环的线程，与主事件循环共用的反应堆为null
+    private Thread thread;
+
+    Reactor(int id, PandisServer server, EventLoop eventLoop) {
+        this.id = id;
+        this.server = server;
+        this.eventLoop = eventLoop;
+        this.clients = new LinkedList<>();
+        this.connections = new AtomicInteger(0);
+        this.clientsPendingWrite = new ArrayList<>();
+        this.clientsPendingInput = new ArrayList<>();
+        this.clientsPendingInputSwap = new ArrayList<>();
+
+        // 每个反应堆都在自己的事件循环中处理所属客户端的周期任务
+        this.eventLoop.createTimeEvent(1, this::reactorCron, null, null);
+    }
+
+    /**
+     * 启动一个新线程运行反应堆的事件循环
+     */
+    void start() {
+        this.eventLoop.setBeforeSleepProc(this::beforeSleep);
+        this.thread = new Thread(this.eventLoop::eventLoopMain, "pandis-reactor-" + this.id);
+        this.thread.start();
+        logger.info("Reactor " + this.id + " started");
+    }
+
+    /**
+     * 停止反应堆的事件循环
+     */
+    void stop() {
+        if (this.thread != null) {
+            this.eventLoop.stop();
+        }
+    }
+
+    public int getId() {
+        return this.id;
+    }
+
+    public EventLoop getEventLoop() {
+        return this.eventLoop;
+    }
+
+    /**
+     * 获取反应堆中的客户端数量，可以在任意线程中调用
+     */
+    public int getConnections() {
+        return this.connections.get();
+    }
+
+    /**
+     * 新连接分配给该反应堆时，由接受连接的线程增加连接数
+     */
+    void incrConnections() {
+        this.connections.incrementAndGet();
+    }
+
+    /**
+     * 将客户端加入反应堆，只能在反应堆线程中调用，连接数在分配连接时已经增加过
+     * @param client 客户端
+     */
+    public void addClient(PandisClient client) {
+        this.clients.add(client);
+    }
+
+    /**
+     * 将客户端移出反应堆，只能在反应堆线程中调用
+     * @param client 客户端
+     */
+    public void removeClient(PandisClient client) {
+        if (this.clients.remove(client)) {
+            this.connections.decrementAndGet();
+        }
+
+        if (client.hasFlags(PandisClient.CLIENT_PENDING_WRITE)) {
+            client.removeFlags(PandisClient.CLIENT_PENDING_WRITE);
+            this.clientsPendingWrite.remove(client);
+        }
+
+        if (client.hasFlags(PandisClient.CLIENT_PENDING_INPUT)) {
+            client.removeFlags(PandisClient.CLIENT_PENDING_INPUT);
+            this.clientsPendingInput.remove(client);
+        }
+    }
+
+    /**
+     * 将有回复等待写出的客户端加入等待写队列，只能在反应堆线程中调用
+     * @param client 客户端，调用者需要保证客户端已经打上了CLIENT_PENDING_WRITE标志
+     */
+    public void addClientPendingWrite(PandisClient client) {
+        this.clientsPendingWrite.add(client);
+    }
+
+    /**
+     * 将查询缓冲区中还有命令没有执行的客户端加入等待处理队列，只能在反应堆线程中调用
+     * @param client 客户端，调用者需要保证客户端已经打上了CLIENT_PENDING_INPUT标志
+     */
+    public void addClientPendingInput(PandisClient client) {
+        this.clientsPendingInput.add(client);
+    }
+
+    /**
+     * 工作反应堆的事件循环每次进入select等待之前调用
+     * @param eventLoop 事件循环
+     */
+    private void beforeSleep(EventLoop eventLoop) {
+        handleClientsWithPendingInput();
+        handleClientsWithPendingWrites(null);
+    }
+
+    /**
+     * 继续执行上一轮因为达到命令数上限而没有执行完的流水线命令
+     * 每个客户端本轮同样最多执行MAX_COMMANDS_PER_EVENT条命令，仍然没有执行完的客户端留到下一轮，
+     * 只要还有这样的客户端，事件循环就不在select上阻塞
+     * @return 处理的客户端数量
+     */
+    int handleClientsWithPendingInput() {
+        int processed = this.clientsPendingInput.size();
+        if (processed > 0) {
+            // 处理过程中客户端可能再次加入队列，所以先换上一个空列表
+            List<PandisClient> clients = this.clientsPendingInput;
+            this.clientsPendingInput = this.clientsPendingInputSwap;
+            this.clientsPendingInputSwap = clients;
+
+            for (PandisClient client : clients) {
+                // 客户端在本轮中已经被关闭
+                if (!client.hasFlags(PandisClient.CLIENT_PENDING_INPUT)) {
+                    continue;
+                }
+                client.removeFlags(PandisClient.CLIENT_PENDING_INPUT);
+
+                this.server.setCurrentClient(client);
+                client.processInputBuffer();
+                this.server.clearCurrentClient();
+            }
+            clients.clear();
+        }
+
+        this.eventLoop.setDontWait(!this.clientsPendingInput.isEmpty());
+        return processed;
+    }
+
+    /**
+     * 在进入select之前直接将等待写的客户端的回复写入套接字，
+     * 回复没有全部写完（套接字发送缓冲区满了）的客户端才监听写事件，由写处理器继续发送
+     * @param ioThreads 开启了多线程IO时由IO线程并行写，否则为null，在当前线程中写
+     * @return 处理的客户端数量
+     */
+    int handleClientsWithPendingWrites(IOThreads ioThreads) {
+        int processed = this.clientsPendingWrite.size();
+        if (processed == 0) {
+            return 0;
+        }
+
+        if (ioThreads != null) {
+            ioThreads.process(this.clientsPendingWrite, IOThreads.IO_THREADS_OP_WRITE);
+        } else {
+            for (PandisClient client : this.clientsPendingWrite) {
+                if (!client.hasFlags(PandisClient.CLIENT_CLOSE_ASAP)) {
+                    client.writeSocketData();
+                }
+            }
+        }
+
+        for (PandisClient client : this.clientsPendingWrite) {
+            client.removeFlags(PandisClient.CLIENT_PENDING_WRITE);
+
+            // 回复超过了上限的客户端不再发送残缺的回复，直接关闭
+            if (client.hasFlags(PandisClient.CLIENT_CLOSE_ASAP)) {
+                this.server.freeClient(client);
+                continue;
+            }
+
+            // 回复已经发送完毕，需要关闭的客户端（比如发生了协议错误）在这里关闭
+            // 上面已经清除了CLIENT_PENDING_WRITE标志，关闭客户端时不会修改正在遍历的队列
+            if (client.isReplyEmpty() && client.hasFlags(PandisClient.CLIENT_CLOSE_AFTER_REPLY)) {
+                this.server.freeClient(client);
+                continue;
+            }
+
+            SelectionKey key = client.getSocketChannel().keyFor(this.eventLoop.getSelector());
+            if (key == null || !key.isValid()) {
+                continue;
+            }
+
+            boolean writeInstalled = (key.interestOps() & SelectionKey.OP_WRITE) != 0;
+            if (!client.isReplyEmpty()) {
+                // 套接字暂时写不下了，监听写事件，等套接字可写时由写处理器继续发送
+                if (!writeInstalled) {
+                    this.eventLoop.registerFileEvent(client.getSocketChannel(), SelectionKey.OP_WRITE,
+                            SendApplyToClientHandler.getHandler(), client);
+                }
+            } else if (writeInstalled) {
+                // 回复已经全部写完，之前监听的写事件不再需要
+                this.eventLoop.unregisterFileEvent(key, SelectionKey.OP_WRITE);
+            }
+        }
+        this.clientsPendingWrite.clear();
+
+        return processed;
+    }
+
+    /**
+     * 反应堆的周期任务，每秒执行hz次
+     * @param clientData 未使用
+     * @return 下次执行距今的毫秒数
+     */
+    private int reactorCron(Object clientData) {
+        // 处理客户端超时，收缩客户端的查询缓冲区
+        clientsCron(System.currentTimeMillis());
+
+        return 1000 / this.server.getServerConfig().getHz();
+    }
+
+    /**
+     * 客户端相关的周期任务
+     * 每次只处理 客户端数量/hz 个客户端（至少CLIENTS_CRON_MIN_ITERATIONS个），这样每秒所有客户端大约被处理一遍
+     * 被处理的客户端会被移到链表尾部，下次从未处理过的客户端开始
+     * @param now 当前时间（毫秒）
+     */
+    private void clientsCron(long now) {
+        int numClients = this.clients.size();
+        int iterations = numClients / this.server.getServerConfig().getHz();
+        if (iterations < CLIENTS_CRON_MIN_ITERATIONS) {
+            iterations = Math.min(numClients, CLIENTS_CRON_MIN_ITERATIONS);
+        }
+
+        long start = System.nanoTime();
+        while (!this.clients.isEmpty() && iterations-- > 0) {
+            // 轮转客户端链表：将表头的客户端移到表尾
+            PandisClient client = this.clients.removeFirst();
+            this.clients.addLast(client);
+
+            // 客户端超时被关闭后，就不需要再处理它了
+            if (clientsCronHandleTimeout(client, now)) {
+                continue;
+            }
+
+            clientsCronResizeQueryBuffer(client, now);
+
+            if (System.nanoTime() - start > CLIENTS_CRON_TIME_LIMIT) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 检查客户端是否空闲超时，超时则关闭客户端
+     * @param client 客户端
+     * @param now 当前时间（毫秒）
+     * @return 客户端被关闭返回true
+     */
+    private boolean clientsCronHandleTimeout(PandisClient client, long now) {
+        int maxIdleTime = this.server.getServerConfig().getMaxIdleTime();
+        if (maxIdleTime > 0 && now - client.getLastInteraction() > maxIdleTime * 1000L) {
+            logger.info("Closing idle client");
+            this.server.freeClient(client);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * 收缩查询缓冲区：如果缓冲区已分配的空间较大，并且近期的峰值远小于已分配空间或客户端已经空闲一段时间，就释放空闲空间
+     * @param client 客户端
+     * @param now 当前时间（毫秒）
+     */
+    private void clientsCronResizeQueryBuffer(PandisClient client, long now) {
+        Sds queryBuffer = client.getQueryBuffer();
+        int size = queryBuffer.size();
+        long idleTime = now - client.getLastInteraction();
+
+        if (size > RequestParser.MBULK_BIG_ARG
+                && (size / (client.getQueryBufPeak() + 1) > 2 || idleTime > CLIENTS_CRON_QUERYBUF_IDLE_TIME)) {
+            if (queryBuffer.getFree() > 0) {
+                queryBuffer.removeFreeSpace();
+            }
+        }
+
+        // 重置峰值，下个周期重新统计
+        client.setQueryBufPeak(0);
+    }
+}
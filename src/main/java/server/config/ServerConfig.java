@@ -23,14 +23,72 @@ public class ServerConfig {
     private int dbNumber;           // 数据库数量
     private String requirePassword; // 是否设置了密码
     private boolean daemonize;      // 是否以守护进程运行
+    private int maxIdleTime;        // 客户端最大空闲时间（秒），0表示不限制
+    private int ioThreadsNum;       // IO线程数量（包括主线程），1表示不使用多线程IO
+    private boolean ioThreadsDoReads; // IO线程是否也负责读取和解析请求
+    private int reactorThreadsNum;  // 工作反应堆数量，0表示不使用多反应堆，所有连接都由主事件循环处理
+    private int reactorBalance;     // 新连接分配给工作反应堆的策略
+    private long slowlogLogSlowerThan; // 执行时间超过该值（微秒）的命令记录到慢查询日志，负数表示不记录
+    private int slowlogMaxLen;      // 慢查询日志最多保存的条数
+    private long maxmemory;         // 数据集的内存上限（字节），0表示不限制
+    private int maxmemoryPolicy;    // 内存达到上限时的淘汰策略
+    private int maxmemorySamples;   // 淘汰时每次从每个数据库中取样的键数量
+    private int lfuLogFactor;       // LFU计数器的对数增长因子，越大计数器增长越慢
+    private int lfuDecayTime;       // LFU计数器每过多少分钟减1，0表示不衰减
+    private int listMaxListpackSize;    // 列表的快速列表节点大小限制，正数表示元素数量，-1 ~ -5表示4KB ~ 64KB
+    private int listCompressDepth;      // 列表两端不压缩的节点数量，0表示不压缩
+    private int hashMaxListpackEntries; // 哈希对象使用紧凑列表编码时最多保存的字段数量
+    private int hashMaxListpackValue;   // 哈希对象使用紧凑列表编码时field和value的最大长度
+    private int setMaxIntsetEntries;    // 集合对象使用整数集合编码时最多保存的成员数量
 
     public static final int DEFAULT_PORT = 6379;
     public static final int DEFAULT_HZ = 10;
     public static final int DEFAULT_DB_NUMBER = 16;
+    public static final int DEFAULT_MAX_IDLE_TIME = 0;
+    public static final int DEFAULT_IO_THREADS_NUM = 1;
+    public static final int DEFAULT_REACTOR_THREADS_NUM = 0;
+    public static final long DEFAULT_SLOWLOG_LOG_SLOWER_THAN = 10000;
+    public static final int DEFAULT_SLOWLOG_MAX_LEN = 128;
+    public static final long DEFAULT_MAXMEMORY = 0;
+    public static final int DEFAULT_MAXMEMORY_SAMPLES = 5;
+    public static final int DEFAULT_LFU_LOG_FACTOR = 10;
+    public static final int DEFAULT_LFU_DECAY_TIME = 1;
+    public static final int DEFAULT_LIST_MAX_LISTPACK_SIZE = -2;
+    public static final int DEFAULT_LIST_COMPRESS_DEPTH = 0;
+    public static final int DEFAULT_HASH_MAX_LISTPACK_ENTRIES = 512;
+    public static final int DEFAULT_HASH_MAX_LISTPACK_VALUE = 64;
+    public static final int DEFAULT_SET_MAX_INTSET_ENTRIES = 512;
 
     public static final int AUTHPASS_MAX_LEN = 512;
     public static final int MIN_HZ = 1;
     public static final int MAX_HZ = 500;
+    public static final int IO_THREADS_MAX_NUM = 128;
+    public static final int REACTOR_THREADS_MAX_NUM = 128;
+
+    public static final int REACTOR_BALANCE_ROUND_ROBIN = 0;        // 轮询
+    public static final int REACTOR_BALANCE_LEAST_CONNECTIONS = 1;  // 分配给连接数最少的反应堆
+
+    // 淘汰策略，与Redis相同，低8位表示淘汰依据和取样范围
+    public static final int MAXMEMORY_FLAG_LRU = 1 << 0;        // 按空闲时间淘汰
+    public static final int MAXMEMORY_FLAG_LFU = 1 << 1;        // 按访问频率淘汰
+    public static final int MAXMEMORY_FLAG_ALLKEYS = 1 << 2;    // 从所有键中淘汰，否则只淘汰设置了过期时间的键
+    public static final int MAXMEMORY_VOLATILE_LRU = (0 << 8) | MAXMEMORY_FLAG_LRU;
+    public static final int MAXMEMORY_VOLATILE_LFU = (1 << 8) | MAXMEMORY_FLAG_LFU;
+    public static final int MAXMEMORY_VOLATILE_TTL = 2 << 8;
+    public static final int MAXMEMORY_VOLATILE_RANDOM = 3 << 8;
+    public static final int MAXMEMORY_ALLKEYS_LRU = (4 << 8) | MAXMEMORY_FLAG_LRU | MAXMEMORY_FLAG_ALLKEYS;
+    public static final int MAXMEMORY_ALLKEYS_LFU = (5 << 8) | MAXMEMORY_FLAG_LFU | MAXMEMORY_FLAG_ALLKEYS;
+    public static final int MAXMEMORY_ALLKEYS_RANDOM = (6 << 8) | MAXMEMORY_FLAG_ALLKEYS;
+    public static final int MAXMEMORY_NO_EVICTION = 7 << 8;
+
+    private static final String[] MAXMEMORY_POLICY_NAMES = {
+        "volatile-lru", "volatile-lfu", "volatile-ttl", "volatile-random",
+        "allkeys-lru", "allkeys-lfu", "allkeys-random", "noeviction"
+    };
+    private static final int[] MAXMEMORY_POLICIES = {
+        MAXMEMORY_VOLATILE_LRU, MAXMEMORY_VOLATILE_LFU, MAXMEMORY_VOLATILE_TTL, MAXMEMORY_VOLATILE_RANDOM,
+        MAXMEMORY_ALLKEYS_LRU, MAXMEMORY_ALLKEYS_LFU, MAXMEMORY_ALLKEYS_RANDOM, MAXMEMORY_NO_EVICTION
+    };
 
     private ServerConfig() {
         super();
@@ -41,6 +99,23 @@ public class ServerConfig {
         this.dbNumber = DEFAULT_DB_NUMBER;
         this.requirePassword = null;
         this.daemonize = false;
+        this.maxIdleTime = DEFAULT_MAX_IDLE_TIME;
+        this.ioThreadsNum = DEFAULT_IO_THREADS_NUM;
+        this.ioThreadsDoReads = false;
+        this.reactorThreadsNum = DEFAULT_REACTOR_THREADS_NUM;
+        this.reactorBalance = REACTOR_BALANCE_ROUND_ROBIN;
+        this.slowlogLogSlowerThan = DEFAULT_SLOWLOG_LOG_SLOWER_THAN;
+        this.slowlogMaxLen = DEFAULT_SLOWLOG_MAX_LEN;
+        this.maxmemory = DEFAULT_MAXMEMORY;
+        this.maxmemoryPolicy = MAXMEMORY_NO_EVICTION;
+        this.maxmemorySamples = DEFAULT_MAXMEMORY_SAMPLES;
+        this.lfuLogFactor = DEFAULT_LFU_LOG_FACTOR;
+        this.lfuDecayTime = DEFAULT_LFU_DECAY_TIME;
+        this.listMaxListpackSize = DEFAULT_LIST_MAX_LISTPACK_SIZE;
+        this.listCompressDepth = DEFAULT_LIST_COMPRESS_DEPTH;
+        this.hashMaxListpackEntries = DEFAULT_HASH_MAX_LISTPACK_ENTRIES;
+        this.hashMaxListpackValue = DEFAULT_HASH_MAX_LISTPACK_VALUE;
+        this.setMaxIntsetEntries = DEFAULT_SET_MAX_INTSET_ENTRIES;
     }
 
     public static ServerConfig build() {
@@ -57,6 +132,23 @@ public class ServerConfig {
             serverConfig.dbNumber = builder.dbNumber;
             serverConfig.requirePassword = builder.requirePassword;
             serverConfig.daemonize = builder.daemonize;
+            serverConfig.maxIdleTime = builder.maxIdleTime;
+            serverConfig.ioThreadsNum = builder.ioThreadsNum;
+            serverConfig.ioThreadsDoReads = builder.ioThreadsDoReads;
+            serverConfig.reactorThreadsNum = builder.reactorThreadsNum;
+            serverConfig.reactorBalance = builder.reactorBalance;
+            serverConfig.slowlogLogSlowerThan = builder.slowlogLogSlowerThan;
+            serverConfig.slowlogMaxLen = builder.slowlogMaxLen;
+            serverConfig.maxmemory = builder.maxmemory;
+            serverConfig.maxmemoryPolicy = builder.maxmemoryPolicy;
+            serverConfig.maxmemorySamples = builder.maxmemorySamples;
+            serverConfig.lfuLogFactor = builder.lfuLogFactor;
+            serverConfig.lfuDecayTime = builder.lfuDecayTime;
+            serverConfig.listMaxListpackSize = builder.listMaxListpackSize;
+            serverConfig.listCompressDepth = builder.listCompressDepth;
+            serverConfig.hashMaxListpackEntries = builder.hashMaxListpackEntries;
+            serverConfig.hashMaxListpackValue = builder.hashMaxListpackValue;
+            serverConfig.setMaxIntsetEntries = builder.setMaxIntsetEntries;
         }
 
         return serverConfig;
@@ -116,7 +208,12 @@ public class ServerConfig {
             String option = argv[0].toLowerCase();
 
             if ("timeout".equals(option) && argv.length == 2) {
-                // TODO
+                int maxIdleTime = Integer.valueOf(argv[1]);
+                if (maxIdleTime < 0) {
+                    err = "Invalid timeout value";
+                    printFatalConfigError(lineNum, lines[i], err);
+                }
+                this.maxIdleTime = maxIdleTime;
             } else if ("tcp-keepalive".equals(option) && argv.length == 2) {
                 // TODO
             } else if ("port".equals(option) && argv.length == 2) {
@@ -158,11 +255,59 @@ public class ServerConfig {
             } else if ("maxclient".equals(option) && argv.length == 2) {
                 // TODO
             } else if ("maxmemory".equals(option) && argv.length == 2) {
-                // TODO
+                long maxmemory = -1;
+                try {
+                    maxmemory = StringUtil.memtoll(argv[1]);
+                } catch (NumberFormatException e) {
+                    // 下面统一报错
+                }
+                if (maxmemory < 0) {
+                    err = "Invalid maxmemory value";
+                    printFatalConfigError(lineNum, lines[i], err);
+                }
+                this.maxmemory = maxmemory;
             } else if ("maxmemory-policy".equals(option) && argv.length == 2) {
-                // TODO
+                int policy = parseMaxmemoryPolicy(argv[1]);
+                if (policy == -1) {
+                    err = "Invalid maxmemory policy";
+                    printFatalConfigError(lineNum, lines[i], err);
+                }
+                this.maxmemoryPolicy = policy;
             } else if ("maxmemory-samples".equals(option) && argv.length == 2) {
-                // TODO
+                int samples = Integer.valueOf(argv[1]);
+                if (samples <= 0) {
+                    err = "maxmemory-samples must be 1 or greater";
+                    printFatalConfigError(lineNum, lines[i], err);
+                }
+                this.maxmemorySamples = samples;
+            } else if ("lfu-log-factor".equals(option) && argv.length == 2) {
+                int lfuLogFactor = Integer.valueOf(argv[1]);
+                if (lfuLogFactor < 0) {
+                    err = "lfu-log-factor must be 0 or greater";
+                    printFatalConfigError(lineNum, lines[i], err);
+                }
+                this.lfuLogFactor = lfuLogFactor;
+            } else if ("lfu-decay-time".equals(option) && argv.length == 2) {
+                int lfuDecayTime = Integer.valueOf(argv[1]);
+                if (lfuDecayTime < 0) {
+                    err = "lfu-decay-time must be 0 or greater";
+                    printFatalConfigError(lineNum, lines[i], err);
+                }
+                this.lfuDecayTime = lfuDecayTime;
+            } else if (("list-max-listpack-size".equals(option) || "list-max-ziplist-size".equals(option)) && argv.length == 2) {
+                int listMaxListpackSize = Integer.valueOf(argv[1]);
+                if (listMaxListpackSize == 0 || listMaxListpackSize < -5) {
+                    err = "list-max-listpack-size must be a positive number or between -5 and -1";
+                    printFatalConfigError(lineNum, lines[i], err);
+                }
+                this.listMaxListpackSize = listMaxListpackSize;
+            } else if ("list-compress-depth".equals(option) && argv.length == 2) {
+                int listCompressDepth = Integer.valueOf(argv[1]);
+                if (listCompressDepth < 0) {
+                    err = "list-compress-depth must be 0 or greater";
+                    printFatalConfigError(lineNum, lines[i], err);
+                }
+                this.listCompressDepth = listCompressDepth;
             } else if ("slaveof".equals(option) && argv.length == 2) {
                 // TODO
             } else if ("repl-ping-slave-period".equals(option) && argv.length == 2) {
@@ -204,6 +349,38 @@ public class ServerConfig {
                     hz = MAX_HZ;
                 }
                 this.hz = hz;
+            } else if ("io-threads".equals(option) && argv.length == 2) {
+                int ioThreadsNum = Integer.valueOf(argv[1]);
+                if (ioThreadsNum < 1 || ioThreadsNum > IO_THREADS_MAX_NUM) {
+                    err = "Invalid number of I/O threads";
+                    printFatalConfigError(lineNum, lines[i], err);
+                }
+                this.ioThreadsNum = ioThreadsNum;
+            } else if ("io-threads-do-reads".equals(option) && argv.length == 2) {
+                if ("yes".equals(argv[1])) {
+                    this.ioThreadsDoReads = true;
+                } else if ("no".equals(argv[1])) {
+                    this.ioThreadsDoReads = false;
+                } else {
+                    err = "argument must be yes or no";
+                    printFatalConfigError(lineNum, lines[i], err);
+                }
+            } else if ("reactor-threads".equals(option) && argv.length == 2) {
+                int reactorThreadsNum = Integer.valueOf(argv[1]);
+                if (reactorThreadsNum < 0 || reactorThreadsNum > REACTOR_THREADS_MAX_NUM) {
+                    err = "Invalid number of reactor threads";
+                    printFatalConfigError(lineNum, lines[i], err);
+                }
+                this.reactorThreadsNum = reactorThreadsNum;
+            } else if ("reactor-balance".equals(option) && argv.length == 2) {
+                if ("round-robin".equalsIgnoreCase(argv[1])) {
+                    this.reactorBalance = REACTOR_BALANCE_ROUND_ROBIN;
+                } else if ("least-connections".equalsIgnoreCase(argv[1])) {
+                    this.reactorBalance = REACTOR_BALANCE_LEAST_CONNECTIONS;
+                } else {
+                    err = "argument must be round-robin or least-connections";
+                    printFatalConfigError(lineNum, lines[i], err);
+                }
             } else if ("appendonly".equals(option) && argv.length == 2) {
                 // TODO
             } else if ("appendfilename".equals(option) && argv.length == 2) {
@@ -228,16 +405,31 @@ public class ServerConfig {
                 // TODO
             } else if ("dbfilename".equals(option) && argv.length == 2) {
                 // TODO
-            } else if ("hash-max-ziplist-entries".equals(option) && argv.length == 2) {
-                // TODO
-            } else if ("hash-max-ziplist-value".equals(option) && argv.length == 2) {
-                // TODO
+            } else if (("hash-max-listpack-entries".equals(option) || "hash-max-ziplist-entries".equals(option)) && argv.length == 2) {
+                int hashMaxListpackEntries = Integer.valueOf(argv[1]);
+                if (hashMaxListpackEntries < 0) {
+                    err = "hash-max-listpack-entries must be 0 or greater";
+                    printFatalConfigError(lineNum, lines[i], err);
+                }
+                this.hashMaxListpackEntries = hashMaxListpackEntries;
+            } else if (("hash-max-listpack-value".equals(option) || "hash-max-ziplist-value".equals(option)) && argv.length == 2) {
+                int hashMaxListpackValue = Integer.valueOf(argv[1]);
+                if (hashMaxListpackValue < 0) {
+                    err = "hash-max-listpack-value must be 0 or greater";
+                    printFatalConfigError(lineNum, lines[i], err);
+                }
+                this.hashMaxListpackValue = hashMaxListpackValue;
             } else if ("list-max-ziplist-entries".equals(option) && argv.length == 2) {
                 // TODO
             } else if ("list-max-ziplist-value".equals(option) && argv.length == 2) {
                 // TODO
             } else if ("set-max-intset-entries".equals(option) && argv.length == 2) {
-                // TODO
+                int setMaxIntsetEntries = Integer.valueOf(argv[1]);
+                if (setMaxIntsetEntries < 0) {
+                    err = "set-max-intset-entries must be 0 or greater";
+                    printFatalConfigError(lineNum, lines[i], err);
+                }
+                this.setMaxIntsetEntries = setMaxIntsetEntries;
             } else if ("zset-max-ziplist-entries".equals(option) && argv.length == 2) {
                 // TODO
             } else if ("zset-max-ziplist-value".equals(option) && argv.length == 2) {
@@ -257,9 +449,14 @@ public class ServerConfig {
             } else if ("lua-time-limit".equals(option) && argv.length == 2) {
                 // TODO
             } else if ("slowlog-log-slower-than".equals(option) && argv.length == 2) {
-                // TODO
+                this.slowlogLogSlowerThan = Long.valueOf(argv[1]);
             } else if ("slowlog-max-len".equals(option) && argv.length == 2) {
-                // TODO
+                int slowlogMaxLen = Integer.valueOf(argv[1]);
+                if (slowlogMaxLen < 0) {
+                    err = "Invalid slowlog max length";
+                    printFatalConfigError(lineNum, lines[i], err);
+                }
+                this.slowlogMaxLen = slowlogMaxLen;
             } else if ("client-output-buffer-limit".equals(option) && argv.length == 5) {
                 // TODO
             } else if ("stop-writes-on-bgsave-error".equals(option) && argv.length == 2) {
@@ -283,6 +480,34 @@ public class ServerConfig {
         // 健全性检查
     }
 
+    /**
+     * 解析淘汰策略的名字
+     * @param name 策略名，比如 allkeys-lru
+     * @return 策略，名字无效时返回-1
+     */
+    public static int parseMaxmemoryPolicy(String name) {
+        for (int i = 0; i < MAXMEMORY_POLICY_NAMES.length; i++) {
+            if (MAXMEMORY_POLICY_NAMES[i].equalsIgnoreCase(name)) {
+                return MAXMEMORY_POLICIES[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 获取淘汰策略的名字
+     * @param policy 策略
+     * @return 策略名
+     */
+    public static String maxmemoryPolicyName(int policy) {
+        for (int i = 0; i < MAXMEMORY_POLICIES.length; i++) {
+            if (MAXMEMORY_POLICIES[i] == policy) {
+                return MAXMEMORY_POLICY_NAMES[i];
+            }
+        }
+        return "unknown";
+    }
+
     private void printFatalConfigError(int lineNum, String line, String err) {
         System.err.println("\n*** FATAL CONFIG FILE ERROR ***\n");
         System.err.println("Reading the configuration file, at line " + lineNum + "\n");
@@ -323,6 +548,74 @@ public class ServerConfig {
         return this.daemonize;
     }
 
+    public int getMaxIdleTime() {
+        return this.maxIdleTime;
+    }
+
+    public int getIoThreadsNum() {
+        return this.ioThreadsNum;
+    }
+
+    public boolean getIoThreadsDoReads() {
+        return this.ioThreadsDoReads;
+    }
+
+    public int getReactorThreadsNum() {
+        return this.reactorThreadsNum;
+    }
+
+    public int getReactorBalance() {
+        return this.reactorBalance;
+    }
+
+    public long getSlowlogLogSlowerThan() {
+        return this.slowlogLogSlowerThan;
+    }
+
+    public int getSlowlogMaxLen() {
+        return this.slowlogMaxLen;
+    }
+
+    public long getMaxmemory() {
+        return this.maxmemory;
+    }
+
+    public int getMaxmemoryPolicy() {
+        return this.maxmemoryPolicy;
+    }
+
+    public int getMaxmemorySamples() {
+        return this.maxmemorySamples;
+    }
+
+    public int getLfuLogFactor() {
+        return this.lfuLogFactor;
+    }
+
+    public int getLfuDecayTime() {
+        return this.lfuDecayTime;
+    }
+
+    public int getListMaxListpackSize() {
+        return this.listMaxListpackSize;
+    }
+
+    public int getListCompressDepth() {
+        return this.listCompressDepth;
+    }
+
+    public int getHashMaxListpackEntries() {
+        return this.hashMaxListpackEntries;
+    }
+
+    public int getHashMaxListpackValue() {
+        return this.hashMaxListpackValue;
+    }
+
+    public int getSetMaxIntsetEntries() {
+        return this.setMaxIntsetEntries;
+    }
+
     public static class ServerConfigBuilder {
         private String configfile;      // 配置文件路径
         private int port;               // 服务器默认端口
@@ -330,6 +623,23 @@ public class ServerConfig {
         private int dbNumber;
         private String requirePassword; // 是否设置了密码
         private boolean daemonize;      // 是否以守护进程运行
+        private int maxIdleTime;        // 客户端最大空闲时间（秒）
+        private int ioThreadsNum;       // IO线程数量
+        private boolean ioThreadsDoReads; // IO线程是否也负责读取和解析请求
+        private int reactorThreadsNum;  // 工作反应堆数量
+        private int reactorBalance;     // 新连接分配给工作反应堆的策略
+        private long slowlogLogSlowerThan; // 慢查询日志的记录阈值（微秒）
+        private int slowlogMaxLen;      // 慢查询日志最多保存的条数
+        private long maxmemory;         // 数据集的内存上限（字节）
+        private int maxmemoryPolicy;    // 内存达到上限时的淘汰策略
+        private int maxmemorySamples;   // 淘汰时的取样数量
+        private int lfuLogFactor;       // LFU计数器的对数增长因子
+        private int lfuDecayTime;       // LFU计数器的衰减周期（分钟）
+        private int listMaxListpackSize;    // 列表的快速列表节点大小限制
+        private int listCompressDepth;      // 列表两端不压缩的节点数量
+        private int hashMaxListpackEntries; // 哈希对象紧凑列表编码的最大字段数量
+        private int hashMaxListpackValue;   // 哈希对象紧凑列表编码的最大field、value长度
+        private int setMaxIntsetEntries;    // 集合对象整数集合编码的最大成员数量
 
         public ServerConfigBuilder() {
             this.configfile = null;      // 配置文件路径
@@ -338,6 +648,23 @@ public class ServerConfig {
             this.dbNumber = DEFAULT_DB_NUMBER;
             this.requirePassword = null;
             this.daemonize = false;
+            this.maxIdleTime = DEFAULT_MAX_IDLE_TIME;
+            this.ioThreadsNum = DEFAULT_IO_THREADS_NUM;
+            this.ioThreadsDoReads = false;
+            this.reactorThreadsNum = DEFAULT_REACTOR_THREADS_NUM;
+            this.reactorBalance = REACTOR_BALANCE_ROUND_ROBIN;
+            this.slowlogLogSlowerThan = DEFAULT_SLOWLOG_LOG_SLOWER_THAN;
+            this.slowlogMaxLen = DEFAULT_SLOWLOG_MAX_LEN;
+            this.maxmemory = DEFAULT_MAXMEMORY;
+            this.maxmemoryPolicy = MAXMEMORY_NO_EVICTION;
+            this.maxmemorySamples = DEFAULT_MAXMEMORY_SAMPLES;
+            this.lfuLogFactor = DEFAULT_LFU_LOG_FACTOR;
+            this.lfuDecayTime = DEFAULT_LFU_DECAY_TIME;
+            this.listMaxListpackSize = DEFAULT_LIST_MAX_LISTPACK_SIZE;
+            this.listCompressDepth = DEFAULT_LIST_COMPRESS_DEPTH;
+            this.hashMaxListpackEntries = DEFAULT_HASH_MAX_LISTPACK_ENTRIES;
+            this.hashMaxListpackValue = DEFAULT_HASH_MAX_LISTPACK_VALUE;
+            this.setMaxIntsetEntries = DEFAULT_SET_MAX_INTSET_ENTRIES;
         }
 
         public ServerConfigBuilder setPort(int port) {
@@ -369,6 +696,91 @@ public class ServerConfig {
             this.daemonize = daemonize;
             return this;
         }
+
+        public ServerConfigBuilder setMaxIdleTime(int maxIdleTime) {
+            this.maxIdleTime = maxIdleTime;
+            return this;
+        }
+
+        public ServerConfigBuilder setIoThreadsNum(int ioThreadsNum) {
+            this.ioThreadsNum = ioThreadsNum;
+            return this;
+        }
+
+        public ServerConfigBuilder setIoThreadsDoReads(boolean ioThreadsDoReads) {
+            this.ioThreadsDoReads = ioThreadsDoReads;
+            return this;
+        }
+
+        public ServerConfigBuilder setReactorThreadsNum(int reactorThreadsNum) {
+            this.reactorThreadsNum = reactorThreadsNum;
+            return this;
+        }
+
+        public ServerConfigBuilder setReactorBalance(int reactorBalance) {
+            this.reactorBalance = reactorBalance;
+            return this;
+        }
+
+        public ServerConfigBuilder setSlowlogLogSlowerThan(long slowlogLogSlowerThan) {
+            this.slowlogLogSlowerThan = slowlogLogSlowerThan;
+            return this;
+        }
+
+        public ServerConfigBuilder setSlowlogMaxLen(int slowlogMaxLen) {
+            this.slowlogMaxLen = slowlogMaxLen;
+            return this;
+        }
+
+        public ServerConfigBuilder setMaxmemory(long maxmemory) {
+            this.maxmemory = maxmemory;
+            return this;
+        }
+
+        public ServerConfigBuilder setMaxmemoryPolicy(int maxmemoryPolicy) {
+            this.maxmemoryPolicy = maxmemoryPolicy;
+            return this;
+        }
+
+        public ServerConfigBuilder setMaxmemorySamples(int maxmemorySamples) {
+            this.maxmemorySamples = maxmemorySamples;
+            return this;
+        }
+
+        public ServerConfigBuilder setLfuLogFactor(int lfuLogFactor) {
+            this.lfuLogFactor = lfuLogFactor;
+            return this;
+        }
+
+        public ServerConfigBuilder setLfuDecayTime(int lfuDecayTime) {
+            this.lfuDecayTime = lfuDecayTime;
+            return this;
+        }
+
+        public ServerConfigBuilder setListMaxListpackSize(int listMaxListpackSize) {
+            this.listMaxListpackSize = listMaxListpackSize;
+            return this;
+        }
+
+        public ServerConfigBuilder setListCompressDepth(int listCompressDepth) {
+            this.listCompressDepth = listCompressDepth;
+            return this;
+        }
+
+        public ServerConfigBuilder setHashMaxListpackEntries(int hashMaxListpackEntries) {
+            this.hashMaxListpackEntries = hashMaxListpackEntries;
+            return this;
+        }
+
+        public ServerConfigBuilder setHashMaxListpackValue(int hashMaxListpackValue) {
+            this.hashMaxListpackValue = hashMaxListpackValue;
+            return this;
+        }
+
+        public ServerConfigBuilder setSetMaxIntsetEntries(int setMaxIntsetEntries) {
+            this.setMaxIntsetEntries = setMaxIntsetEntries;
+            return this;
+        }
     }
 
     public void printConfig() {
@@ -377,5 +789,20 @@ public class ServerConfig {
         System.out.println("databases:" + this.dbNumber);
         System.out.println("daemonize:" + this.daemonize);
         System.out.println("requirepass:" + this.requirePassword);
+        System.out.println("timeout:" + this.maxIdleTime);
+        System.out.println("io-threads:" + this.ioThreadsNum);
+        System.out.println("io-threads-do-reads:" + this.ioThreadsDoReads);
+        System.out.println("reactor-threads:" + this.reactorThreadsNum);
+        System.out.println("reactor-balance:" + (this.reactorBalance == REACTOR_BALANCE_ROUND_ROBIN ? "round-robin" : "least-connections"));
+        System.out.println("slowlog-log-slower-than:" + this.slowlogLogSlowerThan);
+        System.out.println("slowlog-max-len:" + this.slowlogMaxLen);
+        System.out.println("maxmemory:" + this.maxmemory);
+        System.out.println("maxmemory-policy:" + maxmemoryPolicyName(this.maxmemoryPolicy));
+        System.out.println("maxmemory-samples:" + this.maxmemorySamples);
+        System.out.println("list-max-listpack-size:" + this.listMaxListpackSize);
+        System.out.println("list-compress-depth:" + this.listCompressDepth);
+        System.out.println("hash-max-listpack-entries:" + this.hashMaxListpackEntries);
+        System.out.println("hash-max-listpack-value:" + this.hashMaxListpackValue);
+        System.out.println("set-max-intset-entries:" + this.setMaxIntsetEntries);
     }
 }
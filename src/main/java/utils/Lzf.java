@@ -0,0 +1,195 @@
+package utils;
+
+/**
+ * LZF压缩算法，移植自Redis使用的liblzf（lzf_c.c、lzf_d.c），压缩结果与liblzf兼容
+ *
+ * 压缩数据由两种指令组成：
+ *   000LLLLL [literal...]：L + 1个原样复制的字节，最多32个
+ *   LLLooooo [LLLLLLLL] oooooooo：回溯引用，从已解压数据的o + 1字节之前复制L + 2个字节，
+ *   L为7时用下一个字节扩展长度，最多264字节；回溯距离最多8KB
+ *
+ * 压缩速度很快，适合压缩不经常访问但是内容重复较多的数据，比如快速列表的中间节点
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public final class Lzf {
+    private static final int HLOG = 16;
+    private static final int HSIZE = 1 << HLOG;
+    private static final int MAX_LIT = 1 << 5;
+    private static final int MAX_OFF = 1 << 13;
+    private static final int MAX_REF = (1 << 8) + (1 << 3);
+
+    // 每个线程复用一个哈希表，哈希表中过期的位置在使用前都会被检查，不需要每次清空
+    private static final ThreadLocal<int[]> HTAB = ThreadLocal.withInitial(() -> new int[HSIZE]);
+
+    private Lzf() {
+        throw new InstantiationError("Must not instantiate this class");
+    }
+
+    /**
+     * 压缩in中[0, inLen)的数据，写入out的[0, outLen)
+     * @return 压缩后的长度，输出空间不够时返回0
+     */
+    public static int compress(byte[] in, int inLen, byte[] out, int outLen) {
+        if (inLen == 0) {
+            return 0;
+        }
+
+        int[] htab = HTAB.get();
+        int ip = 0;
+        int op = 0;
+        int lit = 0;
+
+        // 开始一段字面量
+        op++;
+
+        int hval = inLen > 1 ? ((in[0] & 0xff) << 8) | (in[1] & 0xff) : 0;
+        while (ip < inLen - 2) {
+            hval = (hval << 8) | (in[ip + 2] & 0xff);
+            int slot = ((hval * 0x1e35a7bd) >>> (32 - HLOG - 8)) & (HSIZE - 1);
+            int ref = htab[slot];
+            htab[slot] = ip;
+
+            int off = ip - ref - 1;
+            if (ref > 0 && off >= 0 && off < MAX_OFF
+                    && in[ref + 2] == in[ip + 2] && in[ref + 1] == in[ip + 1] && in[ref] == in[ip]) {
+                // 找到匹配
+                int len = 2;
+                int maxlen = inLen - ip - len;
+                if (maxlen > MAX_REF) {
+                    maxlen = MAX_REF;
+                }
+
+                if (op - (lit == 0 ? 1 : 0) + 3 + 1 >= outLen) {
+                    return 0;
+                }
+
+                // 结束当前的字面量，长度为0时撤销
+                out[op - lit - 1] = (byte) (lit - 1);
+                if (lit == 0) {
+                    op--;
+                }
+
+                do {
+                    len++;
+                } while (len < maxlen && in[ref + len] == in[ip + len]);
+
+                // 现在len是匹配长度减1
+                len -= 2;
+                ip++;
+
+                if (len < 7) {
+                    out[op++] = (byte) ((off >>> 8) + (len << 5));
+                } else {
+                    out[op++] = (byte) ((off >>> 8) + (7 << 5));
+                    out[op++] = (byte) (len - 7);
+                }
+                out[op++] = (byte) off;
+
+                lit = 0;
+                op++;
+
+                ip += len + 1;
+                if (ip >= inLen - 2) {
+                    break;
+                }
+
+                // 把匹配结尾的位置也加入哈希表
+                --ip;
+                hval = ((in[ip] & 0xff) << 8) | (in[ip + 1] & 0xff);
+                hval = (hval << 8) | (in[ip + 2] & 0xff);
+                htab[((hval * 0x1e35a7bd) >>> (32 - HLOG - 8)) & (HSIZE - 1)] = ip;
+                ip++;
+            } else {
+                // 没有匹配，复制一个字面量
+                if (op >= outLen) {
+                    return 0;
+                }
+
+                lit++;
+                out[op++] = in[ip++];
+
+                if (lit == MAX_LIT) {
+                    out[op - lit - 1] = (byte) (lit - 1);
+                    lit = 0;
+                    op++;
+                }
+            }
+        }
+
+        // 剩下的最多3个字节
+        if (op + 3 > outLen) {
+            return 0;
+        }
+
+        while (ip < inLen) {
+            lit++;
+            out[op++] = in[ip++];
+
+            if (lit == MAX_LIT) {
+                out[op - lit - 1] = (byte) (lit - 1);
+                lit = 0;
+                op++;
+            }
+        }
+
+        out[op - lit - 1] = (byte) (lit - 1);
+        if (lit == 0) {
+            op--;
+        }
+
+        return op;
+    }
+
+    /**
+     * 解压in中[0, inLen)的数据，写入out的[0, outLen)
+     * @return 解压后的长度，输出空间不够或者数据损坏时返回0
+     */
+    public static int decompress(byte[] in, int inLen, byte[] out, int outLen) {
+        int ip = 0;
+        int op = 0;
+
+        while (ip < inLen) {
+            int ctrl = in[ip++] & 0xff;
+
+            if (ctrl < (1 << 5)) {
+                // 字面量
+                ctrl++;
+                if (op + ctrl > outLen || ip + ctrl > inLen) {
+                    return 0;
+                }
+                System.arraycopy(in, ip, out, op, ctrl);
+                ip += ctrl;
+                op += ctrl;
+            } else {
+                // 回溯引用
+                int len = ctrl >>> 5;
+                int ref = op - ((ctrl & 0x1f) << 8) - 1;
+
+                if (len == 7) {
+                    if (ip >= inLen) {
+                        return 0;
+                    }
+                    len += in[ip++] & 0xff;
+                }
+                if (ip >= inLen) {
+                    return 0;
+                }
+                ref -= in[ip++] & 0xff;
+
+                len += 2;
+                if (op + len > outLen || ref < 0) {
+                    return 0;
+                }
+
+                // 引用的范围可能与输出重叠，只能逐字节复制
+                for (int i = 0; i < len; i++) {
+                    out[op++] = out[ref++];
+                }
+            }
+        }
+
+        return op;
+    }
+}
@@ -0,0 +1,83 @@
+package utils;
+
+import java.security.SecureRandom;
+
+/**
+ * SipHash-1-2，与Redis的键空间使用的哈希函数相同
+ *
+ * 每次启动时随机生成128位的密钥，客户端无法构造出大量哈希冲突的键来拖慢字典（hash flooding），
+ * 因此同一个字节串在不同的进程中得到的哈希值不同，哈希值不能持久化
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public final class SipHash {
+    private static final long K0;
+    private static final long K1;
+
+    static {
+        SecureRandom random = new SecureRandom();
+        K0 = random.nextLong();
+        K1 = random.nextLong();
+    }
+
+    private SipHash() {
+        throw new InstantiationError("Must not instantiate this class");
+    }
+
+    /**
+     * 计算字节数组中[offset, offset + length)范围内数据的64位哈希值
+     * @param buf 字节数组
+     * @param offset 起始位置
+     * @param length 长度
+     * @return 哈希值
+     */
+    public static long hash(byte[] buf, int offset, int length) {
+        long v0 = 0x736f6d6570736575L ^ K0;
+        long v1 = 0x646f72616e646f6dL ^ K1;
+        long v2 = 0x6c7967656e657261L ^ K0;
+        long v3 = 0x7465646279746573L ^ K1;
+
+        // 按小端序每次读取8个字节，最后不足8字节的部分和长度一起组成最后一个块
+        int blocks = length >>> 3;
+        int pos = offset;
+        for (int i = 0; i <= blocks; i++) {
+            long m;
+            if (i < blocks) {
+                m = (buf[pos] & 0xffL)
+                    | (buf[pos + 1] & 0xffL) << 8
+                    | (buf[pos + 2] & 0xffL) << 16
+                    | (buf[pos + 3] & 0xffL) << 24
+                    | (buf[pos + 4] & 0xffL) << 32
+                    | (buf[pos + 5] & 0xffL) << 40
+                    | (buf[pos + 6] & 0xffL) << 48
+                    | (buf[pos + 7] & 0xffL) << 56;
+                pos += 8;
+            } else {
+                m = ((long) length) << 56;
+                for (int j = (length & 7) - 1; j >= 0; j--) {
+                    m |= (buf[pos + j] & 0xffL) << (j << 3);
+                }
+            }
+
+            // 每个块1轮压缩
+            v3 ^= m;
+            v0 += v1; v1 = Long.rotateLeft(v1, 13); v1 ^= v0; v0 = Long.rotateLeft(v0, 32);
+            v2 += v3; v3 = Long.rotateLeft(v3, 16); v3 ^= v2;
+            v0 += v3; v3 = Long.rotateLeft(v3, 21); v3 ^= v0;
+            v2 += v1; v1 = Long.rotateLeft(v1, 17); v1 ^= v2; v2 = Long.rotateLeft(v2, 32);
+            v0 ^= m;
+        }
+
+        // 2轮终结
+        v2 ^= 0xff;
+        for (int i = 0; i < 2; i++) {
+            v0 += v1; v1 = Long.rotateLeft(v1, 13); v1 ^= v0; v0 = Long.rotateLeft(v0, 32);
+            v2 += v3; v3 = Long.rotateLeft(v3, 16); v3 ^= v2;
+            v0 += v3; v3 = Long.rotateLeft(v3, 21); v3 ^= v0;
+            v2 += v1; v1 = Long.rotateLeft(v1, 17); v1 ^= v2; v2 = Long.rotateLeft(v2, 32);
+        }
+
+        return v0 ^ v1 ^ v2 ^ v3;
+    }
+}
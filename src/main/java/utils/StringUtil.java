@@ -205,6 +205,125 @@ public class StringUtil {
         return matcher.find();
     }
 
+    /**
+     * 将字节数组中[start, end)范围内的十进制数字解析为long，不创建任何中间对象
+     * 格式要求与Redis的string2ll一致：可以有负号，不能有正号、空格和多余的前导0
+     * @param buf 字节数组
+     * @param start 起始位置
+     * @param end 结束位置（不包括end）
+     * @return 解析出的整数
+     * @throws NumberFormatException 格式不正确或者超出long的范围
+     */
+    public static long parseLong(byte [] buf, int start, int end) {
+        int len = end - start;
+        if (len <= 0 || len > 20) {
+            throw new NumberFormatException("Invalid integer length " + len);
+        }
+
+        int index = start;
+        boolean negative = false;
+        if (buf[index] == '-') {
+            negative = true;
+            index++;
+            if (index == end) {
+                throw new NumberFormatException("Invalid integer: only a minus sign");
+            }
+        }
+
+        // 只有"0"本身可以以0开头
+        if (buf[index] == '0') {
+            if (len == 1) {
+                return 0;
+            }
+            throw new NumberFormatException("Invalid integer: leading zero");
+        }
+
+        // 按负数累加，这样Long.MIN_VALUE也可以被正确解析
+        long result = 0;
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multmin = limit / 10;
+        for (; index < end; index++) {
+            int digit = buf[index] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Invalid integer: illegal character");
+            }
+            if (result < multmin) {
+                throw new NumberFormatException("Invalid integer: overflow");
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw new NumberFormatException("Invalid integer: overflow");
+            }
+            result -= digit;
+        }
+
+        return negative ? result : -result;
+    }
+
+    /**
+     * 将long转换为十进制字符写入字节数组，不创建任何中间对象，与Redis的ll2string对应
+     * @param value 整数
+     * @param buf 目标数组，从offset开始至少要有20字节的空间
+     * @param offset 写入的起始位置
+     * @return 写入的字节数
+     */
+    public static int ll2string(long value, byte [] buf, int offset) {
+        // 按负数计算，这样Long.MIN_VALUE取反也不会溢出
+        boolean negative = value < 0;
+        long v = negative ? value : -value;
+
+        int len = negative ? 1 : 0;
+        long t = v;
+        do {
+            len++;
+            t /= 10;
+        } while (t != 0);
+
+        // 从低位开始倒着写
+        int pos = offset + len;
+        do {
+            buf[--pos] = (byte) ('0' - v % 10);
+            v /= 10;
+        } while (v != 0);
+
+        if (negative) {
+            buf[offset] = '-';
+        }
+
+        return len;
+    }
+
+    /**
+     * 将表示内存大小的字符串转换为字节数，与Redis的memtoll对应
+     * 支持的单位：b、k（1000）、kb（1024）、m、mb、g、gb，不区分大小写，没有单位时表示字节
+     * 比如 "100mb" 转换为 104857600
+     * @param str 内存大小
+     * @return 字节数
+     * @throws NumberFormatException 格式不正确
+     */
+    public static long memtoll(String str) {
+        String lower = str.trim().toLowerCase();
+        int unitStart = 0;
+        while (unitStart < lower.length() && (Character.isDigit(lower.charAt(unitStart)) || lower.charAt(unitStart) == '-')) {
+            unitStart++;
+        }
+
+        long mul;
+        switch (lower.substring(unitStart)) {
+            case "": case "b": mul = 1; break;
+            case "k": mul = 1000; break;
+            case "kb": mul = 1024; break;
+            case "m": mul = 1000L * 1000; break;
+            case "mb": mul = 1024L * 1024; break;
+            case "g": mul = 1000L * 1000 * 1000; break;
+            case "gb": mul = 1024L * 1024 * 1024; break;
+            default:
+                throw new NumberFormatException("Invalid memory unit in " + str);
+        }
+
+        return Math.multiplyExact(Long.parseLong(lower.substring(0, unitStart)), mul);
+    }
+
     public static String toQuoted(String str) {
         StringBuilder sb = new StringBuilder();
         int len = str.length();
@@ -0,0 +1,249 @@
+package client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketOption;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.SelectorProvider;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 测试用的套接字，不连接任何对端：
+ *   读：依次返回预先安排好的数据块，没有数据时返回0，设置了对端关闭之后返回-1
+ *   写：每次最多接受maxPerWrite字节，模拟发送缓冲区经常满的慢客户端，写入的内容可以取出检查
+ *
+ * 不能注册到选择器上，使用它的客户端不应该真正监听事件
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class StubSocketChannel extends SocketChannel {
+    private final Deque<ByteBuffer> reads = new ArrayDeque<>();
+    private boolean endOfStream;
+    private RuntimeException readFailure;
+    // 每次读取时目标缓冲区的剩余空间，即客户端请求读取的长度
+    private final List<Integer> readRequests = new ArrayList<>();
+    // 最近一次读取时的目标缓冲区
+    private ByteBuffer lastReadBuffer;
+    // 最近一次执行读取的线程
+    private volatile Thread readThread;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private int maxPerWrite;
+    // 一次聚集写交给套接字的最大字节数
+    private long maxOffered;
+
+    public StubSocketChannel() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxPerWrite 每次写最多接受的字节数
+     */
+    public StubSocketChannel(int maxPerWrite) {
+        super(SelectorProvider.provider());
+        this.maxPerWrite = maxPerWrite;
+    }
+
+    /**
+     * 安排一块数据，一次读取最多返回一块，目标缓冲区放不下时剩余部分留给下一次读取
+     */
+    public StubSocketChannel addRead(byte[] data) {
+        this.reads.addLast(ByteBuffer.wrap(data));
+        return this;
+    }
+
+    public StubSocketChannel addRead(String data) {
+        return addRead(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 安排的数据读完之后，模拟对端关闭连接
+     */
+    public void setEndOfStream() {
+        this.endOfStream = true;
+    }
+
+    /**
+     * 之后的读取都抛出指定的异常，模拟读取或者解析过程中的程序错误
+     */
+    public void setReadFailure(RuntimeException readFailure) {
+        this.readFailure = readFailure;
+    }
+
+    public List<Integer> getReadRequests() {
+        return this.readRequests;
+    }
+
+    public ByteBuffer getLastReadBuffer() {
+        return this.lastReadBuffer;
+    }
+
+    public Thread getReadThread() {
+        return this.readThread;
+    }
+
+    public void setMaxPerWrite(int maxPerWrite) {
+        this.maxPerWrite = maxPerWrite;
+    }
+
+    public long getMaxOffered() {
+        return this.maxOffered;
+    }
+
+    /**
+     * 已经写入的全部内容
+     */
+    public byte[] getWritten() {
+        return this.out.toByteArray();
+    }
+
+    public String getWrittenString() {
+        return new String(getWritten(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int read(ByteBuffer dst) {
+        this.readThread = Thread.currentThread();
+        if (this.readFailure != null) {
+            throw this.readFailure;
+        }
+
+        this.readRequests.add(dst.remaining());
+        this.lastReadBuffer = dst;
+
+        ByteBuffer chunk = this.reads.peekFirst();
+        if (chunk == null) {
+            return this.endOfStream ? -1 : 0;
+        }
+
+        int n = Math.min(chunk.remaining(), dst.remaining());
+        ByteBuffer slice = chunk.duplicate();
+        slice.limit(slice.position() + n);
+        dst.put(slice);
+        chunk.position(chunk.position() + n);
+        if (!chunk.hasRemaining()) {
+            this.reads.pollFirst();
+        }
+        return n;
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts, int offset, int length) {
+        long total = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int n = read(dsts[i]);
+            if (n <= 0) {
+                return total == 0 ? n : total;
+            }
+            total += n;
+        }
+        return total;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) {
+        long offered = 0;
+        for (int i = offset; i < offset + length; i++) {
+            offered += srcs[i].remaining();
+        }
+        this.maxOffered = Math.max(this.maxOffered, offered);
+
+        long written = 0;
+        for (int i = offset; i < offset + length && written < this.maxPerWrite; i++) {
+            int n = (int) Math.min(srcs[i].remaining(), this.maxPerWrite - written);
+            byte[] b = new byte[n];
+            srcs[i].get(b);
+            this.out.write(b, 0, n);
+            written += n;
+        }
+        return written;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        return (int) write(new ByteBuffer[] {src}, 0, 1);
+    }
+
+    @Override
+    public SocketChannel bind(SocketAddress local) {
+        return this;
+    }
+
+    @Override
+    public <T> SocketChannel setOption(SocketOption<T> name, T value) {
+        return this;
+    }
+
+    @Override
+    public <T> T getOption(SocketOption<T> name) {
+        return null;
+    }
+
+    @Override
+    public Set<SocketOption<?>> supportedOptions() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public SocketChannel shutdownInput() {
+        return this;
+    }
+
+    @Override
+    public SocketChannel shutdownOutput() {
+        return this;
+    }
+
+    @Override
+    public Socket socket() {
+        return null;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return true;
+    }
+
+    @Override
+    public boolean isConnectionPending() {
+        return false;
+    }
+
+    @Override
+    public boolean connect(SocketAddress remote) {
+        return true;
+    }
+
+    @Override
+    public boolean finishConnect() {
+        return true;
+    }
+
+    @Override
+    public SocketAddress getRemoteAddress() {
+        return null;
+    }
+
+    @Override
+    public SocketAddress getLocalAddress() {
+        return null;
+    }
+
+    @Override
+    protected void implCloseSelectableChannel() throws IOException {
+    }
+
+    @Override
+    protected void implConfigureBlocking(boolean block) throws IOException {
+    }
+}
@@ -0,0 +1,194 @@
+package client;
+
+import common.store.Sds;
+import junit.framework.Assert;
+import org.junit.Test;
+import protocol.RequestParser;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class TestPandisClient {
+    @Test
+    public void testWriteLargeReplyInSlices() {
+        // 客户端不属于任何反应堆，也没有服务器实例，不会监听写事件，由测试直接调用writeSocketData
+        StubSocketChannel channel = new StubSocketChannel(10000);
+        PandisClient client = PandisClient.createClient(channel);
+
+        byte[] big = new byte[PandisClient.MAX_WRITE_PER_EVENT * 5 + 123];
+        for (int i = 0; i < big.length; i++) {
+            big[i] = (byte) ('a' + i % 26);
+        }
+        client.addReply("+OK\r\n".getBytes(StandardCharsets.UTF_8));
+        client.addReplyBulk(Sds.createSds(big));
+        client.addReplyBulk(Sds.createSds(big));
+        client.addReplyLongLong(42);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        byte[] header = ("$" + big.length + "\r\n").getBytes(StandardCharsets.UTF_8);
+        expected.write("+OK\r\n".getBytes(StandardCharsets.UTF_8), 0, 5);
+        for (int i = 0; i < 2; i++) {
+            expected.write(header, 0, header.length);
+            expected.write(big, 0, big.length);
+            expected.write(new byte[] {'\r', '\n'}, 0, 2);
+        }
+        expected.write(":42\r\n".getBytes(StandardCharsets.UTF_8), 0, 5);
+
+        int calls = 0;
+        while (!client.isReplyEmpty()) {
+            Assert.assertTrue(client.writeSocketData() > 0);
+            calls++;
+        }
+
+        // 内容完整且有序，每次聚集写交给套接字的字节数不超过上限
+        Assert.assertTrue(Arrays.equals(expected.toByteArray(), channel.getWritten()));
+        Assert.assertTrue(channel.getMaxOffered() <= PandisClient.MAX_WRITE_PER_EVENT);
+        Assert.assertTrue(calls >= expected.size() / PandisClient.MAX_WRITE_PER_EVENT);
+    }
+
+    @Test
+    public void testReadIntoQueryBuffer() {
+        StubSocketChannel channel = new StubSocketChannel();
+        PandisClient client = PandisClient.createClient(channel);
+        channel.addRead("*1\r\n$4\r\nPING\r\n");
+
+        // 数据直接读入查询缓冲区的空余空间，读取之后增加查询缓冲区的长度
+        Assert.assertEquals(14, client.readSocketData());
+        Sds queryBuffer = client.getQueryBuffer();
+        Assert.assertSame(queryBuffer.getBufNoCopy(), channel.getLastReadBuffer().array());
+        Assert.assertEquals(14, queryBuffer.getLen());
+        Assert.assertEquals("*1\r\n$4\r\nPING\r\n", queryBuffer.toString());
+        Assert.assertEquals(PandisClient.IOBUF_MIN_LEN, (int) channel.getReadRequests().get(0));
+
+        // 没有数据时返回0，对端关闭时返回-1，查询缓冲区不变
+        Assert.assertEquals(0, client.readSocketData());
+        channel.setEndOfStream();
+        Assert.assertEquals(-1, client.readSocketData());
+        Assert.assertEquals(14, client.getQueryBuffer().getLen());
+    }
+
+    @Test
+    public void testRewrapReadBufferAfterExpand() {
+        StubSocketChannel channel = new StubSocketChannel();
+        PandisClient client = PandisClient.createClient(channel);
+        byte[] first = filled(PandisClient.IOBUF_MIN_LEN, 'a');
+        byte[] second = filled(PandisClient.IOBUF_MIN_LEN * 2, 'b');
+        channel.addRead(first).addRead(second);
+
+        Assert.assertEquals(first.length, client.readSocketData());
+        byte[] before = client.getQueryBuffer().getBufNoCopy();
+        Assert.assertSame(before, channel.getLastReadBuffer().array());
+
+        // 第二次读取需要更大的空间，查询缓冲区重新分配之后，读取使用新的底层数组
+        Assert.assertEquals(second.length, client.readSocketData());
+        byte[] after = client.getQueryBuffer().getBufNoCopy();
+        Assert.assertNotSame(before, after);
+        Assert.assertSame(after, channel.getLastReadBuffer().array());
+
+        Assert.assertEquals(first.length + second.length, client.getQueryBuffer().getLen());
+        for (int i = 0; i < first.length + second.length; i++) {
+            Assert.assertEquals(i < first.length ? 'a' : 'b', after[i]);
+        }
+    }
+
+    @Test
+    public void testAdjustReadLen() {
+        StubSocketChannel channel = new StubSocketChannel();
+        PandisClient client = PandisClient.createClient(channel);
+
+        // 每次都读满时读取长度加倍，直到上限
+        int[] full = {16, 32, 64, 128, 128};
+        for (int kb : full) {
+            channel.addRead(filled(kb * 1024, 'x'));
+        }
+        // 读到的数据不足四分之一时减半，直到下限
+        int[] small = {128, 64, 32, 16, 16};
+        for (int i = 0; i < small.length; i++) {
+            channel.addRead(filled(100, 'y'));
+        }
+
+        for (int i = 0; i < full.length + small.length; i++) {
+            Assert.assertTrue(client.readSocketData() > 0);
+        }
+
+        List<Integer> requests = channel.getReadRequests();
+        for (int i = 0; i < full.length; i++) {
+            Assert.assertEquals(full[i] * 1024, (int) requests.get(i));
+        }
+        for (int i = 0; i < small.length; i++) {
+            Assert.assertEquals(small[i] * 1024, (int) requests.get(full.length + i));
+        }
+        for (int len : requests) {
+            Assert.assertTrue(len >= PandisClient.IOBUF_MIN_LEN && len <= PandisClient.IOBUF_MAX_LEN);
+        }
+    }
+
+    @Test
+    public void testReadBigArgUpToItsEnd() {
+        StubSocketChannel channel = new StubSocketChannel();
+        PandisClient client = PandisClient.createClient(channel);
+
+        int bigLen = RequestParser.MBULK_BIG_ARG * 3;
+        byte[] header = ("*3\r\n$3\r\nSET\r\n$1\r\nk\r\n$" + bigLen + "\r\n").getBytes(StandardCharsets.UTF_8);
+        byte[] head = new byte[header.length + 20000];
+        System.arraycopy(header, 0, head, 0, header.length);
+        Arrays.fill(head, header.length, head.length, (byte) 'v');
+        byte[] tail = new byte[bigLen - 20000 + 2];
+        Arrays.fill(tail, (byte) 'v');
+        tail[tail.length - 2] = '\r';
+        tail[tail.length - 1] = '\n';
+        // 大参数后面紧跟着下一条流水线命令
+        channel.addRead(head).addRead(tail).addRead("*1\r\n$4\r\nPING\r\n");
+
+        // 第一次读取时还不知道有大参数，按正常长度读取，解析出参数长度之后大参数移动到查询缓冲区开头
+        Assert.assertEquals(PandisClient.IOBUF_MIN_LEN, client.readSocketData());
+        client.processInputBuffer();
+        Assert.assertEquals(bigLen, client.getBulkLen());
+        Assert.assertEquals(0, client.getQueryBufferPos());
+
+        // 之后每次最多只读到大参数的结尾
+        while (client.getQueryBuffer().getLen() < bigLen + 2) {
+            int remaining = bigLen + 2 - client.getQueryBuffer().getLen();
+            Assert.assertTrue(client.readSocketData() > 0);
+            List<Integer> requests = channel.getReadRequests();
+            Assert.assertEquals(remaining, (int) requests.get(requests.size() - 1));
+        }
+        Assert.assertEquals(bigLen + 2, client.getQueryBuffer().getLen());
+        Assert.assertEquals(3, channel.getReadRequests().size());
+
+        // 下一条命令还留在套接字中
+        client.resetClient();
+        client.getQueryBuffer().clear();
+        Assert.assertEquals(14, client.readSocketData());
+        Assert.assertEquals("*1\r\n$4\r\nPING\r\n", client.getQueryBuffer().toString());
+    }
+
+    @Test
+    public void testGetArgvSds() {
+        PandisClient client = PandisClient.createClient(null);
+        client.setQueryBuffer(Sds.createSds("*3\r\n$5\r\nLPUSH\r\n$4\r\nlist\r\n$1\r\na\r\n".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertTrue(RequestParser.processMultiBulkRequest(client));
+
+        // 只复制单个参数的切片，之后查询缓冲区被覆盖也不受影响
+        Sds key = client.getArgvSds(1);
+        Assert.assertEquals("list", key.toString());
+        Assert.assertNotSame(client.getQueryBuffer().getBufNoCopy(), key.getBufNoCopy());
+        client.getQueryBuffer().getBufNoCopy()[client.getArgvOffset(1)] = 'x';
+        Assert.assertEquals("list", key.toString());
+
+        // 参数对象数组已经创建时，直接返回其中的Sds
+        Assert.assertSame(client.getArgv()[2].getObj(), client.getArgvSds(2));
+    }
+
+    private static byte[] filled(int len, char c) {
+        byte[] b = new byte[len];
+        Arrays.fill(b, (byte) c);
+        return b;
+    }
+}
@@ -0,0 +1,80 @@
+package command;
+
+import client.PandisClient;
+import common.store.Sds;
+import junit.framework.Assert;
+import org.junit.Test;
+import protocol.RequestParser;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class TestCommandExecutor {
+    @Test
+    public void testLookupCommand() {
+        // 命令名可以位于字节数组的任意位置，不区分大小写
+        byte[] buf = "$3\r\nGeT\r\n".getBytes(StandardCharsets.UTF_8);
+        AbstractCommand get = CommandExecutor.lookupCommand(buf, 4, 3);
+        Assert.assertNotNull(get);
+        Assert.assertEquals("get", get.getName());
+        Assert.assertSame(get, CommandExecutor.lookupCommand("GET"));
+
+        Assert.assertNull(CommandExecutor.lookupCommand(buf, 4, 2));
+        Assert.assertNull(CommandExecutor.lookupCommand("gett"));
+        Assert.assertNull(CommandExecutor.lookupCommand(""));
+
+        for (AbstractCommand command : CommandExecutor.getCommands()) {
+            Assert.assertSame(command, CommandExecutor.lookupCommand(command.getName().toUpperCase()));
+        }
+    }
+
+    @Test
+    public void testParseFlags() {
+        Assert.assertEquals(AbstractCommand.CMD_WRITE | AbstractCommand.CMD_DENYOOM, AbstractCommand.parseFlags("wm"));
+        Assert.assertEquals(0, AbstractCommand.parseFlags(""));
+
+        AbstractCommand get = CommandExecutor.lookupCommand("get");
+        Assert.assertTrue(get.hasFlag(AbstractCommand.CMD_READONLY));
+        Assert.assertTrue(get.hasFlag(AbstractCommand.CMD_FAST));
+        Assert.assertFalse(get.hasFlag(AbstractCommand.CMD_WRITE));
+
+        try {
+            AbstractCommand.parseFlags("x");
+            Assert.fail("unknown flag should be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testCommandStats() {
+        AbstractCommand ping = CommandExecutor.lookupCommand("ping");
+        ping.resetStats();
+
+        final PandisClient client = PandisClient.createClient(null);
+        client.setQueryBuffer(Sds.createSds("*1\r\n$4\r\nPING\r\n*3\r\n$4\r\nPING\r\n$1\r\na\r\n$1\r\nb\r\n".getBytes(StandardCharsets.UTF_8)));
+
+        Assert.assertTrue(RequestParser.processMultiBulkRequest(client));
+        CommandExecutor.execute(ping, client);
+        client.resetClient();
+
+        // 参数过多时PING回复错误，算作一次执行失败
+        Assert.assertTrue(RequestParser.processMultiBulkRequest(client));
+        CommandExecutor.execute(ping, client);
+        ping.incrRejectedCalls();
+
+        Assert.assertEquals(2, ping.getCalls());
+        Assert.assertEquals(1, ping.getFailedCalls());
+        Assert.assertEquals(1, ping.getRejectedCalls());
+        Assert.assertTrue(ping.getMicrosecondsPerCall() >= 0);
+
+        CommandExecutor.resetCommandStats();
+        Assert.assertEquals(0, ping.getCalls());
+        Assert.assertEquals(0, ping.getFailedCalls());
+        Assert.assertEquals(0, ping.getRejectedCalls());
+        Assert.assertEquals(0, ping.getMicroseconds());
+    }
+}
@@ -0,0 +1,95 @@
+package command;
+
+import client.PandisClient;
+import common.store.Sds;
+import junit.framework.Assert;
+import org.junit.After;
+import org.junit.Test;
+import protocol.RequestParser;
+import server.config.ServerConfig;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class TestSlowLog {
+    @After
+    public void tearDown() {
+        SlowLog.getSlowLog().init(ServerConfig.DEFAULT_SLOWLOG_LOG_SLOWER_THAN, ServerConfig.DEFAULT_SLOWLOG_MAX_LEN);
+    }
+
+    @Test
+    public void testRingBuffer() {
+        SlowLog slowLog = SlowLog.getSlowLog();
+        slowLog.init(0, 2);
+
+        slowLog.pushEntryIfNeeded(parse("GET a\r\n"), 5_000);
+        slowLog.pushEntryIfNeeded(parse("GET b\r\n"), 6_000);
+        slowLog.pushEntryIfNeeded(parse("GET c\r\n"), 7_000);
+
+        // 只保留最新的两条，从新到旧排列
+        Assert.assertEquals(2, slowLog.len());
+        SlowLog.Entry newest = slowLog.getEntry(0);
+        Assert.assertEquals(2, newest.getId());
+        Assert.assertEquals(7, newest.getDuration());
+        Assert.assertEquals("c", argv(newest, 1));
+        Assert.assertEquals("b", argv(slowLog.getEntry(1), 1));
+        Assert.assertEquals("", newest.getClientAddress());
+
+        slowLog.reset();
+        Assert.assertEquals(0, slowLog.len());
+    }
+
+    @Test
+    public void testThreshold() {
+        SlowLog slowLog = SlowLog.getSlowLog();
+        slowLog.init(10, 4);
+        slowLog.pushEntryIfNeeded(parse("GET a\r\n"), 9_999);
+        Assert.assertEquals(0, slowLog.len());
+        slowLog.pushEntryIfNeeded(parse("GET a\r\n"), 10_000);
+        Assert.assertEquals(1, slowLog.len());
+
+        // 阈值为负数时不记录
+        slowLog.init(-1, 4);
+        slowLog.pushEntryIfNeeded(parse("GET a\r\n"), Long.MAX_VALUE);
+        Assert.assertEquals(0, slowLog.len());
+    }
+
+    @Test
+    public void testTruncateArgv() {
+        SlowLog slowLog = SlowLog.getSlowLog();
+        slowLog.init(0, 1);
+
+        StringBuilder request = new StringBuilder("MSET");
+        for (int i = 0; i < SlowLog.SLOWLOG_ENTRY_MAX_ARGC + 10; i++) {
+            request.append(' ').append(i);
+        }
+        StringBuilder longArg = new StringBuilder();
+        for (int i = 0; i < SlowLog.SLOWLOG_ENTRY_MAX_STRING + 20; i++) {
+            longArg.append('x');
+        }
+        request.setCharAt(5, 'y');
+        request.insert(5, longArg);
+        slowLog.pushEntryIfNeeded(parse(request + "\r\n"), 1_000);
+
+        SlowLog.Entry entry = slowLog.getEntry(0);
+        Assert.assertEquals(SlowLog.SLOWLOG_ENTRY_MAX_ARGC + 11, entry.getArgc());
+        Assert.assertEquals(SlowLog.SLOWLOG_ENTRY_MAX_ARGC - 1, entry.getStoredArgc());
+        Assert.assertEquals(SlowLog.SLOWLOG_ENTRY_MAX_STRING + 21, entry.getLength(1));
+        Assert.assertEquals(SlowLog.SLOWLOG_ENTRY_MAX_STRING, entry.getStoredLength(1));
+        Assert.assertEquals("MSET", argv(entry, 0));
+    }
+
+    private static PandisClient parse(String request) {
+        PandisClient client = PandisClient.createClient(null);
+        client.setQueryBuffer(Sds.createSds(request.getBytes(StandardCharsets.UTF_8)));
+        Assert.assertTrue(RequestParser.processInlineRequest(client));
+        return client;
+    }
+
+    private static String argv(SlowLog.Entry entry, int index) {
+        return new String(entry.getArgv(index), 0, entry.getStoredLength(index), StandardCharsets.UTF_8);
+    }
+}
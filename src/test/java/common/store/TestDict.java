@@ -0,0 +1,201 @@
+package common.store;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class TestDict {
+    @Test
+    public void testAddFindRemove() {
+        Dict<String, Integer> dict = Dict.createDict();
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertTrue(dict.add("key:" + i, i));
+        }
+        Assert.assertFalse(dict.add("key:1", -1));
+        Assert.assertEquals(Integer.valueOf(1), dict.put("key:1", 100));
+        Assert.assertNull(dict.put("key:1000", 1000));
+        Assert.assertEquals(1001, dict.size());
+
+        for (int i = 0; i <= 1000; i++) {
+            Assert.assertEquals(Integer.valueOf(i == 1 ? 100 : i), dict.get("key:" + i));
+        }
+        Assert.assertNull(dict.get("missing"));
+
+        for (int i = 0; i <= 1000; i += 2) {
+            Assert.assertEquals(Integer.valueOf(i == 1 ? 100 : i), dict.remove("key:" + i));
+        }
+        Assert.assertNull(dict.remove("key:0"));
+        Assert.assertEquals(500, dict.size());
+        Assert.assertFalse(dict.containsKey("key:2"));
+        Assert.assertTrue(dict.containsKey("key:3"));
+    }
+
+    @Test
+    public void testIncrementalRehash() {
+        Dict<Integer, Integer> dict = Dict.createDict();
+        for (int i = 0; i < 64; i++) {
+            dict.add(i, i);
+        }
+        while (dict.rehash(100)) {
+        }
+
+        // 节点数达到桶的数量时开始扩容，节点逐步迁移到新表
+        dict.add(64, 64);
+        Assert.assertTrue(dict.isRehashing());
+        Assert.assertEquals(64 + 128, dict.slots());
+
+        // rehash期间所有键都可以找到，每次操作迁移一个桶
+        for (int i = 0; i <= 64; i++) {
+            Assert.assertEquals(Integer.valueOf(i), dict.get(i));
+        }
+        Assert.assertTrue(dict.rehashNanoseconds(1_000_000_000L) >= 0);
+        Assert.assertFalse(dict.isRehashing());
+        Assert.assertEquals(128, dict.slots());
+        Assert.assertEquals(65, dict.size());
+
+        // 删除大部分键之后缩容
+        for (int i = 0; i < 60; i++) {
+            dict.remove(i);
+        }
+        Assert.assertTrue(dict.needsResize());
+        Assert.assertTrue(dict.resize());
+        while (dict.rehash(100)) {
+        }
+        Assert.assertEquals(8, dict.slots());
+        for (int i = 60; i <= 64; i++) {
+            Assert.assertEquals(Integer.valueOf(i), dict.get(i));
+        }
+    }
+
+    @Test
+    public void testSafeIterator() {
+        Dict<Integer, Integer> dict = Dict.createDict();
+        for (int i = 0; i < 100; i++) {
+            dict.add(i, i);
+        }
+        dict.expand(1024);
+        Assert.assertTrue(dict.isRehashing());
+
+        // 安全迭代器迭代期间暂停rehash，可以删除当前节点，rehash期间两个表的节点都会被迭代到
+        Set<Integer> seen = new HashSet<>();
+        Dict<Integer, Integer>.DictIterator iterator = dict.iterator(true);
+        while (iterator.hasNext()) {
+            Dict.Entry<Integer, Integer> entry = iterator.next();
+            Assert.assertTrue(seen.add(entry.getKey()));
+            dict.get(entry.getKey());
+            if (entry.getKey() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        Assert.assertEquals(100, seen.size());
+        Assert.assertEquals(50, dict.size());
+
+        // 迭代器释放之后rehash可以继续进行
+        while (dict.rehash(100)) {
+        }
+        Assert.assertFalse(dict.isRehashing());
+    }
+
+    @Test
+    public void testUnsafeIterator() {
+        Dict<Integer, Integer> dict = Dict.createDict();
+        for (int i = 0; i < 10; i++) {
+            dict.add(i, i);
+        }
+
+        int count = 0;
+        Dict<Integer, Integer>.DictIterator iterator = dict.iterator(false);
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+        Assert.assertEquals(10, count);
+
+        // 非安全迭代器迭代期间修改字典，释放时会被发现
+        iterator = dict.iterator(false);
+        iterator.next();
+        dict.remove(0);
+        try {
+            iterator.release();
+            Assert.fail("modification during unsafe iteration should be detected");
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Test
+    public void testRandomSampling() {
+        Dict<Integer, Integer> dict = Dict.createDict();
+        Assert.assertNull(dict.randomEntry());
+        for (int i = 0; i < 1000; i++) {
+            dict.add(i, i);
+        }
+        dict.expand(4096);
+
+        for (int i = 0; i < 100; i++) {
+            Dict.Entry<Integer, Integer> entry = dict.randomEntry();
+            Assert.assertEquals(entry.getKey(), dict.get(entry.getKey()));
+        }
+
+        Dict.Entry<Integer, Integer>[] samples = new Dict.Entry[16];
+        int sampled = dict.sampleEntries(samples, samples.length);
+        Assert.assertTrue(sampled > 0 && sampled <= samples.length);
+        for (int i = 0; i < sampled; i++) {
+            Assert.assertTrue(dict.containsKey(samples[i].getKey()));
+        }
+    }
+
+    /**
+     * 记录hashCode调用次数的键
+     */
+    private static final class CountingKey {
+        private static int hashCalls = 0;
+        private final String name;
+
+        private CountingKey(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public int hashCode() {
+            hashCalls++;
+            return this.name.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof CountingKey && ((CountingKey) other).name.equals(this.name);
+        }
+    }
+
+    @Test
+    public void testPrecomputedHash() {
+        Dict<CountingKey, Integer> dict = Dict.createDict();
+        Dict<CountingKey, Long> other = Dict.createDict();
+        for (int i = 0; i < 100; i++) {
+            dict.add(new CountingKey("key:" + i), i);
+        }
+
+        // 同一个键在两个字典中查找、添加、删除，只计算一次哈希
+        CountingKey key = new CountingKey("key:7");
+        CountingKey.hashCalls = 0;
+        int hash = Dict.hash(key);
+        Dict.Entry<CountingKey, Integer> entry = dict.find(key, hash);
+        Assert.assertEquals(Integer.valueOf(7), entry.getValue());
+        Assert.assertEquals(hash, entry.getHash());
+        Assert.assertNull(other.put(entry.getKey(), 1L, entry.getHash()));
+        Assert.assertEquals(Long.valueOf(1L), other.remove(key, hash));
+        Assert.assertEquals(Integer.valueOf(7), dict.remove(entry.getKey(), hash));
+        Assert.assertNull(dict.find(key, hash));
+        Assert.assertEquals(1, CountingKey.hashCalls);
+        Assert.assertEquals(99, dict.size());
+    }
+}
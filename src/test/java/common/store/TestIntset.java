@@ -0,0 +1,74 @@
+package common.store;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class TestIntset {
+    @Test
+    public void testUpgrade() {
+        Intset is = Intset.createIntset();
+        Assert.assertTrue(is.add(32));
+        Assert.assertFalse(is.add(32));
+        Assert.assertEquals(Intset.INTSET_ENC_INT16, is.getEncoding());
+        Assert.assertEquals(2, is.blobLen());
+
+        // 升级到int32，新元素加到尾部
+        Assert.assertTrue(is.add(65535));
+        Assert.assertEquals(Intset.INTSET_ENC_INT32, is.getEncoding());
+        Assert.assertEquals(8, is.blobLen());
+
+        // 升级到int64，负数加到头部
+        Assert.assertTrue(is.add(-4294967295L));
+        Assert.assertEquals(Intset.INTSET_ENC_INT64, is.getEncoding());
+        Assert.assertEquals(-4294967295L, is.get(0));
+        Assert.assertEquals(32, is.get(1));
+        Assert.assertEquals(65535, is.get(2));
+
+        Assert.assertTrue(is.add(Long.MIN_VALUE));
+        Assert.assertTrue(is.add(Long.MAX_VALUE));
+        Assert.assertTrue(is.find(Long.MIN_VALUE));
+        Assert.assertTrue(is.find(32));
+        Assert.assertFalse(is.find(33));
+
+        // 删除之后不降级
+        Assert.assertTrue(is.remove(Long.MAX_VALUE));
+        Assert.assertFalse(is.remove(Long.MAX_VALUE));
+        Assert.assertEquals(Intset.INTSET_ENC_INT64, is.getEncoding());
+        Assert.assertEquals(4, is.size());
+    }
+
+    @Test
+    public void testAgainstTreeSet() {
+        Random random = new Random(17);
+        Intset is = Intset.createIntset();
+        TreeSet<Long> expected = new TreeSet<>();
+        for (int i = 0; i < 20000; i++) {
+            long value;
+            switch (random.nextInt(3)) {
+                case 0: value = (short) random.nextInt(); break;
+                case 1: value = random.nextInt(); break;
+                default: value = random.nextLong(); break;
+            }
+            if (i > 0 && random.nextInt(4) == 0) {
+                value = expected.isEmpty() ? value : expected.first();
+                Assert.assertEquals(expected.remove(value), is.remove(value));
+            } else {
+                Assert.assertEquals(expected.add(value), is.add(value));
+            }
+        }
+
+        // 元素按从小到大的顺序保存
+        Assert.assertEquals(expected.size(), is.size());
+        int pos = 0;
+        for (long value : expected) {
+            Assert.assertEquals(value, is.get(pos++));
+        }
+    }
+}
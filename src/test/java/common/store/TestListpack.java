@@ -0,0 +1,91 @@
+package common.store;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class TestListpack {
+    @Test
+    public void testPushAndTraverse() {
+        Listpack lp = Listpack.createListpack();
+        // 不同长度的元素，长度前缀和backlen分别占1、2、3字节
+        int[] lens = {0, 1, 127, 128, 16383, 16384};
+        for (int len : lens) {
+            lp.append(bytes(len), 0, len);
+        }
+        lp.prepend(bytes(5), 0, 5);
+        Assert.assertEquals(7, lp.size());
+
+        int total = 0;
+        for (int len : lens) {
+            total += Listpack.entrySize(len);
+        }
+        Assert.assertEquals(total + Listpack.entrySize(5), lp.bytes());
+
+        // 正向遍历
+        int p = lp.first();
+        Assert.assertEquals(5, lp.entryLength(p));
+        for (int len : lens) {
+            p = lp.next(p);
+            Assert.assertEquals(len, lp.entryLength(p));
+            Assert.assertTrue(lp.entryEquals(p, bytes(len), 0, len));
+        }
+        Assert.assertEquals(-1, lp.next(p));
+
+        // 反向遍历
+        p = lp.last();
+        for (int i = lens.length - 1; i >= 0; i--) {
+            Assert.assertEquals(lens[i], lp.entryLength(p));
+            p = lp.prev(p);
+        }
+        Assert.assertEquals(5, lp.entryLength(p));
+        Assert.assertEquals(-1, lp.prev(p));
+
+        Assert.assertEquals(16384, lp.entryLength(lp.seek(-1)));
+        Assert.assertEquals(127, lp.entryLength(lp.seek(3)));
+        Assert.assertEquals(-1, lp.seek(7));
+    }
+
+    @Test
+    public void testFindReplaceDelete() {
+        Listpack lp = Listpack.createListpack();
+        String[] fields = {"a", "1", "b", "2", "1", "3"};
+        for (String f : fields) {
+            byte[] b = f.getBytes(StandardCharsets.UTF_8);
+            lp.append(b, 0, b.length);
+        }
+
+        // 跳过值，只和键比较："1"作为值出现在键"1"之前
+        byte[] one = "1".getBytes(StandardCharsets.UTF_8);
+        int p = lp.find(lp.first(), one, 0, 1, 1);
+        Assert.assertEquals(lp.seek(4), p);
+        Assert.assertEquals(lp.seek(1), lp.find(lp.first(), one, 0, 1, 0));
+
+        // 替换为更长的值，后面的元素跟着移动
+        byte[] longer = "a longer value".getBytes(StandardCharsets.UTF_8);
+        lp.replace(lp.next(p), longer, 0, longer.length);
+        Assert.assertEquals("a longer value", new String(lp.get(lp.seek(5)), StandardCharsets.UTF_8));
+        Assert.assertEquals("2", new String(lp.get(lp.seek(3)), StandardCharsets.UTF_8));
+
+        // 删除键值对
+        p = lp.delete(lp.seek(2));
+        p = lp.delete(p);
+        Assert.assertEquals(4, lp.size());
+        Assert.assertEquals("1", new String(lp.get(p), StandardCharsets.UTF_8));
+        Assert.assertEquals(-1, lp.delete(lp.last()));
+        Assert.assertEquals(3, lp.size());
+    }
+
+    private static byte[] bytes(int len) {
+        byte[] b = new byte[len];
+        for (int i = 0; i < len; i++) {
+            b[i] = (byte) (i * 31 + len);
+        }
+        return b;
+    }
+}
@@ -0,0 +1,109 @@
+package common.store;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class TestPHash {
+    private static Sds sds(String s) {
+        return Sds.createSds(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, String> toMap(PHash hash) {
+        Map<String, String> map = new HashMap<>();
+        PHash.HashIterator iter = hash.iterator();
+        while (iter.next()) {
+            map.put(new String(iter.getFieldBuf(), iter.getFieldOffset(), iter.getFieldLength(), StandardCharsets.UTF_8),
+                    new String(iter.getValueBuf(), iter.getValueOffset(), iter.getValueLength(), StandardCharsets.UTF_8));
+        }
+        return map;
+    }
+
+    @Test
+    public void testListpackEncoding() {
+        PHash hash = new PHash(4, 8);
+        Assert.assertTrue(hash.set(sds("a"), sds("1")));
+        Assert.assertTrue(hash.set(sds("b"), sds("")));
+        Assert.assertFalse(hash.set(sds("a"), sds("22")));
+        Assert.assertEquals(ObjectEncoding.LISTPACK, hash.getEncoding());
+        Assert.assertEquals(2, hash.size());
+        Assert.assertEquals("22", hash.get(sds("a")).toString());
+        Assert.assertEquals(0, hash.get(sds("b")).getLen());
+        Assert.assertNull(hash.get(sds("c")));
+
+        // 值和字段同名时只匹配字段
+        hash.set(sds("c"), sds("a"));
+        Assert.assertEquals("22", hash.get(sds("a")).toString());
+
+        Assert.assertTrue(hash.delete(sds("a")));
+        Assert.assertFalse(hash.delete(sds("a")));
+        Assert.assertEquals(2, hash.size());
+        Assert.assertEquals("a", hash.get(sds("c")).toString());
+    }
+
+    @Test
+    public void testConvertToDict() {
+        // 字段数量超过限制
+        PHash hash = new PHash(4, 8);
+        for (int i = 0; i < 4; i++) {
+            hash.set(sds("f" + i), sds("v" + i));
+        }
+        Assert.assertEquals(ObjectEncoding.LISTPACK, hash.getEncoding());
+        hash.set(sds("f4"), sds("v4"));
+        Assert.assertEquals(ObjectEncoding.HT, hash.getEncoding());
+        Assert.assertEquals(5, hash.size());
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals("v" + i, hash.get(sds("f" + i)).toString());
+        }
+
+        // 值的长度超过限制
+        hash = new PHash(4, 8);
+        hash.set(sds("a"), sds("1"));
+        hash.set(sds("b"), sds("123456789"));
+        Assert.assertEquals(ObjectEncoding.HT, hash.getEncoding());
+        Assert.assertEquals("1", hash.get(sds("a")).toString());
+        Assert.assertEquals(2, toMap(hash).size());
+
+        // 删除之后不再转换回来
+        hash.delete(sds("b"));
+        Assert.assertEquals(ObjectEncoding.HT, hash.getEncoding());
+    }
+
+    @Test
+    public void testAgainstHashMap() {
+        Random random = new Random(13);
+        PHash small = new PHash(64, 16);
+        Map<String, String> expected = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            String field = "field:" + random.nextInt(100);
+            if (random.nextInt(3) == 0) {
+                Assert.assertEquals(expected.remove(field) != null, small.delete(sds(field)));
+            } else {
+                String value = "v" + random.nextInt(1000);
+                Assert.assertEquals(expected.put(field, value) == null, small.set(sds(field), sds(value)));
+            }
+            Assert.assertEquals(expected.size(), small.size());
+        }
+        Assert.assertEquals(expected, toMap(small));
+
+        // 小哈希对象使用紧凑列表编码时内存明显更少
+        PHash packed = new PHash(64, 64);
+        PHash dict = new PHash(0, 64);
+        for (int i = 0; i < 50; i++) {
+            packed.set(sds("field:" + i), sds("value:" + i));
+            dict.set(sds("field:" + i), sds("value:" + i));
+        }
+        Assert.assertEquals(ObjectEncoding.LISTPACK, packed.getEncoding());
+        Assert.assertEquals(ObjectEncoding.HT, dict.getEncoding());
+        Assert.assertTrue(packed.memoryUsage() * 3 < dict.memoryUsage());
+        Assert.assertEquals(toMap(dict), toMap(packed));
+    }
+}
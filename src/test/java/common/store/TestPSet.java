@@ -0,0 +1,90 @@
+package common.store;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class TestPSet {
+    private static Sds sds(String s) {
+        return Sds.createSds(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Set<String> members(PSet set) {
+        Set<String> members = new HashSet<>();
+        PSet.SetIterator iter = set.iterator();
+        while (iter.next()) {
+            members.add(new String(iter.getBuf(), iter.getOffset(), iter.getLength(), StandardCharsets.UTF_8));
+        }
+        return members;
+    }
+
+    @Test
+    public void testIntsetEncoding() {
+        PSet set = new PSet(4);
+        Assert.assertTrue(set.add(sds("3")));
+        Assert.assertTrue(set.add(sds("-1")));
+        Assert.assertFalse(set.add(sds("3")));
+        Assert.assertEquals(ObjectEncoding.INTSET, set.getEncoding());
+        Assert.assertTrue(set.contains(sds("-1")));
+        // 不是规范的十进制整数，不会被当作整数
+        Assert.assertFalse(set.contains(sds("03")));
+        Assert.assertFalse(set.contains(sds("abc")));
+        Assert.assertFalse(set.remove(sds("abc")));
+
+        // 不是整数的成员
+        set.add(sds("03"));
+        Assert.assertEquals(ObjectEncoding.HT, set.getEncoding());
+        Assert.assertEquals(3, set.size());
+        Assert.assertTrue(set.contains(sds("3")));
+        Assert.assertTrue(set.contains(sds("03")));
+
+        // 成员数量超过限制
+        set = new PSet(4);
+        for (int i = 0; i < 4; i++) {
+            set.add(sds(String.valueOf(i)));
+        }
+        Assert.assertEquals(ObjectEncoding.INTSET, set.getEncoding());
+        set.add(sds("4"));
+        Assert.assertEquals(ObjectEncoding.HT, set.getEncoding());
+        Assert.assertEquals(5, members(set).size());
+    }
+
+    @Test
+    public void testPop() {
+        PSet set = new PSet();
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            set.add(sds(String.valueOf(i * 1000)));
+            expected.add(String.valueOf(i * 1000));
+        }
+        Assert.assertTrue(expected.contains(set.randomMember().toString()));
+        while (set.size() > 0) {
+            Assert.assertTrue(expected.remove(set.pop().toString()));
+        }
+        Assert.assertTrue(expected.isEmpty());
+        Assert.assertNull(set.pop());
+    }
+
+    @Test
+    public void testIntsetMemory() {
+        // 整数ID集合使用INTSET编码时，内存不到HT编码的十分之一
+        PSet ints = new PSet(100000);
+        PSet dict = new PSet(0);
+        for (int i = 0; i < 10000; i++) {
+            Sds member = sds(String.valueOf(1000000 + i * 7));
+            ints.add(member);
+            dict.add(member);
+        }
+        Assert.assertEquals(ObjectEncoding.INTSET, ints.getEncoding());
+        Assert.assertEquals(ObjectEncoding.HT, dict.getEncoding());
+        Assert.assertTrue(ints.memoryUsage() * 10 < dict.memoryUsage());
+        Assert.assertEquals(members(dict), members(ints));
+    }
+}
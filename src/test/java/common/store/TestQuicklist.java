@@ -0,0 +1,133 @@
+package common.store;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class TestQuicklist {
+    @Test
+    public void testPushPopAgainstDeque() {
+        Quicklist ql = Quicklist.createQuicklist(-1);
+        Deque<String> expected = new ArrayDeque<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 20000; i++) {
+            int op = random.nextInt(10);
+            if (op < 6) {
+                String value = "value:" + i;
+                byte[] b = value.getBytes(StandardCharsets.UTF_8);
+                if (random.nextBoolean()) {
+                    ql.pushHead(b, 0, b.length);
+                    expected.addFirst(value);
+                } else {
+                    ql.pushTail(b, 0, b.length);
+                    expected.addLast(value);
+                }
+            } else {
+                boolean head = random.nextBoolean();
+                byte[] b = ql.pop(head ? Quicklist.QUICKLIST_HEAD : Quicklist.QUICKLIST_TAIL);
+                String value = head ? expected.pollFirst() : expected.pollLast();
+                Assert.assertEquals(value, b == null ? null : new String(b, StandardCharsets.UTF_8));
+            }
+            Assert.assertEquals(expected.size(), ql.size());
+        }
+
+        // 按下标查找和迭代的结果都与双端队列一致
+        List<String> list = new ArrayList<>(expected);
+        for (int i = 0; i < list.size(); i += 97) {
+            Assert.assertEquals(list.get(i), new String(ql.index(i), StandardCharsets.UTF_8));
+            Assert.assertEquals(list.get(i), new String(ql.index(i - list.size()), StandardCharsets.UTF_8));
+        }
+        Assert.assertNull(ql.index(list.size()));
+
+        Quicklist.QuicklistIterator iter = ql.iterator(list.size() / 3);
+        for (int i = list.size() / 3; i < list.size(); i++) {
+            Assert.assertTrue(iter.next());
+            Assert.assertEquals(list.get(i), new String(iter.getBuf(), iter.getOffset(), iter.getLength(), StandardCharsets.UTF_8));
+        }
+        Assert.assertFalse(iter.next());
+        Assert.assertTrue(ql.nodeCount() > 1);
+    }
+
+    @Test
+    public void testFill() {
+        // 正数fill限制每个节点的元素数量
+        Quicklist ql = Quicklist.createQuicklist(4);
+        byte[] b = "x".getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < 10; i++) {
+            ql.pushTail(b, 0, b.length);
+        }
+        Assert.assertEquals(3, ql.nodeCount());
+
+        // 超过节点大小限制的元素单独放在一个节点中
+        ql = Quicklist.createQuicklist(-1);
+        byte[] big = new byte[5000];
+        ql.pushTail(b, 0, b.length);
+        ql.pushTail(big, 0, big.length);
+        ql.pushTail(b, 0, b.length);
+        Assert.assertEquals(3, ql.nodeCount());
+        Assert.assertEquals(5000, ql.index(1).length);
+
+        // 小元素的内存开销远小于每个元素一个对象
+        ql = Quicklist.createQuicklist(Quicklist.DEFAULT_FILL);
+        for (int i = 0; i < 100000; i++) {
+            byte[] v = ("item:" + i).getBytes(StandardCharsets.UTF_8);
+            ql.pushTail(v, 0, v.length);
+        }
+        Assert.assertTrue(ql.memoryUsage() < 100000 * 16);
+        while (ql.pop(Quicklist.QUICKLIST_HEAD) != null) {
+        }
+        Assert.assertEquals(0, ql.nodeCount());
+        Assert.assertEquals(Quicklist.QUICKLIST_OVERHEAD, ql.memoryUsage());
+    }
+
+    @Test
+    public void testCompress() {
+        Quicklist plain = Quicklist.createQuicklist(Quicklist.DEFAULT_FILL);
+        Quicklist ql = Quicklist.createQuicklist(Quicklist.DEFAULT_FILL, 1);
+        Deque<String> expected = new ArrayDeque<>();
+        for (int i = 0; i < 50000; i++) {
+            String value = "item:" + i;
+            byte[] b = value.getBytes(StandardCharsets.UTF_8);
+            plain.pushTail(b, 0, b.length);
+            ql.pushTail(b, 0, b.length);
+            expected.addLast(value);
+        }
+
+        // 除了头尾节点，中间节点都被压缩，内存明显减少
+        Assert.assertEquals(ql.nodeCount() - 2, ql.compressedNodeCount());
+        Assert.assertTrue(ql.memoryUsage() < plain.memoryUsage() / 2);
+
+        // 按下标查找和迭代都能读取压缩节点
+        List<String> list = new ArrayList<>(expected);
+        for (int i = 0; i < list.size(); i += 997) {
+            Assert.assertEquals(list.get(i), new String(ql.index(i), StandardCharsets.UTF_8));
+        }
+        Quicklist.QuicklistIterator iter = ql.iterator(0);
+        for (String value : list) {
+            Assert.assertTrue(iter.next());
+            Assert.assertEquals(value, new String(iter.getBuf(), iter.getOffset(), iter.getLength(), StandardCharsets.UTF_8));
+        }
+        Assert.assertFalse(iter.next());
+
+        // 从两端弹出时，进入两端范围的节点被解压
+        Random random = new Random(5);
+        while (!expected.isEmpty()) {
+            boolean head = random.nextBoolean();
+            byte[] b = ql.pop(head ? Quicklist.QUICKLIST_HEAD : Quicklist.QUICKLIST_TAIL);
+            Assert.assertEquals(head ? expected.pollFirst() : expected.pollLast(), new String(b, StandardCharsets.UTF_8));
+            Assert.assertEquals(Math.max(ql.nodeCount() - 2, 0), ql.compressedNodeCount());
+        }
+        Assert.assertEquals(Quicklist.QUICKLIST_OVERHEAD, ql.memoryUsage());
+    }
+}
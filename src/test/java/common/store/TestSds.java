@@ -71,4 +71,24 @@ public class TestSds {
         Assert.assertEquals("abcdefghefghfg", s1.cat(str2, 1, 2).toString());
         Assert.assertEquals("abcdefghefghfgfgh", s1.cat(str2, 1, 8).toString());
     }
+
+    @Test
+    public void testEqualsAndHashCode() {
+        byte [] str = {'k','e','y',':','1','2','3','4','5'};
+        Sds s1 = Sds.createSds(str);
+        Sds s2 = Sds.createSds(64, str);
+
+        // 只按内容比较，与空闲空间无关
+        Assert.assertEquals(s1, s2);
+        Assert.assertEquals(s1.hashCode(), s2.hashCode());
+        Assert.assertEquals(0, s1.compareTo(s2));
+
+        s2.append((byte) '6');
+        Assert.assertFalse(s1.equals(s2));
+        Assert.assertTrue(s1.compareTo(s2) < 0);
+        Assert.assertTrue(s2.compareTo(s1) > 0);
+
+        // 按无符号字节比较
+        Assert.assertTrue(Sds.createSds(new byte[] {(byte) 0xff}).compareTo(Sds.createSds(new byte[] {1})) > 0);
+    }
 }
@@ -4,8 +4,18 @@ import junit.framework.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * @description:
@@ -24,25 +34,148 @@ public class TestEventLoop {
 
     @Test
     public void testGetNearestTimer() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+        EventLoop loop = EventLoop.createEventLoop();
+        long base = System.nanoTime() + 60_000_000_000L;
 
         for (int i = 0; i < 10; i++) {
-            TimeEvent e = new TimeEvent(i, 10 - i, i * 10, new TimeProcedure() {
+            TimeEvent e = new TimeEvent(i, base + (10 - i) * 1000L + i * 10, new TimeProcedure() {
                 @Override
                 public int process(Object data) {
                     System.out.println("....");
                     return 0;
                 }
             });
-            eventLoop.registerTimeEvent(e);
+            loop.registerTimeEvent(e);
         }
 
+        TimeEvent nearestTimer = invokeGetNearestTimer(loop);
+        Assert.assertEquals(9, nearestTimer.getId());
+        Assert.assertEquals(base + 1090, nearestTimer.getWhen());
+
+        // 删除最近的事件之后，次近的事件成为堆顶
+        Assert.assertTrue(loop.deleteTimeEvent(nearestTimer));
+        Assert.assertEquals(8, invokeGetNearestTimer(loop).getId());
+    }
+
+    @Test
+    public void testProcessTimeEvents() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+        final AtomicInteger onceFired = new AtomicInteger();
+        final AtomicInteger periodicFired = new AtomicInteger();
+        final AtomicInteger finalized = new AtomicInteger();
+
+        eventLoop.createTimeEvent(0, data -> {
+            onceFired.incrementAndGet();
+            return EventLoop.NO_MORE;
+        }, null, data -> finalized.incrementAndGet());
+
+        eventLoop.createTimeEvent(0, data -> {
+            periodicFired.incrementAndGet();
+            return 0;
+        }, null, null);
+
+        TimeEvent never = eventLoop.createTimeEvent(0, data -> {
+            Assert.fail("deleted time event should not fire");
+            return EventLoop.NO_MORE;
+        }, null, data -> finalized.incrementAndGet());
+        eventLoop.deleteTimeEvent(never);
+
+        Method processEvents = EventLoop.class.getDeclaredMethod("processEvents");
+        processEvents.setAccessible(true);
+        for (int i = 0; i < 3; i++) {
+            processEvents.invoke(eventLoop);
+        }
+        processEvents.setAccessible(false);
+
+        Assert.assertEquals(1, onceFired.get());
+        Assert.assertEquals(3, periodicFired.get());
+        Assert.assertEquals(2, finalized.get());
+    }
+
+    @Test
+    public void testSubmit() throws InterruptedException {
+        EventLoop loop = EventLoop.createEventLoop();
+        Thread loopThread = new Thread(loop::eventLoopMain, "test-event-loop");
+        loopThread.start();
+
+        // 事件循环没有任何事件，阻塞在select上，提交任务后应该被唤醒并在事件循环线程中执行任务
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Thread> executor = new AtomicReference<>();
+        loop.submit(() -> {
+            executor.set(Thread.currentThread());
+            latch.countDown();
+        });
+
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertSame(loopThread, executor.get());
+
+        loop.stop();
+        loopThread.join(5000);
+        Assert.assertFalse(loopThread.isAlive());
+    }
+
+    @Test
+    public void testProcessFileEvents() throws IOException, NoSuchMethodException, InvocationTargetException, IllegalAccessException, InterruptedException {
+        EventLoop loop = EventLoop.createEventLoop();
+
+        ServerSocketChannel listener = ServerSocketChannel.open();
+        listener.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+        SocketChannel peer = SocketChannel.open(listener.socket().getLocalSocketAddress());
+        SocketChannel channel = listener.accept();
+        channel.configureBlocking(false);
+
+        final AtomicInteger readFired = new AtomicInteger();
+        final AtomicInteger writeFired = new AtomicInteger();
+        Object clientData = new Object();
+
+        loop.registerFileEvent(channel, SelectionKey.OP_READ, (server, key, data) -> {
+            Assert.assertSame(clientData, data);
+            readFired.incrementAndGet();
+            try {
+                ((SocketChannel) key.channel()).read(ByteBuffer.allocate(16));
+            } catch (IOException e) {
+                Assert.fail(e.getMessage());
+            }
+            return true;
+        }, clientData);
+        loop.registerFileEvent(channel, SelectionKey.OP_WRITE, (server, key, data) -> {
+            writeFired.incrementAndGet();
+            return true;
+        }, clientData);
+
+        FileEvent fileEvent = loop.getFileEvent(channel);
+        Assert.assertEquals(SelectionKey.OP_READ | SelectionKey.OP_WRITE, fileEvent.getInterestSet());
+
+        // 对端写入数据之后，channel既可读又可写，一次分发应该同时调用读、写两个处理器
+        peer.write(ByteBuffer.wrap("ping".getBytes()));
+        Thread.sleep(50);
+
+        Method processEvents = EventLoop.class.getDeclaredMethod("processEvents");
+        processEvents.setAccessible(true);
+        processEvents.invoke(loop);
+        processEvents.setAccessible(false);
+
+        Assert.assertEquals(1, readFired.get());
+        Assert.assertEquals(1, writeFired.get());
+
+        // 删除所有事件之后，FileEvent结构也从key上移除
+        SelectionKey key = channel.keyFor(loop.getSelector());
+        loop.unregisterFileEvent(key, SelectionKey.OP_WRITE);
+        Assert.assertEquals(SelectionKey.OP_READ, loop.getFileEvent(channel).getInterestSet());
+        loop.unregisterFileEvent(key, SelectionKey.OP_READ);
+        Assert.assertNull(loop.getFileEvent(channel));
+
+        channel.close();
+        peer.close();
+        listener.close();
+    }
+
+    private static TimeEvent invokeGetNearestTimer(EventLoop loop) throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
         Class<EventLoop> clazz = EventLoop.class;
         Method declaredMethod = clazz.getDeclaredMethod("getNearestTimer");
         declaredMethod.setAccessible(true);
-        Object invoke = declaredMethod.invoke(eventLoop);
+        Object invoke = declaredMethod.invoke(loop);
         declaredMethod.setAccessible(false);
 
-        TimeEvent nearestTimer = (TimeEvent)invoke;
-        Assert.assertEquals("1:90", nearestTimer.getWhenSec() + ":" + nearestTimer.getWhenMs());
+        return (TimeEvent) invoke;
     }
 }
@@ -0,0 +1,222 @@
+package protocol;
+
+import client.PandisClient;
+import common.store.ObjectType;
+import common.store.Sds;
+import common.store.StoreObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多条查询解析的微基准测试：比较基于切片的解析器与原来逐个参数创建字符串对象的解析器
+ *
+ * 每次调用解析一批流水线命令（pipeline条SET key value），结果为每批命令的平均耗时
+ * inlineParser以内联格式解析同样的命令，用来对比两种格式的开销
+ * 运行方式：
+ *     mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *     java -cp target/test-classes:target/classes:$(cat target/cp.txt) protocol.RequestParserBenchmark
+ *
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestParserBenchmark {
+    // 一次读取中包含的命令数量
+    @Param({"1", "16", "128"})
+    private int pipeline;
+
+    // value的长度
+    @Param({"16", "1024"})
+    private int valueSize;
+
+    private byte[] requests;
+    private byte[] inlineRequests;
+    private PandisClient client;
+    private LegacyMultiBulkParser legacy;
+
+    @Setup
+    public void setup() {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < this.valueSize; i++) {
+            value.append((char) ('a' + i % 26));
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < this.pipeline; i++) {
+            String key = "key:" + i;
+            sb.append("*3\r\n$3\r\nSET\r\n")
+              .append('$').append(key.length()).append("\r\n").append(key).append("\r\n")
+              .append('$').append(value.length()).append("\r\n").append(value).append("\r\n");
+        }
+        this.requests = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+        StringBuilder inline = new StringBuilder();
+        for (int i = 0; i < this.pipeline; i++) {
+            inline.append("SET key:").append(i).append(' ').append(value).append("\r\n");
+        }
+        this.inlineRequests = inline.toString().getBytes(StandardCharsets.UTF_8);
+
+        this.client = PandisClient.createClient(null);
+        this.legacy = new LegacyMultiBulkParser();
+    }
+
+    @Benchmark
+    public void sliceParser(Blackhole bh) {
+        Sds queryBuffer = this.client.getQueryBuffer();
+        queryBuffer.clear();
+        queryBuffer.cat(this.requests);
+        this.client.setQueryBufferPos(0);
+
+        while (this.client.getQueryBufferPos() < queryBuffer.getLen()) {
+            if (!RequestParser.processMultiBulkRequest(this.client)) {
+                throw new IllegalStateException("incomplete request");
+            }
+            bh.consume(this.client.getArgvLength(this.client.getArgc() - 1));
+            this.client.resetClient();
+        }
+    }
+
+    @Benchmark
+    public void sliceParserMaterializeArgv(Blackhole bh) {
+        Sds queryBuffer = this.client.getQueryBuffer();
+        queryBuffer.clear();
+        queryBuffer.cat(this.requests);
+        this.client.setQueryBufferPos(0);
+
+        while (this.client.getQueryBufferPos() < queryBuffer.getLen()) {
+            if (!RequestParser.processMultiBulkRequest(this.client)) {
+                throw new IllegalStateException("incomplete request");
+            }
+            bh.consume(this.client.getArgv());
+            this.client.resetClient();
+        }
+    }
+
+    @Benchmark
+    public void inlineParser(Blackhole bh) {
+        Sds queryBuffer = this.client.getQueryBuffer();
+        queryBuffer.clear();
+        queryBuffer.cat(this.inlineRequests);
+        this.client.setQueryBufferPos(0);
+
+        while (this.client.getQueryBufferPos() < queryBuffer.getLen()) {
+            if (!RequestParser.processInlineRequest(this.client)) {
+                throw new IllegalStateException("incomplete request");
+            }
+            bh.consume(this.client.getArgvLength(this.client.getArgc() - 1));
+            this.client.resetClient();
+        }
+    }
+
+    @Benchmark
+    public void legacyParser(Blackhole bh) {
+        Sds queryBuffer = this.legacy.queryBuffer;
+        queryBuffer.clear();
+        queryBuffer.cat(this.requests);
+
+        while (!queryBuffer.isEmpty()) {
+            if (!this.legacy.process()) {
+                throw new IllegalStateException("incomplete request");
+            }
+            bh.consume(this.legacy.argv);
+            this.legacy.reset();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RequestParserBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+    /**
+     * 原来的多条查询解析逻辑，作为基准：
+     * 参数长度通过String和Integer.parseInt解析，参数经过getBuf()复制、String转码后创建，
+     * argv每增加一个参数就重新分配一次，每解析完一条命令就移动一次查询缓冲区
+     */
+    private static final class LegacyMultiBulkParser {
+        private final Sds queryBuffer = Sds.newEmptySds();
+        private StoreObject[] argv = new StoreObject[0];
+        private int multiBulkLen = 0;
+        private int bulkLen = -1;
+
+        void reset() {
+            this.argv = new StoreObject[0];
+            this.multiBulkLen = 0;
+            this.bulkLen = -1;
+        }
+
+        boolean process() {
+            int index;
+            int pos = 0;
+            int requestItemNum;
+
+            if (this.multiBulkLen == 0) {
+                index = this.queryBuffer.indexOf('\r');
+                if (index == -1 || index > this.queryBuffer.getLen() - 2) {
+                    return false;
+                }
+
+                requestItemNum = Integer.parseInt(new String(this.queryBuffer.getBufNoCopy(), 1, index - 1));
+                pos = index + 2;
+                this.multiBulkLen = requestItemNum;
+            }
+
+            while (this.multiBulkLen > 0) {
+                if (this.bulkLen == -1) {
+                    index = this.queryBuffer.indexOf(pos, '\r');
+                    if (index == -1 || index > this.queryBuffer.getLen() - 2) {
+                        break;
+                    }
+
+                    requestItemNum = Integer.parseInt(new String(this.queryBuffer.getBufNoCopy(), pos + 1, index - pos - 1));
+                    pos = index + 2;
+                    this.bulkLen = requestItemNum;
+                }
+
+                if (this.queryBuffer.getLen() - pos < this.bulkLen + 2) {
+                    break;
+                }
+
+                StoreObject[] storeObject = new StoreObject[this.argv.length + 1];
+                System.arraycopy(this.argv, 0, storeObject, 0, this.argv.length);
+                storeObject[storeObject.length - 1] = new StoreObject(ObjectType.STRING,
+                        Sds.createSds(new String(this.queryBuffer.getBuf(), pos, this.bulkLen).getBytes(StandardCharsets.UTF_8)));
+                this.argv = storeObject;
+                pos += this.bulkLen + 2;
+
+                this.bulkLen = -1;
+                this.multiBulkLen--;
+            }
+
+            if (pos > 0) {
+                this.queryBuffer.cut(pos, this.queryBuffer.getLen());
+            }
+
+            return this.multiBulkLen == 0;
+        }
+    }
+}
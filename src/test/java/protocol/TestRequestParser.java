@@ -3,10 +3,9 @@ package protocol;
 import client.PandisClient;
 import common.store.Sds;
 import common.store.StoreObject;
+import junit.framework.Assert;
 import org.junit.Test;
 
-import java.io.IOException;
-import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
 
 /**
@@ -19,24 +18,146 @@ import java.nio.charset.StandardCharsets;
 public class TestRequestParser {
     @Test
     public void testProcessInlineRequest() {
-        Sds s = Sds.createSds("SET msg hello \r\n ".getBytes(StandardCharsets.UTF_8));
-        System.out.println(s.toString());
+        final PandisClient client = PandisClient.createClient(null);
+        client.setQueryBuffer(Sds.createSds("SET msg hello \r\nGET msg\n".getBytes(StandardCharsets.UTF_8)));
+
+        Assert.assertTrue(RequestParser.processInlineRequest(client));
+        assertArgv(client, "SET", "msg", "hello");
+        client.resetClient();
 
-//        RequestProcessor.processInlineRequestTest(s);
+        Assert.assertTrue(RequestParser.processInlineRequest(client));
+        assertArgv(client, "GET", "msg");
+        Assert.assertEquals(client.getQueryBuffer().getLen(), client.getQueryBufferPos());
     }
 
     @Test
-    public void testProcessMultiBulkRequest() throws IOException {
-        final SocketChannel socketChannel = SocketChannel.open();
+    public void testProcessInlineRequestWithQuotes() {
+        final PandisClient client = PandisClient.createClient(null);
+        client.setQueryBuffer(Sds.createSds("set \"a b\" 'it\\'s' \"\\x41\\n\" \"\"\r\nset \"unbalanced\r\n".getBytes(StandardCharsets.UTF_8)));
+
+        // 引号中的内容作为一个参数，转义字符被原地解码，空引号是一个空参数
+        Assert.assertTrue(RequestParser.processInlineRequest(client));
+        assertArgv(client, "set", "a b", "it's", "A\n", "");
+        Assert.assertEquals(0, client.getArgvOffset(0));
+        client.resetClient();
+
+        Assert.assertFalse(RequestParser.processInlineRequest(client));
+        Assert.assertTrue(client.hasFlags(PandisClient.CLIENT_CLOSE_AFTER_REPLY));
+    }
+
+    @Test
+    public void testProcessMultiBulkRequest() {
         final PandisClient client = PandisClient.createClient(null);
         final Sds sds = Sds.createSds("*3\r\n$3\r\nSET\r\n$3\r\nMSG\r\n$5\r\nHELLO\r\n".getBytes(StandardCharsets.UTF_8));
         client.setQueryBuffer(sds);
 
-//        RequestProcessor.processMultiBulkRequestTest(client);
-        final StoreObject[] argv = client.getArgv();
-        for(int i = 0; i < argv.length; i++){
-            System.out.println(argv[i].getObj().toString());
+        Assert.assertTrue(RequestParser.processMultiBulkRequest(client));
+        assertArgv(client, "SET", "MSG", "HELLO");
+        Assert.assertEquals(sds.getLen(), client.getQueryBufferPos());
+    }
+
+    @Test
+    public void testProcessPipelinedMultiBulkRequest() {
+        final PandisClient client = PandisClient.createClient(null);
+        client.setQueryBuffer(Sds.createSds("*1\r\n$4\r\nPING\r\n*0\r\n*2\r\n$3\r\nGET\r\n$1\r\nk\r\n".getBytes(StandardCharsets.UTF_8)));
+
+        // 一次读取中的多条命令依次解析，解析位置不断后移，查询缓冲区的内容不会被移动
+        Assert.assertTrue(RequestParser.processMultiBulkRequest(client));
+        assertArgv(client, "PING");
+        client.resetClient();
+
+        Assert.assertTrue(RequestParser.processMultiBulkRequest(client));
+        Assert.assertEquals(0, client.getArgc());
+        client.resetClient();
+
+        Assert.assertTrue(RequestParser.processMultiBulkRequest(client));
+        assertArgv(client, "GET", "k");
+        Assert.assertEquals(client.getQueryBuffer().getLen(), client.getQueryBufferPos());
+    }
+
+    @Test
+    public void testProcessPartialMultiBulkRequest() {
+        final PandisClient client = PandisClient.createClient(null);
+        byte[] request = "*3\r\n$3\r\nSET\r\n$3\r\nkey\r\n$10\r\n0123456789\r\n".getBytes(StandardCharsets.UTF_8);
+
+        // 数据逐字节到达，直到最后一个字节到达才能解析出完整的命令
+        for (int i = 0; i < request.length; i++) {
+            client.getQueryBuffer().append(request[i]);
+            boolean done = RequestParser.processMultiBulkRequest(client);
+            Assert.assertEquals(i == request.length - 1, done);
+        }
+        assertArgv(client, "SET", "key", "0123456789");
+    }
+
+    @Test
+    public void testTrimQueryBuffer() {
+        final PandisClient client = PandisClient.createClient(null);
+        // 第一条命令使用一个不存在的命令，执行时只会回复错误，不需要服务器实例
+        client.setQueryBuffer(Sds.createSds("*1\r\n$4\r\nNOOP\r\n*2\r\n$3\r\nGET\r\n$1".getBytes(StandardCharsets.UTF_8)));
+
+        // 执行完第一条命令之后，删除已解析的内容，但是保留第二条命令已解析的参数
+        client.processInputBuffer();
+        Assert.assertEquals("GET\r\n$1", client.getQueryBuffer().toString());
+        Assert.assertEquals(1, client.getArgc());
+
+        client.getQueryBuffer().cat("\r\nk\r\n".getBytes(StandardCharsets.UTF_8));
+        Assert.assertTrue(RequestParser.processMultiBulkRequest(client));
+        assertArgv(client, "GET", "k");
+    }
+
+    @Test
+    public void testProtocolError() {
+        final PandisClient client = PandisClient.createClient(null);
+        client.setQueryBuffer(Sds.createSds("*2\r\n?3\r\nGET\r\n".getBytes(StandardCharsets.UTF_8)));
+
+        Assert.assertFalse(RequestParser.processMultiBulkRequest(client));
+        Assert.assertTrue(client.hasFlags(PandisClient.CLIENT_CLOSE_AFTER_REPLY));
+
+        final PandisClient other = PandisClient.createClient(null);
+        other.setQueryBuffer(Sds.createSds("*abc\r\n".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertFalse(RequestParser.processMultiBulkRequest(other));
+        Assert.assertTrue(other.hasFlags(PandisClient.CLIENT_CLOSE_AFTER_REPLY));
+    }
+
+    @Test
+    public void testProcessBigArgRequest() {
+        final PandisClient client = PandisClient.createClient(null);
+        final int bigLen = RequestParser.MBULK_BIG_ARG + 100;
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < bigLen; i++) {
+            value.append((char) ('a' + i % 26));
         }
+        byte[] valueBytes = (value + "\r\n").getBytes(StandardCharsets.UTF_8);
 
+        // 先到达命令头和大参数的一部分
+        client.setQueryBuffer(Sds.createSds(("*1\r\n$4\r\nPING\r\n*3\r\n$3\r\nSET\r\n$3\r\nkey\r\n$" + bigLen + "\r\n").getBytes(StandardCharsets.UTF_8)));
+        client.getQueryBuffer().cat(valueBytes, 0, 10);
+        Assert.assertTrue(RequestParser.processMultiBulkRequest(client));
+        client.resetClient();
+        Assert.assertFalse(RequestParser.processMultiBulkRequest(client));
+
+        // 大参数被移到查询缓冲区的开头，缓冲区的大小正好能放下参数和\r\n
+        Sds queryBuffer = client.getQueryBuffer();
+        Assert.assertEquals(0, client.getQueryBufferPos());
+        Assert.assertEquals(10, queryBuffer.getLen());
+        Assert.assertEquals(bigLen + 2, queryBuffer.size());
+        byte[] bigBuf = queryBuffer.getBufNoCopy();
+
+        // 剩余内容到达之后，查询缓冲区直接成为参数，不再复制
+        queryBuffer.cat(valueBytes, 10, valueBytes.length - 10);
+        Assert.assertTrue(RequestParser.processMultiBulkRequest(client));
+        Assert.assertSame(bigBuf, client.getArgvBuffer(2));
+        Assert.assertNotSame(queryBuffer, client.getQueryBuffer());
+        Assert.assertEquals(0, client.getQueryBuffer().getLen());
+        assertArgv(client, "SET", "key", value.toString());
+        Assert.assertSame(bigBuf, ((Sds) client.getArgv()[2].getObj()).getBufNoCopy());
+    }
+
+    private static void assertArgv(PandisClient client, String... expected) {
+        Assert.assertEquals(expected.length, client.getArgc());
+        StoreObject[] argv = client.getArgv();
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(expected[i], argv[i].getObj().toString());
+        }
     }
 }
@@ -0,0 +1,165 @@
+package server;
+
+import common.store.ObjectType;
+import common.store.Sds;
+import common.store.StoreObject;
+import junit.framework.Assert;
+import org.junit.After;
+import org.junit.Test;
+import server.config.ServerConfig;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class TestEvict {
+    @After
+    public void restoreLruClock() {
+        StoreObject.setLfuEnabled(false);
+        StoreObject.updateLruClock(System.currentTimeMillis());
+    }
+
+    @Test
+    public void testAllkeysLru() {
+        long now = System.currentTimeMillis();
+        PandisDatabase db = new PandisDatabase(0);
+        PandisDatabase[] databases = { db };
+
+        // 前一半的键在100秒之前访问过，后一半的键刚刚访问过
+        StoreObject.updateLruClock(now - 100_000);
+        for (int i = 0; i < 500; i++) {
+            db.setKey(sds("key:" + i), new StoreObject(ObjectType.STRING, sds("value:" + i)));
+        }
+        StoreObject.updateLruClock(now);
+        for (int i = 500; i < 1000; i++) {
+            db.setKey(sds("key:" + i), new StoreObject(ObjectType.STRING, sds("value:" + i)));
+        }
+
+        long used = db.getUsedMemory();
+        long maxmemory = used * 6 / 10;
+        Evict evict = new Evict(config(maxmemory, ServerConfig.MAXMEMORY_ALLKEYS_LRU), databases);
+        Assert.assertEquals(Evict.EVICT_OK, evict.performEvictions());
+        Assert.assertTrue(db.getUsedMemory() <= maxmemory);
+        Assert.assertEquals(1000 - db.size(), evict.getEvictedKeys());
+
+        // 取样淘汰是近似的，但是刚访问过的键几乎都应该保留下来
+        int recent = 0;
+        for (int i = 500; i < 1000; i++) {
+            if (db.exists(sds("key:" + i))) {
+                recent++;
+            }
+        }
+        Assert.assertTrue("recent keys kept: " + recent, recent >= 450);
+    }
+
+    @Test
+    public void testAllkeysLfu() {
+        StoreObject.setLfuEnabled(true);
+        PandisDatabase db = new PandisDatabase(0, config(0, ServerConfig.MAXMEMORY_ALLKEYS_LFU));
+        PandisDatabase[] databases = { db };
+        for (int i = 0; i < 1000; i++) {
+            db.setKey(sds("key:" + i), new StoreObject(ObjectType.STRING, sds("value:" + i)));
+        }
+
+        // 后一半的键经常被访问
+        for (int n = 0; n < 100; n++) {
+            for (int i = 500; i < 1000; i++) {
+                db.lookupKey(sds("key:" + i));
+            }
+        }
+
+        long used = db.getUsedMemory();
+        long maxmemory = used * 6 / 10;
+        Evict evict = new Evict(config(maxmemory, ServerConfig.MAXMEMORY_ALLKEYS_LFU), databases);
+        Assert.assertEquals(Evict.EVICT_OK, evict.performEvictions());
+        Assert.assertTrue(db.getUsedMemory() <= maxmemory);
+
+        int hot = 0;
+        for (int i = 500; i < 1000; i++) {
+            if (db.exists(sds("key:" + i))) {
+                hot++;
+            }
+        }
+        Assert.assertTrue("hot keys kept: " + hot, hot >= 450);
+    }
+
+    @Test
+    public void testVolatileTtl() {
+        PandisDatabase db = new PandisDatabase(0);
+        PandisDatabase[] databases = { db };
+        for (int i = 0; i < 200; i++) {
+            db.setKey(sds("key:" + i), new StoreObject(ObjectType.STRING, sds("value:" + i)));
+        }
+        // 只有前100个键设置了过期时间
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(db.setExpire(sds("key:" + i), 1000 + i));
+        }
+
+        long used = db.getUsedMemory();
+        Evict evict = new Evict(config(used - 1, ServerConfig.MAXMEMORY_VOLATILE_TTL), databases);
+        Assert.assertEquals(Evict.EVICT_OK, evict.performEvictions());
+        Assert.assertEquals(1, evict.getEvictedKeys());
+        Assert.assertEquals(99, db.getExpires().size());
+
+        // 没有过期时间的键不会被淘汰，过期键都淘汰之后仍然超过maxmemory就失败
+        evict = new Evict(config(1, ServerConfig.MAXMEMORY_VOLATILE_TTL), databases);
+        Assert.assertEquals(Evict.EVICT_FAIL, evict.performEvictions());
+        Assert.assertEquals(0, db.getExpires().size());
+        Assert.assertEquals(100, db.size());
+        for (int i = 100; i < 200; i++) {
+            Assert.assertTrue(db.exists(sds("key:" + i)));
+        }
+    }
+
+    @Test
+    public void testRandomAndNoEviction() {
+        PandisDatabase[] databases = { new PandisDatabase(0), new PandisDatabase(1) };
+        for (int i = 0; i < 200; i++) {
+            databases[i % 2].setKey(sds("key:" + i), new StoreObject(ObjectType.STRING, sds("value:" + i)));
+        }
+
+        long used = databases[0].getUsedMemory() + databases[1].getUsedMemory();
+        Evict evict = new Evict(config(used / 2, ServerConfig.MAXMEMORY_NO_EVICTION), databases);
+        Assert.assertEquals(Evict.EVICT_FAIL, evict.performEvictions());
+        Assert.assertEquals(200, databases[0].size() + databases[1].size());
+
+        evict = new Evict(config(used / 2, ServerConfig.MAXMEMORY_ALLKEYS_RANDOM), databases);
+        Assert.assertEquals(Evict.EVICT_OK, evict.performEvictions());
+        Assert.assertTrue(evict.getUsedMemory() <= used / 2);
+        // 各个数据库轮流淘汰
+        Assert.assertTrue(databases[0].size() < 100 && databases[1].size() < 100);
+    }
+
+    @Test
+    public void testLfuCounter() {
+        // 计数器按对数增长，访问一万次之后远远小于255
+        int counter = StoreObject.LFU_INIT_VAL;
+        for (int i = 0; i < 10000; i++) {
+            counter = Evict.lfuLogIncr(counter, ServerConfig.DEFAULT_LFU_LOG_FACTOR);
+        }
+        Assert.assertTrue(counter > StoreObject.LFU_INIT_VAL && counter < 255);
+        Assert.assertEquals(255, Evict.lfuLogIncr(255, ServerConfig.DEFAULT_LFU_LOG_FACTOR));
+
+        // 空闲3分钟，每分钟衰减1
+        long now = System.currentTimeMillis();
+        StoreObject.setLfuEnabled(true);
+        StoreObject.updateLruClock(now - 3 * 60 * 1000);
+        StoreObject o = new StoreObject(ObjectType.STRING, sds("value"));
+        o.updateLfu(10);
+        StoreObject.updateLruClock(now);
+        Assert.assertEquals(7, Evict.lfuDecrAndReturn(o, 1));
+        Assert.assertEquals(10, Evict.lfuDecrAndReturn(o, 0));
+    }
+
+    private static ServerConfig config(long maxmemory, int policy) {
+        return ServerConfig.build(new ServerConfig.ServerConfigBuilder()
+                .setMaxmemory(maxmemory)
+                .setMaxmemoryPolicy(policy));
+    }
+
+    private static Sds sds(String str) {
+        return Sds.createSds(str.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,208 @@
+package server;
+
+import client.PandisClient;
+import client.StubSocketChannel;
+import junit.framework.Assert;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import server.config.ServerConfig;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class TestIOThreads {
+    private static final int THREADS_NUM = 4;
+
+    private PandisServer server;
+    private Reactor reactor;
+
+    @Before
+    public void createServer() {
+        this.server = PandisServer.createServer(ServerConfig.build(new ServerConfig.ServerConfigBuilder()
+                .setIoThreadsNum(THREADS_NUM)
+                .setIoThreadsDoReads(true)));
+        this.reactor = this.server.getReactors()[0];
+    }
+
+    @After
+    public void shutdownServer() {
+        this.server.shutdown();
+    }
+
+    @Test(timeout = 10000)
+    public void testProcessInline() {
+        IOThreads ioThreads = new IOThreads(THREADS_NUM);
+        try {
+            // 客户端少于2 * 线程数时，全部在主线程中处理
+            List<StubSocketChannel> channels = new ArrayList<>();
+            List<PandisClient> clients = createClients(THREADS_NUM * 2 - 1, channels);
+            ioThreads.process(clients, IOThreads.IO_THREADS_OP_READ);
+
+            for (int i = 0; i < clients.size(); i++) {
+                Assert.assertSame(Thread.currentThread(), channels.get(i).getReadThread());
+                Assert.assertTrue(clients.get(i).hasFlags(PandisClient.CLIENT_PENDING_COMMAND));
+            }
+        } finally {
+            ioThreads.shutdown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testProcessOnIOThreads() {
+        IOThreads ioThreads = new IOThreads(THREADS_NUM);
+        try {
+            List<StubSocketChannel> channels = new ArrayList<>();
+            List<PandisClient> clients = createClients(THREADS_NUM * 4, channels);
+            ioThreads.process(clients, IOThreads.IO_THREADS_OP_READ);
+
+            // 客户端按轮询分配给各个线程，主线程也处理其中一份
+            Set<Thread> threads = new HashSet<>();
+            for (StubSocketChannel channel : channels) {
+                threads.add(channel.getReadThread());
+            }
+            Assert.assertEquals(THREADS_NUM, threads.size());
+            Assert.assertTrue(threads.contains(Thread.currentThread()));
+
+            // IO线程只解析出第一条命令，交给主线程执行，流水线中的第二条命令还留在查询缓冲区中
+            for (PandisClient client : clients) {
+                Assert.assertTrue(client.hasFlags(PandisClient.CLIENT_PENDING_COMMAND));
+                Assert.assertEquals(3, client.getArgc());
+                Assert.assertEquals("SET", client.getArgv()[0].toString());
+                Assert.assertTrue(client.getQueryBufferPos() < client.getQueryBuffer().getLen());
+                Assert.assertTrue(client.isReplyEmpty());
+            }
+        } finally {
+            ioThreads.shutdown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testHandleClientsWithPendingReads() {
+        List<StubSocketChannel> channels = new ArrayList<>();
+        List<PandisClient> clients = createClients(THREADS_NUM * 4, channels);
+        for (PandisClient client : clients) {
+            Assert.assertTrue(this.server.postponeClientRead(client));
+            Assert.assertFalse(this.server.postponeClientRead(client));
+        }
+
+        Assert.assertEquals(clients.size(), this.server.handleClientsWithPendingReadsUsingThreads());
+
+        for (int i = 0; i < clients.size(); i++) {
+            PandisClient client = clients.get(i);
+            // IO线程交回的命令和流水线中剩下的命令都已经在主线程中执行
+            Assert.assertFalse(client.hasFlags(PandisClient.CLIENT_PENDING_READ));
+            Assert.assertFalse(client.hasFlags(PandisClient.CLIENT_PENDING_COMMAND));
+            Assert.assertEquals(0, client.getQueryBuffer().getLen());
+            // 回复已经加入反应堆的等待写队列
+            Assert.assertTrue(client.hasFlags(PandisClient.CLIENT_PENDING_WRITE));
+        }
+
+        this.reactor.handleClientsWithPendingWrites(null);
+        for (int i = 0; i < clients.size(); i++) {
+            Assert.assertFalse(clients.get(i).hasFlags(PandisClient.CLIENT_PENDING_WRITE));
+            Assert.assertEquals("+OK\r\n$" + ("v" + i).length() + "\r\nv" + i + "\r\n",
+                    channels.get(i).getWrittenString());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testCloseAsapClients() {
+        List<StubSocketChannel> channels = new ArrayList<>();
+        List<PandisClient> clients = createClients(THREADS_NUM * 4, channels);
+
+        // 对端关闭连接的客户端，以及在主线程和IO线程中读取时出现程序错误的客户端
+        StubSocketChannel closed = new StubSocketChannel();
+        closed.setEndOfStream();
+        clients.set(2, createClient(closed));
+        channels.set(2, closed);
+        for (int i : new int[] {4, 5}) {
+            StubSocketChannel failed = new StubSocketChannel();
+            failed.setReadFailure(new IllegalStateException("broken client " + i));
+            clients.set(i, createClient(failed));
+            channels.set(i, failed);
+        }
+
+        for (PandisClient client : clients) {
+            this.server.postponeClientRead(client);
+        }
+        int connections = this.reactor.getConnections();
+        this.server.handleClientsWithPendingReadsUsingThreads();
+        this.reactor.handleClientsWithPendingWrites(null);
+
+        for (int i = 0; i < clients.size(); i++) {
+            if (i == 2 || i == 4 || i == 5) {
+                // 由主线程关闭，不会执行命令
+                Assert.assertFalse(channels.get(i).isOpen());
+                Assert.assertTrue(clients.get(i).isReplyEmpty());
+                Assert.assertEquals(0, channels.get(i).getWritten().length);
+            } else {
+                Assert.assertTrue(channels.get(i).isOpen());
+                Assert.assertTrue(channels.get(i).getWrittenString().startsWith("+OK\r\n"));
+            }
+        }
+        Assert.assertEquals(connections - 3, this.reactor.getConnections());
+    }
+
+    @Test(timeout = 10000)
+    public void testReplyDuringPendingRead() {
+        IOThreads ioThreads = new IOThreads(THREADS_NUM);
+        try {
+            // IO线程中发生协议错误时就会产生回复，此时不能访问反应堆，不会加入等待写队列
+            StubSocketChannel channel = new StubSocketChannel().addRead("*abc\r\n");
+            PandisClient client = createClient(channel);
+            client.addFlags(PandisClient.CLIENT_PENDING_READ);
+            List<PandisClient> clients = new ArrayList<>();
+            clients.add(client);
+            ioThreads.process(clients, IOThreads.IO_THREADS_OP_READ);
+
+            Assert.assertFalse(client.isReplyEmpty());
+            Assert.assertTrue(client.hasFlags(PandisClient.CLIENT_CLOSE_AFTER_REPLY));
+            Assert.assertFalse(client.hasFlags(PandisClient.CLIENT_PENDING_WRITE));
+        } finally {
+            ioThreads.shutdown();
+        }
+
+        // 主线程在IO线程处理完之后为有回复的客户端安装写处理器，回复发送之后关闭客户端
+        StubSocketChannel channel = new StubSocketChannel().addRead("*abc\r\n");
+        PandisClient client = createClient(channel);
+        Assert.assertTrue(this.server.postponeClientRead(client));
+        this.server.handleClientsWithPendingReadsUsingThreads();
+        Assert.assertTrue(client.hasFlags(PandisClient.CLIENT_PENDING_WRITE));
+        Assert.assertTrue(channel.isOpen());
+
+        this.reactor.handleClientsWithPendingWrites(null);
+        Assert.assertEquals("-ERR Protocol error: invalid multibulk length\r\n", channel.getWrittenString());
+        Assert.assertFalse(channel.isOpen());
+    }
+
+    /**
+     * 创建count个客户端，第i个客户端的套接字中有两条流水线命令：SET ki vi、GET ki
+     */
+    private List<PandisClient> createClients(int count, List<StubSocketChannel> channels) {
+        List<PandisClient> clients = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String key = "k" + i;
+            String value = "v" + i;
+            StubSocketChannel channel = new StubSocketChannel().addRead(
+                    "*3\r\n$3\r\nSET\r\n$" + key.length() + "\r\n" + key + "\r\n$" + value.length() + "\r\n" + value + "\r\n"
+                    + "*2\r\n$3\r\nGET\r\n$" + key.length() + "\r\n" + key + "\r\n");
+            channels.add(channel);
+            clients.add(createClient(channel));
+        }
+        return clients;
+    }
+
+    private PandisClient createClient(StubSocketChannel channel) {
+        PandisClient client = PandisClient.createClient(channel, this.reactor);
+        this.reactor.incrConnections();
+        this.reactor.addClient(client);
+        return client;
+    }
+}
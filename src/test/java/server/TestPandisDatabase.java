@@ -0,0 +1,188 @@
+package server;
+
+import common.store.ObjectEncoding;
+import common.store.ObjectType;
+import common.store.Sds;
+import common.store.StoreObject;
+import junit.framework.Assert;
+import org.junit.Test;
+import server.config.ServerConfig;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class TestPandisDatabase {
+    @Test
+    public void testLookupKey() {
+        PandisDatabase db = new PandisDatabase(0);
+        for (int i = 0; i < 10000; i++) {
+            db.setKey(sds("key:" + i), new StoreObject(ObjectType.STRING, sds("value:" + i)));
+        }
+        Assert.assertEquals(10000, db.size());
+
+        // 用新解析出的、容量不同的Sds查找，只要内容相同就能找到
+        for (int i = 0; i < 10000; i += 7) {
+            Sds key = Sds.createSds(32, ("key:" + i).getBytes(StandardCharsets.UTF_8));
+            StoreObject value = db.lookupKey(key);
+            Assert.assertNotNull(value);
+            Assert.assertEquals("value:" + i, value.toString());
+
+            // 更新访问时间不影响值的相等性
+            StoreObject other = new StoreObject(ObjectType.STRING, sds("value:" + i));
+            value.updateLastVisitTime();
+            Assert.assertEquals(other, value);
+            Assert.assertEquals(other.hashCode(), value.hashCode());
+        }
+
+        Assert.assertNull(db.lookupKey(sds("key:10000")));
+        Assert.assertEquals(1, db.delete(sds("key:0")));
+        Assert.assertEquals(0, db.delete(sds("key:0")));
+        Assert.assertFalse(db.exists(sds("key:0")));
+        Assert.assertTrue(db.exists(sds("key:1")));
+    }
+
+    @Test
+    public void testLruClock() {
+        PandisDatabase db = new PandisDatabase(0);
+        long now = System.currentTimeMillis();
+        StoreObject.updateLruClock(now);
+        db.setKey(sds("key"), new StoreObject(ObjectType.STRING, sds("value")));
+        StoreObject value = db.lookupKey(sds("key"));
+        Assert.assertEquals(StoreObject.getLruClock(), value.getLru());
+        Assert.assertEquals(ObjectType.STRING, value.getType());
+        Assert.assertEquals(ObjectEncoding.RAW, value.getEncoding());
+
+        // 时钟前进之后，没有被访问的对象空闲时间增加，访问之后空闲时间清零
+        StoreObject.updateLruClock(now + 10 * StoreObject.LRU_CLOCK_RESOLUTION);
+        Assert.assertEquals(10L * StoreObject.LRU_CLOCK_RESOLUTION, value.estimateIdleTime());
+        db.lookupKey(sds("key"));
+        Assert.assertEquals(0, value.estimateIdleTime());
+
+        // LOOKUP_NOTOUCH不更新访问时间
+        StoreObject.updateLruClock(now + 20 * StoreObject.LRU_CLOCK_RESOLUTION);
+        Assert.assertSame(value, db.lookupKey(sds("key"), PandisDatabase.LOOKUP_NOTOUCH));
+        Assert.assertEquals(10L * StoreObject.LRU_CLOCK_RESOLUTION, value.estimateIdleTime());
+        db.lookupKey(sds("key"));
+        Assert.assertEquals(0, value.estimateIdleTime());
+
+        // 修改编码不影响其他字段
+        value.setEncoding(ObjectEncoding.INT);
+        Assert.assertEquals(ObjectEncoding.INT, value.getEncoding());
+        Assert.assertEquals(StoreObject.getLruClock(), value.getLru());
+        Assert.assertEquals(ObjectType.STRING, value.getType());
+
+        StoreObject.updateLruClock(System.currentTimeMillis());
+    }
+
+    @Test
+    public void testLfuField() {
+        long now = System.currentTimeMillis();
+        StoreObject.updateLruClock(now);
+        StoreObject.setLfuEnabled(true);
+        try {
+            // LFU模式下新对象的计数器从LFU_INIT_VAL开始
+            PandisDatabase db = new PandisDatabase(0, ServerConfig.build(new ServerConfig.ServerConfigBuilder()
+                    .setMaxmemoryPolicy(ServerConfig.MAXMEMORY_ALLKEYS_LFU)));
+            db.setKey(sds("key"), new StoreObject(ObjectType.LIST, sds("value")));
+            StoreObject value = db.lookupKey(sds("key"), PandisDatabase.LOOKUP_NOTOUCH);
+            Assert.assertEquals(StoreObject.LFU_INIT_VAL, value.getLfuCounter());
+            Assert.assertEquals(0, value.getLfuElapsedMinutes());
+
+            // 修改计数器不影响类型和编码，并且记录当前的分钟时间
+            StoreObject.updateLruClock(now + 5 * 60 * 1000);
+            Assert.assertEquals(5, value.getLfuElapsedMinutes());
+            value.updateLfu(255);
+            Assert.assertEquals(255, value.getLfuCounter());
+            Assert.assertEquals(0, value.getLfuElapsedMinutes());
+            Assert.assertEquals(ObjectType.LIST, value.getType());
+            Assert.assertEquals(ObjectEncoding.QUICKLIST, value.getEncoding());
+
+            // 访问之后计数器只会先衰减再增长，不会超过255
+            db.lookupKey(sds("key"));
+            Assert.assertEquals(255, value.getLfuCounter());
+        } finally {
+            StoreObject.setLfuEnabled(false);
+            StoreObject.updateLruClock(System.currentTimeMillis());
+        }
+    }
+
+    @Test
+    public void testUsedMemory() {
+        PandisDatabase db = new PandisDatabase(0);
+        Assert.assertEquals(0, db.getUsedMemory());
+
+        db.setKey(sds("key"), new StoreObject(ObjectType.STRING, sds("value")));
+        long oneKey = db.getUsedMemory();
+        Assert.assertTrue(oneKey > 0);
+
+        // 覆盖写入只计算值的变化
+        db.setKey(sds("key"), new StoreObject(ObjectType.STRING, sds("a longer value")));
+        Assert.assertEquals(oneKey + "a longer value".length() - "value".length(), db.getUsedMemory());
+
+        // 设置过期时间会增加过期字典的内存，删除键时一起删除
+        long beforeExpire = db.getUsedMemory();
+        Assert.assertTrue(db.setExpire(sds("key"), 1000));
+        Assert.assertTrue(db.getUsedMemory() > beforeExpire);
+        Assert.assertEquals(1000, db.getExpire(sds("key")));
+        Assert.assertFalse(db.setExpire(sds("missing"), 1000));
+
+        Assert.assertEquals(1, db.delete(sds("key")));
+        Assert.assertEquals(0, db.getUsedMemory());
+        Assert.assertEquals(0, db.getExpires().size());
+        Assert.assertEquals(-1, db.getExpire(sds("key")));
+    }
+
+    @Test
+    public void testLazyExpire() {
+        PandisDatabase db = new PandisDatabase(0);
+        long now = System.currentTimeMillis();
+        db.setKey(sds("expired"), new StoreObject(ObjectType.STRING, sds("value")));
+        db.setKey(sds("alive"), new StoreObject(ObjectType.STRING, sds("value")));
+        Assert.assertTrue(db.setExpire(sds("expired"), now - 1));
+        Assert.assertTrue(db.setExpire(sds("alive"), now + 60_000));
+
+        // 过期的键在访问时被删除
+        Assert.assertNull(db.lookupKey(sds("expired")));
+        Assert.assertFalse(db.exists(sds("expired")));
+        Assert.assertEquals(1, db.getExpiredKeys());
+        Assert.assertNotNull(db.lookupKey(sds("alive")));
+
+        // 重新设置值会移除过期时间
+        db.setKey(sds("alive"), new StoreObject(ObjectType.STRING, sds("other")));
+        Assert.assertEquals(-1, db.getExpire(sds("alive")));
+        Assert.assertEquals(0, db.getExpires().size());
+    }
+
+    @Test
+    public void testActiveExpireCycle() {
+        PandisDatabase db = new PandisDatabase(0);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 10000; i++) {
+            db.setKey(sds("key:" + i), new StoreObject(ObjectType.STRING, sds("value:" + i)));
+            // 90%的键已经过期
+            db.setExpire(sds("key:" + i), i % 10 == 0 ? now + 60_000 : now - 1);
+        }
+
+        // 过期键比例高时一次执行会持续多轮，直到过期键的比例降到25%以下或者超时
+        int expired = 0;
+        for (int n = 0; n < 100 && db.getExpires().size() > 1000; n++) {
+            expired += db.activeExpireCycle(Long.MAX_VALUE);
+        }
+        Assert.assertEquals(10000 - db.size(), expired);
+        Assert.assertEquals(expired, db.getExpiredKeys());
+        Assert.assertTrue(db.size() < 1500);
+        Assert.assertTrue(db.getAvgTtl() > 0);
+
+        // 未过期的键都被保留
+        for (int i = 0; i < 10000; i += 10) {
+            Assert.assertTrue(db.exists(sds("key:" + i)));
+        }
+    }
+
+    private static Sds sds(String str) {
+        return Sds.createSds(str.getBytes(StandardCharsets.UTF_8));
+    }
+}
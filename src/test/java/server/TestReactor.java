@@ -0,0 +1,263 @@
+package server;
+
+import client.PandisClient;
+import client.StubSocketChannel;
+import common.store.Sds;
+import event.handler.ReadQueryFromClientHandler;
+import event.handler.SendApplyToClientHandler;
+import junit.framework.Assert;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import server.config.ServerConfig;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class TestReactor {
+    private PandisServer server;
+    private Reactor reactor;
+    private ServerSocketChannel listener;
+    // 每个连接的对端，测试结束时关闭
+    private final List<SocketChannel> peers = new ArrayList<>();
+
+    @Before
+    public void createServer() throws IOException {
+        this.server = PandisServer.createServer(ServerConfig.build());
+        this.reactor = this.server.getReactors()[0];
+        this.listener = ServerSocketChannel.open();
+        this.listener.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+    }
+
+    @After
+    public void shutdownServer() throws IOException {
+        for (SocketChannel peer : this.peers) {
+            peer.close();
+        }
+        this.listener.close();
+        this.server.shutdown();
+    }
+
+    @Test
+    public void testFullWriteLeavesWriteEventUnarmed() throws IOException {
+        PandisClient client = connectClient();
+        SelectionKey key = keyOf(client);
+
+        client.addReply("+OK\r\n".getBytes(StandardCharsets.UTF_8));
+        Assert.assertTrue(client.hasFlags(PandisClient.CLIENT_PENDING_WRITE));
+        Assert.assertEquals(1, this.reactor.handleClientsWithPendingWrites(null));
+        Assert.assertTrue(client.isReplyEmpty());
+        Assert.assertEquals(SelectionKey.OP_READ, key.interestOps());
+        Assert.assertEquals("+OK\r\n", readPeer(5));
+
+        // 之前监听了写事件的客户端，回复全部写完之后取消监听
+        this.reactor.getEventLoop().registerFileEvent(client.getSocketChannel(), SelectionKey.OP_WRITE,
+                SendApplyToClientHandler.getHandler(), client);
+        client.addReply("+PONG\r\n".getBytes(StandardCharsets.UTF_8));
+        this.reactor.handleClientsWithPendingWrites(null);
+        Assert.assertEquals(SelectionKey.OP_READ, key.interestOps());
+        Assert.assertEquals("+PONG\r\n", readPeer(7));
+    }
+
+    @Test
+    public void testPartialWriteArmsWriteEvent() throws IOException {
+        PandisClient client = connectClient();
+        SelectionKey key = keyOf(client);
+
+        // 一次最多写MAX_WRITE_PER_EVENT字节，更大的回复不能在beforeSleep中写完
+        client.addReplyBulk(new byte[PandisClient.MAX_WRITE_PER_EVENT * 4], 0, PandisClient.MAX_WRITE_PER_EVENT * 4);
+        this.reactor.handleClientsWithPendingWrites(null);
+        Assert.assertFalse(client.isReplyEmpty());
+        Assert.assertFalse(client.hasFlags(PandisClient.CLIENT_PENDING_WRITE));
+        Assert.assertEquals(SelectionKey.OP_READ | SelectionKey.OP_WRITE, key.interestOps());
+    }
+
+    @Test
+    public void testCloseAfterReply() throws IOException {
+        // 回复没有写完时不能关闭
+        PandisClient slow = connectClient();
+        slow.addReplyBulk(new byte[PandisClient.MAX_WRITE_PER_EVENT * 4], 0, PandisClient.MAX_WRITE_PER_EVENT * 4);
+        slow.addFlags(PandisClient.CLIENT_CLOSE_AFTER_REPLY);
+
+        // 回复全部写完之后关闭
+        PandisClient fast = connectClient();
+        fast.addReply("-ERR Protocol error\r\n".getBytes(StandardCharsets.UTF_8));
+        fast.addFlags(PandisClient.CLIENT_CLOSE_AFTER_REPLY);
+
+        Assert.assertEquals(2, this.reactor.getConnections());
+        Assert.assertEquals(2, this.reactor.handleClientsWithPendingWrites(null));
+
+        Assert.assertTrue(slow.getSocketChannel().isOpen());
+        Assert.assertFalse(slow.isReplyEmpty());
+        Assert.assertFalse(fast.getSocketChannel().isOpen());
+        Assert.assertEquals(1, this.reactor.getConnections());
+    }
+
+    @Test
+    public void testPendingWriteQueuedOnce() throws IOException {
+        PandisClient client = connectClient();
+
+        // 已经在等待写队列中的客户端不会重复加入
+        client.addReply("+A\r\n".getBytes(StandardCharsets.UTF_8));
+        client.addReply("+B\r\n".getBytes(StandardCharsets.UTF_8));
+        client.installWriteHandler();
+        Assert.assertEquals(1, this.reactor.handleClientsWithPendingWrites(null));
+        Assert.assertFalse(client.hasFlags(PandisClient.CLIENT_PENDING_WRITE));
+        Assert.assertEquals(0, this.reactor.handleClientsWithPendingWrites(null));
+
+        // 标志清除之后，新的回复会让客户端再次加入队列
+        client.addReply("+C\r\n".getBytes(StandardCharsets.UTF_8));
+        Assert.assertTrue(client.hasFlags(PandisClient.CLIENT_PENDING_WRITE));
+        Assert.assertEquals(1, this.reactor.handleClientsWithPendingWrites(null));
+        Assert.assertEquals("+A\r\n+B\r\n+C\r\n", readPeer(12));
+    }
+
+    @Test
+    public void testPipelineInOneEvent() {
+        StubSocketChannel channel = new StubSocketChannel();
+        PandisClient client = createStubClient(channel);
+        StringBuilder pipeline = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            pipeline.append(set("k" + i, "v" + i));
+        }
+        // 最后一条命令只收到了一部分
+        String partial = "*3\r\n$3\r\nSET\r\n$2\r\nk1";
+        channel.addRead(pipeline + partial);
+
+        Assert.assertTrue(client.readSocketData() > 0);
+        client.processInputBuffer();
+
+        // 一次读取中所有完整的命令都已经执行，不需要留到下一轮
+        Assert.assertEquals(10, this.server.getDatabases()[0].size());
+        Assert.assertFalse(client.hasFlags(PandisClient.CLIENT_PENDING_INPUT));
+        Assert.assertEquals(0, this.reactor.handleClientsWithPendingInput());
+
+        // 已解析的内容在这批命令执行完之后一起删除，只剩下不完整的命令，参数切片和解析位置相应地移动
+        Assert.assertEquals("SET\r\n$2\r\nk1", client.getQueryBuffer().toString());
+        Assert.assertEquals(9, client.getQueryBufferPos());
+        Assert.assertEquals(0, client.getArgvOffset(0));
+
+        this.reactor.handleClientsWithPendingWrites(null);
+        Assert.assertEquals(repeat("+OK\r\n", 10), channel.getWrittenString());
+    }
+
+    @Test
+    public void testRebaseArgvSlicesAfterTrim() {
+        StubSocketChannel channel = new StubSocketChannel();
+        PandisClient client = createStubClient(channel);
+        // 最后一条命令已经解析出两个参数，第三个参数还没有收到
+        channel.addRead(set("a", "1") + "*3\r\n$3\r\nSET\r\n$1\r\nb\r\n$1");
+
+        client.readSocketData();
+        client.processInputBuffer();
+        Assert.assertEquals("SET\r\n$1\r\nb\r\n$1", client.getQueryBuffer().toString());
+        Assert.assertEquals(0, client.getArgvOffset(0));
+        Assert.assertEquals(9, client.getArgvOffset(1));
+
+        // 剩下的内容到达之后，移动过的参数切片仍然指向正确的内容
+        channel.addRead("\r\n2\r\n");
+        client.readSocketData();
+        client.processInputBuffer();
+        Assert.assertEquals(0, client.getQueryBuffer().getLen());
+        Assert.assertEquals("2", this.server.getDatabases()[0].lookupKey(Sds.createSds("b".getBytes(StandardCharsets.UTF_8))).toString());
+    }
+
+    @Test
+    public void testCommandsBudgetPerEvent() {
+        StubSocketChannel channel = new StubSocketChannel();
+        PandisClient client = createStubClient(channel);
+        int total = PandisClient.MAX_COMMANDS_PER_EVENT + 100;
+        StringBuilder pipeline = new StringBuilder();
+        for (int i = 0; i < total; i++) {
+            pipeline.append(set("key:" + i, "v"));
+        }
+        channel.addRead(pipeline.toString());
+        while (client.getQueryBuffer().getLen() < pipeline.length()) {
+            Assert.assertTrue(client.readSocketData() > 0);
+        }
+
+        // 一轮最多执行MAX_COMMANDS_PER_EVENT条命令，剩下的命令留在查询缓冲区中，客户端加入等待处理队列
+        client.processInputBuffer();
+        PandisDatabase db = this.server.getDatabases()[0];
+        Assert.assertEquals(PandisClient.MAX_COMMANDS_PER_EVENT, db.size());
+        Assert.assertTrue(client.hasFlags(PandisClient.CLIENT_PENDING_INPUT));
+        Assert.assertEquals(0, client.getQueryBufferPos());
+        Assert.assertEquals(100 * set("key:1000", "v").length(), client.getQueryBuffer().getLen());
+
+        // beforeSleep中执行剩下的命令，然后一起写出全部回复
+        this.server.beforeSleep(this.reactor.getEventLoop());
+        Assert.assertEquals(total, db.size());
+        Assert.assertFalse(client.hasFlags(PandisClient.CLIENT_PENDING_INPUT));
+        Assert.assertEquals(0, client.getQueryBuffer().getLen());
+        Assert.assertEquals(0, this.reactor.handleClientsWithPendingInput());
+        Assert.assertEquals(repeat("+OK\r\n", total), channel.getWrittenString());
+    }
+
+    /**
+     * 建立一个本地连接，服务端的一侧作为客户端加入反应堆，并且和服务器一样监听读事件
+     */
+    private PandisClient connectClient() throws IOException {
+        SocketChannel peer = SocketChannel.open(this.listener.socket().getLocalSocketAddress());
+        this.peers.add(peer);
+        SocketChannel channel = this.listener.accept();
+        channel.configureBlocking(false);
+
+        PandisClient client = PandisClient.createClient(channel, this.reactor);
+        this.reactor.incrConnections();
+        this.reactor.addClient(client);
+        this.reactor.getEventLoop().registerFileEvent(channel, SelectionKey.OP_READ,
+                ReadQueryFromClientHandler.getHandler(), client);
+        return client;
+    }
+
+    private SelectionKey keyOf(PandisClient client) {
+        return client.getSocketChannel().keyFor(this.reactor.getEventLoop().getSelector());
+    }
+
+    /**
+     * 从最近建立的连接的对端读取len字节
+     */
+    private String readPeer(int len) throws IOException {
+        SocketChannel peer = this.peers.get(this.peers.size() - 1);
+        ByteBuffer buf = ByteBuffer.allocate(len);
+        while (buf.hasRemaining()) {
+            if (peer.read(buf) == -1) {
+                break;
+            }
+        }
+        return new String(buf.array(), 0, buf.position(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 创建一个使用测试套接字的客户端，不注册到选择器上
+     */
+    private PandisClient createStubClient(StubSocketChannel channel) {
+        PandisClient client = PandisClient.createClient(channel, this.reactor);
+        this.reactor.incrConnections();
+        this.reactor.addClient(client);
+        return client;
+    }
+
+    private static String set(String key, String value) {
+        return "*3\r\n$3\r\nSET\r\n$" + key.length() + "\r\n" + key + "\r\n$" + value.length() + "\r\n" + value + "\r\n";
+    }
+
+    private static String repeat(String s, int times) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+}
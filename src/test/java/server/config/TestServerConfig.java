@@ -1,5 +1,6 @@
 package server.config;
 
+import junit.framework.Assert;
 import org.junit.Test;
 
 /**
@@ -22,6 +23,17 @@ public class TestServerConfig {
         config.loadConfigFromString(conf);
     }
 
+    @Test
+    public void testLoadReactorConfig() {
+        ServerConfig config = ServerConfig.build();
+        Assert.assertEquals(ServerConfig.DEFAULT_REACTOR_THREADS_NUM, config.getReactorThreadsNum());
+        Assert.assertEquals(ServerConfig.REACTOR_BALANCE_ROUND_ROBIN, config.getReactorBalance());
+
+        config.loadConfigFromString("reactor-threads 4\nreactor-balance least-connections\n");
+        Assert.assertEquals(4, config.getReactorThreadsNum());
+        Assert.assertEquals(ServerConfig.REACTOR_BALANCE_LEAST_CONNECTIONS, config.getReactorBalance());
+    }
+
     @Test
     public void testLoadConfigFromFile() {
         String file = "pandis.conf";
@@ -0,0 +1,63 @@
+package utils;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * @author: huzihan
+ * @create: 2026-10-18
+ */
+public class TestLzf {
+    @Test
+    public void testRoundTrip() {
+        Random random = new Random(11);
+        for (int n = 0; n < 200; n++) {
+            int len = random.nextInt(20000);
+            byte[] in = new byte[len];
+            // 随机数据和重复内容混合
+            for (int i = 0; i < len; i++) {
+                in[i] = (byte) (random.nextInt(4) == 0 ? random.nextInt(256) : 'a' + i % 7);
+            }
+
+            byte[] out = new byte[len + len / 16 + 64];
+            int compressedLen = Lzf.compress(in, len, out, out.length);
+            if (len == 0) {
+                Assert.assertEquals(0, compressedLen);
+                continue;
+            }
+            Assert.assertTrue(compressedLen > 0);
+
+            byte[] back = new byte[len];
+            Assert.assertEquals(len, Lzf.decompress(out, compressedLen, back, back.length));
+            Assert.assertTrue(Arrays.equals(in, back));
+        }
+    }
+
+    @Test
+    public void testCompressRatio() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append("item:").append(i);
+        }
+        byte[] in = sb.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] out = new byte[in.length];
+        int compressedLen = Lzf.compress(in, in.length, out, out.length);
+        Assert.assertTrue(compressedLen > 0 && compressedLen < in.length * 2 / 3);
+
+        // 输出空间不够时返回0
+        Random random = new Random(3);
+        byte[] noise = new byte[1000];
+        random.nextBytes(noise);
+        Assert.assertEquals(0, Lzf.compress(noise, noise.length, out, noise.length / 2));
+
+        // 输出空间不够或者数据损坏时解压返回0
+        byte[] back = new byte[in.length - 1];
+        Assert.assertEquals(0, Lzf.decompress(out, compressedLen, back, back.length));
+        byte[] bad = {(byte) 0xe0, 0x10, 0x00};
+        Assert.assertEquals(0, Lzf.decompress(bad, bad.length, back, back.length));
+    }
+}
@@ -1,5 +1,6 @@
 package utils;
 
+import junit.framework.Assert;
 import org.junit.Test;
 
 import java.util.Arrays;
@@ -49,4 +50,62 @@ public class TestStringUtil {
         System.out.println(res1);
 
     }
+
+    @Test
+    public void testParseLong() {
+        Assert.assertEquals(0, parse("0"));
+        Assert.assertEquals(123, parse("123"));
+        Assert.assertEquals(-45, parse("-45"));
+        Assert.assertEquals(Long.MAX_VALUE, parse("9223372036854775807"));
+        Assert.assertEquals(Long.MIN_VALUE, parse("-9223372036854775808"));
+
+        String[] invalid = {"", "-", "+1", "01", " 1", "1a", "9223372036854775808", "-9223372036854775809"};
+        for (String str : invalid) {
+            try {
+                parse(str);
+                Assert.fail("'" + str + "' should not be parsed");
+            } catch (NumberFormatException e) {
+                // expected
+            }
+        }
+
+        // 只解析指定范围内的字节
+        byte[] buf = "*12\r\n".getBytes();
+        Assert.assertEquals(12, StringUtil.parseLong(buf, 1, 3));
+    }
+
+    @Test
+    public void testLl2string() {
+        long[] values = {0, 7, -7, 10, 123456789, -100, Long.MAX_VALUE, Long.MIN_VALUE};
+        byte[] buf = new byte[24];
+        for (long value : values) {
+            int len = StringUtil.ll2string(value, buf, 2);
+            Assert.assertEquals(String.valueOf(value), new String(buf, 2, len));
+            Assert.assertEquals(value, StringUtil.parseLong(buf, 2, 2 + len));
+        }
+    }
+
+    @Test
+    public void testMemtoll() {
+        Assert.assertEquals(100, StringUtil.memtoll("100"));
+        Assert.assertEquals(100, StringUtil.memtoll("100b"));
+        Assert.assertEquals(2000, StringUtil.memtoll("2k"));
+        Assert.assertEquals(2048, StringUtil.memtoll("2KB"));
+        Assert.assertEquals(100L * 1024 * 1024, StringUtil.memtoll("100mb"));
+        Assert.assertEquals(3L * 1024 * 1024 * 1024, StringUtil.memtoll("3gb"));
+
+        for (String invalid : new String[] {"", "mb", "10xb", "1.5gb"}) {
+            try {
+                StringUtil.memtoll(invalid);
+                Assert.fail("invalid memory " + invalid);
+            } catch (NumberFormatException e) {
+                // expected
+            }
+        }
+    }
+
+    private static long parse(String str) {
+        byte[] buf = str.getBytes();
+        return StringUtil.parseLong(buf, 0, buf.length);
+    }
 }